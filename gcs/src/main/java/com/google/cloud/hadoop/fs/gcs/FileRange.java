@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.fs.gcs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A byte range of a file requested by a vectored read, see {@link
+ * GoogleHadoopFSInputStream#readVectored}.
+ *
+ * <p>Mirrors the shape of the {@code org.apache.hadoop.fs.FileRange} interface that is not
+ * available in the Hadoop version this connector is built against.
+ */
+public class FileRange {
+
+  private final long offset;
+  private final int length;
+  private CompletableFuture<ByteBuffer> data;
+
+  public static FileRange createFileRange(long offset, int length) {
+    return new FileRange(offset, length);
+  }
+
+  private FileRange(long offset, int length) {
+    checkArgument(offset >= 0, "offset must be non-negative, but was %s", offset);
+    checkArgument(length >= 0, "length must be non-negative, but was %s", length);
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /** Returns the starting offset of the range. */
+  public long getOffset() {
+    return offset;
+  }
+
+  /** Returns the length of the range. */
+  public int getLength() {
+    return length;
+  }
+
+  /** Returns the future that is completed with the range data when it is read. */
+  public CompletableFuture<ByteBuffer> getData() {
+    return data;
+  }
+
+  /** Sets the future that is completed with the range data when it is read. */
+  public void setData(CompletableFuture<ByteBuffer> data) {
+    this.data = data;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("offset", offset).add("length", length).toString();
+  }
+}
@@ -63,6 +63,14 @@ interface GhfsInputStreamStatistics extends AutoCloseable, GhfsStatisticInterfac
    */
   void readOperationCompleted(int requested, int actual);
 
+  /**
+   * Record switches of the input stream access pattern in {@code AUTO} fadvise mode.
+   *
+   * @param sequentialToRandom number of switches from sequential to random access
+   * @param randomToSequential number of switches from random to sequential access
+   */
+  void fadviseTransitions(long sequentialToRandom, long randomToSequential);
+
   @Override
   void close();
 
@@ -102,6 +110,12 @@ interface GhfsInputStreamStatistics extends AutoCloseable, GhfsStatisticInterfac
   /** The total number of executed seek operations which went backward in an input stream. */
   long getBackwardSeekOperations();
 
+  /** The total number of input stream switches from sequential to random access. */
+  long getFadviseSequentialToRandomTransitions();
+
+  /** The total number of input stream switches from random to sequential access. */
+  long getFadviseRandomToSequentialTransitions();
+
   /**
    * Get the value of a counter.
    *
@@ -25,6 +25,8 @@ import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.INVOCATION_HFLUSH;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.INVOCATION_HSYNC;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_BYTES;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_CLOSE_OPERATIONS;
+import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_COMPOSE_OPERATIONS;
+import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_COMPOSITE_UPLOAD_PARTS;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_EXCEPTIONS;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_OPERATIONS;
 import static org.apache.hadoop.fs.statistics.IOStatisticsSupport.snapshotIOStatistics;
@@ -475,6 +477,8 @@ public class GhfsInstrumentation
     private final AtomicLong readsIncomplete;
     private final AtomicLong readOperations;
     private final AtomicLong seekOperations;
+    private final AtomicLong fadviseSequentialToRandomTransitions;
+    private final AtomicLong fadviseRandomToSequentialTransitions;
 
     /** Bytes read by the application and any when draining streams . */
     private final AtomicLong totalBytesRead;
@@ -496,7 +500,9 @@ public class GhfsInstrumentation
                   StreamStatisticNames.STREAM_READ_SEEK_FORWARD_OPERATIONS,
                   StreamStatisticNames.STREAM_READ_SEEK_BYTES_BACKWARDS,
                   StreamStatisticNames.STREAM_READ_SEEK_BYTES_SKIPPED,
-                  StreamStatisticNames.STREAM_READ_TOTAL_BYTES)
+                  StreamStatisticNames.STREAM_READ_TOTAL_BYTES,
+                  GhfsStatistic.STREAM_READ_FADVISE_SEQUENTIAL_TO_RANDOM.getSymbol(),
+                  GhfsStatistic.STREAM_READ_FADVISE_RANDOM_TO_SEQUENTIAL.getSymbol())
               .withDurationTracking(
                   GhfsStatistic.STREAM_READ_SEEK_OPERATIONS.getSymbol(),
                   GhfsStatistic.STREAM_READ_CLOSE_OPERATIONS.getSymbol(),
@@ -518,6 +524,12 @@ public class GhfsInstrumentation
       readOperations = st.getCounterReference(StreamStatisticNames.STREAM_READ_OPERATIONS);
       seekOperations = st.getCounterReference(StreamStatisticNames.STREAM_READ_SEEK_OPERATIONS);
       totalBytesRead = st.getCounterReference(StreamStatisticNames.STREAM_READ_TOTAL_BYTES);
+      fadviseSequentialToRandomTransitions =
+          st.getCounterReference(
+              GhfsStatistic.STREAM_READ_FADVISE_SEQUENTIAL_TO_RANDOM.getSymbol());
+      fadviseRandomToSequentialTransitions =
+          st.getCounterReference(
+              GhfsStatistic.STREAM_READ_FADVISE_RANDOM_TO_SEQUENTIAL.getSymbol());
       setIOStatistics(st);
       // create initial snapshot of merged statistics
       mergedStats = snapshotIOStatistics(st);
@@ -613,6 +625,13 @@ public class GhfsInstrumentation
       }
     }
 
+    /** Increments counters of the access pattern switches. */
+    @Override
+    public void fadviseTransitions(long sequentialToRandom, long randomToSequential) {
+      fadviseSequentialToRandomTransitions.addAndGet(sequentialToRandom);
+      fadviseRandomToSequentialTransitions.addAndGet(randomToSequential);
+    }
+
     /**
      * {@code close()} merges the stream statistics into the filesystem's instrumentation instance.
      * The filesystem statistics of {@link #filesystemStatistics} updated with the bytes read
@@ -659,6 +678,26 @@ public class GhfsInstrumentation
       return lookupCounterValue(StreamStatisticNames.STREAM_READ_SEEK_BACKWARD_OPERATIONS);
     }
 
+    /**
+     * The total number of input stream switches from sequential to random access.
+     *
+     * @return the number of switches to random access.
+     */
+    @Override
+    public long getFadviseSequentialToRandomTransitions() {
+      return lookupCounterValue(GhfsStatistic.STREAM_READ_FADVISE_SEQUENTIAL_TO_RANDOM.getSymbol());
+    }
+
+    /**
+     * The total number of input stream switches from random to sequential access.
+     *
+     * @return the number of switches to sequential access.
+     */
+    @Override
+    public long getFadviseRandomToSequentialTransitions() {
+      return lookupCounterValue(GhfsStatistic.STREAM_READ_FADVISE_RANDOM_TO_SEQUENTIAL.getSymbol());
+    }
+
     /**
      * The bytes read in read() operations.
      *
@@ -786,7 +825,11 @@ public class GhfsInstrumentation
       this.filesystemStatistics = filesystemStatistics;
       IOStatisticsStore st =
           iostatisticsStore()
-              .withCounters(STREAM_WRITE_BYTES.getSymbol(), STREAM_WRITE_EXCEPTIONS.getSymbol())
+              .withCounters(
+                  STREAM_WRITE_BYTES.getSymbol(),
+                  STREAM_WRITE_EXCEPTIONS.getSymbol(),
+                  STREAM_WRITE_COMPOSITE_UPLOAD_PARTS.getSymbol(),
+                  STREAM_WRITE_COMPOSE_OPERATIONS.getSymbol())
               .withDurationTracking(
                   STREAM_WRITE_CLOSE_OPERATIONS.getSymbol(),
                   STREAM_WRITE_OPERATIONS.getSymbol(),
@@ -845,6 +888,18 @@ public class GhfsInstrumentation
       incrementCounter(INVOCATION_HSYNC.getSymbol(), 1);
     }
 
+    /** A part of parallel composite upload has been uploaded. */
+    @Override
+    public void compositeUploadPartUploaded() {
+      incrementCounter(STREAM_WRITE_COMPOSITE_UPLOAD_PARTS.getSymbol(), 1);
+    }
+
+    /** Compose request has been issued by parallel composite upload. */
+    @Override
+    public void composeInvoked() {
+      incrementCounter(STREAM_WRITE_COMPOSE_OPERATIONS.getSymbol(), 1);
+    }
+
     /**
      * Get the current count of bytes written.
      *
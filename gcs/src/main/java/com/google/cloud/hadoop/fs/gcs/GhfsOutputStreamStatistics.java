@@ -64,4 +64,10 @@ interface GhfsOutputStreamStatistics extends Closeable, GhfsStatisticInterface {
 
   /** Syncable.hsync() has been invoked. */
   void hsyncInvoked();
+
+  /** A part of parallel composite upload has been uploaded. */
+  void compositeUploadPartUploaded();
+
+  /** Compose request has been issued by parallel composite upload. */
+  void composeInvoked();
 }
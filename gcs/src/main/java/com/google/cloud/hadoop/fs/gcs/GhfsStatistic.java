@@ -145,6 +145,14 @@ public enum GhfsStatistic {
       StreamStatisticNames.STREAM_READ_TOTAL_BYTES,
       "Total count of bytes read from an input stream",
       TYPE_COUNTER),
+  STREAM_READ_FADVISE_SEQUENTIAL_TO_RANDOM(
+      "stream_read_fadvise_sequential_to_random",
+      "Count of input stream switches from sequential to random access",
+      TYPE_COUNTER),
+  STREAM_READ_FADVISE_RANDOM_TO_SEQUENTIAL(
+      "stream_read_fadvise_random_to_sequential",
+      "Count of input stream switches from random to sequential access",
+      TYPE_COUNTER),
 
   /** Stream writes */
   STREAM_WRITE_EXCEPTIONS(
@@ -158,6 +166,14 @@ public enum GhfsStatistic {
   STREAM_WRITE_CLOSE_OPERATIONS(
       "stream_write_close_operations", "Calls of write stream close()", TYPE_DURATION),
   STREAM_WRITE_OPERATIONS("stream_write_operations", "Calls of write()", TYPE_DURATION),
+  STREAM_WRITE_COMPOSITE_UPLOAD_PARTS(
+      "stream_write_composite_upload_parts",
+      "Count of parts uploaded by parallel composite upload",
+      TYPE_COUNTER),
+  STREAM_WRITE_COMPOSE_OPERATIONS(
+      "stream_write_compose_operations",
+      "Count of compose requests issued by parallel composite upload",
+      TYPE_COUNTER),
 
   /** The XAttr API statistics */
   INVOCATION_XATTR_GET_MAP(
@@ -171,6 +187,28 @@ public enum GhfsStatistic {
       "Calls of getXAttrs(Path path, List<String> names)",
       TYPE_DURATION),
 
+  /** Process-wide block cache statistics */
+  BLOCK_CACHE_HITS(
+      "block_cache_hits", "Count of block reads served from the block cache", TYPE_COUNTER),
+  BLOCK_CACHE_MISSES(
+      "block_cache_misses", "Count of block reads fetched from GCS into block cache", TYPE_COUNTER),
+  BLOCK_CACHE_COALESCED_MISSES(
+      "block_cache_coalesced_misses",
+      "Count of block reads that waited for a concurrent fetch of the same block",
+      TYPE_COUNTER),
+  BLOCK_CACHE_EVICTIONS(
+      "block_cache_evictions", "Count of blocks evicted from the block cache", TYPE_COUNTER),
+
+  /** Process-wide hedged read statistics */
+  HEDGED_READS_ISSUED(
+      "hedged_reads_issued",
+      "Count of duplicate read requests issued because of slow responses",
+      TYPE_COUNTER),
+  HEDGED_READS_WON(
+      "hedged_reads_won",
+      "Count of duplicate read requests that responded before original requests",
+      TYPE_COUNTER),
+
   /** Delegation token operations */
   DELEGATION_TOKENS_ISSUED(
       StoreStatisticNames.DELEGATION_TOKENS_ISSUED,
@@ -24,33 +24,74 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Math.max;
 import static org.apache.hadoop.fs.statistics.impl.IOStatisticsBinding.trackDuration;
 
+import com.google.cloud.hadoop.fs.gcs.VectoredReadUtils.CombinedFileRange;
+import com.google.cloud.hadoop.gcsio.AdaptiveFadvise;
+import com.google.cloud.hadoop.gcsio.AdaptiveFadviseChannel;
 import com.google.cloud.hadoop.gcsio.FileInfo;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystem;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.Fadvise;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
 import com.google.common.flogger.GoogleLogger;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
 import javax.annotation.Nonnull;
+import org.apache.hadoop.fs.ByteBufferPositionedReadable;
+import org.apache.hadoop.fs.ByteBufferReadable;
 import org.apache.hadoop.fs.FSExceptionMessages;
 import org.apache.hadoop.fs.FSInputStream;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.StreamCapabilities;
 import org.apache.hadoop.fs.statistics.IOStatistics;
 import org.apache.hadoop.fs.statistics.IOStatisticsSource;
 
-class GoogleHadoopFSInputStream extends FSInputStream implements IOStatisticsSource {
+class GoogleHadoopFSInputStream extends FSInputStream
+    implements IOStatisticsSource,
+        ByteBufferReadable,
+        ByteBufferPositionedReadable,
+        StreamCapabilities {
 
   private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
 
+  // Maximum number of idle channels of positional reads kept open for reuse.
+  @VisibleForTesting static final int MAX_IDLE_POSITIONED_READ_CHANNELS = 4;
+
   // Used for single-byte reads.
   private final byte[] singleReadBuf = new byte[1];
 
   // Path of the file to read.
   private final URI gcsPath;
+  // File system used to open additional channels for vectored reads.
+  private final GoogleCloudStorageFileSystem gcsFs;
+  // Read options used to open channels.
+  private final GoogleCloudStorageReadOptions readOptions;
+  // Executor used to fetch ranges of vectored reads in parallel.
+  private final ExecutorService vectoredReadExecutor;
+  // Metadata of the file, lazily fetched for vectored and positional reads if it was not provided
+  // on creation.
+  private volatile FileInfo fileInfo;
   // All store IO access goes through this.
   private final SeekableByteChannel channel;
   // Number of bytes read through this channel.
   private long totalBytesRead = 0;
+  // Read options used to open channels for positional reads.
+  private final GoogleCloudStorageReadOptions positionedReadOptions;
+  // Idle channels of positional reads. Channels that don't fit into the pool after a burst of
+  // concurrent positional reads are closed.
+  private final Queue<SeekableByteChannel> positionedReadChannels =
+      new ArrayBlockingQueue<>(MAX_IDLE_POSITIONED_READ_CHANNELS);
 
   /**
    * Closed bit. Volatile so reads are non-blocking. Updates must be in a synchronized block to
@@ -67,30 +108,54 @@ class GoogleHadoopFSInputStream extends FSInputStream implements IOStatisticsSou
   static GoogleHadoopFSInputStream create(
       GoogleHadoopFileSystem ghfs, URI gcsPath, FileSystem.Statistics statistics)
       throws IOException {
+    return create(
+        ghfs,
+        gcsPath,
+        ghfs.getGcsFs().getOptions().getCloudStorageOptions().getReadChannelOptions(),
+        statistics);
+  }
+
+  static GoogleHadoopFSInputStream create(
+      GoogleHadoopFileSystem ghfs,
+      URI gcsPath,
+      GoogleCloudStorageReadOptions readOptions,
+      FileSystem.Statistics statistics)
+      throws IOException {
     logger.atFiner().log("create(gcsPath: %s)", gcsPath);
     GoogleCloudStorageFileSystem gcsFs = ghfs.getGcsFs();
-    SeekableByteChannel channel =
-        gcsFs.open(gcsPath, gcsFs.getOptions().getCloudStorageOptions().getReadChannelOptions());
-    return new GoogleHadoopFSInputStream(ghfs, gcsPath, channel, statistics);
+    SeekableByteChannel channel = gcsFs.open(gcsPath, readOptions);
+    return new GoogleHadoopFSInputStream(
+        ghfs, gcsPath, /* fileInfo= */ null, readOptions, channel, statistics);
   }
 
   static GoogleHadoopFSInputStream create(
-      GoogleHadoopFileSystem ghfs, FileInfo fileInfo, FileSystem.Statistics statistics)
+      GoogleHadoopFileSystem ghfs,
+      FileInfo fileInfo,
+      GoogleCloudStorageReadOptions readOptions,
+      FileSystem.Statistics statistics)
       throws IOException {
     logger.atFiner().log("create(fileInfo: %s)", fileInfo);
     GoogleCloudStorageFileSystem gcsFs = ghfs.getGcsFs();
-    SeekableByteChannel channel =
-        gcsFs.open(fileInfo, gcsFs.getOptions().getCloudStorageOptions().getReadChannelOptions());
-    return new GoogleHadoopFSInputStream(ghfs, fileInfo.getPath(), channel, statistics);
+    SeekableByteChannel channel = gcsFs.open(fileInfo, readOptions);
+    return new GoogleHadoopFSInputStream(
+        ghfs, fileInfo.getPath(), fileInfo, readOptions, channel, statistics);
   }
 
   private GoogleHadoopFSInputStream(
       GoogleHadoopFileSystem ghfs,
       URI gcsPath,
+      FileInfo fileInfo,
+      GoogleCloudStorageReadOptions readOptions,
       SeekableByteChannel channel,
       FileSystem.Statistics statistics) {
     logger.atFiner().log("GoogleHadoopFSInputStream(gcsPath: %s)", gcsPath);
     this.gcsPath = gcsPath;
+    this.gcsFs = ghfs.getGcsFs();
+    this.fileInfo = fileInfo;
+    this.readOptions = readOptions;
+    this.positionedReadOptions =
+        readOptions.toBuilder().setFadvise(Fadvise.RANDOM).setFooterPrefetchSize(0).build();
+    this.vectoredReadExecutor = ghfs.getBackgroundTasksThreadPool();
     this.channel = channel;
     this.statistics = statistics;
     this.streamStatistics = ghfs.getInstrumentation().newInputStreamStatistics(statistics);
@@ -121,27 +186,269 @@ class GoogleHadoopFSInputStream extends FSInputStream implements IOStatisticsSou
           if (offset < 0 || length < 0 || length > buf.length - offset) {
             throw new IndexOutOfBoundsException();
           }
-          int response = 0;
-          try {
-            // TODO(user): Wrap this in a while-loop if we ever introduce a non-blocking mode for
-            // the underlying channel.
-            int numRead = channel.read(ByteBuffer.wrap(buf, offset, length));
-            if (numRead > 0) {
-              // -1 means we actually read 0 bytes, but requested at least one byte.
-              totalBytesRead += numRead;
-              statistics.incrementBytesRead(numRead);
-              statistics.incrementReadOps(1);
-            }
-            response = numRead;
-          } catch (IOException e) {
-            streamStatistics.readException();
-          }
-          streamStatistics.bytesRead(max(response, 0));
-          streamStatistics.readOperationCompleted(length, max(response, 0));
-          return response;
+          return readFromChannel(ByteBuffer.wrap(buf, offset, length));
         });
   }
 
+  /**
+   * Reads up to {@code buf.remaining()} bytes into the buffer directly from the underlying channel,
+   * so data is not copied through an intermediate array if the buffer is a direct buffer.
+   *
+   * @param buf buffer to read into
+   * @return number of bytes read, or -1 if the end of the file is reached
+   * @throws IOException if the stream is closed
+   */
+  @Override
+  public synchronized int read(ByteBuffer buf) throws IOException {
+    return trackDuration(
+        streamStatistics,
+        STREAM_READ_OPERATIONS.getSymbol(),
+        () -> {
+          checkNotClosed();
+          checkNotNull(buf, "buf must not be null");
+          return readFromChannel(buf);
+        });
+  }
+
+  private int readFromChannel(ByteBuffer buf) {
+    int length = buf.remaining();
+    int response = 0;
+    try {
+      // TODO(user): Wrap this in a while-loop if we ever introduce a non-blocking mode for
+      // the underlying channel.
+      int numRead = channel.read(buf);
+      if (numRead > 0) {
+        // -1 means we actually read 0 bytes, but requested at least one byte.
+        totalBytesRead += numRead;
+        statistics.incrementBytesRead(numRead);
+        statistics.incrementReadOps(1);
+      }
+      response = numRead;
+    } catch (IOException e) {
+      streamStatistics.readException();
+    }
+    streamStatistics.bytesRead(max(response, 0));
+    streamStatistics.readOperationCompleted(length, max(response, 0));
+    return response;
+  }
+
+  /**
+   * Reads up to {@code length} bytes at the {@code position} into the array without changing the
+   * position of this stream. Unlike sequential reads, positional reads are not synchronized and use
+   * separate channels, so concurrent positional reads do not block each other.
+   */
+  @Override
+  public int read(long position, byte[] buf, int offset, int length) throws IOException {
+    validatePositionedReadArgs(position, buf, offset, length);
+    return read(position, ByteBuffer.wrap(buf, offset, length));
+  }
+
+  /**
+   * Reads up to {@code buf.remaining()} bytes at the {@code position} into the buffer without
+   * changing the position of this stream. Unlike sequential reads, positional reads are not
+   * synchronized and use separate channels, so concurrent positional reads do not block each other.
+   *
+   * @param position position in the file to read from
+   * @param buf buffer to read into
+   * @return number of bytes read, or -1 if the end of the file is reached
+   * @throws IOException if the stream is closed or the position is negative
+   */
+  @Override
+  public int read(long position, ByteBuffer buf) throws IOException {
+    checkNotClosed();
+    checkNotNull(buf, "buf must not be null");
+    if (position < 0) {
+      throw new EOFException(FSExceptionMessages.NEGATIVE_SEEK + ": " + position);
+    }
+    if (!buf.hasRemaining()) {
+      return 0;
+    }
+    return trackDuration(
+        streamStatistics,
+        STREAM_READ_OPERATIONS.getSymbol(),
+        () -> readFromPositionedChannel(position, buf));
+  }
+
+  /**
+   * Reads exactly {@code buf.remaining()} bytes at the {@code position} into the buffer without
+   * changing the position of this stream.
+   *
+   * @param position position in the file to read from
+   * @param buf buffer to read into
+   * @throws EOFException if the end of the file is reached before the buffer is filled
+   */
+  @Override
+  public void readFully(long position, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      int numRead = read(position, buf);
+      if (numRead < 0) {
+        throw new EOFException(FSExceptionMessages.EOF_IN_READ_FULLY);
+      }
+      position += numRead;
+    }
+  }
+
+  private int readFromPositionedChannel(long position, ByteBuffer buf) throws IOException {
+    FileInfo info = getFileInfo();
+    if (position >= info.getSize()) {
+      return -1;
+    }
+    // Reuse idle channel, so sequential positional reads could continue an already open stream.
+    SeekableByteChannel positionedChannel = positionedReadChannels.poll();
+    if (positionedChannel == null) {
+      positionedChannel = gcsFs.open(info, positionedReadOptions);
+    }
+    boolean reusable = false;
+    try {
+      positionedChannel.position(position);
+      int numRead = positionedChannel.read(buf);
+      if (numRead > 0) {
+        statistics.incrementBytesRead(numRead);
+        statistics.incrementReadOps(1);
+        streamStatistics.bytesRead(numRead);
+      }
+      reusable = true;
+      return numRead;
+    } catch (IOException | RuntimeException e) {
+      streamStatistics.readException();
+      throw e;
+    } finally {
+      if (!reusable || !positionedReadChannels.offer(positionedChannel)) {
+        closeQuietly(positionedChannel);
+      } else {
+        // Stream could be closed concurrently after the channel was taken from the pool.
+        if (closed) {
+          closePositionedReadChannels();
+        }
+      }
+    }
+  }
+
+  @VisibleForTesting
+  int getIdlePositionedReadChannelCount() {
+    return positionedReadChannels.size();
+  }
+
+  private void closePositionedReadChannels() {
+    SeekableByteChannel positionedChannel;
+    while ((positionedChannel = positionedReadChannels.poll()) != null) {
+      closeQuietly(positionedChannel);
+    }
+  }
+
+  private void closeQuietly(SeekableByteChannel positionedChannel) {
+    try {
+      positionedChannel.close();
+    } catch (IOException e) {
+      logger.atFine().withCause(e).log("Failed to close positioned read channel for '%s'", gcsPath);
+    }
+  }
+
+  /**
+   * Reads the specified ranges of the file asynchronously, without changing the position of this
+   * stream.
+   *
+   * <p>Ranges that are close to each other are merged into a single Cloud Storage request according
+   * to the {@link GoogleCloudStorageReadOptions#getVectoredReadMinSeekSize()} and {@link
+   * GoogleCloudStorageReadOptions#getVectoredReadMaxMergedSize()} thresholds, and merged ranges are
+   * fetched in parallel. The data future of each range is completed as soon as its bytes are read.
+   *
+   * @param ranges non-overlapping ranges to read
+   * @param allocate function to allocate a buffer of the requested size
+   * @throws IOException if the stream is closed or the file metadata can not be fetched.
+   */
+  public void readVectored(List<? extends FileRange> ranges, IntFunction<ByteBuffer> allocate)
+      throws IOException {
+    checkNotClosed();
+    logger.atFiner().log("readVectored(ranges: %s)", ranges);
+    List<FileRange> sortedRanges = VectoredReadUtils.validateAndSortRanges(ranges);
+    FileInfo info = getFileInfo();
+    for (FileRange range : ranges) {
+      range.setData(new CompletableFuture<>());
+    }
+
+    // Fail ranges beyond the end of file before merging, so they do not fail merged valid ranges
+    List<FileRange> validRanges = new ArrayList<>(sortedRanges.size());
+    for (FileRange range : sortedRanges) {
+      if (range.getOffset() + range.getLength() > info.getSize()) {
+        range
+            .getData()
+            .completeExceptionally(
+                new EOFException(
+                    String.format(
+                        "Range [%d, %d) is beyond the end of '%s' file of %d bytes",
+                        range.getOffset(),
+                        range.getOffset() + range.getLength(),
+                        gcsPath,
+                        info.getSize())));
+      } else {
+        validRanges.add(range);
+      }
+    }
+
+    List<CombinedFileRange> combinedRanges =
+        VectoredReadUtils.mergeSortedRanges(
+            validRanges,
+            readOptions.getVectoredReadMinSeekSize(),
+            readOptions.getVectoredReadMaxMergedSize());
+    for (CombinedFileRange combinedRange : combinedRanges) {
+      vectoredReadExecutor.execute(() -> readCombinedRange(info, combinedRange, allocate));
+    }
+  }
+
+  private void readCombinedRange(
+      FileInfo info, CombinedFileRange combinedRange, IntFunction<ByteBuffer> allocate) {
+    GoogleCloudStorageReadOptions rangeReadOptions =
+        readOptions.toBuilder().setFadvise(Fadvise.RANDOM).build();
+    ByteBuffer combinedData = allocate.apply(combinedRange.getLength());
+    if (combinedRange.getLength() == 0) {
+      combinedRange.getUnderlying().forEach(r -> r.getData().complete(combinedData));
+      return;
+    }
+    try (SeekableByteChannel rangeChannel = gcsFs.open(info, rangeReadOptions)) {
+      rangeChannel.position(combinedRange.getOffset());
+      int dataStart = combinedData.position();
+      while (combinedData.hasRemaining()) {
+        int numRead = rangeChannel.read(combinedData);
+        if (numRead < 0) {
+          throw new EOFException(
+              String.format(
+                  "Reached end of '%s' file before reading range %s", gcsPath, combinedRange));
+        }
+        statistics.incrementBytesRead(numRead);
+        streamStatistics.bytesRead(numRead);
+      }
+      statistics.incrementReadOps(1);
+      combinedData.position(dataStart);
+    } catch (IOException | RuntimeException e) {
+      logger.atFiner().withCause(e).log(
+          "Failed to read [%d, %d) range of '%s'",
+          combinedRange.getOffset(),
+          combinedRange.getOffset() + combinedRange.getLength(),
+          gcsPath);
+      streamStatistics.readException();
+      combinedRange.getUnderlying().forEach(r -> r.getData().completeExceptionally(e));
+      return;
+    }
+    for (FileRange range : combinedRange.getUnderlying()) {
+      range
+          .getData()
+          .complete(VectoredReadUtils.sliceTo(combinedData, combinedRange.getOffset(), range));
+    }
+  }
+
+  private FileInfo getFileInfo() throws IOException {
+    // Concurrent callers may fetch metadata more than once, which is benign.
+    if (fileInfo == null) {
+      FileInfo info = gcsFs.getFileInfo(gcsPath);
+      if (!info.exists()) {
+        throw new FileNotFoundException(String.format("File not found: %s", gcsPath));
+      }
+      fileInfo = info;
+    }
+    return fileInfo;
+  }
+
   @Override
   public synchronized void seek(long pos) throws IOException {
     trackDuration(
@@ -181,11 +488,17 @@ class GoogleHadoopFSInputStream extends FSInputStream implements IOStatisticsSou
                   "Closing '%s' file with %d total bytes read", gcsPath, totalBytesRead);
               channel.close();
             }
+            closePositionedReadChannels();
           }
           return null;
         });
 
     if (!isClosed) {
+      if (channel instanceof AdaptiveFadviseChannel) {
+        AdaptiveFadvise fadvise = ((AdaptiveFadviseChannel) channel).getAdaptiveFadvise();
+        streamStatistics.fadviseTransitions(
+            fadvise.getSequentialToRandomTransitions(), fadvise.getRandomToSequentialTransitions());
+      }
       streamStatistics.close();
     }
   }
@@ -222,6 +535,17 @@ class GoogleHadoopFSInputStream extends FSInputStream implements IOStatisticsSou
     return 0;
   }
 
+  @Override
+  public boolean hasCapability(String capability) {
+    switch (Ascii.toLowerCase(capability)) {
+      case StreamCapabilities.READBYTEBUFFER:
+      case StreamCapabilities.PREADBYTEBUFFER:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   /**
    * Get the current IOStatistics from input stream
    *
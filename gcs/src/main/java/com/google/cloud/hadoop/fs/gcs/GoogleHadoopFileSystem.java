@@ -21,8 +21,17 @@ import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_CONFIG_PREFIX;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_FILE_CHECKSUM_TYPE;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_GLOB_ALGORITHM;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_INPUT_STREAM_FOOTER_PREFETCH_SIZE;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_LAZY_INITIALIZATION_ENABLE;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_LIST_PREFETCH_ENABLE;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_DIRECTORY;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_MAX_PARTS;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_SYNC_UPLOAD_SESSION_ENABLE;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_WORKING_DIRECTORY;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.PERMISSIONS_TO_REPORT;
 import static com.google.cloud.hadoop.util.HadoopCredentialsConfiguration.CLOUD_PLATFORM_SCOPE;
@@ -41,11 +50,15 @@ import com.google.cloud.hadoop.gcsio.CreateFileOptions;
 import com.google.cloud.hadoop.gcsio.CreateObjectOptions;
 import com.google.cloud.hadoop.gcsio.FileInfo;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorage;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorage.ListPage;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystem;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemOptions;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemProvider;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions;
+import com.google.cloud.hadoop.gcsio.HedgedReads;
 import com.google.cloud.hadoop.gcsio.ListFileOptions;
+import com.google.cloud.hadoop.gcsio.ObjectBlockCache;
 import com.google.cloud.hadoop.gcsio.StorageResourceId;
 import com.google.cloud.hadoop.gcsio.UpdatableItemInfo;
 import com.google.cloud.hadoop.gcsio.UriPaths;
@@ -60,6 +73,7 @@ import com.google.common.base.Ascii;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.flogger.GoogleLogger;
@@ -119,6 +133,7 @@ import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.util.LambdaUtils;
 import org.apache.hadoop.util.Progressable;
+import org.apache.hadoop.util.functional.FunctionRaisingIOE;
 
 /**
  * GoogleHadoopFileSystem is rooted in a single bucket at initialization time; in this case, Hadoop
@@ -187,6 +202,8 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
 
   @VisibleForTesting GlobAlgorithm globAlgorithm = GCS_GLOB_ALGORITHM.getDefault();
 
+  private boolean listPrefetchEnabled = GCS_LIST_PREFETCH_ENABLE.getDefault();
+
   // The bucket the file system is rooted in used for default values of:
   // -- working directory
   // -- user home directories (only for Hadoop purposes).
@@ -248,6 +265,7 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
     setConf(config);
 
     globAlgorithm = GCS_GLOB_ALGORITHM.get(config, config::getEnum);
+    listPrefetchEnabled = GCS_LIST_PREFETCH_ENABLE.get(config, config::getBoolean);
     checksumType = GCS_FILE_CHECKSUM_TYPE.get(config, config::getEnum);
     defaultBlockSize = BLOCK_SIZE.get(config, config::getLong);
     reportedPermissions = new FsPermission(PERMISSIONS_TO_REPORT.get(config, config::get));
@@ -544,6 +562,27 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
                               Duration.ofMillis(
                                   GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS.get(
                                       getConf(), getConf()::getInt)))
+                          .setParallelCompositeUploadPartSize(
+                              GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.get(
+                                  getConf(), getConf()::getInt))
+                          .setParallelCompositeUploadConcurrency(
+                              GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY.get(
+                                  getConf(), getConf()::getInt))
+                          .setParallelCompositeUploadBufferType(
+                              GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE.get(
+                                  getConf(), getConf()::getEnum))
+                          .setParallelCompositeUploadBufferDirectory(
+                              GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_DIRECTORY.get(
+                                  getConf(), getConf()::get))
+                          .setParallelCompositeUploadBufferMaxParts(
+                              GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_MAX_PARTS.get(
+                                  getConf(), getConf()::getInt))
+                          .setSingleRequestUploadMaxSize(
+                              GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE.get(
+                                  getConf(), getConf()::getInt))
+                          .setUploadSessionSyncEnabled(
+                              GCS_OUTPUT_STREAM_SYNC_UPLOAD_SESSION_ENABLE.get(
+                                  getConf(), getConf()::getBoolean))
                           .build(),
                       statistics),
                   statistics);
@@ -818,9 +857,118 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
   }
 
   @Override
-  public RemoteIterator<LocatedFileStatus> listLocatedStatus(Path f) throws IOException {
+  public RemoteIterator<FileStatus> listStatusIterator(Path hadoopPath) throws IOException {
+    incrementStatistic(GhfsStatistic.INVOCATION_LIST_STATUS);
+    checkArgument(hadoopPath != null, "hadoopPath must not be null");
+
+    checkOpen();
+
+    logger.atFiner().log("listStatusIterator(hadoopPath: %s)", hadoopPath);
+
+    String userName = getUgiUserName();
+    return listStatusPaged(
+        "listStatusIterator",
+        hadoopPath,
+        fileInfo -> getGoogleHadoopFileStatus(fileInfo, userName));
+  }
+
+  @Override
+  public RemoteIterator<LocatedFileStatus> listLocatedStatus(Path hadoopPath) throws IOException {
     incrementStatistic(GhfsStatistic.INVOCATION_LIST_LOCATED_STATUS);
-    return super.listLocatedStatus(f);
+    checkArgument(hadoopPath != null, "hadoopPath must not be null");
+
+    checkOpen();
+
+    logger.atFiner().log("listLocatedStatus(hadoopPath: %s)", hadoopPath);
+
+    String userName = getUgiUserName();
+    return listStatusPaged(
+        "listLocatedStatus", hadoopPath, fileInfo -> getLocatedFileStatus(fileInfo, userName));
+  }
+
+  /**
+   * Recursive listing is done by a single flat listing of all objects with the path's directory
+   * prefix instead of listing each directory in the tree, and its results are returned page by page
+   * on demand. Listed directory objects are skipped, and the path is checked for existence only if
+   * nothing is listed under it, because listed objects imply that the directory exists.
+   *
+   * <p>Parallel listing is not used here even if it is enabled, because it lists all objects before
+   * returning them, and the whole listing instead of a single page would be held in memory.
+   */
+  @Override
+  public RemoteIterator<LocatedFileStatus> listFiles(Path hadoopPath, boolean recursive)
+      throws IOException {
+    if (!recursive) {
+      return super.listFiles(hadoopPath, /* recursive= */ false);
+    }
+    incrementStatistic(GhfsStatistic.INVOCATION_LIST_FILES);
+    checkArgument(hadoopPath != null, "hadoopPath must not be null");
+
+    checkOpen();
+
+    logger.atFiner().log("listFiles(hadoopPath: %s, recursive: true)", hadoopPath);
+
+    URI gcsPath = getGcsPath(hadoopPath);
+    URI prefixPath = UriPaths.toDirectory(gcsPath);
+    GoogleCloudStorageFileSystem gcsFs = getGcsFs();
+    FunctionRaisingIOE<String, ListPage<FileInfo>> pageLister =
+        pageToken -> gcsFs.listFileInfoForPrefixPage(prefixPath, LIST_OPTIONS, pageToken);
+
+    ListPage<FileInfo> firstPage = pageLister.apply(/* pageToken= */ null);
+    if (firstPage.getItems().isEmpty() && firstPage.getNextPageToken() == null) {
+      FileInfo fileInfo = gcsFs.getFileInfo(gcsPath);
+      if (!fileInfo.exists()) {
+        throw new FileNotFoundException(
+            String.format("listFiles(hadoopPath: %s): '%s' does not exist.", hadoopPath, gcsPath));
+      }
+      firstPage =
+          new ListPage<>(
+              fileInfo.isDirectory() ? ImmutableList.of() : ImmutableList.of(fileInfo),
+              /* nextPageToken= */ null);
+    }
+
+    ListPage<FileInfo> listedFirstPage = firstPage;
+    String userName = getUgiUserName();
+    return new PagedFileStatusIterator<>(
+        pageToken -> {
+          ListPage<FileInfo> page =
+              pageToken == null ? listedFirstPage : pageLister.apply(pageToken);
+          return new ListPage<>(
+              page.getItems().stream().filter(f -> !f.isDirectory()).collect(toImmutableList()),
+              page.getNextPageToken());
+        },
+        fileInfo -> getLocatedFileStatus(fileInfo, userName),
+        listPrefetchEnabled ? backgroundTasksThreadPool : null);
+  }
+
+  private LocatedFileStatus getLocatedFileStatus(FileInfo fileInfo, String userName)
+      throws IOException {
+    FileStatus status = getGoogleHadoopFileStatus(fileInfo, userName);
+    return new LocatedFileStatus(
+        status, status.isFile() ? getFileBlockLocations(status, 0, status.getLen()) : null);
+  }
+
+  /**
+   * Lists statuses of the files in the given directory page by page on demand, instead of listing
+   * the whole directory before returning, and converts them using the given converter.
+   */
+  private <T extends FileStatus> RemoteIterator<T> listStatusPaged(
+      String methodName, Path hadoopPath, FunctionRaisingIOE<FileInfo, T> statusConverter)
+      throws IOException {
+    URI gcsPath = getGcsPath(hadoopPath);
+    GoogleCloudStorageFileSystem gcsFs = getGcsFs();
+    try {
+      return new PagedFileStatusIterator<>(
+          pageToken -> gcsFs.listFileInfoPage(gcsPath, LIST_OPTIONS, pageToken),
+          statusConverter,
+          listPrefetchEnabled ? backgroundTasksThreadPool : null);
+    } catch (FileNotFoundException fnfe) {
+      throw (FileNotFoundException)
+          new FileNotFoundException(
+                  String.format(
+                      "%s(hadoopPath: %s): '%s' does not exist.", methodName, hadoopPath, gcsPath))
+              .initCause(fnfe);
+    }
   }
 
   @Override
@@ -950,6 +1098,8 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
       return null;
     }
     setHttpStatistics();
+    setBlockCacheStatistics();
+    setHedgedReadStatistics();
     return instrumentation.getIOStatistics();
   }
 
@@ -975,6 +1125,25 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
     }
   }
 
+  /** Set the process-wide block cache statistic keys */
+  private void setBlockCacheStatistics() {
+    ObjectBlockCache.getStatistics()
+        .forEach(
+            (k, v) ->
+                instrumentation
+                    .getIOStatistics()
+                    .setCounter(GhfsStatistic.valueOf(k).getSymbol(), v));
+  }
+
+  private void setHedgedReadStatistics() {
+    HedgedReads.getStatistics()
+        .forEach(
+            (k, v) ->
+                instrumentation
+                    .getIOStatistics()
+                    .setCounter(GhfsStatistic.valueOf(k).getSymbol(), v));
+  }
+
   private void clearStats(String key) {
     instrumentation.getIOStatistics().getCounterReference(key).set(0L);
   }
@@ -1044,6 +1213,9 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
   /**
    * Initiate the open operation. This is invoked from both the FileSystem and FileContext APIs
    *
+   * <p>Supports {@code fs.gs.inputstream.footer.prefetch.size} option that overrides the number of
+   * bytes at the end of the file that are prefetched concurrently with the file metadata.
+   *
    * @param hadoopPath path to the file
    * @param parameters open file parameters from the builder.
    * @return a future which will evaluate to the opened file.
@@ -1059,18 +1231,33 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
     logger.atFiner().log("Path to be opened: %s, parameters: %s ", hadoopPath, parameters);
 
     URI gcsPath = getGcsPath(hadoopPath);
+    String footerPrefetchSizeKey = GCS_INPUT_STREAM_FOOTER_PREFETCH_SIZE.getKey();
     AbstractFSBuilderImpl.rejectUnknownMandatoryKeys(
-        parameters.getMandatoryKeys(), Collections.emptySet(), "for " + gcsPath);
+        parameters.getMandatoryKeys(), ImmutableSet.of(footerPrefetchSizeKey), "for " + gcsPath);
+
+    Configuration options = parameters.getOptions();
+    boolean footerPrefetchSizeSet = options != null && options.get(footerPrefetchSizeKey) != null;
 
     FileStatus fileStatus = parameters.getStatus();
     FileInfo fileInfo =
         fileStatus instanceof GoogleHadoopFileStatus
             ? ((GoogleHadoopFileStatus) fileStatus).getFileInfo()
             : null;
-    if (fileInfo == null) {
+    if (fileInfo == null && !footerPrefetchSizeSet) {
       return super.openFileWithOptions(hadoopPath, parameters);
     }
 
+    GoogleCloudStorageReadOptions readOptions =
+        getGcsFs().getOptions().getCloudStorageOptions().getReadChannelOptions();
+    if (footerPrefetchSizeSet) {
+      readOptions =
+          readOptions.toBuilder()
+              .setFooterPrefetchSize(
+                  options.getInt(footerPrefetchSizeKey, readOptions.getFooterPrefetchSize()))
+              .build();
+    }
+    GoogleCloudStorageReadOptions fileReadOptions = readOptions;
+
     CompletableFuture<FSDataInputStream> result = new CompletableFuture<>();
     backgroundTasksThreadPool.submit(
         () ->
@@ -1078,10 +1265,19 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
                 result,
                 () ->
                     new FSDataInputStream(
-                        GoogleHadoopFSInputStream.create(this, fileInfo, statistics))));
+                        fileInfo == null
+                            ? GoogleHadoopFSInputStream.create(
+                                this, gcsPath, fileReadOptions, statistics)
+                            : GoogleHadoopFSInputStream.create(
+                                this, fileInfo, fileReadOptions, statistics))));
     return result;
   }
 
+  /** Returns the thread pool used for background tasks. */
+  ExecutorService getBackgroundTasksThreadPool() {
+    return backgroundTasksThreadPool;
+  }
+
   /**
    * Appends to an existing file (optional operation). Not supported.
    *
@@ -1107,6 +1303,27 @@ public class GoogleHadoopFileSystem extends FileSystem implements IOStatisticsSo
                 .setMinSyncInterval(
                     Duration.ofMillis(
                         GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS.get(getConf(), getConf()::getInt)))
+                .setParallelCompositeUploadPartSize(
+                    GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.get(
+                        getConf(), getConf()::getInt))
+                .setParallelCompositeUploadConcurrency(
+                    GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY.get(
+                        getConf(), getConf()::getInt))
+                .setParallelCompositeUploadBufferType(
+                    GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE.get(
+                        getConf(), getConf()::getEnum))
+                .setParallelCompositeUploadBufferDirectory(
+                    GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_DIRECTORY.get(
+                        getConf(), getConf()::get))
+                .setParallelCompositeUploadBufferMaxParts(
+                    GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_MAX_PARTS.get(
+                        getConf(), getConf()::getInt))
+                .setSingleRequestUploadMaxSize(
+                    GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE.get(
+                        getConf(), getConf()::getInt))
+                .setUploadSessionSyncEnabled(
+                    GCS_OUTPUT_STREAM_SYNC_UPLOAD_SESSION_ENABLE.get(
+                        getConf(), getConf()::getBoolean))
                 .build(),
             statistics),
         statistics);
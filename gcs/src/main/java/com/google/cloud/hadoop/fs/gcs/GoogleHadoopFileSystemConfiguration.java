@@ -23,19 +23,32 @@ import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.DEFAULT_GR
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.DEFAULT_GRPC_MESSAGE_TIMEOUT_CHECK_INTERVAL_MILLIS;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.DEFAULT_TRAFFIC_DIRECTOR_ENABLED;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.HTTP_REQUEST_CONNECT_TIMEOUT;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.LIST_PARALLELISM_DEFAULT;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.MAX_BYTES_REWRITTEN_PER_CALL_DEFAULT;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.MAX_HTTP_REQUEST_RETRIES;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.MAX_LIST_ITEMS_PER_CALL_DEFAULT;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.MAX_REQUESTS_PER_BATCH_DEFAULT;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.MAX_WAIT_MILLIS_FOR_EMPTY_OBJECT_CREATION;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_BLOCK_CACHE_BLOCK_SIZE;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_BLOCK_CACHE_OFF_HEAP_ENABLED;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_BLOCK_CACHE_SIZE;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_DISK_CACHE_BLOCK_SIZE;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_DISK_CACHE_SIZE;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_FADVISE;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_FAST_FAIL_ON_NOT_FOUND_ENABLED;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_FOOTER_PREFETCH_SIZE;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_GRPC_CHECKSUMS_ENABLED;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_GRPC_READ_MESSAGE_TIMEOUT_MILLIS;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_GRPC_READ_TIMEOUT_MILLIS;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_GRPC_READ_ZEROCOPY_ENABLED;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_GZIP_ENCODING_SUPPORT_ENABLED;
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_INPLACE_SEEK_LIMIT;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_READ_AHEAD_BLOCK_COUNT;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_READ_AHEAD_BLOCK_SIZE;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_STRIPED_READ_COUNT;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_STRIPED_READ_SIZE;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_VECTORED_READ_MAX_MERGED_SIZE;
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.DEFAULT_VECTORED_READ_MIN_SEEK_SIZE;
 import static com.google.cloud.hadoop.util.HadoopCredentialsConfiguration.PROXY_ADDRESS_SUFFIX;
 import static com.google.cloud.hadoop.util.HadoopCredentialsConfiguration.PROXY_PASSWORD_SUFFIX;
 import static com.google.cloud.hadoop.util.HadoopCredentialsConfiguration.PROXY_USERNAME_SUFFIX;
@@ -45,6 +58,7 @@ import static com.google.common.base.Strings.nullToEmpty;
 
 import com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystem.GcsFileChecksumType;
 import com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystem.GlobAlgorithm;
+import com.google.cloud.hadoop.gcsio.CreateFileOptions.ParallelCompositeUploadBufferType;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemOptions;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemOptions.FilesystemAPI;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions;
@@ -174,6 +188,23 @@ public class GoogleHadoopFileSystemConfiguration {
           "fs.gs.performance.cache.max.entry.age.ms",
           PerformanceCachingGoogleCloudStorageOptions.MAX_ENTRY_AGE_MILLIS_DEFAULT);
 
+  /** Configuration key for maximum number of items in performance cache. */
+  public static final HadoopConfigurationProperty<Long> GCS_PERFORMANCE_CACHE_MAX_ENTRIES =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.performance.cache.max.entries",
+          PerformanceCachingGoogleCloudStorageOptions.MAX_ENTRIES_DEFAULT);
+
+  /**
+   * Configuration key for maximum number of milliseconds the result of a lookup that didn't find a
+   * file or a directory will remain "valid" in the performance cache. Negative lookup results are
+   * not cached if it's 0.
+   */
+  public static final HadoopConfigurationProperty<Long>
+      GCS_PERFORMANCE_CACHE_NOT_FOUND_MAX_ENTRY_AGE_MILLIS =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.performance.cache.not.found.max.entry.age.ms",
+              PerformanceCachingGoogleCloudStorageOptions.NOT_FOUND_MAX_ENTRY_AGE_MILLIS_DEFAULT);
+
   /**
    * If true, executes GCS requests in {@code listStatus} and {@code getFileStatus} methods in
    * parallel to reduce latency.
@@ -240,6 +271,20 @@ public class GoogleHadoopFileSystemConfiguration {
       new HadoopConfigurationProperty<>(
           "fs.gs.list.max.items.per.call", MAX_LIST_ITEMS_PER_CALL_DEFAULT);
 
+  /**
+   * Configuration key for the maximum number of concurrent requests that list lexicographic ranges
+   * of object names when all objects with a prefix are listed. Listing is sequential if set to 1.
+   */
+  public static final HadoopConfigurationProperty<Integer> GCS_LIST_PARALLELISM =
+      new HadoopConfigurationProperty<>("fs.gs.list.parallelism", LIST_PARALLELISM_DEFAULT);
+
+  /**
+   * Configuration key for enabling prefetch of the next page of list results in the background
+   * while the current page is iterated by {@code listStatusIterator} and {@code listLocatedStatus}.
+   */
+  public static final HadoopConfigurationProperty<Boolean> GCS_LIST_PREFETCH_ENABLE =
+      new HadoopConfigurationProperty<>("fs.gs.list.prefetch.enable", false);
+
   /**
    * Configuration key for the max number of retries for failed HTTP request to GCS. Note that the
    * connector will retry *up to* the number of times as specified, using a default
@@ -289,6 +334,14 @@ public class GoogleHadoopFileSystemConfiguration {
   public static final HadoopConfigurationProperty<Integer> GCS_OUTPUT_STREAM_UPLOAD_CACHE_SIZE =
       new HadoopConfigurationProperty<>("fs.gs.outputstream.upload.cache.size", 0);
 
+  /**
+   * Capacity in bytes of the JVM-wide direct buffer pool that is shared by all output streams to
+   * borrow pipe buffers of the {@code BUFFER_QUEUE_PIPE} pipe type and upload caches. Writes block
+   * when the pool is exhausted. Buffer pool is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Long> GCS_OUTPUT_STREAM_BUFFER_POOL_SIZE =
+      new HadoopConfigurationProperty<>("fs.gs.outputstream.buffer.pool.size", 0L);
+
   /** Configuration key for enabling GCS direct upload. */
   public static final HadoopConfigurationProperty<Boolean> GCS_OUTPUT_STREAM_DIRECT_UPLOAD_ENABLE =
       new HadoopConfigurationProperty<>("fs.gs.outputstream.direct.upload.enable", false);
@@ -299,6 +352,82 @@ public class GoogleHadoopFileSystemConfiguration {
   public static final HadoopConfigurationProperty<Integer> GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS =
       new HadoopConfigurationProperty<>("fs.gs.outputstream.sync.min.interval.ms", 0);
 
+  /**
+   * If true, the JSON API upload verifies CRC32C (and MD5, if enabled) of the written data against
+   * checksums of the created object and fails the output stream close on mismatch.
+   */
+  public static final HadoopConfigurationProperty<Boolean>
+      GCS_OUTPUT_STREAM_CHECKSUM_VERIFICATION_ENABLE =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.outputstream.checksum.verification.enable",
+              AsyncWriteChannelOptions.CHECKSUM_VERIFICATION_ENABLED_DEFAULT);
+
+  /** If true, MD5 of the written data is computed in addition to CRC32C. */
+  public static final HadoopConfigurationProperty<Boolean> GCS_OUTPUT_STREAM_MD5_CHECKSUM_ENABLE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.outputstream.md5.checksum.enable",
+          AsyncWriteChannelOptions.MD5_CHECKSUM_ENABLED_DEFAULT);
+
+  /**
+   * If true, hflush()/hsync() upload written data to the upload session that stays open and wait
+   * until it is persisted, instead of composing a temporary object into the file on each sync.
+   * Synced data becomes visible to readers only after the file is closed.
+   */
+  public static final HadoopConfigurationProperty<Boolean>
+      GCS_OUTPUT_STREAM_SYNC_UPLOAD_SESSION_ENABLE =
+          new HadoopConfigurationProperty<>("fs.gs.outputstream.sync.upload.session.enable", false);
+
+  /**
+   * Maximum size in bytes of the file that is buffered in memory and uploaded in a single request
+   * on close, instead of starting a resumable upload session. Disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Integer>
+      GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE =
+          new HadoopConfigurationProperty<>("fs.gs.outputstream.single.request.upload.max.size", 0);
+
+  /**
+   * Size in bytes of the parts that are uploaded concurrently as temporary objects and composed
+   * into the file on close. Parallel composite upload is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Integer>
+      GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.outputstream.parallel.composite.upload.part.size", 0);
+
+  /** Maximum number of parts that are uploaded concurrently by a single output stream. */
+  public static final HadoopConfigurationProperty<Integer>
+      GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.outputstream.parallel.composite.upload.concurrency", 4);
+
+  /**
+   * Where data of the parts is buffered before upload during parallel composite upload, in heap
+   * memory or in local files.
+   */
+  public static final HadoopConfigurationProperty<ParallelCompositeUploadBufferType>
+      GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.outputstream.parallel.composite.upload.buffer.type",
+              ParallelCompositeUploadBufferType.HEAP);
+
+  /**
+   * Local directory in which part files are created if parallel composite upload buffer type is
+   * {@code DISK}. Default temporary-file directory is used if not set.
+   */
+  public static final HadoopConfigurationProperty<String>
+      GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_DIRECTORY =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.outputstream.parallel.composite.upload.buffer.directory");
+
+  /**
+   * Maximum number of parts that are buffered in local files by a single output stream if parallel
+   * composite upload buffer type is {@code DISK}.
+   */
+  public static final HadoopConfigurationProperty<Integer>
+      GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_MAX_PARTS =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.outputstream.parallel.composite.upload.buffer.max.parts", 16);
+
   /**
    * If {@code true}, on opening a file we will proactively perform a metadata {@code GET} to check
    * whether the object exists, even though the underlying channel will not open a data stream until
@@ -349,6 +478,131 @@ public class GoogleHadoopFileSystemConfiguration {
           "fs.gs.inputstream.min.range.request.size",
           GoogleCloudStorageReadOptions.DEFAULT_MIN_RANGE_REQUEST_SIZE);
 
+  /**
+   * Maximum size in bytes of the HTTP Range header set in GCS request in {@code AUTO} fadvise mode.
+   * When range requests grow to this size while reading sequentially, connector switches back to
+   * streaming requests.
+   */
+  public static final HadoopConfigurationProperty<Long> GCS_INPUT_STREAM_MAX_RANGE_REQUEST_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.max.range.request.size",
+          GoogleCloudStorageReadOptions.DEFAULT_MAX_RANGE_REQUEST_SIZE);
+
+  /** Number of the most recent reads used to detect access pattern in {@code AUTO} fadvise mode. */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_FADVISE_WINDOW_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.fadvise.window.size",
+          GoogleCloudStorageReadOptions.DEFAULT_FADVISE_WINDOW_SIZE);
+
+  /**
+   * Maximum gap in bytes between two ranges of a vectored read for them to be merged into a single
+   * Cloud Storage request.
+   */
+  public static final HadoopConfigurationProperty<Integer>
+      GCS_INPUT_STREAM_VECTORED_READ_MIN_SEEK_SIZE =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.inputstream.vectored.read.min.seek.size", DEFAULT_VECTORED_READ_MIN_SEEK_SIZE);
+
+  /** Maximum size in bytes of a single Cloud Storage request for merged vectored read ranges. */
+  public static final HadoopConfigurationProperty<Integer>
+      GCS_INPUT_STREAM_VECTORED_READ_MAX_MERGED_SIZE =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.inputstream.vectored.read.max.merged.size",
+              DEFAULT_VECTORED_READ_MAX_MERGED_SIZE);
+
+  /**
+   * Number of blocks that are asynchronously prefetched ahead of the current position once
+   * sequential access is detected. Read-ahead is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_READ_AHEAD_BLOCK_COUNT =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.read.ahead.block.count", DEFAULT_READ_AHEAD_BLOCK_COUNT);
+
+  /** Size in bytes of a single block that is prefetched when read-ahead is enabled. */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_READ_AHEAD_BLOCK_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.read.ahead.block.size", DEFAULT_READ_AHEAD_BLOCK_SIZE);
+
+  /**
+   * Number of concurrent byte-range requests (stripes) used to read objects larger than a single
+   * stripe. Striped read is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_STRIPED_READ_COUNT =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.striped.read.count", DEFAULT_STRIPED_READ_COUNT);
+
+  /** Size in bytes of a single stripe request when striped read is enabled. */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_STRIPED_READ_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.striped.read.size", DEFAULT_STRIPED_READ_SIZE);
+
+  /**
+   * Maximum size in bytes of the process-wide cache of object blocks that is shared by all input
+   * streams in the JVM. Block cache is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Long> GCS_INPUT_STREAM_BLOCK_CACHE_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.block.cache.size", DEFAULT_BLOCK_CACHE_SIZE);
+
+  /** Size in bytes of a single block that is fetched and stored in the block cache. */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_BLOCK_CACHE_BLOCK_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.block.cache.block.size", DEFAULT_BLOCK_CACHE_BLOCK_SIZE);
+
+  /** Configuration key for enabling storage of block cache content in off-heap buffers. */
+  public static final HadoopConfigurationProperty<Boolean>
+      GCS_INPUT_STREAM_BLOCK_CACHE_OFF_HEAP_ENABLE =
+          new HadoopConfigurationProperty<>(
+              "fs.gs.inputstream.block.cache.off.heap.enable",
+              DEFAULT_BLOCK_CACHE_OFF_HEAP_ENABLED);
+
+  /** Local directory (e.g. on a local SSD) where the disk cache stores object blocks. */
+  public static final HadoopConfigurationProperty<String> GCS_INPUT_STREAM_DISK_CACHE_DIRECTORY =
+      new HadoopConfigurationProperty<>("fs.gs.inputstream.disk.cache.directory");
+
+  /**
+   * Maximum total size in bytes of the object blocks that are stored in the disk cache directory by
+   * a single JVM. Disk cache is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Long> GCS_INPUT_STREAM_DISK_CACHE_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.disk.cache.size", DEFAULT_DISK_CACHE_SIZE);
+
+  /** Size in bytes of a single block that is stored in the disk cache. */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_DISK_CACHE_BLOCK_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.disk.cache.block.size", DEFAULT_DISK_CACHE_BLOCK_SIZE);
+
+  /**
+   * Number of bytes at the end of the file that are prefetched on open, concurrently with the file
+   * metadata. Could be overridden per file via {@code FileSystem.openFile()} option with the same
+   * key. Footer prefetch on open is disabled if set to {@code 0}.
+   */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_FOOTER_PREFETCH_SIZE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.footer.prefetch.size", DEFAULT_FOOTER_PREFETCH_SIZE);
+
+  /**
+   * If true, a duplicate request for the same range of the same object generation is issued when
+   * response to a read request does not arrive within the hedging delay.
+   */
+  public static final HadoopConfigurationProperty<Boolean> GCS_INPUT_STREAM_HEDGED_READ_ENABLE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.hedged.read.enable",
+          GoogleCloudStorageReadOptions.DEFAULT_HEDGED_READ_ENABLED);
+
+  /** Percentile of the recent read request latencies that is used as a hedging delay. */
+  public static final HadoopConfigurationProperty<Integer> GCS_INPUT_STREAM_HEDGED_READ_PERCENTILE =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.hedged.read.percentile",
+          GoogleCloudStorageReadOptions.DEFAULT_HEDGED_READ_PERCENTILE);
+
+  /** Minimum hedging delay in milliseconds. */
+  public static final HadoopConfigurationProperty<Long> GCS_INPUT_STREAM_HEDGED_READ_MIN_DELAY_MS =
+      new HadoopConfigurationProperty<>(
+          "fs.gs.inputstream.hedged.read.min.delay.ms",
+          GoogleCloudStorageReadOptions.DEFAULT_HEDGED_READ_MIN_DELAY_MILLIS);
+
   /** Configuration key for enabling use of the gRPC API for read/write. */
   public static final HadoopConfigurationProperty<Boolean> GCS_GRPC_ENABLE =
       new HadoopConfigurationProperty<>("fs.gs.grpc.enable", DEFAULT_GRPC_ENABLED);
@@ -390,6 +644,25 @@ public class GoogleHadoopFileSystemConfiguration {
   public static final HadoopConfigurationProperty<Long> GCS_GRPC_UPLOAD_BUFFERED_REQUESTS =
       new HadoopConfigurationProperty<>("fs.gs.grpc.write.buffered.requests", 20L);
 
+  /**
+   * Configuration key for the maximum number of bytes that are sent by gRPC upload ahead of the
+   * persisted size acknowledged by GCS. If 0, only the number of buffered requests is limited.
+   */
+  public static final HadoopConfigurationProperty<Long> GCS_GRPC_WRITE_MAX_IN_FLIGHT_BYTES =
+      new HadoopConfigurationProperty<>("fs.gs.grpc.write.max.inflight.bytes", 0L);
+
+  /**
+   * Configuration key for the number of streams that are used by a single gRPC upload to upload
+   * blocks of data concurrently to temporary objects that are composed into the destination object
+   * on close. If 1, data is uploaded in a single stream.
+   */
+  public static final HadoopConfigurationProperty<Integer> GCS_GRPC_WRITE_PARALLEL_STREAMS =
+      new HadoopConfigurationProperty<>("fs.gs.grpc.write.parallel.streams", 1);
+
+  /** Configuration key for the size of the blocks that are uploaded by parallel gRPC upload. */
+  public static final HadoopConfigurationProperty<Integer> GCS_GRPC_WRITE_PARALLEL_BLOCK_SIZE =
+      new HadoopConfigurationProperty<>("fs.gs.grpc.write.parallel.block.size", 64 * 1024 * 1024);
+
   /** Configuration key for the connect timeout (in millisecond) for gRPC write requests to GCS. */
   public static final HadoopConfigurationProperty<Long> GCS_GRPC_WRITE_TIMEOUT_MS =
       new HadoopConfigurationProperty<>("fs.gs.grpc.write.timeout.ms", 10 * 60 * 1000L);
@@ -470,6 +743,7 @@ public class GoogleHadoopFileSystemConfiguration {
             PROXY_PASSWORD_SUFFIX.withPrefixes(CONFIG_KEY_PREFIXES).getPassword(config))
         .setProjectId(projectId)
         .setMaxListItemsPerCall(GCS_MAX_LIST_ITEMS_PER_CALL.get(config, config::getLong))
+        .setListParallelism(GCS_LIST_PARALLELISM.get(config, config::getInt))
         .setMaxRequestsPerBatch(GCS_MAX_REQUESTS_PER_BATCH.get(config, config::getLong))
         .setBatchThreads(GCS_BATCH_THREADS.get(config, config::getInt))
         .setMaxHttpRequestRetries(GCS_HTTP_MAX_RETRY.get(config, config::getInt))
@@ -501,6 +775,9 @@ public class GoogleHadoopFileSystemConfiguration {
     return PerformanceCachingGoogleCloudStorageOptions.builder()
         .setMaxEntryAgeMillis(
             GCS_PERFORMANCE_CACHE_MAX_ENTRY_AGE_MILLIS.get(config, config::getLong))
+        .setMaxEntries(GCS_PERFORMANCE_CACHE_MAX_ENTRIES.get(config, config::getLong))
+        .setNotFoundMaxEntryAgeMillis(
+            GCS_PERFORMANCE_CACHE_NOT_FOUND_MAX_ENTRY_AGE_MILLIS.get(config, config::getLong))
         .build();
   }
 
@@ -521,6 +798,30 @@ public class GoogleHadoopFileSystemConfiguration {
         .setFadvise(GCS_INPUT_STREAM_FADVISE.get(config, config::getEnum))
         .setMinRangeRequestSize(
             GCS_INPUT_STREAM_MIN_RANGE_REQUEST_SIZE.get(config, config::getLongBytes))
+        .setMaxRangeRequestSize(
+            GCS_INPUT_STREAM_MAX_RANGE_REQUEST_SIZE.get(config, config::getLongBytes))
+        .setFadviseWindowSize(GCS_INPUT_STREAM_FADVISE_WINDOW_SIZE.get(config, config::getInt))
+        .setVectoredReadMinSeekSize(
+            GCS_INPUT_STREAM_VECTORED_READ_MIN_SEEK_SIZE.get(config, config::getInt))
+        .setVectoredReadMaxMergedSize(
+            GCS_INPUT_STREAM_VECTORED_READ_MAX_MERGED_SIZE.get(config, config::getInt))
+        .setReadAheadBlockCount(GCS_INPUT_STREAM_READ_AHEAD_BLOCK_COUNT.get(config, config::getInt))
+        .setReadAheadBlockSize(GCS_INPUT_STREAM_READ_AHEAD_BLOCK_SIZE.get(config, config::getInt))
+        .setStripedReadCount(GCS_INPUT_STREAM_STRIPED_READ_COUNT.get(config, config::getInt))
+        .setStripedReadSize(GCS_INPUT_STREAM_STRIPED_READ_SIZE.get(config, config::getInt))
+        .setBlockCacheSize(GCS_INPUT_STREAM_BLOCK_CACHE_SIZE.get(config, config::getLongBytes))
+        .setBlockCacheBlockSize(GCS_INPUT_STREAM_BLOCK_CACHE_BLOCK_SIZE.get(config, config::getInt))
+        .setBlockCacheOffHeapEnabled(
+            GCS_INPUT_STREAM_BLOCK_CACHE_OFF_HEAP_ENABLE.get(config, config::getBoolean))
+        .setDiskCacheDirectory(GCS_INPUT_STREAM_DISK_CACHE_DIRECTORY.get(config, config::get))
+        .setDiskCacheSize(GCS_INPUT_STREAM_DISK_CACHE_SIZE.get(config, config::getLongBytes))
+        .setDiskCacheBlockSize(GCS_INPUT_STREAM_DISK_CACHE_BLOCK_SIZE.get(config, config::getInt))
+        .setFooterPrefetchSize(GCS_INPUT_STREAM_FOOTER_PREFETCH_SIZE.get(config, config::getInt))
+        .setHedgedReadEnabled(GCS_INPUT_STREAM_HEDGED_READ_ENABLE.get(config, config::getBoolean))
+        .setHedgedReadPercentile(
+            GCS_INPUT_STREAM_HEDGED_READ_PERCENTILE.get(config, config::getInt))
+        .setHedgedReadMinDelayMillis(
+            GCS_INPUT_STREAM_HEDGED_READ_MIN_DELAY_MS.get(config, config::getLong))
         .setGrpcChecksumsEnabled(GCS_GRPC_CHECKSUMS_ENABLE.get(config, config::getBoolean))
         .setGrpcReadTimeoutMillis(GCS_GRPC_READ_TIMEOUT_MS.get(config, config::getLong))
         .setGrpcReadMessageTimeoutMillis(
@@ -536,13 +837,23 @@ public class GoogleHadoopFileSystemConfiguration {
         .setPipeType(GCS_OUTPUT_STREAM_PIPE_TYPE.get(config, config::getEnum))
         .setUploadChunkSize(GCS_OUTPUT_STREAM_UPLOAD_CHUNK_SIZE.get(config, config::getInt))
         .setUploadCacheSize(GCS_OUTPUT_STREAM_UPLOAD_CACHE_SIZE.get(config, config::getInt))
+        .setBufferPoolSize(GCS_OUTPUT_STREAM_BUFFER_POOL_SIZE.get(config, config::getLongBytes))
         .setDirectUploadEnabled(
             GCS_OUTPUT_STREAM_DIRECT_UPLOAD_ENABLE.get(config, config::getBoolean))
         .setGrpcChecksumsEnabled(GCS_GRPC_CHECKSUMS_ENABLE.get(config, config::getBoolean))
+        .setChecksumVerificationEnabled(
+            GCS_OUTPUT_STREAM_CHECKSUM_VERIFICATION_ENABLE.get(config, config::getBoolean))
+        .setMd5ChecksumEnabled(
+            GCS_OUTPUT_STREAM_MD5_CHECKSUM_ENABLE.get(config, config::getBoolean))
         .setGrpcWriteTimeout(GCS_GRPC_WRITE_TIMEOUT_MS.get(config, config::getLong))
         .setGrpcWriteMessageTimeoutMillis(
             GCS_GRPC_WRITE_MESSAGE_TIMEOUT_MS.get(config, config::getLong))
         .setNumberOfBufferedRequests(GCS_GRPC_UPLOAD_BUFFERED_REQUESTS.get(config, config::getLong))
+        .setGrpcWriteMaxInFlightBytes(
+            GCS_GRPC_WRITE_MAX_IN_FLIGHT_BYTES.get(config, config::getLongBytes))
+        .setGrpcWriteParallelStreams(GCS_GRPC_WRITE_PARALLEL_STREAMS.get(config, config::getInt))
+        .setGrpcWriteParallelBlockSize(
+            GCS_GRPC_WRITE_PARALLEL_BLOCK_SIZE.get(config, config::getInt))
         .build();
   }
 
@@ -28,12 +28,14 @@ import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystem;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemImpl;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo;
 import com.google.cloud.hadoop.gcsio.StorageResourceId;
+import com.google.cloud.hadoop.util.FlushableWriteChannel;
 import com.google.common.base.Ascii;
 import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.GoogleLogger;
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
@@ -50,6 +52,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.hadoop.fs.FileAlreadyExistsException;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -96,6 +99,10 @@ class GoogleHadoopOutputStream extends OutputStream
    */
   private long dstGenerationId;
 
+  // ID with which the destination object is created by the first compose, null if the destination
+  // object was already created or if the first component is written to it directly.
+  @Nullable private StorageResourceId dstCreateId;
+
   // GCS path pointing at the "tail" file which will be appended to the destination
   // on hflush()/hsync() call.
   private URI tmpGcsPath;
@@ -110,6 +117,23 @@ class GoogleHadoopOutputStream extends OutputStream
   // on hflush()/hsync() call.
   private OutputStream tmpOut;
 
+  // Channel that backs tmpOut, null while tmpOut buffers data for a single request upload.
+  @Nullable private WritableByteChannel tmpChannel;
+
+  // Maximum size of a component that is uploaded in a single request, 0 if disabled.
+  private final int singleRequestUploadMaxSize;
+
+  // Whether sync should flush the upload session of tmpChannel instead of composing it.
+  private final boolean uploadSessionSyncEnabled;
+
+  // Number of bytes written to tmpOut, after the first part is written to it, the rest of the
+  // component is uploaded by the parallel composite upload.
+  private long tmpBytesWritten = 0;
+
+  // Uploads the data of each component after its first part in parallel, null if disabled.
+  @Nullable private final ParallelCompositeUpload compositeUpload;
+  private final int compositeUploadPartSize;
+
   private final RateLimiter syncRateLimiter;
 
   // List of temporary file-deletion futures accrued during the lifetime of this output stream.
@@ -165,6 +189,19 @@ class GoogleHadoopOutputStream extends OutputStream
       // When appending first component has to go to new temporary file.
       this.tmpGcsPath = getNextTmpPath();
       this.tmpIndex = 1;
+    } else if (createFileOptions.getParallelCompositeUploadPartSize() > 0) {
+      // Parts are composed into the destination object, so the first component is written to a
+      // temporary file too. Otherwise, the destination object would contain only the first part
+      // while other parts are uploaded, and would stay truncated if their upload fails.
+      try {
+        this.dstCreateId = ghfs.getGcsFs().prepareCreate(dstGcsPath, createFileOptions);
+      } catch (java.nio.file.FileAlreadyExistsException e) {
+        throw (FileAlreadyExistsException)
+            new FileAlreadyExistsException(String.format("'%s' already exists", dstGcsPath))
+                .initCause(e);
+      }
+      this.tmpIndex = 0;
+      this.tmpGcsPath = getNextTmpPath();
     } else {
       // The first component of the stream will go straight to the destination filename to optimize
       // the case where no hsync() or a single hsync() is called during the lifetime of the stream;
@@ -173,25 +210,42 @@ class GoogleHadoopOutputStream extends OutputStream
       this.tmpIndex = 0;
     }
 
-    this.tmpOut =
-        createOutputStream(
-            ghfs.getGcsFs(),
-            tmpGcsPath,
-            tmpIndex == 0 ? createFileOptions : TMP_FILE_CREATE_OPTIONS);
+    this.singleRequestUploadMaxSize = createFileOptions.getSingleRequestUploadMaxSize();
+    createTmpOut(dstGcsPath.equals(tmpGcsPath) ? createFileOptions : TMP_FILE_CREATE_OPTIONS);
+    this.uploadSessionSyncEnabled = createFileOptions.isUploadSessionSyncEnabled();
     this.dstGenerationId = StorageResourceId.UNKNOWN_GENERATION_ID;
+
+    this.compositeUploadPartSize = createFileOptions.getParallelCompositeUploadPartSize();
+    this.compositeUpload =
+        compositeUploadPartSize > 0
+            ? new ParallelCompositeUpload(ghfs, dstGcsPath, createFileOptions, streamStatistics)
+            : null;
   }
 
-  private static OutputStream createOutputStream(
-      GoogleCloudStorageFileSystem gcsfs, URI gcsPath, CreateFileOptions options)
-      throws IOException {
-    WritableByteChannel channel;
+  /** Opens {@link #tmpOut} to write the component at {@link #tmpGcsPath}. */
+  private void createTmpOut(CreateFileOptions options) throws IOException {
+    GoogleCloudStorageFileSystem gcsfs = ghfs.getGcsFs();
     try {
-      channel = gcsfs.create(gcsPath, options);
+      if (singleRequestUploadMaxSize > 0) {
+        // Upload session is started only if the component doesn't fit in a single request.
+        tmpChannel = null;
+        tmpOut =
+            new SingleRequestUploadOutputStream(
+                gcsfs.prepareCreate(tmpGcsPath, options),
+                GoogleCloudStorageFileSystemImpl.objectOptionsFromFileOptions(options));
+      } else {
+        tmpChannel = gcsfs.create(tmpGcsPath, options);
+        tmpOut = createOutputStream(gcsfs, tmpChannel);
+      }
     } catch (java.nio.file.FileAlreadyExistsException e) {
       throw (FileAlreadyExistsException)
-          new FileAlreadyExistsException(String.format("'%s' already exists", gcsPath))
+          new FileAlreadyExistsException(String.format("'%s' already exists", tmpGcsPath))
               .initCause(e);
     }
+  }
+
+  private static OutputStream createOutputStream(
+      GoogleCloudStorageFileSystem gcsfs, WritableByteChannel channel) {
     OutputStream outputStream = Channels.newOutputStream(channel);
     int bufferSize =
         gcsfs.getOptions().getCloudStorageOptions().getWriteChannelOptions().getBufferSize();
@@ -205,7 +259,12 @@ class GoogleHadoopOutputStream extends OutputStream
         GhfsStatistic.STREAM_WRITE_OPERATIONS.getSymbol(),
         () -> {
           throwIfNotOpen();
-          tmpOut.write(b);
+          if (compositeUpload != null && tmpBytesWritten >= compositeUploadPartSize) {
+            compositeUpload.write(b);
+          } else {
+            tmpOut.write(b);
+            tmpBytesWritten++;
+          }
           streamStatistics.writeBytes(1);
           statistics.incrementBytesWritten(1);
           statistics.incrementWriteOps(1);
@@ -220,7 +279,7 @@ class GoogleHadoopOutputStream extends OutputStream
         GhfsStatistic.STREAM_WRITE_OPERATIONS.getSymbol(),
         () -> {
           throwIfNotOpen();
-          tmpOut.write(b, offset, len);
+          writeInternal(b, offset, len);
           streamStatistics.writeBytes(len);
           statistics.incrementBytesWritten(len);
           statistics.incrementWriteOps(1);
@@ -228,6 +287,21 @@ class GoogleHadoopOutputStream extends OutputStream
         });
   }
 
+  private void writeInternal(byte[] b, int offset, int len) throws IOException {
+    if (compositeUpload == null) {
+      tmpOut.write(b, offset, len);
+      return;
+    }
+    int tmpLen = (int) Math.min(len, Math.max(0, compositeUploadPartSize - tmpBytesWritten));
+    if (tmpLen > 0) {
+      tmpOut.write(b, offset, tmpLen);
+      tmpBytesWritten += tmpLen;
+    }
+    if (len > tmpLen) {
+      compositeUpload.write(b, offset + tmpLen, len - tmpLen);
+    }
+  }
+
   /**
    * There is no way to flush data to become available for readers without a full-fledged hsync(),
    * If the output stream is only syncable, this method is a no-op. If the output stream is also
@@ -283,6 +357,20 @@ class GoogleHadoopOutputStream extends OutputStream
 
   /** Internal implementation of hsync, can be reused by hflush() as well. */
   private void hsyncInternal(long startMs) throws IOException {
+    if (uploadSessionSyncEnabled && tmpOut instanceof SingleRequestUploadOutputStream) {
+      // Synced data is written to the upload session, so it has to be started.
+      ((SingleRequestUploadOutputStream) tmpOut).startUploadSession();
+    }
+    if (isUploadSessionSyncSupported()) {
+      logger.atFiner().log("hsyncInternal(): Flushing upload session of %s", tmpGcsPath);
+      tmpOut.flush();
+      ((FlushableWriteChannel) tmpChannel).flush();
+      logger.atFiner().log(
+          "Took %dms to sync() upload session for %s",
+          System.currentTimeMillis() - startMs, dstGcsPath);
+      return;
+    }
+
     logger.atFiner().log(
         "hsyncInternal(): Committing tail file %s to final destination %s", tmpGcsPath, dstGcsPath);
     commitTempFile();
@@ -294,35 +382,89 @@ class GoogleHadoopOutputStream extends OutputStream
 
     logger.atFiner().log(
         "hsync(): Opening next temporary tail file %s at %d index", tmpGcsPath, tmpIndex);
-    tmpOut = createOutputStream(ghfs.getGcsFs(), tmpGcsPath, TMP_FILE_CREATE_OPTIONS);
+    createTmpOut(TMP_FILE_CREATE_OPTIONS);
+    tmpBytesWritten = 0;
 
     long finishMs = System.currentTimeMillis();
     logger.atFiner().log("Took %dms to sync() for %s", finishMs - startMs, dstGcsPath);
   }
 
+  /**
+   * Returns true if sync could flush the upload session of the current component instead of
+   * committing it. Parallel composite upload parts are uploaded separately, so they have to be
+   * composed.
+   */
+  private boolean isUploadSessionSyncSupported() {
+    return isUploadSessionSyncEnabled()
+        && tmpChannel instanceof FlushableWriteChannel
+        && ((FlushableWriteChannel) tmpChannel).isFlushSupported();
+  }
+
+  /**
+   * Returns true if upload session sync is enabled for this stream. Unlike {@link
+   * #isUploadSessionSyncSupported}, doesn't depend on the channel of the current component, that
+   * may not exist before the first sync.
+   */
+  private boolean isUploadSessionSyncEnabled() {
+    return uploadSessionSyncEnabled && compositeUpload == null;
+  }
+
   private void commitTempFile() throws IOException {
     // TODO(user): return early when 0 bytes have been written in the temp files
     tmpOut.close();
+    GoogleCloudStorage gcs = ghfs.getGcsFs().getGcs();
+    List<StorageResourceId> parts;
+    try {
+      parts = compositeUpload == null ? ImmutableList.of() : compositeUpload.awaitParts();
+    } catch (IOException e) {
+      if (!dstGcsPath.equals(tmpGcsPath)) {
+        try {
+          gcs.deleteObjects(
+              ImmutableList.of(
+                  StorageResourceId.fromUriPath(tmpGcsPath, /* allowEmptyObjectName= */ false)));
+        } catch (IOException deleteException) {
+          e.addSuppressed(deleteException);
+        }
+      }
+      throw e;
+    }
 
-    long tmpGenerationId =
+    GoogleCloudStorageItemInfo tmpItemInfo =
         tmpOut instanceof GoogleCloudStorageItemInfo.Provider
-            ? ((GoogleCloudStorageItemInfo.Provider) tmpOut).getItemInfo().getContentGeneration()
-            : StorageResourceId.UNKNOWN_GENERATION_ID;
+            ? ((GoogleCloudStorageItemInfo.Provider) tmpOut).getItemInfo()
+            : null;
+    long tmpGenerationId =
+        tmpItemInfo == null
+            ? StorageResourceId.UNKNOWN_GENERATION_ID
+            : tmpItemInfo.getContentGeneration();
     logger.atFiner().log(
         "tmpOut is an instance of %s; expected generationId %d.",
         tmpOut.getClass(), tmpGenerationId);
 
     // On the first component, tmpGcsPath will equal finalGcsPath, and no compose() call is
-    // necessary. Otherwise, we compose in-place into the destination object and then delete
-    // the temporary object.
+    // necessary unless parts were uploaded by the parallel composite upload. Otherwise, we compose
+    // in-place into the destination object and then delete the temporary objects.
     if (dstGcsPath.equals(tmpGcsPath)) {
       // First commit was direct to the destination; the generationId of the object we just
       // committed will be used as the destination generation id for future compose calls.
       dstGenerationId = tmpGenerationId;
-    } else {
-      StorageResourceId dstId =
-          StorageResourceId.fromUriPath(
-              dstGcsPath, /* allowEmptyObjectName= */ false, dstGenerationId);
+      if (parts.isEmpty()) {
+        return;
+      }
+    }
+
+    // Destination object is created by the first compose if it was not created directly.
+    StorageResourceId dstId =
+        dstCreateId != null
+            ? dstCreateId
+            : StorageResourceId.fromUriPath(
+                dstGcsPath, /* allowEmptyObjectName= */ false, dstGenerationId);
+    List<StorageResourceId> sources = new ArrayList<>();
+    List<StorageResourceId> tmpIds = new ArrayList<>();
+    if (dstCreateId == null) {
+      sources.add(dstId);
+    }
+    if (!dstGcsPath.equals(tmpGcsPath)) {
       StorageResourceId tmpId =
           StorageResourceId.fromUriPath(
               tmpGcsPath, /* allowEmptyObjectName= */ false, tmpGenerationId);
@@ -331,17 +473,24 @@ class GoogleHadoopOutputStream extends OutputStream
           "Destination bucket in path '%s' doesn't match temp file bucket in path '%s'",
           dstGcsPath,
           tmpGcsPath);
-      GoogleCloudStorage gcs = ghfs.getGcsFs().getGcs();
-      GoogleCloudStorageItemInfo composedObject =
-          gcs.composeObjects(ImmutableList.of(dstId, tmpId), dstId, composeObjectOptions);
-      dstGenerationId = composedObject.getContentGeneration();
-      tmpDeletionFutures.add(
-          TMP_FILE_CLEANUP_THREADPOOL.submit(
-              () -> {
-                gcs.deleteObjects(ImmutableList.of(tmpId));
-                return null;
-              }));
+      sources.add(tmpId);
+      tmpIds.add(tmpId);
     }
+    sources.addAll(parts);
+    tmpIds.addAll(parts);
+
+    GoogleCloudStorageItemInfo composedObject =
+        compositeUpload == null
+            ? gcs.composeObjects(sources, dstId, composeObjectOptions)
+            : compositeUpload.compose(sources, dstId, composeObjectOptions, tmpIds);
+    dstGenerationId = composedObject.getContentGeneration();
+    dstCreateId = null;
+    tmpDeletionFutures.add(
+        TMP_FILE_CLEANUP_THREADPOOL.submit(
+            () -> {
+              gcs.deleteObjects(tmpIds);
+              return null;
+            }));
   }
 
   /** Returns URI to be used for the next temp "tail" file in the series. */
@@ -421,11 +570,101 @@ class GoogleHadoopOutputStream extends OutputStream
     switch (Ascii.toLowerCase(capability)) {
       case StreamCapabilities.HFLUSH:
       case StreamCapabilities.HSYNC:
-        return syncRateLimiter != null;
+        // Data synced to the upload session is not visible to readers and is lost if the writer
+        // fails before close, so it doesn't satisfy the Syncable contract.
+        return syncRateLimiter != null && !isUploadSessionSyncEnabled();
       case StreamCapabilities.IOSTATISTICS:
         return true;
       default:
         return false;
     }
   }
+
+  /**
+   * Buffers component data in memory and uploads it in a single request on close. Once more than
+   * {@link #singleRequestUploadMaxSize} bytes are written, starts an upload session instead and
+   * writes all data to it.
+   */
+  private class SingleRequestUploadOutputStream extends OutputStream
+      implements GoogleCloudStorageItemInfo.Provider {
+
+    private final StorageResourceId resourceId;
+    private final CreateObjectOptions objectOptions;
+
+    // Buffered data, null after upload session is started.
+    @Nullable private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    // Stream that writes to the upload session, null until upload session is started.
+    @Nullable private OutputStream sessionOut;
+
+    // Info of the object uploaded in a single request, null if it was not uploaded yet.
+    @Nullable private GoogleCloudStorageItemInfo itemInfo;
+
+    private boolean closed = false;
+
+    SingleRequestUploadOutputStream(
+        StorageResourceId resourceId, CreateObjectOptions objectOptions) {
+      this.resourceId = resourceId;
+      this.objectOptions = objectOptions;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (sessionOut == null && buffer.size() >= singleRequestUploadMaxSize) {
+        startUploadSession();
+      }
+      (sessionOut == null ? buffer : sessionOut).write(b);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+      if (sessionOut == null && buffer.size() > singleRequestUploadMaxSize - len) {
+        startUploadSession();
+      }
+      (sessionOut == null ? buffer : sessionOut).write(b, off, len);
+    }
+
+    /** Starts upload session, if it was not started yet, and writes buffered data to it. */
+    void startUploadSession() throws IOException {
+      if (sessionOut != null) {
+        return;
+      }
+      logger.atFiner().log(
+          "Starting upload session for %s after %d buffered bytes", resourceId, buffer.size());
+      GoogleCloudStorageFileSystem gcsfs = ghfs.getGcsFs();
+      tmpChannel = gcsfs.getGcs().create(resourceId, objectOptions);
+      sessionOut = createOutputStream(gcsfs, tmpChannel);
+      buffer.writeTo(sessionOut);
+      buffer = null;
+    }
+
+    /** Returns info of the object if it was uploaded in a single request, null otherwise. */
+    @Nullable
+    @Override
+    public GoogleCloudStorageItemInfo getItemInfo() {
+      return itemInfo;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (sessionOut != null) {
+        sessionOut.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (sessionOut != null) {
+        sessionOut.close();
+        return;
+      }
+      itemInfo =
+          ghfs.getGcsFs().getGcs().createObject(resourceId, buffer.toByteArray(), objectOptions);
+      buffer = null;
+    }
+  }
 }
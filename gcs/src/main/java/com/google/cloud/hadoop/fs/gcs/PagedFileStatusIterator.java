@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.fs.gcs;
+
+import com.google.cloud.hadoop.gcsio.FileInfo;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorage.ListPage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.util.functional.FunctionRaisingIOE;
+
+/**
+ * Iterates over file statuses that are listed page by page on demand, so only a single page of
+ * listing results is held in memory and the first statuses are available before the whole listing
+ * completes.
+ *
+ * <p>If prefetch executor is provided, then the next page is listed in the background while the
+ * current page is iterated. Prefetch starts only after the first item of the current page is
+ * returned, so an iterator that is abandoned right after creation does not list pages that are
+ * never used.
+ */
+class PagedFileStatusIterator<T extends FileStatus> implements RemoteIterator<T> {
+
+  private final FunctionRaisingIOE<String, ListPage<FileInfo>> pageLister;
+  private final FunctionRaisingIOE<FileInfo, T> statusConverter;
+  @Nullable private final ExecutorService prefetchExecutor;
+
+  private Iterator<FileInfo> pageItems;
+  @Nullable private String nextPageToken;
+  @Nullable private Future<ListPage<FileInfo>> nextPageFuture;
+
+  /**
+   * Creates iterator and lists the first page eagerly, so listing errors (e.g. non-existent path)
+   * are thrown by the listing call rather than by the iterator methods.
+   *
+   * @param pageLister lists a page for the given page token, {@code null} for the first page
+   * @param statusConverter converts listed file info to file status
+   * @param prefetchExecutor executor to list next page in the background, {@code null} to disable
+   *     prefetch
+   */
+  PagedFileStatusIterator(
+      FunctionRaisingIOE<String, ListPage<FileInfo>> pageLister,
+      FunctionRaisingIOE<FileInfo, T> statusConverter,
+      @Nullable ExecutorService prefetchExecutor)
+      throws IOException {
+    this.pageLister = pageLister;
+    this.statusConverter = statusConverter;
+    this.prefetchExecutor = prefetchExecutor;
+    setPage(pageLister.apply(/* pageToken= */ null));
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    // Skip empty pages, they could be returned when the directory object is filtered out
+    while (!pageItems.hasNext() && nextPageToken != null) {
+      setPage(nextPageFuture == null ? pageLister.apply(nextPageToken) : getNextPage());
+    }
+    return pageItems.hasNext();
+  }
+
+  @Override
+  public T next() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more file statuses to iterate");
+    }
+    FileInfo item = pageItems.next();
+    if (nextPageFuture == null && nextPageToken != null && prefetchExecutor != null) {
+      String pageToken = nextPageToken;
+      nextPageFuture = prefetchExecutor.submit(() -> pageLister.apply(pageToken));
+    }
+    return statusConverter.apply(item);
+  }
+
+  private void setPage(ListPage<FileInfo> page) {
+    pageItems = page.getItems().iterator();
+    nextPageToken = page.getNextPageToken();
+    nextPageFuture = null;
+  }
+
+  private ListPage<FileInfo> getNextPage() throws IOException {
+    try {
+      return nextPageFuture.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to list next page", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      nextPageFuture.cancel(/* mayInterruptIfRunning= */ true);
+      throw (IOException)
+          new InterruptedIOException("Interrupted while listing next page").initCause(e);
+    }
+  }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.fs.gcs;
+
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopOutputStream.TMP_FILE_PREFIX;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import com.google.cloud.hadoop.gcsio.CreateFileOptions;
+import com.google.cloud.hadoop.gcsio.CreateFileOptions.ParallelCompositeUploadBufferType;
+import com.google.cloud.hadoop.gcsio.CreateObjectOptions;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorage;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo;
+import com.google.cloud.hadoop.gcsio.RecursiveComposer;
+import com.google.cloud.hadoop.gcsio.StorageResourceId;
+import com.google.common.flogger.GoogleLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import javax.annotation.Nullable;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Uploads data of a {@link GoogleHadoopOutputStream} as temporary part objects in parallel and
+ * composes them into the destination object.
+ *
+ * <p>Data is buffered in parts of the configured size, and each full part is uploaded by a separate
+ * request. At most the configured number of parts are uploaded concurrently. Part buffers are
+ * either:
+ *
+ * <ul>
+ *   <li>{@link ParallelCompositeUploadBufferType#HEAP} - arrays in memory, writes block when all
+ *       upload slots are taken, so a single stream holds at most {@code concurrency + 1} part
+ *       buffers in memory.
+ *   <li>{@link ParallelCompositeUploadBufferType#DISK} - local files, writes block only when the
+ *       configured number of buffered parts is reached, so memory usage doesn't depend on part size
+ *       and upload concurrency.
+ * </ul>
+ *
+ * <p>Part buffers are retained until their upload succeeds, so a part upload that failed is retried
+ * from the start in a new upload session.
+ *
+ * <p>Because a single compose request accepts at most {@link
+ * GoogleCloudStorage#MAX_COMPOSE_OBJECTS} sources, larger number of sources is composed recursively
+ * via intermediate temporary objects by {@link RecursiveComposer}.
+ *
+ * <p>This class is not thread-safe, it should be used by a single output stream.
+ */
+final class ParallelCompositeUpload {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  // Uploads of parts and intermediate compose requests. Parallelism of each stream is bounded by
+  // its upload permits.
+  private static final ExecutorService PART_UPLOAD_THREAD_POOL =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("ghfs-output-stream-part-upload-%d")
+              .setDaemon(true)
+              .build());
+
+  // Number of attempts to upload a part, each attempt uploads the part in a new upload session.
+  private static final int PART_UPLOAD_MAX_ATTEMPTS = 3;
+
+  // Size of the buffer used to write data to the part file in DISK buffer mode.
+  private static final int DISK_PART_WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private final GoogleHadoopFileSystem ghfs;
+  private final URI dstGcsPath;
+  private final int partSize;
+  private final ParallelCompositeUploadBufferType bufferType;
+  @Nullable private final File bufferDirectory;
+  private final Semaphore bufferPermits;
+  private final Semaphore uploadPermits;
+  private final GhfsOutputStreamStatistics streamStatistics;
+
+  // Buffers of the uploaded parts that could be reused for the next parts.
+  private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+  // Uploads of the parts in the order of their data.
+  private final List<Future<StorageResourceId>> partUploads = new ArrayList<>();
+
+  @Nullable private PartBuffer partBuffer;
+  private int tmpObjectIndex = 0;
+
+  ParallelCompositeUpload(
+      GoogleHadoopFileSystem ghfs,
+      URI dstGcsPath,
+      CreateFileOptions options,
+      GhfsOutputStreamStatistics streamStatistics) {
+    int partSize = options.getParallelCompositeUploadPartSize();
+    int concurrency = options.getParallelCompositeUploadConcurrency();
+    checkArgument(partSize > 0, "partSize must be positive, but was %s", partSize);
+    checkArgument(concurrency > 0, "concurrency must be positive, but was %s", concurrency);
+    this.ghfs = ghfs;
+    this.dstGcsPath = dstGcsPath;
+    this.partSize = partSize;
+    this.bufferType = options.getParallelCompositeUploadBufferType();
+    this.bufferDirectory =
+        isNullOrEmpty(options.getParallelCompositeUploadBufferDirectory())
+            ? null
+            : new File(options.getParallelCompositeUploadBufferDirectory());
+    this.bufferPermits =
+        new Semaphore(
+            bufferType == ParallelCompositeUploadBufferType.DISK
+                ? Math.max(concurrency, options.getParallelCompositeUploadBufferMaxParts())
+                : concurrency);
+    this.uploadPermits = new Semaphore(concurrency);
+    this.streamStatistics = streamStatistics;
+  }
+
+  /** Buffers a single byte and uploads the part if it is full. */
+  void write(int b) throws IOException {
+    if (partBuffer == null) {
+      partBuffer = allocatePartBuffer();
+    }
+    partBuffer.write(b);
+    if (partBuffer.length == partSize) {
+      uploadPart();
+    }
+  }
+
+  /** Buffers the data and uploads each part that becomes full. */
+  void write(byte[] b, int offset, int len) throws IOException {
+    while (len > 0) {
+      if (partBuffer == null) {
+        partBuffer = allocatePartBuffer();
+      }
+      int bytesToCopy = Math.min(len, partSize - partBuffer.length);
+      partBuffer.write(b, offset, bytesToCopy);
+      offset += bytesToCopy;
+      len -= bytesToCopy;
+      if (partBuffer.length == partSize) {
+        uploadPart();
+      }
+    }
+  }
+
+  /**
+   * Uploads the buffered data as the last part and waits until all parts are uploaded.
+   *
+   * @return uploaded parts in the order of their data
+   * @throws IOException if any of the parts failed to upload, in this case uploaded parts are
+   *     deleted
+   */
+  List<StorageResourceId> awaitParts() throws IOException {
+    if (partBuffer != null && partBuffer.length > 0) {
+      uploadPart();
+    }
+    List<StorageResourceId> parts = new ArrayList<>(partUploads.size());
+    IOException failure = null;
+    for (Future<StorageResourceId> partUpload : partUploads) {
+      try {
+        parts.add(partUpload.get());
+      } catch (ExecutionException | InterruptedException e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        if (failure == null) {
+          failure =
+              new IOException(
+                  String.format("Failed to upload part of '%s' file", dstGcsPath),
+                  e instanceof ExecutionException ? e.getCause() : e);
+        }
+      }
+    }
+    partUploads.clear();
+    if (failure != null) {
+      try {
+        ghfs.getGcsFs().getGcs().deleteObjects(parts);
+      } catch (IOException e) {
+        failure.addSuppressed(e);
+      }
+      throw failure;
+    }
+    return parts;
+  }
+
+  /**
+   * Composes the sources into the destination object via {@link RecursiveComposer}.
+   *
+   * @param sources objects to compose, in order
+   * @param dstId destination object
+   * @param options options of the destination object
+   * @param tmpObjects temporary objects that are deleted if composition fails. Created intermediate
+   *     temporary objects are added to it, so they could be deleted by the caller
+   * @return composed destination object
+   */
+  GoogleCloudStorageItemInfo compose(
+      List<StorageResourceId> sources,
+      StorageResourceId dstId,
+      CreateObjectOptions options,
+      List<StorageResourceId> tmpObjects)
+      throws IOException {
+    int tmpObjectCount = tmpObjects.size();
+    GoogleCloudStorageItemInfo composed =
+        RecursiveComposer.compose(
+            ghfs.getGcsFs().getGcs(),
+            PART_UPLOAD_THREAD_POOL,
+            sources,
+            dstId,
+            options,
+            () -> getNextTmpObjectId("compose"),
+            tmpObjects);
+    // One compose request per intermediate object and one for the destination object.
+    for (int i = tmpObjectCount; i <= tmpObjects.size(); i++) {
+      streamStatistics.composeInvoked();
+    }
+    logger.atFiner().log(
+        "Composed %d sources into '%s' via %d intermediate objects",
+        sources.size(), dstGcsPath, tmpObjects.size() - tmpObjectCount);
+    return composed;
+  }
+
+  private void uploadPart() throws IOException {
+    PartBuffer buffer = partBuffer;
+    partBuffer = null;
+    buffer.seal();
+
+    StorageResourceId partId = getNextTmpObjectId("part");
+    try {
+      bufferPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      buffer.release();
+      throw (IOException)
+          new InterruptedIOException(
+                  String.format("Interrupted while waiting to upload part of '%s'", dstGcsPath))
+              .initCause(e);
+    }
+    partUploads.add(
+        PART_UPLOAD_THREAD_POOL.submit(
+            () -> {
+              try {
+                uploadPermits.acquire();
+                try {
+                  uploadPartWithRetries(partId, buffer);
+                } finally {
+                  uploadPermits.release();
+                }
+                return partId;
+              } finally {
+                buffer.release();
+                bufferPermits.release();
+              }
+            }));
+  }
+
+  private void uploadPartWithRetries(StorageResourceId partId, PartBuffer buffer)
+      throws IOException {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        // Retries overwrite the part object that could be created by a failed attempt.
+        uploadPart(
+            attempt == 1 ? withNoGeneration(partId) : partId,
+            attempt == 1
+                ? CreateObjectOptions.DEFAULT_NO_OVERWRITE
+                : CreateObjectOptions.DEFAULT_OVERWRITE,
+            buffer);
+        return;
+      } catch (IOException e) {
+        if (attempt >= PART_UPLOAD_MAX_ATTEMPTS) {
+          throw e;
+        }
+        logger.atWarning().withCause(e).log(
+            "Failed to upload part '%s' of '%s', retrying (attempt %d of %d)",
+            partId, dstGcsPath, attempt + 1, PART_UPLOAD_MAX_ATTEMPTS);
+      }
+    }
+  }
+
+  private void uploadPart(StorageResourceId partId, CreateObjectOptions options, PartBuffer buffer)
+      throws IOException {
+    logger.atFiner().log("Uploading %d bytes part '%s' of '%s'", buffer.length, partId, dstGcsPath);
+    GoogleCloudStorage gcs = ghfs.getGcsFs().getGcs();
+    try (WritableByteChannel channel = gcs.create(partId, options)) {
+      buffer.writeTo(channel);
+    }
+    streamStatistics.compositeUploadPartUploaded();
+  }
+
+  private PartBuffer allocatePartBuffer() throws IOException {
+    if (bufferType == ParallelCompositeUploadBufferType.DISK) {
+      return new DiskPartBuffer(bufferDirectory);
+    }
+    byte[] buffer = freeBuffers.poll();
+    return new HeapPartBuffer(buffer == null ? new byte[partSize] : buffer);
+  }
+
+  /** Returns ID of a new temporary object in the directory of the destination file. */
+  private StorageResourceId getNextTmpObjectId(String type) {
+    Path basePath = ghfs.getHadoopPath(dstGcsPath);
+    Path tmpPath =
+        new Path(
+            basePath.getParent(),
+            String.format(
+                "%s%s.%s.%d.%s",
+                TMP_FILE_PREFIX, basePath.getName(), type, tmpObjectIndex++, UUID.randomUUID()));
+    return StorageResourceId.fromUriPath(
+        ghfs.getGcsPath(tmpPath), /* allowEmptyObjectName= */ false);
+  }
+
+  /**
+   * Returns ID with generation 0 precondition, that is used to create temporary objects without a
+   * metadata request, because they never exist before.
+   */
+  private static StorageResourceId withNoGeneration(StorageResourceId resourceId) {
+    return new StorageResourceId(
+        resourceId.getBucketName(), resourceId.getObjectName(), /* generationId= */ 0L);
+  }
+
+  /** Buffer of the data of a single part. */
+  private abstract static class PartBuffer {
+
+    // Number of bytes written to the buffer.
+    int length = 0;
+
+    abstract void write(int b) throws IOException;
+
+    abstract void write(byte[] b, int offset, int len) throws IOException;
+
+    /** Finishes writing of the buffer, after that it could be only written to a channel. */
+    abstract void seal() throws IOException;
+
+    /** Writes all buffered data to the channel, could be called multiple times. */
+    abstract void writeTo(WritableByteChannel channel) throws IOException;
+
+    /** Releases resources of the buffer after the part was uploaded. */
+    abstract void release();
+  }
+
+  /** Part buffer in a heap array, that is reused for the next parts after release. */
+  private class HeapPartBuffer extends PartBuffer {
+
+    private final byte[] data;
+
+    HeapPartBuffer(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    void write(int b) {
+      data[length++] = (byte) b;
+    }
+
+    @Override
+    void write(byte[] b, int offset, int len) {
+      System.arraycopy(b, offset, data, length, len);
+      length += len;
+    }
+
+    @Override
+    void seal() {}
+
+    @Override
+    void writeTo(WritableByteChannel channel) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    @Override
+    void release() {
+      freeBuffers.offer(data);
+    }
+  }
+
+  /** Part buffer in a local file, that is deleted after release. */
+  private static class DiskPartBuffer extends PartBuffer {
+
+    private final java.nio.file.Path file;
+    @Nullable private OutputStream out;
+
+    DiskPartBuffer(@Nullable File directory) throws IOException {
+      // Uses default temporary-file directory if directory is null.
+      this.file = File.createTempFile(TMP_FILE_PREFIX, ".part", directory).toPath();
+      this.out = new BufferedOutputStream(Files.newOutputStream(file), DISK_PART_WRITE_BUFFER_SIZE);
+    }
+
+    @Override
+    void write(int b) throws IOException {
+      out.write(b);
+      length++;
+    }
+
+    @Override
+    void write(byte[] b, int offset, int len) throws IOException {
+      out.write(b, offset, len);
+      length += len;
+    }
+
+    @Override
+    void seal() throws IOException {
+      out.close();
+      out = null;
+    }
+
+    @Override
+    void writeTo(WritableByteChannel channel) throws IOException {
+      try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+        long position = 0;
+        while (position < length) {
+          position += fileChannel.transferTo(position, length - position, channel);
+        }
+      }
+    }
+
+    @Override
+    void release() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Failed to delete part buffer file '%s'", file);
+      }
+    }
+  }
+}
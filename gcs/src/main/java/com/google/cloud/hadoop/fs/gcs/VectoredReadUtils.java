@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.fs.gcs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.toIntExact;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/** Helper methods to validate, sort and merge ranges of a vectored read. */
+final class VectoredReadUtils {
+
+  /**
+   * Sorts ranges by offset and validates that they do not overlap.
+   *
+   * @param ranges ranges to validate and sort
+   * @return ranges sorted by offset
+   * @throws IllegalArgumentException if any of the ranges overlap
+   */
+  static List<FileRange> validateAndSortRanges(List<? extends FileRange> ranges) {
+    checkNotNull(ranges, "ranges should not be null");
+    List<FileRange> sortedRanges = new ArrayList<>(ranges);
+    sortedRanges.sort(Comparator.comparingLong(FileRange::getOffset));
+    for (int i = 1; i < sortedRanges.size(); i++) {
+      FileRange prev = sortedRanges.get(i - 1);
+      FileRange current = sortedRanges.get(i);
+      checkArgument(
+          prev.getOffset() + prev.getLength() <= current.getOffset(),
+          "Overlapping ranges %s and %s",
+          prev,
+          current);
+    }
+    return sortedRanges;
+  }
+
+  /**
+   * Merges sorted ranges into combined ranges, so that each combined range could be read by a
+   * single request.
+   *
+   * @param sortedRanges non-overlapping ranges sorted by offset
+   * @param minSeekSize maximum gap in bytes between two ranges for them to be merged
+   * @param maxMergedSize maximum size in bytes of a combined range that contains more than one
+   *     range
+   * @return combined ranges sorted by offset
+   */
+  static List<CombinedFileRange> mergeSortedRanges(
+      List<FileRange> sortedRanges, int minSeekSize, int maxMergedSize) {
+    List<CombinedFileRange> combinedRanges = new ArrayList<>();
+    CombinedFileRange current = null;
+    for (FileRange range : sortedRanges) {
+      if (current == null || !current.merge(range, minSeekSize, maxMergedSize)) {
+        current = new CombinedFileRange(range);
+        combinedRanges.add(current);
+      }
+    }
+    return combinedRanges;
+  }
+
+  /**
+   * Returns a slice of the combined range data that contains data for the specified range.
+   *
+   * @param combinedData data of the combined range, positioned at the start of the combined range
+   * @param combinedOffset offset of the combined range in the file
+   * @param range range to slice data for
+   */
+  static ByteBuffer sliceTo(ByteBuffer combinedData, long combinedOffset, FileRange range) {
+    ByteBuffer slice = combinedData.duplicate();
+    int start = toIntExact(range.getOffset() - combinedOffset);
+    slice.position(start);
+    slice.limit(start + range.getLength());
+    return slice.slice();
+  }
+
+  /** A range that covers one or more ranges of a vectored read and gaps between them. */
+  static final class CombinedFileRange {
+
+    private final long offset;
+    private long end;
+    private final List<FileRange> underlying = new ArrayList<>();
+
+    CombinedFileRange(FileRange range) {
+      this.offset = range.getOffset();
+      this.end = range.getOffset() + range.getLength();
+      this.underlying.add(range);
+    }
+
+    /**
+     * Merges the range into this combined range if the gap between them is not larger than {@code
+     * minSeekSize} and the resulting combined range is not larger than {@code maxMergedSize}.
+     *
+     * @return {@code true} if the range was merged, {@code false} otherwise
+     */
+    boolean merge(FileRange range, int minSeekSize, int maxMergedSize) {
+      long rangeEnd = range.getOffset() + range.getLength();
+      if (range.getOffset() - end > minSeekSize || rangeEnd - offset > maxMergedSize) {
+        return false;
+      }
+      end = rangeEnd;
+      underlying.add(range);
+      return true;
+    }
+
+    long getOffset() {
+      return offset;
+    }
+
+    int getLength() {
+      return toIntExact(end - offset);
+    }
+
+    List<FileRange> getUnderlying() {
+      return Collections.unmodifiableList(underlying);
+    }
+  }
+
+  private VectoredReadUtils() {}
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.fs.gcs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.cloud.hadoop.fs.gcs.VectoredReadUtils.CombinedFileRange;
+import com.google.common.collect.ImmutableList;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.StreamCapabilities;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unittests for {@link GoogleHadoopFSInputStream}. */
+@RunWith(JUnit4.class)
+public class GoogleHadoopFSInputStreamTest {
+
+  private GoogleHadoopFileSystem ghfs;
+
+  @Before
+  public void setUp() throws IOException {
+    ghfs = GoogleHadoopFileSystemTestHelper.createInMemoryGoogleHadoopFileSystem();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    ghfs.close();
+  }
+
+  @Test
+  public void readVectored_returnsRangesData() throws Exception {
+    byte[] content = writeObject("/readVectored_returnsRangesData", 64 * 1024);
+
+    List<FileRange> ranges =
+        ImmutableList.of(
+            FileRange.createFileRange(40 * 1024, 1024),
+            FileRange.createFileRange(0, 100),
+            FileRange.createFileRange(110, 50),
+            FileRange.createFileRange(64 * 1024 - 10, 10));
+
+    try (GoogleHadoopFSInputStream in = createInputStream("/readVectored_returnsRangesData")) {
+      in.readVectored(ranges, ByteBuffer::allocateDirect);
+
+      for (FileRange range : ranges) {
+        assertThat(toByteArray(range.getData().get()))
+            .isEqualTo(
+                Arrays.copyOfRange(
+                    content, (int) range.getOffset(), (int) range.getOffset() + range.getLength()));
+      }
+      assertThat(in.getPos()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void readVectored_rangeBeyondEndOfFile_failsRange() throws Exception {
+    writeObject("/readVectored_rangeBeyondEndOfFile", 16 * 1024);
+
+    FileRange validRange = FileRange.createFileRange(0, 100);
+    FileRange invalidRange = FileRange.createFileRange(16 * 1024 - 50, 100);
+
+    try (GoogleHadoopFSInputStream in = createInputStream("/readVectored_rangeBeyondEndOfFile")) {
+      in.readVectored(ImmutableList.of(validRange, invalidRange), ByteBuffer::allocate);
+
+      assertThat(validRange.getData().get().remaining()).isEqualTo(100);
+      ExecutionException e =
+          assertThrows(ExecutionException.class, () -> invalidRange.getData().get());
+      assertThat(e).hasCauseThat().isInstanceOf(EOFException.class);
+    }
+  }
+
+  @Test
+  public void readVectored_rangeBeyondEndOfFile_doesNotFailMergedValidRange() throws Exception {
+    byte[] content = writeObject("/readVectored_rangeBeyondEndOfFile_merged", 16 * 1024);
+
+    // Ranges are close enough to be merged into a single request
+    FileRange validRange = FileRange.createFileRange(16 * 1024 - 200, 100);
+    FileRange invalidRange = FileRange.createFileRange(16 * 1024 - 50, 100);
+
+    try (GoogleHadoopFSInputStream in =
+        createInputStream("/readVectored_rangeBeyondEndOfFile_merged")) {
+      in.readVectored(ImmutableList.of(validRange, invalidRange), ByteBuffer::allocate);
+
+      assertThat(toByteArray(validRange.getData().get()))
+          .isEqualTo(Arrays.copyOfRange(content, 16 * 1024 - 200, 16 * 1024 - 100));
+      ExecutionException e =
+          assertThrows(ExecutionException.class, () -> invalidRange.getData().get());
+      assertThat(e).hasCauseThat().isInstanceOf(EOFException.class);
+    }
+  }
+
+  @Test
+  public void readVectored_overlappingRanges_throwsException() throws Exception {
+    writeObject("/readVectored_overlappingRanges", 1024);
+
+    List<FileRange> ranges =
+        ImmutableList.of(FileRange.createFileRange(0, 100), FileRange.createFileRange(50, 100));
+
+    try (GoogleHadoopFSInputStream in = createInputStream("/readVectored_overlappingRanges")) {
+      assertThrows(
+          IllegalArgumentException.class, () -> in.readVectored(ranges, ByteBuffer::allocate));
+    }
+  }
+
+  @Test
+  public void readByteBuffer_directBuffer_readsFromCurrentPosition() throws Exception {
+    byte[] content = writeObject("/readByteBuffer_directBuffer", 4 * 1024);
+
+    try (FSDataInputStream in =
+        ghfs.open(new Path(ghfs.getUri().resolve("/readByteBuffer_directBuffer")))) {
+      assertThat(in.hasCapability(StreamCapabilities.READBYTEBUFFER)).isTrue();
+      in.seek(100);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+      int numRead = in.read(buffer);
+
+      buffer.flip();
+      assertThat(toByteArray(buffer)).isEqualTo(Arrays.copyOfRange(content, 100, 100 + numRead));
+      assertThat(in.getPos()).isEqualTo(100 + numRead);
+    }
+  }
+
+  @Test
+  public void readFullyByteBuffer_doesNotChangePosition() throws Exception {
+    byte[] content = writeObject("/readFullyByteBuffer", 4 * 1024);
+
+    try (FSDataInputStream in =
+        ghfs.open(new Path(ghfs.getUri().resolve("/readFullyByteBuffer")))) {
+      assertThat(in.hasCapability(StreamCapabilities.PREADBYTEBUFFER)).isTrue();
+      in.seek(10);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+      in.readFully(2048, buffer);
+
+      buffer.flip();
+      assertThat(toByteArray(buffer)).isEqualTo(Arrays.copyOfRange(content, 2048, 2048 + 1024));
+      assertThat(in.getPos()).isEqualTo(10);
+    }
+  }
+
+  @Test
+  public void readFullyByteBuffer_beyondEndOfFile_throwsEofException() throws Exception {
+    writeObject("/readFullyByteBuffer_beyondEndOfFile", 1024);
+
+    try (GoogleHadoopFSInputStream in = createInputStream("/readFullyByteBuffer_beyondEndOfFile")) {
+      assertThrows(EOFException.class, () -> in.readFully(512, ByteBuffer.allocateDirect(1024)));
+      assertThat(in.getPos()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void readFully_concurrentPositionalReads_doNotChangePosition() throws Exception {
+    byte[] content = writeObject("/readFully_concurrentPositionalReads", 64 * 1024);
+    int readSize = 1024;
+
+    try (GoogleHadoopFSInputStream in = createInputStream("/readFully_concurrentPositionalReads")) {
+      in.seek(10);
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<byte[]>> reads = new ArrayList<>();
+        for (int i = 0; i < content.length / readSize; i++) {
+          long position = (long) i * readSize;
+          reads.add(
+              executor.submit(
+                  () -> {
+                    byte[] buf = new byte[readSize];
+                    in.readFully(position, buf);
+                    return buf;
+                  }));
+        }
+        for (int i = 0; i < reads.size(); i++) {
+          assertThat(reads.get(i).get())
+              .isEqualTo(Arrays.copyOfRange(content, i * readSize, (i + 1) * readSize));
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+      assertThat(in.getPos()).isEqualTo(10);
+      assertThat(in.read()).isEqualTo(content[10] & 0xff);
+    }
+  }
+
+  @Test
+  public void readFully_concurrentPositionalReads_keepsBoundedNumberOfIdleChannels()
+      throws Exception {
+    writeObject("/readFully_concurrentPositionalReads_idleChannels", 64 * 1024);
+    int concurrentReads = 4 * GoogleHadoopFSInputStream.MAX_IDLE_POSITIONED_READ_CHANNELS;
+
+    try (GoogleHadoopFSInputStream in =
+        createInputStream("/readFully_concurrentPositionalReads_idleChannels")) {
+      ExecutorService executor = Executors.newFixedThreadPool(concurrentReads);
+      try {
+        CyclicBarrier barrier = new CyclicBarrier(concurrentReads);
+        List<Future<?>> reads = new ArrayList<>();
+        for (int i = 0; i < concurrentReads; i++) {
+          long position = i * 1024L;
+          reads.add(
+              executor.submit(
+                  () -> {
+                    barrier.await();
+                    in.readFully(position, new byte[1024]);
+                    return null;
+                  }));
+        }
+        for (Future<?> read : reads) {
+          read.get();
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+
+      assertThat(in.getIdlePositionedReadChannelCount()).isGreaterThan(0);
+      assertThat(in.getIdlePositionedReadChannelCount())
+          .isAtMost(GoogleHadoopFSInputStream.MAX_IDLE_POSITIONED_READ_CHANNELS);
+    }
+  }
+
+  @Test
+  public void read_positionBeyondEndOfFile_returnsEndOfFile() throws Exception {
+    writeObject("/read_positionBeyondEndOfFile", 1024);
+
+    try (GoogleHadoopFSInputStream in = createInputStream("/read_positionBeyondEndOfFile")) {
+      assertThat(in.read(1024, new byte[10], 0, 10)).isEqualTo(-1);
+    }
+  }
+
+  @Test
+  public void read_positionalReadAfterClose_throwsException() throws Exception {
+    writeObject("/read_positionalReadAfterClose", 1024);
+
+    GoogleHadoopFSInputStream in = createInputStream("/read_positionalReadAfterClose");
+    in.readFully(0, new byte[10]);
+    in.close();
+
+    assertThrows(IOException.class, () -> in.read(0, new byte[10], 0, 10));
+  }
+
+  @Test
+  public void mergeSortedRanges_respectsMinSeekAndMaxMergedSize() {
+    List<FileRange> sortedRanges =
+        VectoredReadUtils.validateAndSortRanges(
+            ImmutableList.of(
+                FileRange.createFileRange(1_000, 100),
+                FileRange.createFileRange(0, 100),
+                FileRange.createFileRange(150, 100),
+                FileRange.createFileRange(1_150, 900)));
+
+    List<CombinedFileRange> combinedRanges =
+        VectoredReadUtils.mergeSortedRanges(
+            sortedRanges, /* minSeekSize= */ 100, /* maxMergedSize= */ 1_000);
+
+    assertThat(combinedRanges).hasSize(3);
+    assertThat(combinedRanges.get(0).getOffset()).isEqualTo(0);
+    assertThat(combinedRanges.get(0).getLength()).isEqualTo(250);
+    assertThat(combinedRanges.get(0).getUnderlying()).hasSize(2);
+    assertThat(combinedRanges.get(1).getOffset()).isEqualTo(1_000);
+    assertThat(combinedRanges.get(1).getLength()).isEqualTo(100);
+    assertThat(combinedRanges.get(2).getOffset()).isEqualTo(1_150);
+    assertThat(combinedRanges.get(2).getLength()).isEqualTo(900);
+  }
+
+  private byte[] writeObject(String path, int size) throws IOException {
+    byte[] content = new byte[size];
+    new Random().nextBytes(content);
+    try (FSDataOutputStream out = ghfs.create(new Path(ghfs.getUri().resolve(path)))) {
+      out.write(content);
+    }
+    return content;
+  }
+
+  private GoogleHadoopFSInputStream createInputStream(String path) throws IOException {
+    URI gcsPath = ghfs.getGcsPath(new Path(ghfs.getUri().resolve(path)));
+    return GoogleHadoopFSInputStream.create(
+        ghfs, gcsPath, new FileSystem.Statistics(ghfs.getScheme()));
+  }
+
+  private static byte[] toByteArray(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+}
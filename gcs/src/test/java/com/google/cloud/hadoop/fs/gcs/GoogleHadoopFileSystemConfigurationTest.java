@@ -42,6 +42,7 @@ import static org.junit.Assert.assertThrows;
 
 import com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystem.GcsFileChecksumType;
 import com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystem.GlobAlgorithm;
+import com.google.cloud.hadoop.gcsio.CreateFileOptions.ParallelCompositeUploadBufferType;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemOptions;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemOptions.FilesystemAPI;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions;
@@ -89,6 +90,9 @@ public class GoogleHadoopFileSystemConfigurationTest {
           put("fs.gs.grpc.server.address", "storage.googleapis.com");
           put("fs.gs.grpc.trafficdirector.enable", true);
           put("fs.gs.grpc.write.buffered.requests", 20L);
+          put("fs.gs.grpc.write.max.inflight.bytes", 0L);
+          put("fs.gs.grpc.write.parallel.block.size", 64 * 1024 * 1024);
+          put("fs.gs.grpc.write.parallel.streams", 1);
           put("fs.gs.grpc.write.timeout.ms", 10 * 60_000L);
           put("fs.gs.grpc.write.message.timeout.ms", 3_000L);
           put("fs.gs.http.connect-timeout", 20_000);
@@ -98,23 +102,57 @@ public class GoogleHadoopFileSystemConfigurationTest {
           put("fs.gs.inputstream.fast.fail.on.not.found.enable", true);
           put("fs.gs.inputstream.inplace.seek.limit", 8 * 1024 * 1024L);
           put("fs.gs.inputstream.min.range.request.size", 2 * 1024 * 1024L);
+          put("fs.gs.inputstream.max.range.request.size", 16 * 1024 * 1024L);
+          put("fs.gs.inputstream.fadvise.window.size", 8);
+          put("fs.gs.inputstream.read.ahead.block.count", 0);
+          put("fs.gs.inputstream.read.ahead.block.size", 8 * 1024 * 1024);
+          put("fs.gs.inputstream.striped.read.count", 0);
+          put("fs.gs.inputstream.striped.read.size", 16 * 1024 * 1024);
+          put("fs.gs.inputstream.block.cache.size", 0L);
+          put("fs.gs.inputstream.block.cache.block.size", 1024 * 1024);
+          put("fs.gs.inputstream.block.cache.off.heap.enable", false);
+          put("fs.gs.inputstream.disk.cache.directory", null);
+          put("fs.gs.inputstream.disk.cache.size", 0L);
+          put("fs.gs.inputstream.disk.cache.block.size", 8 * 1024 * 1024);
+          put("fs.gs.inputstream.footer.prefetch.size", 0);
+          put("fs.gs.inputstream.hedged.read.enable", false);
+          put("fs.gs.inputstream.hedged.read.percentile", 95);
+          put("fs.gs.inputstream.hedged.read.min.delay.ms", 50L);
           put("fs.gs.inputstream.support.gzip.encoding.enable", false);
+          put("fs.gs.inputstream.vectored.read.max.merged.size", 1024 * 1024);
+          put("fs.gs.inputstream.vectored.read.min.seek.size", 4 * 1024);
           put("fs.gs.io.buffersize.write", 64 * 1024 * 1024);
           put("fs.gs.lazy.init.enable", false);
           put("fs.gs.list.max.items.per.call", 5000L);
+          put("fs.gs.list.parallelism", 1);
+          put("fs.gs.list.prefetch.enable", false);
           put("fs.gs.marker.file.pattern", null);
           put("fs.gs.max.requests.per.batch", 15L);
           put("fs.gs.max.wait.for.empty.object.creation.ms", 3_000);
           put("fs.gs.metrics.sink", MetricsSink.NONE);
+          put("fs.gs.outputstream.buffer.pool.size", 0L);
           put("fs.gs.outputstream.buffer.size", 8 * 1024 * 1024);
+          put("fs.gs.outputstream.checksum.verification.enable", false);
           put("fs.gs.outputstream.direct.upload.enable", false);
+          put("fs.gs.outputstream.md5.checksum.enable", false);
+          put("fs.gs.outputstream.parallel.composite.upload.buffer.directory", null);
+          put("fs.gs.outputstream.parallel.composite.upload.buffer.max.parts", 16);
+          put(
+              "fs.gs.outputstream.parallel.composite.upload.buffer.type",
+              ParallelCompositeUploadBufferType.HEAP);
+          put("fs.gs.outputstream.parallel.composite.upload.concurrency", 4);
+          put("fs.gs.outputstream.parallel.composite.upload.part.size", 0);
           put("fs.gs.outputstream.pipe.buffer.size", 1024 * 1024);
           put("fs.gs.outputstream.pipe.type", PipeType.IO_STREAM_PIPE);
+          put("fs.gs.outputstream.single.request.upload.max.size", 0);
           put("fs.gs.outputstream.sync.min.interval.ms", 0);
+          put("fs.gs.outputstream.sync.upload.session.enable", false);
           put("fs.gs.outputstream.upload.cache.size", 0);
           put("fs.gs.outputstream.upload.chunk.size", 64 * 1024 * 1024);
           put("fs.gs.performance.cache.enable", false);
+          put("fs.gs.performance.cache.max.entries", 100_000L);
           put("fs.gs.performance.cache.max.entry.age.ms", 5_000L);
+          put("fs.gs.performance.cache.not.found.max.entry.age.ms", 0L);
           put("fs.gs.project.id", null);
           put("fs.gs.reported.permissions", "700");
           put("fs.gs.requester.pays.buckets", ImmutableList.of());
@@ -54,11 +54,15 @@ import com.google.api.client.http.HttpResponseException;
 import com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystem.GcsFileChecksumType;
 import com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystem.GlobAlgorithm;
 import com.google.cloud.hadoop.fs.gcs.auth.TestDelegationTokenBindingImpl;
+import com.google.cloud.hadoop.gcsio.ForwardingGoogleCloudStorage;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorage.ListPage;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystem;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemImpl;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemIntegrationTest;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageFileSystemOptions;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions;
+import com.google.cloud.hadoop.gcsio.ListObjectOptions;
 import com.google.cloud.hadoop.gcsio.MethodOutcome;
 import com.google.cloud.hadoop.gcsio.testing.InMemoryGoogleCloudStorage;
 import com.google.cloud.hadoop.util.AccessTokenProvider;
@@ -78,13 +82,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileChecksum;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.fs.statistics.IOStatistics;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -751,6 +758,144 @@ public class GoogleHadoopFileSystemIntegrationTest extends GoogleHadoopFileSyste
     assertThat(myGhfs.delete(testRoot, /* recursive= */ true)).isTrue();
   }
 
+  @Test
+  public void listStatusIterator_directory_returnsChildrenStatuses() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+    Path testRoot = new Path("/directory1/");
+    myGhfs.mkdirs(new Path(testRoot, "subdir"));
+    myGhfs.create(new Path(testRoot, "file1")).close();
+
+    RemoteIterator<FileStatus> iterator = myGhfs.listStatusIterator(testRoot);
+
+    List<String> names = new ArrayList<>();
+    while (iterator.hasNext()) {
+      FileStatus status = iterator.next();
+      assertThat(status.isDirectory()).isEqualTo(status.getPath().getName().equals("subdir"));
+      names.add(status.getPath().getName());
+    }
+    assertThat(names).containsExactly("file1", "subdir").inOrder();
+    assertThat(myGhfs.delete(testRoot, /* recursive= */ true)).isTrue();
+  }
+
+  @Test
+  public void listStatusIterator_file_returnsFileStatus() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+    Path filePath = new Path("/directory1/file1");
+    myGhfs.create(filePath).close();
+
+    RemoteIterator<FileStatus> iterator = myGhfs.listStatusIterator(filePath);
+
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file1");
+    assertThat(iterator.hasNext()).isFalse();
+    assertThat(myGhfs.delete(new Path("/directory1/"), /* recursive= */ true)).isTrue();
+  }
+
+  @Test
+  public void listStatusIterator_nonExistentPath_throwsFileNotFoundException() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+
+    assertThrows(
+        FileNotFoundException.class,
+        () -> myGhfs.listStatusIterator(new Path("/non-existent-dir/")));
+  }
+
+  @Test
+  public void listLocatedStatus_returnsBlockLocationsOfFiles() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+    Path testRoot = new Path("/directory1/");
+    myGhfs.mkdirs(new Path(testRoot, "subdir"));
+    try (FSDataOutputStream fout = myGhfs.create(new Path(testRoot, "file1"))) {
+      fout.writeBytes("Test Content");
+    }
+
+    RemoteIterator<LocatedFileStatus> iterator = myGhfs.listLocatedStatus(testRoot);
+
+    LocatedFileStatus fileStatus = iterator.next();
+    assertThat(fileStatus.getPath().getName()).isEqualTo("file1");
+    assertThat(fileStatus.getBlockLocations()).hasLength(1);
+    assertThat(fileStatus.getBlockLocations()[0].getLength()).isEqualTo(fileStatus.getLen());
+    LocatedFileStatus dirStatus = iterator.next();
+    assertThat(dirStatus.getPath().getName()).isEqualTo("subdir");
+    assertThat(dirStatus.getBlockLocations()).isNull();
+    assertThat(iterator.hasNext()).isFalse();
+    assertThat(myGhfs.delete(testRoot, /* recursive= */ true)).isTrue();
+  }
+
+  @Test
+  public void listFiles_recursive_listsAllFilesWithSingleFlatListing() throws IOException {
+    AtomicInteger listRequests = new AtomicInteger();
+    GoogleHadoopFileSystem myGhfs =
+        createInMemoryGoogleHadoopFileSystem(
+            options ->
+                new ForwardingGoogleCloudStorage(new InMemoryGoogleCloudStorage(options)) {
+                  @Override
+                  public ListPage<GoogleCloudStorageItemInfo> listObjectInfoPage(
+                      String bucketName,
+                      String objectNamePrefix,
+                      ListObjectOptions listOptions,
+                      String pageToken)
+                      throws IOException {
+                    listRequests.incrementAndGet();
+                    return super.listObjectInfoPage(
+                        bucketName, objectNamePrefix, listOptions, pageToken);
+                  }
+                });
+    Path testRoot = new Path("/directory1/");
+    myGhfs.mkdirs(new Path(testRoot, "empty-dir"));
+    myGhfs.create(new Path(testRoot, "file1")).close();
+    myGhfs.create(new Path(testRoot, "subdir1/file2")).close();
+    myGhfs.create(new Path(testRoot, "subdir1/subdir2/file3")).close();
+    listRequests.set(0);
+
+    RemoteIterator<LocatedFileStatus> iterator = myGhfs.listFiles(testRoot, /* recursive= */ true);
+
+    List<String> paths = new ArrayList<>();
+    while (iterator.hasNext()) {
+      LocatedFileStatus status = iterator.next();
+      assertThat(status.isFile()).isTrue();
+      assertThat(status.getBlockLocations()).isNotNull();
+      paths.add(myGhfs.makeQualified(status.getPath()).toUri().getPath());
+    }
+    assertThat(paths)
+        .containsExactly(
+            "/directory1/file1", "/directory1/subdir1/file2", "/directory1/subdir1/subdir2/file3")
+        .inOrder();
+    assertThat(listRequests.get()).isEqualTo(1);
+    assertThat(myGhfs.delete(testRoot, /* recursive= */ true)).isTrue();
+  }
+
+  @Test
+  public void listFiles_recursive_file_returnsFile() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+    Path filePath = new Path("/directory1/file1");
+    myGhfs.create(filePath).close();
+
+    RemoteIterator<LocatedFileStatus> iterator = myGhfs.listFiles(filePath, /* recursive= */ true);
+
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file1");
+    assertThat(iterator.hasNext()).isFalse();
+    assertThat(myGhfs.delete(new Path("/directory1/"), /* recursive= */ true)).isTrue();
+  }
+
+  @Test
+  public void listFiles_recursive_emptyDirectory_returnsNoFiles() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+    Path testRoot = new Path("/directory1/");
+    myGhfs.mkdirs(testRoot);
+
+    assertThat(myGhfs.listFiles(testRoot, /* recursive= */ true).hasNext()).isFalse();
+    assertThat(myGhfs.delete(testRoot, /* recursive= */ true)).isTrue();
+  }
+
+  @Test
+  public void listFiles_recursive_nonExistentPath_throwsFileNotFoundException() throws IOException {
+    GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
+
+    assertThrows(
+        FileNotFoundException.class,
+        () -> myGhfs.listFiles(new Path("/non-existent-dir/"), /* recursive= */ true));
+  }
+
   @Test
   public void open_storage_statistics() throws IOException {
     GoogleHadoopFileSystem myGhfs = createInMemoryGoogleHadoopFileSystem();
@@ -63,7 +63,9 @@ public class GoogleHadoopOutputStreamIntegrationTest {
   @Parameterized.Parameters
   public static Collection<Object[]> getConstructorArguments() {
     return Arrays.asList(
-        new Object[] {PipeType.IO_STREAM_PIPE}, new Object[] {PipeType.NIO_CHANNEL_PIPE});
+        new Object[] {PipeType.IO_STREAM_PIPE},
+        new Object[] {PipeType.NIO_CHANNEL_PIPE},
+        new Object[] {PipeType.BUFFER_QUEUE_PIPE});
   }
 
   private final PipeType pipeType;
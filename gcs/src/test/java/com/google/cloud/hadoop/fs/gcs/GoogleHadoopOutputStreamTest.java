@@ -18,30 +18,49 @@ import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.*;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.INVOCATION_HFLUSH;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.INVOCATION_HSYNC;
 import static com.google.cloud.hadoop.fs.gcs.GhfsStatistic.STREAM_WRITE_OPERATIONS;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_DIRECTORY;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_MAX_PARTS;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE;
 import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS;
+import static com.google.cloud.hadoop.fs.gcs.GoogleHadoopFileSystemConfiguration.GCS_OUTPUT_STREAM_SYNC_UPLOAD_SESSION_ENABLE;
 import static com.google.cloud.hadoop.fs.gcs.TestUtils.verifyDurationMetric;
 import static com.google.common.truth.Truth.assertThat;
 import static java.lang.Math.toIntExact;
 import static org.junit.Assert.assertThrows;
 
 import com.google.cloud.hadoop.gcsio.CreateFileOptions;
+import com.google.cloud.hadoop.gcsio.CreateFileOptions.ParallelCompositeUploadBufferType;
+import com.google.cloud.hadoop.gcsio.CreateObjectOptions;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo;
 import com.google.cloud.hadoop.gcsio.StorageResourceId;
 import com.google.cloud.hadoop.gcsio.testing.InMemoryGoogleCloudStorage;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.StreamCapabilities;
 import org.apache.hadoop.fs.statistics.impl.IOStatisticsStore;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -49,6 +68,8 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public class GoogleHadoopOutputStreamTest {
 
+  @Rule public TemporaryFolder tmpFolder = new TemporaryFolder();
+
   private GoogleHadoopFileSystem ghfs;
 
   @Before
@@ -107,6 +128,24 @@ public class GoogleHadoopOutputStreamTest {
     assertThat(data3Read).isEqualTo(data3);
   }
 
+  @Test
+  public void hasCapability_uploadSessionSync_notSyncable() throws Exception {
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS.getKey(), 1);
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/capabilities.bin"));
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      assertThat(fout.hasCapability(StreamCapabilities.HFLUSH)).isTrue();
+      assertThat(fout.hasCapability(StreamCapabilities.HSYNC)).isTrue();
+    }
+
+    // Data synced to the upload session is not visible to readers until close
+    ghfs.getConf().setBoolean(GCS_OUTPUT_STREAM_SYNC_UPLOAD_SESSION_ENABLE.getKey(), true);
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      assertThat(fout.hasCapability(StreamCapabilities.HFLUSH)).isFalse();
+      assertThat(fout.hasCapability(StreamCapabilities.HSYNC)).isFalse();
+    }
+  }
+
   @Test
   public void deleteTempFile_exception() throws IOException {
     IOException closeIoException = new IOException("fake io exception");
@@ -310,6 +349,318 @@ public class GoogleHadoopOutputStreamTest {
     assertThat(fout.getIOStatistics().counters().get(INVOCATION_HFLUSH.getSymbol())).isEqualTo(1);
   }
 
+  @Test
+  public void parallelCompositeUpload_largeNumberOfParts() throws Exception {
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.getKey(), 1024);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY.getKey(), 3);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/parallelCompositeUpload.bin"));
+
+    // Number of parts should be greater than a number of sources allowed in a compose request
+    byte[] expected = new byte[70 * 1024 + 17];
+    new Random().nextBytes(expected);
+
+    FSDataOutputStream fout = ghfs.create(objectPath);
+    fout.write(expected, 0, 10);
+    for (int i = 10; i < expected.length; i += 1000) {
+      fout.write(expected, i, Math.min(1000, expected.length - i));
+    }
+    fout.close();
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(ghfs.listStatus(objectPath.getParent())).hasLength(1);
+
+    IOStatisticsStore ghfsStats = ghfs.getInstrumentation().getIOStatistics();
+    assertThat(ghfsStats.counters().get(STREAM_WRITE_COMPOSITE_UPLOAD_PARTS.getSymbol()))
+        .isEqualTo(70);
+    assertThat(ghfsStats.counters().get(STREAM_WRITE_COMPOSE_OPERATIONS.getSymbol())).isEqualTo(4);
+  }
+
+  @Test
+  public void parallelCompositeUpload_hsync() throws Exception {
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.getKey(), 4);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS.getKey(), 1);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/parallelCompositeUpload_hsync.bin"));
+
+    byte[] expected = new byte[50];
+    new Random().nextBytes(expected);
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(expected, 0, 10);
+      fout.hsync();
+      assertThat(readFile(objectPath)).isEqualTo(Arrays.copyOf(expected, 10));
+
+      for (int i = 10; i < 30; i++) {
+        fout.write(expected[i]);
+      }
+      fout.hsync();
+      assertThat(readFile(objectPath)).isEqualTo(Arrays.copyOf(expected, 30));
+
+      fout.write(expected, 30, 20);
+    }
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(ghfs.listStatus(objectPath.getParent())).hasLength(1);
+  }
+
+  @Test
+  public void parallelCompositeUpload_diskBuffer() throws Exception {
+    File bufferDirectory = tmpFolder.newFolder();
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.getKey(), 1024);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_CONCURRENCY.getKey(), 2);
+    ghfs.getConf()
+        .setEnum(
+            GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE.getKey(),
+            ParallelCompositeUploadBufferType.DISK);
+    ghfs.getConf()
+        .set(
+            GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_DIRECTORY.getKey(),
+            bufferDirectory.getAbsolutePath());
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_MAX_PARTS.getKey(), 4);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/parallelCompositeUpload_disk.bin"));
+
+    byte[] expected = new byte[20 * 1024 + 17];
+    new Random().nextBytes(expected);
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(expected[0]);
+      for (int i = 1; i < expected.length; i += 1000) {
+        fout.write(expected, i, Math.min(1000, expected.length - i));
+      }
+    }
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(ghfs.listStatus(objectPath.getParent())).hasLength(1);
+    assertThat(bufferDirectory.list()).isEmpty();
+
+    IOStatisticsStore ghfsStats = ghfs.getInstrumentation().getIOStatistics();
+    assertThat(ghfsStats.counters().get(STREAM_WRITE_COMPOSITE_UPLOAD_PARTS.getSymbol()))
+        .isEqualTo(20);
+  }
+
+  @Test
+  public void parallelCompositeUpload_failedPartUpload_retried() throws Exception {
+    AtomicInteger failedPartUploads = new AtomicInteger();
+    ghfs =
+        GoogleHadoopFileSystemTestHelper.createInMemoryGoogleHadoopFileSystem(
+            o ->
+                new InMemoryGoogleCloudStorage(o) {
+                  @Override
+                  public synchronized WritableByteChannel create(
+                      StorageResourceId resourceId, CreateObjectOptions options)
+                      throws IOException {
+                    // Fail first upload attempt of each part
+                    if (resourceId.getObjectName().contains(".part.")
+                        && resourceId.getGenerationId() == 0) {
+                      failedPartUploads.incrementAndGet();
+                      throw new IOException("Simulated part upload failure: " + resourceId);
+                    }
+                    return super.create(resourceId, options);
+                  }
+                });
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.getKey(), 8);
+    ghfs.getConf()
+        .setEnum(
+            GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_BUFFER_TYPE.getKey(),
+            ParallelCompositeUploadBufferType.DISK);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/parallelCompositeUpload_retry.bin"));
+
+    byte[] expected = new byte[50];
+    new Random().nextBytes(expected);
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(expected, 0, expected.length);
+    }
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(ghfs.listStatus(objectPath.getParent())).hasLength(1);
+    assertThat(failedPartUploads.get()).isEqualTo(6);
+  }
+
+  @Test
+  public void parallelCompositeUpload_failedCompose_deletesTemporaryObjects() throws Exception {
+    ghfs =
+        GoogleHadoopFileSystemTestHelper.createInMemoryGoogleHadoopFileSystem(
+            o ->
+                new InMemoryGoogleCloudStorage(o) {
+                  @Override
+                  public GoogleCloudStorageItemInfo composeObjects(
+                      List<StorageResourceId> sources,
+                      StorageResourceId destination,
+                      CreateObjectOptions options)
+                      throws IOException {
+                    // Fail only the final compose into the destination object
+                    if (!destination.getObjectName().contains(".compose.")) {
+                      throw new IOException("Simulated compose failure: " + destination);
+                    }
+                    return super.composeObjects(sources, destination, options);
+                  }
+                });
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.getKey(), 1024);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/parallelCompositeUpload_failed.bin"));
+
+    // Number of parts should be greater than a number of sources allowed in a compose request,
+    // so intermediate objects are composed before the failure
+    byte[] data = new byte[40 * 1024];
+    new Random().nextBytes(data);
+
+    FSDataOutputStream fout = ghfs.create(objectPath);
+    fout.write(data, 0, data.length);
+    assertThrows(IOException.class, fout::close);
+
+    // Neither a partial destination object nor temporary objects are left
+    assertThat(listObjects(objectPath.getParent())).isEmpty();
+  }
+
+  @Test
+  public void parallelCompositeUpload_failedPartUpload_destinationNotModified() throws Exception {
+    ghfs =
+        GoogleHadoopFileSystemTestHelper.createInMemoryGoogleHadoopFileSystem(
+            o ->
+                new InMemoryGoogleCloudStorage(o) {
+                  @Override
+                  public synchronized WritableByteChannel create(
+                      StorageResourceId resourceId, CreateObjectOptions options)
+                      throws IOException {
+                    if (resourceId.getObjectName().contains(".part.")) {
+                      throw new IOException("Simulated part upload failure: " + resourceId);
+                    }
+                    return super.create(resourceId, options);
+                  }
+                });
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_PARALLEL_COMPOSITE_UPLOAD_PART_SIZE.getKey(), 8);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/parallelCompositeUpload_old.bin"));
+    byte[] oldData = {0x01, 0x02, 0x03};
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(oldData, 0, oldData.length);
+    }
+
+    byte[] data = new byte[50];
+    new Random().nextBytes(data);
+
+    FSDataOutputStream fout = ghfs.create(objectPath, /* overwrite= */ true);
+    fout.write(data, 0, data.length);
+    // First part is not visible in the destination object while other parts are uploaded
+    assertThat(readFile(objectPath)).isEqualTo(oldData);
+    assertThrows(IOException.class, fout::close);
+
+    assertThat(readFile(objectPath)).isEqualTo(oldData);
+    assertThat(listObjects(objectPath.getParent())).containsExactly(objectPath.getName());
+  }
+
+  @Test
+  public void singleRequestUpload_smallFile_uploadedInSingleRequest() throws Exception {
+    AtomicInteger createObjectCalls = new AtomicInteger();
+    ghfs = createGhfsCountingCreateObjectCalls(createObjectCalls);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE.getKey(), 100);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/singleRequestUpload_small.bin"));
+
+    byte[] expected = new byte[100];
+    new Random().nextBytes(expected);
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(expected, 0, 60);
+      fout.write(expected[60]);
+      fout.write(expected, 61, 39);
+      assertThat(ghfs.exists(objectPath)).isFalse();
+    }
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(createObjectCalls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void singleRequestUpload_largeFile_uploadedToUploadSession() throws Exception {
+    AtomicInteger createObjectCalls = new AtomicInteger();
+    ghfs = createGhfsCountingCreateObjectCalls(createObjectCalls);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE.getKey(), 100);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/singleRequestUpload_large.bin"));
+
+    byte[] expected = new byte[101];
+    new Random().nextBytes(expected);
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(expected, 0, 60);
+      fout.write(expected, 60, 41);
+    }
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(createObjectCalls.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void singleRequestUpload_hsync() throws Exception {
+    AtomicInteger createObjectCalls = new AtomicInteger();
+    ghfs = createGhfsCountingCreateObjectCalls(createObjectCalls);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE.getKey(), 100);
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SYNC_MIN_INTERVAL_MS.getKey(), 1);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/singleRequestUpload_hsync.bin"));
+
+    byte[] expected = new byte[30];
+    new Random().nextBytes(expected);
+
+    try (FSDataOutputStream fout = ghfs.create(objectPath)) {
+      fout.write(expected, 0, 10);
+      fout.hsync();
+      assertThat(readFile(objectPath)).isEqualTo(Arrays.copyOf(expected, 10));
+
+      fout.write(expected, 10, 20);
+    }
+
+    assertThat(readFile(objectPath)).isEqualTo(expected);
+    assertThat(ghfs.listStatus(objectPath.getParent())).hasLength(1);
+    assertThat(createObjectCalls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void singleRequestUpload_existingFile_failsOnCreate() throws Exception {
+    ghfs.getConf().setInt(GCS_OUTPUT_STREAM_SINGLE_REQUEST_UPLOAD_MAX_SIZE.getKey(), 100);
+
+    Path objectPath = new Path(ghfs.getUri().resolve("/dir/singleRequestUpload_existing.bin"));
+    ghfs.create(objectPath).close();
+
+    assertThrows(
+        FileAlreadyExistsException.class, () -> ghfs.create(objectPath, /* overwrite= */ false));
+  }
+
+  private static GoogleHadoopFileSystem createGhfsCountingCreateObjectCalls(
+      AtomicInteger createObjectCalls) throws IOException {
+    return GoogleHadoopFileSystemTestHelper.createInMemoryGoogleHadoopFileSystem(
+        o ->
+            new InMemoryGoogleCloudStorage(o) {
+              @Override
+              public synchronized GoogleCloudStorageItemInfo createObject(
+                  StorageResourceId resourceId, byte[] content, CreateObjectOptions options)
+                  throws IOException {
+                createObjectCalls.incrementAndGet();
+                return super.createObject(resourceId, content, options);
+              }
+            });
+  }
+
+  /** Returns names of all objects, including temporary ones, in the directory. */
+  private List<String> listObjects(Path dirPath) throws IOException {
+    StorageResourceId dirId =
+        StorageResourceId.fromUriPath(ghfs.getGcsPath(dirPath), /* allowEmptyObjectName= */ true)
+            .toDirectoryId();
+    List<String> names = new ArrayList<>();
+    for (GoogleCloudStorageItemInfo info :
+        ghfs.getGcsFs().getGcs().listObjectInfo(dirId.getBucketName(), dirId.getObjectName())) {
+      if (!info.isDirectory()) {
+        names.add(info.getObjectName().substring(dirId.getObjectName().length()));
+      }
+    }
+    return names;
+  }
+
   private byte[] readFile(Path objectPath) throws IOException {
     FileStatus status = ghfs.getFileStatus(objectPath);
     ByteArrayOutputStream allReadBytes = new ByteArrayOutputStream(toIntExact(status.getLen()));
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.fs.gcs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.cloud.hadoop.gcsio.FileInfo;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorage.ListPage;
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo;
+import com.google.cloud.hadoop.gcsio.StorageResourceId;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PagedFileStatusIterator}. */
+@RunWith(JUnit4.class)
+public class PagedFileStatusIteratorTest {
+
+  private static final String BUCKET_NAME = "test-bucket";
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void iterate_listsPagesOnDemand() throws IOException {
+    AtomicInteger listedPages = new AtomicInteger();
+    RemoteIterator<FileStatus> iterator =
+        new PagedFileStatusIterator<>(
+            pageToken -> listPage(listedPages, pageToken, /* pages= */ 3),
+            PagedFileStatusIteratorTest::toStatus,
+            /* prefetchExecutor= */ null);
+
+    assertThat(listedPages.get()).isEqualTo(1);
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file-0-0");
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file-0-1");
+    assertThat(listedPages.get()).isEqualTo(1);
+
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file-1-0");
+    assertThat(listedPages.get()).isEqualTo(2);
+
+    assertThat(toNames(iterator)).containsExactly("file-1-1", "file-2-0", "file-2-1").inOrder();
+    assertThat(listedPages.get()).isEqualTo(3);
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  public void iterate_withPrefetch_listsNextPageInBackground() throws Exception {
+    AtomicInteger listedPages = new AtomicInteger();
+    RemoteIterator<FileStatus> iterator =
+        new PagedFileStatusIterator<>(
+            pageToken -> listPage(listedPages, pageToken, /* pages= */ 3),
+            PagedFileStatusIteratorTest::toStatus,
+            executor);
+
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file-0-0");
+
+    // Second page is prefetched while the first page is iterated
+    while (listedPages.get() < 2) {
+      Thread.sleep(10);
+    }
+
+    assertThat(toNames(iterator))
+        .containsExactly("file-0-1", "file-1-0", "file-1-1", "file-2-0", "file-2-1")
+        .inOrder();
+    assertThat(listedPages.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void iterate_withPrefetch_doesNotPrefetchBeforeIteration() throws Exception {
+    AtomicInteger listedPages = new AtomicInteger();
+    RemoteIterator<FileStatus> iterator =
+        new PagedFileStatusIterator<>(
+            pageToken -> listPage(listedPages, pageToken, /* pages= */ 3),
+            PagedFileStatusIteratorTest::toStatus,
+            executor);
+
+    assertThat(iterator.hasNext()).isTrue();
+    Thread.sleep(100);
+
+    // Iterator that is abandoned before iteration should not list the next page
+    assertThat(listedPages.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void iterate_skipsEmptyPages() throws IOException {
+    RemoteIterator<FileStatus> iterator =
+        new PagedFileStatusIterator<>(
+            pageToken ->
+                pageToken == null
+                    ? new ListPage<>(ImmutableList.of(), "1")
+                    : pageToken.equals("1")
+                        ? new ListPage<>(ImmutableList.of(), "2")
+                        : new ListPage<>(ImmutableList.of(fileInfo("file")), null),
+            PagedFileStatusIteratorTest::toStatus,
+            /* prefetchExecutor= */ null);
+
+    assertThat(toNames(iterator)).containsExactly("file");
+  }
+
+  @Test
+  public void iterate_withPrefetch_rethrowsNextPageListingFailure() throws IOException {
+    RemoteIterator<FileStatus> iterator =
+        new PagedFileStatusIterator<>(
+            pageToken -> {
+              if (pageToken != null) {
+                throw new IOException("next page failure");
+              }
+              return new ListPage<>(ImmutableList.of(fileInfo("file")), "1");
+            },
+            PagedFileStatusIteratorTest::toStatus,
+            executor);
+
+    assertThat(iterator.next().getPath().getName()).isEqualTo("file");
+
+    IOException e = assertThrows(IOException.class, iterator::hasNext);
+    assertThat(e).hasMessageThat().isEqualTo("next page failure");
+  }
+
+  @Test
+  public void create_throwsFirstPageListingFailure() {
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                new PagedFileStatusIterator<>(
+                    pageToken -> {
+                      throw new IOException("first page failure");
+                    },
+                    PagedFileStatusIteratorTest::toStatus,
+                    executor));
+
+    assertThat(e).hasMessageThat().isEqualTo("first page failure");
+  }
+
+  private static ListPage<FileInfo> listPage(
+      AtomicInteger listedPages, String pageToken, int pages) {
+    listedPages.incrementAndGet();
+    int page = pageToken == null ? 0 : Integer.parseInt(pageToken);
+    return new ListPage<>(
+        ImmutableList.of(fileInfo("file-" + page + "-0"), fileInfo("file-" + page + "-1")),
+        page + 1 < pages ? String.valueOf(page + 1) : null);
+  }
+
+  private static FileInfo fileInfo(String objectName) {
+    return FileInfo.fromItemInfo(
+        GoogleCloudStorageItemInfo.createObject(
+            new StorageResourceId(BUCKET_NAME, objectName),
+            /* creationTime= */ 10L,
+            /* modificationTime= */ 15L,
+            /* size= */ 1L,
+            /* contentType= */ null,
+            /* contentEncoding= */ null,
+            /* metadata= */ null,
+            /* contentGeneration= */ 1L,
+            /* metaGeneration= */ 1L,
+            /* verificationAttributes= */ null));
+  }
+
+  private static FileStatus toStatus(FileInfo fileInfo) {
+    return new FileStatus(
+        fileInfo.getSize(),
+        fileInfo.isDirectory(),
+        /* block_replication= */ 1,
+        /* blocksize= */ 1,
+        fileInfo.getModificationTime(),
+        new Path(fileInfo.getPath()));
+  }
+
+  private static List<String> toNames(RemoteIterator<FileStatus> iterator) throws IOException {
+    List<String> names = new ArrayList<>();
+    while (iterator.hasNext()) {
+      names.add(iterator.next().getPath().getName());
+    }
+    return names;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.Fadvise;
+import com.google.common.flogger.GoogleLogger;
+
+/**
+ * Access pattern policy of a read channel that in {@link Fadvise#AUTO} mode adapts to the observed
+ * reads instead of permanently switching to random access after the first non-sequential read.
+ *
+ * <p>The policy tracks seek distances of the last {@link
+ * GoogleCloudStorageReadOptions#getFadviseWindowSize()} reads and switches to random access when at
+ * least half of them were not sequential. In random access mode, size of range requests is doubled
+ * each time a range worth of bytes is read sequentially and halved after each non-sequential read.
+ * When range request size grows above {@link
+ * GoogleCloudStorageReadOptions#getMaxRangeRequestSize()}, the policy switches back to sequential
+ * access.
+ *
+ * <p>This class is not thread-safe, it should be used by a single read channel.
+ */
+public final class AdaptiveFadvise {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  private final Fadvise fadvise;
+  private final long inplaceSeekLimit;
+  private final long minRangeRequestSize;
+  private final long maxRangeRequestSize;
+
+  // Seek distances of the recent reads in a circular buffer.
+  private final long[] seekDistances;
+  private int recordedSeeks = 0;
+  private int nextSeekIndex = 0;
+
+  private boolean randomAccess;
+  private long rangeRequestSize;
+  // Number of bytes read sequentially since the last range request size change.
+  private long sequentialBytesRead = 0;
+  // End position of the last read, -1 if nothing was read yet.
+  private long lastReadEnd = -1;
+
+  private long sequentialToRandomTransitions = 0;
+  private long randomToSequentialTransitions = 0;
+
+  public AdaptiveFadvise(GoogleCloudStorageReadOptions readOptions) {
+    this.fadvise = readOptions.getFadvise();
+    this.inplaceSeekLimit = readOptions.getInplaceSeekLimit();
+    this.minRangeRequestSize = readOptions.getMinRangeRequestSize();
+    this.maxRangeRequestSize = max(minRangeRequestSize, readOptions.getMaxRangeRequestSize());
+    this.seekDistances = new long[readOptions.getFadviseWindowSize()];
+    this.randomAccess = fadvise == Fadvise.RANDOM;
+    this.rangeRequestSize = minRangeRequestSize;
+  }
+
+  /**
+   * Records a read that starts at the {@code position} and updates access pattern before data is
+   * requested for it.
+   *
+   * @param position position at which read starts
+   * @param bytesToRead number of bytes requested by the read
+   */
+  void recordReadStart(long position, long bytesToRead) {
+    if (fadvise != Fadvise.AUTO || lastReadEnd < 0) {
+      return;
+    }
+    long seekDistance = position - lastReadEnd;
+    boolean sequential = isSequential(seekDistance);
+
+    seekDistances[nextSeekIndex] = seekDistance;
+    nextSeekIndex = (nextSeekIndex + 1) % seekDistances.length;
+    recordedSeeks = min(recordedSeeks + 1, seekDistances.length);
+
+    if (!randomAccess) {
+      if (!sequential && 2 * getRandomSeeks() >= recordedSeeks) {
+        logger.atFine().log(
+            "Detected read %d bytes away from %d position, switching to random access (%s)",
+            seekDistance, lastReadEnd, this);
+        randomAccess = true;
+        rangeRequestSize = minRangeRequestSize;
+        sequentialBytesRead = 0;
+        sequentialToRandomTransitions++;
+      }
+      return;
+    }
+
+    if (!sequential) {
+      rangeRequestSize = max(minRangeRequestSize, rangeRequestSize / 2);
+      sequentialBytesRead = 0;
+      return;
+    }
+    sequentialBytesRead += bytesToRead;
+    if (sequentialBytesRead < rangeRequestSize) {
+      return;
+    }
+    sequentialBytesRead = 0;
+    if (rangeRequestSize >= maxRangeRequestSize) {
+      logger.atFine().log(
+          "Detected sequential read at %d position, switching to sequential access (%s)",
+          position, this);
+      randomAccess = false;
+      rangeRequestSize = minRangeRequestSize;
+      randomToSequentialTransitions++;
+    } else {
+      rangeRequestSize = min(maxRangeRequestSize, 2 * rangeRequestSize);
+    }
+  }
+
+  /**
+   * Records position at which read ended.
+   *
+   * @param position position after the last read byte
+   */
+  void recordReadEnd(long position) {
+    lastReadEnd = position;
+  }
+
+  /** Returns whether reads should use bounded range requests. */
+  boolean isRandomAccess() {
+    return randomAccess;
+  }
+
+  /** Returns minimum size of a range request in random access mode. */
+  long getRangeRequestSize() {
+    return rangeRequestSize;
+  }
+
+  /** Returns number of switches from sequential to random access. */
+  public long getSequentialToRandomTransitions() {
+    return sequentialToRandomTransitions;
+  }
+
+  /** Returns number of switches from random to sequential access. */
+  public long getRandomToSequentialTransitions() {
+    return randomToSequentialTransitions;
+  }
+
+  private boolean isSequential(long seekDistance) {
+    return seekDistance >= 0 && seekDistance <= inplaceSeekLimit;
+  }
+
+  private int getRandomSeeks() {
+    int randomSeeks = 0;
+    for (int i = 0; i < recordedSeeks; i++) {
+      if (!isSequential(seekDistances[i])) {
+        randomSeeks++;
+      }
+    }
+    return randomSeeks;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "AdaptiveFadvise{fadvise=%s, randomAccess=%s, rangeRequestSize=%d, randomSeeks=%d/%d}",
+        fadvise, randomAccess, rangeRequestSize, getRandomSeeks(), recordedSeeks);
+  }
+}
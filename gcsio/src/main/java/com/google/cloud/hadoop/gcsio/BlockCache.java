@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Cache of fixed-size blocks of object generations. */
+interface BlockCache {
+
+  /**
+   * Returns the size in bytes of the cached blocks, only the last block of an object is smaller.
+   */
+  int getBlockSize();
+
+  /**
+   * Returns a read-only buffer with the content of the block that contains the byte at the {@code
+   * offset} position, fetching and caching the block on a miss.
+   *
+   * @param resourceId object with a known generation
+   * @param objectSize size of the object generation
+   * @param offset position in the object
+   * @param fetcher fetches block content on a cache miss
+   * @return buffer positioned at the start of the block
+   */
+  ByteBuffer getBlock(
+      StorageResourceId resourceId, long objectSize, long offset, BlockFetcher fetcher)
+      throws IOException;
+}
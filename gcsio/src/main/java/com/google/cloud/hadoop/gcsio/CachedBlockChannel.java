@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/** Channel that reads a range of an object generation through the {@link BlockCache}. */
+class CachedBlockChannel implements ReadableByteChannel {
+
+  private final BlockCache cache;
+  private final StorageResourceId resourceId;
+  private final long objectSize;
+  private final BlockFetcher fetcher;
+  private final long start;
+  private final long end;
+
+  private long position;
+  private boolean open = true;
+
+  /**
+   * @param cache block cache to read through
+   * @param resourceId object with a known generation
+   * @param objectSize size of the object generation
+   * @param fetcher fetches blocks that are missing in the cache
+   * @param start offset of the range start, inclusive
+   * @param end offset of the range end, exclusive
+   */
+  CachedBlockChannel(
+      BlockCache cache,
+      StorageResourceId resourceId,
+      long objectSize,
+      BlockFetcher fetcher,
+      long start,
+      long end) {
+    checkArgument(
+        start <= end && end <= objectSize,
+        "start (%s) and end (%s) should be within object size (%s)",
+        start,
+        end,
+        objectSize);
+    this.cache = cache;
+    this.resourceId = resourceId;
+    this.objectSize = objectSize;
+    this.fetcher = fetcher;
+    this.start = start;
+    this.position = start;
+    this.end = end;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    if (position >= end) {
+      return -1;
+    }
+    ByteBuffer block = cache.getBlock(resourceId, objectSize, position, fetcher);
+    block.position(toIntExact(position % cache.getBlockSize()));
+    int bytesToCopy = toIntExact(min(min(dst.remaining(), block.remaining()), end - position));
+    block.limit(block.position() + bytesToCopy);
+    dst.put(block);
+    position += bytesToCopy;
+    return bytesToCopy;
+  }
+
+  /** Sets the position of the next read, that should be within the channel range. */
+  void position(long newPosition) {
+    checkArgument(
+        start <= newPosition && newPosition <= end,
+        "position (%s) should be within [%s, %s] range",
+        newPosition,
+        start,
+        end);
+    position = newPosition;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+}
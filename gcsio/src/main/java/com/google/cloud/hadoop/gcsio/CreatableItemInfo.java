@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/** Item information of an object that is created together with its content. */
+public class CreatableItemInfo {
+
+  private final StorageResourceId storageResourceId;
+  private final byte[] content;
+  private final CreateObjectOptions options;
+
+  /**
+   * @param storageResourceId The StorageResourceId of the object to create
+   * @param content The content of the object
+   * @param options The options to use when creating the object
+   */
+  public CreatableItemInfo(
+      StorageResourceId storageResourceId, byte[] content, CreateObjectOptions options) {
+    this.storageResourceId = checkNotNull(storageResourceId, "storageResourceId must not be null");
+    this.content = checkNotNull(content, "content must not be null");
+    this.options = checkNotNull(options, "options must not be null");
+  }
+
+  public StorageResourceId getStorageResourceId() {
+    return storageResourceId;
+  }
+
+  public byte[] getContent() {
+    return content;
+  }
+
+  public CreateObjectOptions getOptions() {
+    return options;
+  }
+}
@@ -41,6 +41,14 @@ public abstract class CreateFileOptions {
     OVERWRITE
   }
 
+  /** Where data of the parts is buffered before upload during parallel composite upload. */
+  public enum ParallelCompositeUploadBufferType {
+    /** Buffers parts in heap memory. */
+    HEAP,
+    /** Buffers parts in local files, bounding heap memory usage regardless of the part size. */
+    DISK
+  }
+
   public static Builder builder() {
     return new AutoValue_CreateFileOptions.Builder()
         .setAttributes(ImmutableMap.of())
@@ -48,6 +56,12 @@ public abstract class CreateFileOptions {
         .setEnsureNoDirectoryConflict(true)
         .setMinSyncInterval(Duration.ofSeconds(10))
         .setOverwriteGenerationId(StorageResourceId.UNKNOWN_GENERATION_ID)
+        .setParallelCompositeUploadBufferMaxParts(16)
+        .setParallelCompositeUploadBufferType(ParallelCompositeUploadBufferType.HEAP)
+        .setParallelCompositeUploadPartSize(0)
+        .setParallelCompositeUploadConcurrency(4)
+        .setSingleRequestUploadMaxSize(0)
+        .setUploadSessionSyncEnabled(false)
         .setWriteMode(WriteMode.CREATE_NEW);
   }
 
@@ -82,6 +96,51 @@ public abstract class CreateFileOptions {
    */
   public abstract long getOverwriteGenerationId();
 
+  /**
+   * Size in bytes of the parts that are uploaded concurrently as temporary objects and composed
+   * into the file on close. The first part of the file is uploaded directly to the file, so files
+   * that are not larger than this size are uploaded without composition. Parallel composite upload
+   * is disabled if set to {@code 0}.
+   */
+  public abstract int getParallelCompositeUploadPartSize();
+
+  /** Maximum number of parts that are uploaded concurrently during parallel composite upload. */
+  public abstract int getParallelCompositeUploadConcurrency();
+
+  /** Where data of the parts is buffered before upload during parallel composite upload. */
+  public abstract ParallelCompositeUploadBufferType getParallelCompositeUploadBufferType();
+
+  /**
+   * Local directory in which part files are created in {@link
+   * ParallelCompositeUploadBufferType#DISK} buffer mode. Default temporary-file directory is used
+   * if not set.
+   */
+  @Nullable
+  public abstract String getParallelCompositeUploadBufferDirectory();
+
+  /**
+   * Maximum number of parts that are buffered on local disk, including parts that are being
+   * uploaded, in {@link ParallelCompositeUploadBufferType#DISK} buffer mode. Writes block when this
+   * number of parts is buffered. Ignored if it's less than the upload concurrency.
+   */
+  public abstract int getParallelCompositeUploadBufferMaxParts();
+
+  /**
+   * Maximum size in bytes of the file data that is buffered in memory and uploaded in a single
+   * request when the file is closed, instead of starting a resumable upload session. Once more data
+   * is written, the buffered data is written to a resumable upload session. Disabled if set to
+   * {@code 0}.
+   */
+  public abstract int getSingleRequestUploadMaxSize();
+
+  /**
+   * If true, sync/flush calls upload written data to the upload session that stays open and wait
+   * until it is persisted, instead of composing a temporary object into the file on each sync.
+   * Synced data becomes visible to readers only after the file is closed. Used only if the write
+   * channel supports flushing the upload session, otherwise compose is used.
+   */
+  public abstract boolean isUploadSessionSyncEnabled();
+
   /** Builder for {@link CreateFileOptions} */
   @AutoValue.Builder
   public abstract static class Builder {
@@ -96,6 +155,21 @@ public abstract class CreateFileOptions {
 
     public abstract Builder setOverwriteGenerationId(long overwriteGenerationId);
 
+    public abstract Builder setParallelCompositeUploadPartSize(int partSize);
+
+    public abstract Builder setParallelCompositeUploadConcurrency(int concurrency);
+
+    public abstract Builder setParallelCompositeUploadBufferType(
+        ParallelCompositeUploadBufferType bufferType);
+
+    public abstract Builder setParallelCompositeUploadBufferDirectory(String bufferDirectory);
+
+    public abstract Builder setParallelCompositeUploadBufferMaxParts(int maxParts);
+
+    public abstract Builder setSingleRequestUploadMaxSize(int maxSize);
+
+    public abstract Builder setUploadSessionSyncEnabled(boolean uploadSessionSyncEnabled);
+
     public abstract Builder setWriteMode(WriteMode mode);
 
     abstract CreateFileOptions autoBuild();
@@ -105,6 +179,22 @@ public abstract class CreateFileOptions {
       checkArgument(
           !options.getAttributes().containsKey("Content-Type"),
           "The Content-Type attribute must be set via the contentType option");
+      checkArgument(
+          options.getParallelCompositeUploadPartSize() >= 0,
+          "parallelCompositeUploadPartSize must be non-negative! Got %s",
+          options.getParallelCompositeUploadPartSize());
+      checkArgument(
+          options.getParallelCompositeUploadConcurrency() > 0,
+          "parallelCompositeUploadConcurrency must be positive! Got %s",
+          options.getParallelCompositeUploadConcurrency());
+      checkArgument(
+          options.getParallelCompositeUploadBufferMaxParts() > 0,
+          "parallelCompositeUploadBufferMaxParts must be positive! Got %s",
+          options.getParallelCompositeUploadBufferMaxParts());
+      checkArgument(
+          options.getSingleRequestUploadMaxSize() >= 0,
+          "singleRequestUploadMaxSize must be non-negative! Got %s",
+          options.getSingleRequestUploadMaxSize());
       switch (options.getWriteMode()) {
         case APPEND:
         case CREATE_NEW:
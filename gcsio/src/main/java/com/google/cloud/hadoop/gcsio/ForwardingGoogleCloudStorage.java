@@ -90,6 +90,23 @@ public class ForwardingGoogleCloudStorage implements GoogleCloudStorage {
     delegate.createEmptyObjects(resourceIds, options);
   }
 
+  @Override
+  public GoogleCloudStorageItemInfo createObject(
+      StorageResourceId resourceId, byte[] content, CreateObjectOptions options)
+      throws IOException {
+    logger.atFiner().log(
+        "%s.createObject(%s, %s bytes, %s)",
+        delegateClassName, resourceId, content.length, options);
+    return delegate.createObject(resourceId, content, options);
+  }
+
+  @Override
+  public List<GoogleCloudStorageItemInfo> createObjects(List<CreatableItemInfo> items)
+      throws IOException {
+    logger.atFiner().log("%s.createObjects(%s items)", delegateClassName, items.size());
+    return delegate.createObjects(items);
+  }
+
   @Override
   public SeekableByteChannel open(
       StorageResourceId resourceId, GoogleCloudStorageReadOptions readOptions) throws IOException {
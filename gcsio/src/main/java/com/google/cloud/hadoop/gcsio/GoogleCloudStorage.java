@@ -143,6 +143,32 @@ public interface GoogleCloudStorage {
   void createEmptyObjects(List<StorageResourceId> resourceIds, CreateObjectOptions options)
       throws IOException;
 
+  /**
+   * Creates an object with the given content in a single request, without starting an upload
+   * session. Because the whole content is sent in one request, this should be used only for small
+   * objects. The bucket must already exist. See {@link #create(StorageResourceId,
+   * CreateObjectOptions)} for the behavior if StorageResourceId.getGenerationId() is explicitly
+   * set.
+   *
+   * @param resourceId identifies a StorageObject
+   * @param content content of the object
+   * @param options options to use when creating the object
+   * @return info of the created object
+   * @throws IOException on IO error
+   */
+  GoogleCloudStorageItemInfo createObject(
+      StorageResourceId resourceId, byte[] content, CreateObjectOptions options) throws IOException;
+
+  /**
+   * Creates a list of objects with the given content; see {@link #createObject} for the single-item
+   * version of this method. Implementations may create objects concurrently for greater efficiency.
+   *
+   * @param items objects to create with their content and options
+   * @return infos of the created objects, in the same order as {@code items}
+   * @throws IOException on IO error, after all other objects were created
+   */
+  List<GoogleCloudStorageItemInfo> createObjects(List<CreatableItemInfo> items) throws IOException;
+
   /**
    * Opens an object for reading.
    *
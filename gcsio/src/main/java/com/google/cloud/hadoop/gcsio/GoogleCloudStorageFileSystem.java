@@ -63,6 +63,16 @@ public interface GoogleCloudStorageFileSystem {
    */
   WritableByteChannel create(URI path, CreateFileOptions createOptions) throws IOException;
 
+  /**
+   * Performs the same checks as {@link #create(URI, CreateFileOptions)} without opening an object
+   * for writing. The returned object could be written to later via {@link GoogleCloudStorage}, for
+   * example in a single request via {@link GoogleCloudStorage#createObject}.
+   *
+   * @param path Object full path of the form gs://bucket/object-path.
+   * @return Id of the object to write, with a generationId if it should be used as a precondition.
+   */
+  StorageResourceId prepareCreate(URI path, CreateFileOptions createOptions) throws IOException;
+
   /**
    * Opens an object for reading.
    *
@@ -231,6 +241,18 @@ public interface GoogleCloudStorageFileSystem {
   ListPage<FileInfo> listFileInfoForPrefixPage(
       URI prefix, ListFileOptions listOptions, String pageToken) throws IOException;
 
+  /**
+   * Equivalent to {@link #listFileInfo} but returns {@link FileInfo}s listed by single request (1
+   * page). Information about the given file is returned in the first page if the given path points
+   * to a file.
+   *
+   * @param path Given path.
+   * @param pageToken the page token to list, or {@code null} to list the first page
+   * @throws FileNotFoundException if the given path does not exist.
+   */
+  ListPage<FileInfo> listFileInfoPage(URI path, ListFileOptions listOptions, String pageToken)
+      throws IOException;
+
   /**
    * If the given path points to a directory then the information about its children is returned,
    * otherwise information about the given file is returned.
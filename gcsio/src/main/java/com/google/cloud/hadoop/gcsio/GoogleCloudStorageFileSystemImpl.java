@@ -215,6 +215,33 @@ public class GoogleCloudStorageFileSystemImpl implements GoogleCloudStorageFileS
   @Override
   public WritableByteChannel create(URI path, CreateFileOptions createOptions) throws IOException {
     logger.atFiner().log("create(path: %s, createOptions: %s)", path, createOptions);
+    StorageResourceId resourceId = checkCreate(path, createOptions);
+    return gcs.create(resourceId, objectOptionsFromFileOptions(createOptions));
+  }
+
+  @Override
+  public StorageResourceId prepareCreate(URI path, CreateFileOptions createOptions)
+      throws IOException {
+    logger.atFiner().log("prepareCreate(path: %s, createOptions: %s)", path, createOptions);
+    StorageResourceId resourceId = checkCreate(path, createOptions);
+    if (resourceId.hasGenerationId()
+        || createOptions.getWriteMode() == CreateFileOptions.WriteMode.OVERWRITE) {
+      return resourceId;
+    }
+    // GCS checks this only when the object is written, so check it now to fail as early as create
+    // does, and write the object with a generation precondition that no object exists.
+    if (gcs.getItemInfo(resourceId).exists()) {
+      throw new FileAlreadyExistsException(String.format("Object %s already exists.", resourceId));
+    }
+    return new StorageResourceId(resourceId.getBucketName(), resourceId.getObjectName(), 0L);
+  }
+
+  /**
+   * Checks that a file could be created at the path and returns its resource id with the generation
+   * to overwrite, if specified.
+   */
+  private StorageResourceId checkCreate(URI path, CreateFileOptions createOptions)
+      throws IOException {
     checkNotNull(path, "path could not be null");
     StorageResourceId resourceId =
         StorageResourceId.fromUriPath(path, /* allowEmptyObjectName=*/ true);
@@ -258,7 +285,7 @@ public class GoogleCloudStorageFileSystemImpl implements GoogleCloudStorageFileS
               createOptions.getOverwriteGenerationId());
     }
 
-    return gcs.create(resourceId, objectOptionsFromFileOptions(createOptions));
+    return resourceId;
   }
 
   @Override
@@ -809,6 +836,63 @@ public class GoogleCloudStorageFileSystemImpl implements GoogleCloudStorageFileS
     return fileInfos;
   }
 
+  @Override
+  public ListPage<FileInfo> listFileInfoPage(
+      URI path, ListFileOptions listOptions, String pageToken) throws IOException {
+    checkNotNull(path, "path can not be null");
+    logger.atFiner().log("listFileInfoPage(path: %s, pageToken: %s)", path, pageToken);
+
+    StorageResourceId pathId =
+        StorageResourceId.fromUriPath(path, /* allowEmptyObjectName= */ true);
+    StorageResourceId dirId = pathId.toDirectoryId();
+    if (dirId.isRoot()) {
+      // Buckets are listed in a single page.
+      return new ListPage<>(listFileInfo(path, listOptions), /* nextPageToken= */ null);
+    }
+
+    Future<ListPage<GoogleCloudStorageItemInfo>> dirItemInfosPageFuture =
+        (options.isStatusParallelEnabled() ? cachedExecutor : lazyExecutor)
+            .submit(
+                () ->
+                    gcs.listObjectInfoPage(
+                        dirId.getBucketName(),
+                        dirId.getObjectName(),
+                        updateListObjectOptions(LIST_FILE_INFO_LIST_OPTIONS, listOptions),
+                        pageToken));
+
+    boolean firstPage = pageToken == null;
+    if (firstPage && !pathId.isDirectory()) {
+      try {
+        GoogleCloudStorageItemInfo pathInfo = gcs.getItemInfo(pathId);
+        if (pathInfo.exists()) {
+          List<FileInfo> listedInfo = new ArrayList<>();
+          listedInfo.add(FileInfo.fromItemInfo(pathInfo));
+          dirItemInfosPageFuture.cancel(/* mayInterruptIfRunning= */ true);
+          return new ListPage<>(listedInfo, /* nextPageToken= */ null);
+        }
+      } catch (Exception e) {
+        dirItemInfosPageFuture.cancel(/* mayInterruptIfRunning= */ true);
+        throw e;
+      }
+    }
+
+    ListPage<GoogleCloudStorageItemInfo> dirItemInfosPage = getFromFuture(dirItemInfosPageFuture);
+    List<GoogleCloudStorageItemInfo> dirItemInfos = new ArrayList<>(dirItemInfosPage.getItems());
+    if (firstPage
+        && pathId.isStorageObject()
+        && dirItemInfos.isEmpty()
+        && dirItemInfosPage.getNextPageToken() == null) {
+      throw new FileNotFoundException("Item not found: " + path);
+    }
+
+    // Inferred or actual directory object could be listed in each page.
+    dirItemInfos.removeIf(itemInfo -> Objects.equals(itemInfo.getResourceId(), dirId));
+
+    List<FileInfo> fileInfos = FileInfo.fromItemInfos(dirItemInfos);
+    fileInfos.sort(FILE_INFO_PATH_COMPARATOR);
+    return new ListPage<>(fileInfos, dirItemInfosPage.getNextPageToken());
+  }
+
   @Override
   public FileInfo getFileInfo(URI path) throws IOException {
     checkArgument(path != null, "path must not be null");
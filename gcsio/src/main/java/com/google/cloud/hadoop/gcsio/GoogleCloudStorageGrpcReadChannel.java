@@ -31,11 +31,11 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import com.google.api.client.util.BackOff;
 import com.google.api.client.util.Sleeper;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageImpl.BackOffFactory;
-import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.Fadvise;
 import com.google.cloud.hadoop.util.ResilientOperation;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
 import com.google.common.flogger.GoogleLogger;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.protobuf.ByteString;
 import com.google.storage.v2.ReadObjectRequest;
@@ -63,13 +63,17 @@ import java.util.List;
 import java.util.OptionalLong;
 import javax.annotation.Nullable;
 
-public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
+public class GoogleCloudStorageGrpcReadChannel
+    implements SeekableByteChannel, AdaptiveFadviseChannel {
 
   private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
   static final String STATUS_OK = "OK";
   static final String METHOD_GET_OBJECT_MEDIA = "getObjectMedia";
   static final String PROTOCOL_GRPC = "grpc";
 
+  // Tracks latencies of read requests of all channels to compute hedging delay.
+  private static final HedgedReads HEDGED_READS = new HedgedReads();
+
   // ZeroCopy version of GetObjectMedia Method
   private final ZeroCopyMessageMarshaller<ReadObjectResponse> getObjectMediaResponseMarshaller =
       new ZeroCopyMessageMarshaller<>(ReadObjectResponse.getDefaultInstance());
@@ -115,12 +119,16 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
   // Fine-grained options.
   private final GoogleCloudStorageReadOptions readOptions;
 
+  // Reads the object through the process-wide block cache, null if block cache is disabled.
+  @Nullable private final CachedBlockChannel blockCacheChannel;
+
   private final BackOffFactory backOffFactory;
 
   // Context of the request that returned resIterator.
   @Nullable CancellableContext requestContext;
 
-  Fadvise readStrategy;
+  // Tracks access pattern to decide when to use bounded range requests.
+  private final AdaptiveFadvise adaptiveFadvise;
 
   private byte[] footerBuffer;
 
@@ -184,8 +192,19 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
     this.objectSize = itemInfo.getSize();
     this.watchdog = watchdog;
     this.readOptions = readOptions;
+    this.blockCacheChannel =
+        readOptions.getBlockCacheSize() <= 0
+            ? null
+            : new CachedBlockChannel(
+                ObjectBlockCache.getInstance(readOptions),
+                new StorageResourceId(
+                    resourceId.getBucketName(), resourceId.getObjectName(), objectGeneration),
+                objectSize,
+                this::fetchBlock,
+                /* start= */ 0,
+                /* end= */ objectSize);
     this.backOffFactory = backOffFactory;
-    this.readStrategy = readOptions.getFadvise();
+    this.adaptiveFadvise = new AdaptiveFadvise(readOptions);
     long prefetchSizeInBytes = readOptions.getMinRangeRequestSize() / 2;
     this.gRPCReadMessageTimeout = readOptions.getGrpcReadMessageTimeoutMillis();
     this.footerStartOffsetInBytes = max(0, (objectSize - prefetchSizeInBytes));
@@ -317,8 +336,12 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
       throw new ClosedChannelException();
     }
 
+    if (blockCacheChannel != null) {
+      return readFromBlockCache(byteBuffer);
+    }
+
     int bytesRead = 0;
-    updateReadStrategy();
+    updateReadStrategy(byteBuffer.remaining());
 
     if (!canReadFromExistingRequest(byteBuffer)) {
       positionInGrpcStream = positionForNextRead;
@@ -369,6 +392,33 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
     return bytesRead;
   }
 
+  /** Reads data through the process-wide block cache, fetching missing blocks from GCS. */
+  private int readFromBlockCache(ByteBuffer byteBuffer) throws IOException {
+    // Channel could have been repositioned by a seek since the previous read
+    blockCacheChannel.position(positionForNextRead);
+    int bytesRead = blockCacheChannel.read(byteBuffer);
+    if (bytesRead > 0) {
+      positionForNextRead += bytesRead;
+    }
+    return bytesRead;
+  }
+
+  /** Fetches object bytes starting at the {@code offset} position until the buffer is full. */
+  private void fetchBlock(long offset, ByteBuffer buffer) throws IOException {
+    // snapshot position because readFromGCS clobbers it
+    long oldPositionForNextRead = positionForNextRead;
+    cancelCurrentRequest();
+    invalidateBufferedContent();
+    try {
+      positionForNextRead = offset;
+      readFromGCS(buffer, OptionalLong.of(buffer.remaining()));
+    } finally {
+      positionForNextRead = oldPositionForNextRead;
+      cancelCurrentRequest();
+      invalidateBufferedContent();
+    }
+  }
+
   /**
    * Reads data from GCS over network, with retries
    *
@@ -386,9 +436,20 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
       try {
         if (resIterator == null) {
           positionInGrpcStream = positionForNextRead;
-          resIterator =
-              requestObjectMedia(
-                  resourceId.getObjectName(), objectGeneration, positionInGrpcStream, bytesToRead);
+          if (readOptions.isHedgedReadEnabled()) {
+            ObjectMediaStream mediaStream = openHedgedObjectMediaStream(bytesToRead);
+            requestContext = mediaStream.context;
+            resIterator = mediaStream.iterator;
+          } else {
+            requestContext = Context.current().withCancellation();
+            resIterator =
+                requestObjectMedia(
+                    requestContext,
+                    resourceId.getObjectName(),
+                    objectGeneration,
+                    positionInGrpcStream,
+                    bytesToRead);
+          }
           if (bytesToRead.isPresent()) {
             contentChannelEndOffset = positionInGrpcStream + bytesToRead.getAsLong();
           }
@@ -462,8 +523,13 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
 
   private void validateChecksum(ReadObjectResponse res) throws IOException {
     // TODO: Concatenate all these hashes together and compare the result at the end.
-    int calculatedChecksum =
-        Hashing.crc32c().hashBytes(res.getChecksummedData().getContent().toByteArray()).asInt();
+    // Hash content buffers in place to avoid copying message content into a byte array.
+    Hasher hasher = Hashing.crc32c().newHasher();
+    for (ByteBuffer contentPiece :
+        res.getChecksummedData().getContent().asReadOnlyByteBufferList()) {
+      hasher.putBytes(contentPiece);
+    }
+    int calculatedChecksum = hasher.hash().asInt();
     int expectedChecksum = res.getChecksummedData().getCrc32C();
     if (calculatedChecksum != expectedChecksum) {
       throw new IOException(
@@ -481,9 +547,9 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
 
   private OptionalLong getBytesToRead(ByteBuffer byteBuffer) {
     OptionalLong optionalBytesToRead = OptionalLong.empty();
-    if (readStrategy == Fadvise.RANDOM) {
+    if (adaptiveFadvise.isRandomAccess()) {
       long rangeRequestSize =
-          max(readOptions.getInplaceSeekLimit(), readOptions.getMinRangeRequestSize());
+          max(readOptions.getInplaceSeekLimit(), adaptiveFadvise.getRangeRequestSize());
       optionalBytesToRead = OptionalLong.of(max(byteBuffer.remaining(), rangeRequestSize));
     }
 
@@ -508,8 +574,62 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
     return bytesToWrite;
   }
 
+  /**
+   * Opens a stream for the object range that starts at {@link #positionInGrpcStream} with a hedged
+   * request: if the first response message does not arrive within the hedging delay, a duplicate
+   * request is sent and the stream that responds first is used, while the other one is cancelled.
+   */
+  private ObjectMediaStream openHedgedObjectMediaStream(OptionalLong bytesToRead)
+      throws IOException {
+    long offset = positionInGrpcStream;
+    return HEDGED_READS.execute(
+        readOptions,
+        () -> openObjectMediaStream(offset, bytesToRead),
+        () -> openObjectMediaStream(offset, bytesToRead),
+        this::cancelObjectMediaStream);
+  }
+
+  /** Sends a read request and waits for the first response message. */
+  private ObjectMediaStream openObjectMediaStream(long offset, OptionalLong bytesToRead) {
+    CancellableContext context = Context.current().withCancellation();
+    try {
+      Iterator<ReadObjectResponse> iterator =
+          requestObjectMedia(
+              context, resourceId.getObjectName(), objectGeneration, offset, bytesToRead);
+      // Blocking iterator buffers the received message, so it will be returned by `next()` call.
+      boolean hasContent = iterator.hasNext();
+      logger.atFiner().log(
+          "Received first response (hasContent=%s) for '%s' at %d offset",
+          hasContent, resourceId, offset);
+      return new ObjectMediaStream(context, iterator);
+    } catch (RuntimeException e) {
+      context.close();
+      throw e;
+    }
+  }
+
+  /** Cancels the stream that lost the race and releases its buffered messages. */
+  private void cancelObjectMediaStream(ObjectMediaStream mediaStream) {
+    mediaStream.context.close();
+    try {
+      while (mediaStream.iterator.hasNext()) {
+        InputStream stream =
+            getObjectMediaResponseMarshaller.popStream(mediaStream.iterator.next());
+        if (stream != null) {
+          stream.close();
+        }
+      }
+    } catch (Exception e) {
+      logger.atFiner().withCause(e).log("Exception while draining the cancelled hedged read");
+    }
+  }
+
   private Iterator<ReadObjectResponse> requestObjectMedia(
-      String objectName, long objectGeneration, long offset, OptionalLong bytesToRead)
+      CancellableContext requestContext,
+      String objectName,
+      long objectGeneration,
+      long offset,
+      OptionalLong bytesToRead)
       throws StatusRuntimeException {
     ReadObjectRequest.Builder requestBuilder =
         ReadObjectRequest.newBuilder()
@@ -520,7 +640,6 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
     bytesToRead.ifPresent(requestBuilder::setReadLimit);
     ReadObjectRequest request = requestBuilder.build();
 
-    requestContext = Context.current().withCancellation();
     Context toReattach = requestContext.attach();
     StorageBlockingStub blockingStub =
         getStubWithDeadlineAndTracing(objectName, objectGeneration, offset, bytesToRead);
@@ -665,13 +784,17 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
     }
   }
 
-  private void updateReadStrategy() {
-    if (readStrategy == Fadvise.AUTO && positionInGrpcStream != -1) {
-      if (positionForNextRead < positionInGrpcStream
-          || positionForNextRead - positionInGrpcStream > readOptions.getInplaceSeekLimit()) {
-        readStrategy = Fadvise.RANDOM;
-      }
+  private void updateReadStrategy(long bytesToRead) {
+    // gRPC stream position is at the end of the previous read
+    if (positionInGrpcStream != -1) {
+      adaptiveFadvise.recordReadEnd(positionInGrpcStream);
     }
+    adaptiveFadvise.recordReadStart(positionForNextRead, bytesToRead);
+  }
+
+  @Override
+  public AdaptiveFadvise getAdaptiveFadvise() {
+    return adaptiveFadvise;
   }
 
   @Override
@@ -698,6 +821,9 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
     metricsRecorder.recordTaggedStat(METHOD, "read_close", REQUESTS, 1L);
     cancelCurrentRequest();
     invalidateBufferedContent();
+    if (blockCacheChannel != null) {
+      blockCacheChannel.close();
+    }
     channelIsOpen = false;
   }
 
@@ -720,4 +846,15 @@ public class GoogleCloudStorageGrpcReadChannel implements SeekableByteChannel {
       }
     }
   }
+
+  /** Read response stream together with the context that cancels it. */
+  private static class ObjectMediaStream {
+    private final CancellableContext context;
+    private final Iterator<ReadObjectResponse> iterator;
+
+    ObjectMediaStream(CancellableContext context, Iterator<ReadObjectResponse> iterator) {
+      this.context = context;
+      this.iterator = iterator;
+    }
+  }
 }
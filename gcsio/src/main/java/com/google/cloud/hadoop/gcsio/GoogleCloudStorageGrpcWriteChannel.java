@@ -16,18 +16,22 @@ package com.google.cloud.hadoop.gcsio;
 
 import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageImpl.encodeMetadata;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static com.google.storage.v2.ServiceConstants.Values.MAX_WRITE_CHUNK_BYTES;
+import static java.lang.Math.toIntExact;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageImpl.BackOffFactory;
 import com.google.cloud.hadoop.util.AbstractGoogleAsyncWriteChannel;
+import com.google.cloud.hadoop.util.AsyncWriteChannelOptions;
+import com.google.cloud.hadoop.util.ByteBufferPipe;
 import com.google.cloud.hadoop.util.ResilientOperation;
 import com.google.cloud.hadoop.util.RetryDeterminer;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.GoogleLogger;
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
 import com.google.protobuf.ByteString;
@@ -56,13 +60,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-/** Implements WritableByteChannel to provide write access to GCS via gRPC. */
+/**
+ * Implements WritableByteChannel to provide write access to GCS via gRPC.
+ *
+ * <p>If {@link AsyncWriteChannelOptions#getGrpcWriteParallelStreams} is greater than {@code 1},
+ * blocks of data are uploaded concurrently on separate streams to temporary objects, that are
+ * composed into the destination object when all data is uploaded.
+ */
 public final class GoogleCloudStorageGrpcWriteChannel
     extends AbstractGoogleAsyncWriteChannel<WriteObjectResponse>
     implements GoogleCloudStorageItemInfo.Provider {
@@ -70,6 +87,15 @@ public final class GoogleCloudStorageGrpcWriteChannel
   private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
   private static final Duration START_RESUMABLE_WRITE_TIMEOUT = Duration.ofMinutes(1);
   private static final Duration QUERY_WRITE_STATUS_TIMEOUT = Duration.ofMinutes(1);
+  private static final Duration STREAM_READY_TIMEOUT = Duration.ofMinutes(1);
+  // Number of write streams that are completed to persist flushed data before flush fails.
+  private static final int FLUSH_MAX_ATTEMPTS = 3;
+
+  // Prefix of the temporary objects created by parallel upload, in the destination object
+  // directory.
+  static final String PARALLEL_UPLOAD_TMP_OBJECT_PREFIX = "_GCS_PARALLEL_UPLOAD_TMP_";
+  // Number of attempts to upload a block, each attempt uploads the block in a new upload session.
+  private static final int BLOCK_UPLOAD_MAX_ATTEMPTS = 3;
 
   // A set that defines all transient errors on which retry can be attempted.
   private static final ImmutableSet<Status.Code> TRANSIENT_ERRORS =
@@ -88,9 +114,14 @@ public final class GoogleCloudStorageGrpcWriteChannel
   private final BackOffFactory backOffFactory;
   private final Watchdog watchdog;
   private final GoogleCloudStorageOptions storageOptions;
+  // Used to compose and delete temporary objects of a parallel upload, unsupported by the gRPC API.
+  private final GoogleCloudStorage gcs;
 
   private GoogleCloudStorageItemInfo completedItemInfo = null;
 
+  // Upload operation that is started by the last startUpload() call.
+  private volatile UploadOperation upload;
+
   GoogleCloudStorageGrpcWriteChannel(
       StorageStubProvider stubProvider,
       ExecutorService threadPool,
@@ -100,7 +131,8 @@ public final class GoogleCloudStorageGrpcWriteChannel
       Watchdog watchdog,
       ObjectWriteConditions writeConditions,
       String requesterPaysProject,
-      BackOffFactory backOffFactory) {
+      BackOffFactory backOffFactory,
+      GoogleCloudStorage gcs) {
     super(threadPool, storageOptions.getWriteChannelOptions());
     this.storageOptions = storageOptions;
     this.stub = stubProvider.newAsyncStub(resourceId.getBucketName());
@@ -110,6 +142,7 @@ public final class GoogleCloudStorageGrpcWriteChannel
     this.requesterPaysProject = requesterPaysProject;
     this.backOffFactory = backOffFactory;
     this.watchdog = watchdog;
+    this.gcs = gcs;
   }
 
   @Override
@@ -119,6 +152,10 @@ public final class GoogleCloudStorageGrpcWriteChannel
 
   @Override
   public void handleResponse(WriteObjectResponse response) {
+    if (response == null) {
+      // Parallel upload composes the object via JSON API and sets completedItemInfo itself.
+      return;
+    }
     Object resource = response.getResource();
     Map<String, byte[]> metadata =
         resource.getMetadataMap().entrySet().stream()
@@ -159,36 +196,113 @@ public final class GoogleCloudStorageGrpcWriteChannel
     // Given that the two ends of the pipe must operate asynchronous relative
     // to each other, we need to start the upload operation on a separate thread.
     try {
-      uploadOperation =
-          threadPool.submit(
-              new UploadOperation(
-                  pipeSource, this.resourceId, this.storageOptions.isTraceLogEnabled()));
+      if (channelOptions.getGrpcWriteParallelStreams() > 1) {
+        uploadOperation = threadPool.submit(new ParallelUploadOperation(pipeSource));
+        return;
+      }
+      upload =
+          new UploadOperation(pipeSource, this.resourceId, this.storageOptions.isTraceLogEnabled());
+      uploadOperation = threadPool.submit(upload);
     } catch (Exception e) {
       throw new RuntimeException(String.format("Failed to start upload for '%s'", resourceId), e);
     }
   }
 
+  @Override
+  protected boolean isUploadFlushSupported() {
+    // Blocks of a parallel upload are persisted only when they are complete.
+    return channelOptions.getGrpcWriteParallelStreams() <= 1;
+  }
+
+  /**
+   * Waits until the upload operation completes the write stream at the flush point, and the service
+   * reports in the stream response that the flushed data is persisted.
+   */
+  @Override
+  protected void awaitPersistedSize(long size) throws IOException {
+    upload.awaitFlush(size, channelOptions.getGrpcWriteTimeout());
+  }
+
   private class UploadOperation implements Callable<WriteObjectResponse> {
 
-    // Read end of the pipe.
-    private final BufferedInputStream pipeSource;
+    // Read end of the pipe, null if block is uploaded.
+    private final InputStream pipeSource;
+    // Data that is uploaded instead of the pipe data, it's retained in memory by the caller.
+    private final ByteString block;
     private final int MAX_BYTES_PER_MESSAGE = MAX_WRITE_CHUNK_BYTES.getNumber();
     private final StorageResourceId resourceId;
+    private final ObjectWriteConditions writeConditions;
     private final boolean tracingEnabled;
 
-    private Hasher objectHasher;
-    private String uploadId;
+    // Checksums of the object data, null if checksums are disabled.
+    private UploadChecksums objectChecksums;
+    private volatile String uploadId;
     private long writeOffset = 0;
+    // Offset of the block data that will be read next.
+    private int blockOffset = 0;
+    // Whether all data was read from the pipe.
+    private boolean pipeEndReached = false;
+    // Whether the last read from the pipe stopped at the point where the pipe was flushed.
+    private boolean flushPointReached = false;
     // Holds list of most recent number of NUMBER_OF_REQUESTS_TO_RETAIN requests, so upload can
     // be rewound and re-sent upon transient errors.
     private final TreeMap<Long, WriteObjectRequest> requestChunkMap = new TreeMap<>();
+    // Total size of the data in the requestChunkMap requests.
+    private long bufferedBytes = 0;
+    // Persisted size of the upload reported by the last asynchronous QueryWriteStatus request.
+    private volatile long acknowledgedSize = 0;
+    private final AtomicBoolean persistedSizeQueryInFlight = new AtomicBoolean();
+    // Offset of the pipe flush point that is not persisted yet, or -1 if there is none.
+    private long flushOffset = -1;
+    // Number of write streams that were completed to persist data up to the flushOffset.
+    private int flushAttempts = 0;
+    // Whether writeOffset is the persisted size reported by the last write stream, so it doesn't
+    // have to be queried before the next write stream.
+    private boolean writeOffsetPersisted = false;
+    // Persisted size reported by the last completed flush. Guarded by this.
+    private long flushedSize = 0;
+    // Failure of the last flush, or of the upload. Guarded by this.
+    private IOException flushFailure;
+    // Whether the upload operation completed. Guarded by this.
+    private boolean completed = false;
 
     UploadOperation(InputStream pipeSource, StorageResourceId resourceId, boolean tracingEnabled) {
+      this(
+          pipeSource,
+          /* block= */ null,
+          resourceId,
+          GoogleCloudStorageGrpcWriteChannel.this.writeConditions,
+          tracingEnabled);
+    }
+
+    /** Creates an operation that uploads the block data instead of reading it from a pipe. */
+    UploadOperation(
+        ByteString block, StorageResourceId resourceId, ObjectWriteConditions writeConditions) {
+      this(
+          /* pipeSource= */ null,
+          block,
+          resourceId,
+          writeConditions,
+          storageOptions.isTraceLogEnabled());
+    }
+
+    private UploadOperation(
+        InputStream pipeSource,
+        ByteString block,
+        StorageResourceId resourceId,
+        ObjectWriteConditions writeConditions,
+        boolean tracingEnabled) {
+      this.block = block;
       this.resourceId = resourceId;
+      this.writeConditions = writeConditions;
       this.tracingEnabled = tracingEnabled;
-      this.pipeSource = new BufferedInputStream(pipeSource, MAX_BYTES_PER_MESSAGE);
-      if (channelOptions.isGrpcChecksumsEnabled()) {
-        objectHasher = Hashing.crc32c().newHasher();
+      // Pooled buffers of the buffer queue pipe are consumed directly, without intermediate buffer.
+      this.pipeSource =
+          pipeSource == null || pipeSource instanceof ByteBufferPipe.Source
+              ? pipeSource
+              : new BufferedInputStream(pipeSource, MAX_BYTES_PER_MESSAGE);
+      if (channelOptions.isGrpcChecksumsEnabled() || channelOptions.isMd5ChecksumEnabled()) {
+        objectChecksums = new UploadChecksums(channelOptions.isMd5ChecksumEnabled());
       }
     }
 
@@ -199,16 +313,106 @@ public final class GoogleCloudStorageGrpcWriteChannel
       // Send the initial StartResumableWrite request to get an uploadId.
       try (InputStream ignore = pipeSource) {
         uploadId = startResumableUploadWithRetries();
-        return ResilientOperation.retry(
-            this::doResumableUpload,
-            backOffFactory.newBackOff(),
-            this::isRetriableError,
-            IOException.class);
+        while (true) {
+          WriteObjectResponse response =
+              ResilientOperation.retry(
+                  this::doResumableUpload,
+                  backOffFactory.newBackOff(),
+                  this::isRetriableError,
+                  IOException.class);
+          if (response.hasResource()) {
+            return response;
+          }
+          // Write stream was completed at the flush point, continue upload in a new stream.
+          onFlushStreamCompleted(response.getPersistedSize());
+        }
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         throw new IOException(
             String.format("Interrupted resumable upload failed for '%s'", resourceId), e);
+      } finally {
+        synchronized (this) {
+          completed = true;
+          notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Handles persisted size reported by the write stream that was completed at the flush point. If
+     * the service persisted less than the flushed data, the rest is re-sent in the next write
+     * stream that is completed at the flush point again, up to {@link #FLUSH_MAX_ATTEMPTS} times.
+     */
+    private void onFlushStreamCompleted(long persistedSize) {
+      writeOffset = persistedSize;
+      writeOffsetPersisted = true;
+      acknowledgedSize = Math.max(acknowledgedSize, persistedSize);
+      if (persistedSize >= flushOffset) {
+        completeFlush(persistedSize, /* failure= */ null);
+      } else if (++flushAttempts >= FLUSH_MAX_ATTEMPTS) {
+        completeFlush(
+            persistedSize,
+            new IOException(
+                String.format(
+                    "Only %d of %d flushed bytes were persisted for '%s' with UploadID '%s'",
+                    persistedSize, flushOffset, resourceId, uploadId)));
+      }
+    }
+
+    /**
+     * Marks that all data read from the pipe so far has to be persisted, so the write stream is
+     * completed after this data is sent.
+     */
+    private void onFlushPointRead() {
+      if (writeOffset > flushedSize()) {
+        flushOffset = writeOffset;
+      } else {
+        completeFlush(writeOffset, /* failure= */ null);
+      }
+    }
+
+    private synchronized long flushedSize() {
+      return flushedSize;
+    }
+
+    private synchronized void completeFlush(long persistedSize, IOException failure) {
+      flushOffset = -1;
+      flushAttempts = 0;
+      flushedSize = Math.max(flushedSize, persistedSize);
+      flushFailure = failure;
+      notifyAll();
+    }
+
+    /** Waits until at least {@code size} bytes are persisted by a flush, called by the writer. */
+    synchronized void awaitFlush(long size, long timeoutMillis) throws IOException {
+      long deadlineNanos = System.nanoTime() + MILLISECONDS.toNanos(timeoutMillis);
+      while (flushedSize < size && flushFailure == null && !completed) {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+          throw new IOException(
+              String.format(
+                  "Timed out waiting for %d bytes to be persisted for '%s' with UploadID '%s'",
+                  size, resourceId, uploadId));
+        }
+        try {
+          NANOSECONDS.timedWait(this, remainingNanos);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException(
+              String.format("Interrupted while waiting for flush of '%s'", resourceId), e);
+        }
       }
+      if (flushedSize >= size) {
+        return;
+      }
+      if (flushFailure != null) {
+        IOException failure = flushFailure;
+        flushFailure = null;
+        throw failure;
+      }
+      waitForCompletionAndThrowIfUploadFailed();
+      throw new IOException(
+          String.format("Upload for '%s' was finalized before flush", resourceId));
     }
 
     class OutOfBufferedDataException extends IOException {
@@ -239,9 +443,10 @@ public final class GoogleCloudStorageGrpcWriteChannel
 
     private WriteObjectResponse doResumableUpload() throws IOException {
       // Only request committed size for the first insert request.
-      if (writeOffset > 0) {
+      if (writeOffset > 0 && !writeOffsetPersisted) {
         writeOffset = getCommittedWriteSizeWithRetries(uploadId);
       }
+      writeOffsetPersisted = false;
       StorageStub storageStub = getStorageStubWithTracking(channelOptions.getGrpcWriteTimeout());
       InsertChunkResponseObserver responseObserver =
           new InsertChunkResponseObserver(uploadId, writeOffset);
@@ -260,7 +465,7 @@ public final class GoogleCloudStorageGrpcWriteChannel
       // Wait for streaming RPC to become ready for upload.
       try {
         // wait for 1 min for the channel to be ready. Else bail out
-        if (!responseObserver.ready.await(60 * 1000, MILLISECONDS)) {
+        if (!responseObserver.ready.await(STREAM_READY_TIMEOUT.toMillis(), MILLISECONDS)) {
           throw new IOException(
               String.format(
                   "Timed out while awaiting ready on responseObserver for '%s' with UploadID '%s'",
@@ -277,22 +482,48 @@ public final class GoogleCloudStorageGrpcWriteChannel
       boolean objectFinalized = false;
       while (!objectFinalized) {
         WriteObjectRequest insertRequest = null;
-        if (requestChunkMap.size() > 0 && requestChunkMap.lastKey() >= writeOffset) {
+        // Requests that are acknowledged as persisted are not needed to resume the upload.
+        freePersistedRequests(acknowledgedSize);
+        if (requestChunkMap.size() > 0
+            && (requestChunkMap.lastKey() >= writeOffset || isCachedRequestData(writeOffset))) {
           insertRequest = getCachedRequest(requestChunkMap, writeOffset);
+          if (insertRequest.getWriteOffset() < writeOffset) {
+            // Service could persist only a part of the request data, e.g. on flush.
+            insertRequest = sliceRequest(insertRequest, writeOffset);
+          }
           writeOffset += insertRequest.getChecksummedData().getContent().size();
-        } else if (requestChunkMap.size() >= channelOptions.getNumberOfBufferedRequests()) {
+        } else if (flushOffset >= 0) {
+          // All data up to the flush point was sent. Completing the write stream makes the service
+          // persist it and report the persisted size in the response.
+          requestStreamObserver.onCompleted();
+          break;
+        } else if (isInFlightWindowFull()) {
           freeUpCommittedRequests(requestChunkMap, writeOffset);
         } else {
           // Pick up a chunk to write only if dataChunkMap has space. Else continue after looking
           // for errors.
-          ByteString data =
-              ByteString.readFrom(
-                  ByteStreams.limit(pipeSource, MAX_BYTES_PER_MESSAGE), MAX_BYTES_PER_MESSAGE);
+          ByteString data = readDataChunk();
+          if (data.isEmpty() && !pipeEndReached) {
+            // Pipe was flushed without new data, nothing to send.
+            onFlushPointRead();
+            continue;
+          }
           insertRequest = buildInsertRequest(writeOffset, data, false);
           requestChunkMap.put(writeOffset, insertRequest);
+          bufferedBytes += data.size();
           writeOffset += data.size();
+          if (flushPointReached) {
+            onFlushPointRead();
+          }
+          if (isInFlightWindowHalfFull()) {
+            // Query persisted size ahead of time, so requests could be freed without blocking
+            // the upload when the window becomes full.
+            queryPersistedSizeAsync();
+          }
         }
         if (insertRequest != null) {
+          // Respect gRPC flow control instead of buffering requests in the transport.
+          responseObserver.awaitReady();
           requestStreamObserver.onNext(insertRequest);
           objectFinalized = insertRequest.getFinishWrite();
         }
@@ -325,6 +556,46 @@ public final class GoogleCloudStorageGrpcWriteChannel
       return responseObserver.getResponseOrThrow();
     }
 
+    /**
+     * Reads up to {@code MAX_BYTES_PER_MESSAGE} bytes from the pipe. Reading from the buffer queue
+     * pipe also stops at the point where the pipe was flushed.
+     */
+    private ByteString readDataChunk() throws IOException {
+      if (block != null) {
+        // Substring shares the block memory, so data is not copied.
+        ByteString data =
+            block.substring(
+                blockOffset, Math.min(block.size(), blockOffset + MAX_BYTES_PER_MESSAGE));
+        blockOffset += data.size();
+        pipeEndReached = blockOffset == block.size();
+        return data;
+      }
+      if (!(pipeSource instanceof ByteBufferPipe.Source)) {
+        ByteString data =
+            ByteString.readFrom(
+                ByteStreams.limit(pipeSource, MAX_BYTES_PER_MESSAGE), MAX_BYTES_PER_MESSAGE);
+        pipeEndReached = data.size() < MAX_BYTES_PER_MESSAGE;
+        return data;
+      }
+      ByteBufferPipe.Source bufferSource = (ByteBufferPipe.Source) pipeSource;
+      ByteString data = ByteString.EMPTY;
+      flushPointReached = false;
+      while (data.size() < MAX_BYTES_PER_MESSAGE) {
+        ByteBuffer buffer = bufferSource.readBuffer(MAX_BYTES_PER_MESSAGE - data.size());
+        if (buffer == null) {
+          pipeEndReached = true;
+          break;
+        }
+        if (!buffer.hasRemaining()) {
+          // Flush point, send data that was read so far
+          flushPointReached = true;
+          break;
+        }
+        data = data.concat(ByteString.copyFrom(buffer));
+      }
+      return data;
+    }
+
     private WriteObjectRequest buildInsertRequest(
         long writeOffset, ByteString dataChunk, boolean resumeFromFailedInsert) {
       WriteObjectRequest.Builder requestBuilder =
@@ -333,40 +604,36 @@ public final class GoogleCloudStorageGrpcWriteChannel
       if (dataChunk.size() > 0) {
         ChecksummedData.Builder requestDataBuilder =
             ChecksummedData.newBuilder().setContent(dataChunk);
-        if (channelOptions.isGrpcChecksumsEnabled()) {
-          if (!resumeFromFailedInsert) {
-            updateObjectHash(dataChunk);
+        if (objectChecksums != null) {
+          // Chunk CRC32C is combined into the object CRC32C, so data is checksummed only once.
+          int chunkCrc32c =
+              resumeFromFailedInsert
+                  ? new UploadChecksums(/* md5Enabled= */ false).update(dataChunk)
+                  : objectChecksums.update(dataChunk);
+          if (channelOptions.isGrpcChecksumsEnabled()) {
+            requestDataBuilder.setCrc32C(chunkCrc32c);
           }
-          requestDataBuilder.setCrc32C(getChunkHash(dataChunk));
         }
         requestBuilder.setChecksummedData(requestDataBuilder);
       }
 
-      if (dataChunk.size() < MAX_BYTES_PER_MESSAGE) {
+      if (pipeEndReached) {
         requestBuilder.setFinishWrite(true);
-        if (channelOptions.isGrpcChecksumsEnabled()) {
-          requestBuilder.setObjectChecksums(
-              ObjectChecksums.newBuilder().setCrc32C(objectHasher.hash().asInt()));
+        if (objectChecksums != null) {
+          ObjectChecksums.Builder objectChecksumsBuilder = ObjectChecksums.newBuilder();
+          if (channelOptions.isGrpcChecksumsEnabled()) {
+            objectChecksumsBuilder.setCrc32C(objectChecksums.getCrc32c());
+          }
+          if (channelOptions.isMd5ChecksumEnabled()) {
+            objectChecksumsBuilder.setMd5Hash(ByteString.copyFrom(objectChecksums.getMd5()));
+          }
+          requestBuilder.setObjectChecksums(objectChecksumsBuilder);
         }
       }
 
       return requestBuilder.build();
     }
 
-    private int getChunkHash(ByteString dataChunk) {
-      Hasher chunkHasher = Hashing.crc32c().newHasher();
-      for (ByteBuffer buffer : dataChunk.asReadOnlyByteBufferList()) {
-        chunkHasher.putBytes(buffer);
-      }
-      return chunkHasher.hash().asInt();
-    }
-
-    private void updateObjectHash(ByteString dataChunk) {
-      for (ByteBuffer buffer : dataChunk.asReadOnlyByteBufferList()) {
-        objectHasher.putBytes(buffer);
-      }
-    }
-
     // Handles the case when a writeOffset of data read previously is being processed.
     // This happens if a transient failure happens while uploading, and can be resumed by
     // querying the writeRequest object at the current committed offset.
@@ -387,6 +654,25 @@ public final class GoogleCloudStorageGrpcWriteChannel
       return checkNotNull(request, "Request chunk not found for '%s'", resourceId);
     }
 
+    /** Returns true if the data at the specified offset is in a cached request. */
+    private boolean isCachedRequestData(long offset) {
+      Map.Entry<Long, WriteObjectRequest> entry = requestChunkMap.floorEntry(offset);
+      return entry != null
+          && entry.getKey() + entry.getValue().getChecksummedData().getContent().size() > offset;
+    }
+
+    /** Returns a copy of the request that writes only its data starting at the specified offset. */
+    private WriteObjectRequest sliceRequest(WriteObjectRequest request, long offset) {
+      ChecksummedData checksummedData = request.getChecksummedData();
+      ByteString content =
+          checksummedData.getContent().substring(toIntExact(offset - request.getWriteOffset()));
+      ChecksummedData.Builder slicedData = ChecksummedData.newBuilder().setContent(content);
+      if (checksummedData.hasCrc32C()) {
+        slicedData.setCrc32C(new UploadChecksums(/* md5Enabled= */ false).update(content));
+      }
+      return request.toBuilder().setWriteOffset(offset).setChecksummedData(slicedData).build();
+    }
+
     /*
     If dataChunkMap is full, get the committedWriteOffset. This will make a API call to the
     server and add latency in this path/context. Since there are already chunks in flight,
@@ -406,13 +692,71 @@ public final class GoogleCloudStorageGrpcWriteChannel
           committedWriteOffset);
 
       // check and remove chunks from dataChunkMap
-      while (requestChunkMap.size() > 0 && requestChunkMap.firstKey() < committedWriteOffset) {
+      freePersistedRequests(committedWriteOffset);
+    }
+
+    /** Removes requests which data is persisted from the {@code requestChunkMap}. */
+    private void freePersistedRequests(long persistedSize) {
+      while (requestChunkMap.size() > 0) {
+        Map.Entry<Long, WriteObjectRequest> firstEntry = requestChunkMap.firstEntry();
+        int size = firstEntry.getValue().getChecksummedData().getContent().size();
+        if (firstEntry.getKey() + size > persistedSize) {
+          break;
+        }
         logger.atFinest().log(
-            "clearing dataChunkMap one buffer at a time, size: %d, firstKey:%d, committedwriteOffset:%d",
-            requestChunkMap.size(), requestChunkMap.firstKey(), committedWriteOffset);
-        requestChunkMap.remove(requestChunkMap.firstKey());
+            "clearing dataChunkMap one buffer at a time, size: %d, firstKey:%d, persistedSize:%d",
+            requestChunkMap.size(), firstEntry.getKey(), persistedSize);
+        requestChunkMap.remove(firstEntry.getKey());
+        bufferedBytes -= size;
       }
     }
+
+    private boolean isInFlightWindowFull() {
+      long maxInFlightBytes = channelOptions.getGrpcWriteMaxInFlightBytes();
+      return requestChunkMap.size() >= channelOptions.getNumberOfBufferedRequests()
+          || (maxInFlightBytes > 0 && bufferedBytes >= maxInFlightBytes);
+    }
+
+    private boolean isInFlightWindowHalfFull() {
+      long maxInFlightBytes = channelOptions.getGrpcWriteMaxInFlightBytes();
+      return 2 * requestChunkMap.size() >= channelOptions.getNumberOfBufferedRequests()
+          || (maxInFlightBytes > 0 && 2 * bufferedBytes >= maxInFlightBytes);
+    }
+
+    /**
+     * Sends QueryWriteStatus request without waiting for the response, which updates {@code
+     * acknowledgedSize} when received. Does nothing if the previous request is not completed yet.
+     */
+    private void queryPersistedSizeAsync() {
+      if (!persistedSizeQueryInFlight.compareAndSet(false, true)) {
+        return;
+      }
+      QueryWriteStatusRequest request =
+          QueryWriteStatusRequest.newBuilder().setUploadId(uploadId).build();
+      getStorageStubWithTracking(QUERY_WRITE_STATUS_TIMEOUT.toMillis())
+          .queryWriteStatus(
+              request,
+              new StreamObserver<QueryWriteStatusResponse>() {
+                @Override
+                public void onNext(QueryWriteStatusResponse response) {
+                  acknowledgedSize = Math.max(acknowledgedSize, response.getPersistedSize());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                  // Not fatal, committed size will be queried synchronously when needed.
+                  logger.atFine().withCause(t).log(
+                      "Failed to query persisted size for '%s' with UploadID '%s'",
+                      resourceId, request.getUploadId());
+                  persistedSizeQueryInFlight.set(false);
+                }
+
+                @Override
+                public void onCompleted() {
+                  persistedSizeQueryInFlight.set(false);
+                }
+              });
+    }
     /** Handler for responses from the Insert streaming RPC. */
     private class InsertChunkResponseObserver
         implements ClientResponseObserver<WriteObjectRequest, WriteObjectResponse> {
@@ -432,6 +776,8 @@ public final class GoogleCloudStorageGrpcWriteChannel
       // CountDownLatch tracking readiness of the streaming RPC.
       final CountDownLatch ready = new CountDownLatch(1);
 
+      private ClientCallStreamObserver<WriteObjectRequest> requestObserver;
+
       InsertChunkResponseObserver(String uploadId, long writeOffset) {
         this.uploadId = uploadId;
         this.writeOffset = writeOffset;
@@ -460,6 +806,44 @@ public final class GoogleCloudStorageGrpcWriteChannel
         this.response = response;
       }
 
+      /**
+       * Waits until the request stream is ready to accept a message without excessive buffering, or
+       * until the streaming RPC is terminated.
+       */
+      synchronized void awaitReady() throws IOException {
+        long deadlineNanos = System.nanoTime() + STREAM_READY_TIMEOUT.toNanos();
+        while (!requestObserver.isReady() && done.getCount() > 0) {
+          long remainingMillis =
+              MILLISECONDS.convert(deadlineNanos - System.nanoTime(), NANOSECONDS);
+          if (remainingMillis <= 0) {
+            throw new IOException(
+                String.format(
+                    "Timed out while awaiting ready on responseObserver for '%s' with UploadID '%s'",
+                    resourceId, uploadId));
+          }
+          try {
+            wait(remainingMillis);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(
+                String.format(
+                    "Interrupted while awaiting ready on responseObserver for '%s' with UploadID '%s'",
+                    resourceId, uploadId),
+                e);
+          }
+        }
+      }
+
+      private synchronized void onReady() {
+        ready.countDown();
+        notifyAll();
+      }
+
+      private synchronized void onDone() {
+        done.countDown();
+        notifyAll();
+      }
+
       @Override
       public void onError(Throwable t) {
         Status status = Status.fromThrowable(t);
@@ -476,18 +860,19 @@ public final class GoogleCloudStorageGrpcWriteChannel
                       resourceId, uploadId, writeOffset, status.getDescription()),
                   t);
         }
-        done.countDown();
+        onDone();
       }
 
       @Override
       public void onCompleted() {
-        done.countDown();
+        onDone();
       }
 
       @Override
       public void beforeStart(
           ClientCallStreamObserver<WriteObjectRequest> clientCallStreamObserver) {
-        clientCallStreamObserver.setOnReadyHandler(ready::countDown);
+        requestObserver = clientCallStreamObserver;
+        clientCallStreamObserver.setOnReadyHandler(this::onReady);
       }
     }
 
@@ -634,6 +1019,259 @@ public final class GoogleCloudStorageGrpcWriteChannel
     }
   }
 
+  /**
+   * Uploads data in blocks of {@link AsyncWriteChannelOptions#getGrpcWriteParallelBlockSize} bytes
+   * concurrently on separate streams to temporary objects, and composes them into the destination
+   * object when all data is uploaded. Data that fits into a single block is uploaded directly to
+   * the destination object.
+   *
+   * <p>At most {@link AsyncWriteChannelOptions#getGrpcWriteParallelStreams} blocks are buffered in
+   * memory. Blocks complete in any order, each block is retained until its upload succeeds, so a
+   * block upload that failed is retried from the start in a new upload session.
+   */
+  private class ParallelUploadOperation implements Callable<WriteObjectResponse> {
+
+    // Read end of the pipe.
+    private final InputStream pipeSource;
+    private final int blockSize = channelOptions.getGrpcWriteParallelBlockSize();
+    // Limits number of blocks that are buffered in memory.
+    private final Semaphore blockPermits =
+        new Semaphore(channelOptions.getGrpcWriteParallelStreams());
+    private final String tmpObjectSuffix = UUID.randomUUID().toString();
+
+    private volatile IOException blockUploadFailure;
+    private int tmpObjectIndex = 0;
+
+    ParallelUploadOperation(InputStream pipeSource) {
+      this.pipeSource = pipeSource;
+    }
+
+    @Override
+    public WriteObjectResponse call() throws IOException {
+      List<StorageResourceId> tmpObjects = new ArrayList<>();
+      try (InputStream ignore = pipeSource) {
+        ByteString block = readBlock();
+        if (block.size() < blockSize) {
+          // All data fits into a single block, upload it directly to the destination object.
+          return new UploadOperation(block, resourceId, writeConditions).call();
+        }
+
+        List<Future<UploadedBlock>> blockUploads = new ArrayList<>();
+        IOException failure = null;
+        try {
+          uploadBlocks(block, blockUploads);
+        } catch (IOException e) {
+          failure = e;
+        }
+        // Wait for all block uploads, so uploaded blocks are deleted even if upload failed.
+        List<UploadedBlock> blocks = new ArrayList<>(blockUploads.size());
+        for (Future<UploadedBlock> blockUpload : blockUploads) {
+          try {
+            UploadedBlock uploadedBlock = getBlockUploadResult(blockUpload);
+            tmpObjects.add(uploadedBlock.id);
+            blocks.add(uploadedBlock);
+          } catch (IOException e) {
+            if (failure == null) {
+              failure = e;
+            } else if (failure != e) {
+              failure.addSuppressed(e);
+            }
+          }
+        }
+        if (failure != null) {
+          throw failure;
+        }
+
+        completedItemInfo = composeBlocks(blocks, tmpObjects);
+        return null;
+      } finally {
+        deleteTmpObjects(tmpObjects);
+      }
+    }
+
+    /** Starts uploads of the first block and of the rest of the blocks read from the pipe. */
+    private void uploadBlocks(ByteString firstBlock, List<Future<UploadedBlock>> blockUploads)
+        throws IOException {
+      ByteString block = firstBlock;
+      while (true) {
+        StorageResourceId blockId = getNextTmpObjectId("block");
+        ByteString blockData = block;
+        blockUploads.add(threadPool.submit(() -> uploadBlock(blockId, blockData)));
+        if (block.size() < blockSize) {
+          return;
+        }
+        block = readBlock();
+        if (block.isEmpty()) {
+          blockPermits.release();
+          return;
+        }
+        if (blockUploadFailure != null) {
+          blockPermits.release();
+          throw blockUploadFailure;
+        }
+      }
+    }
+
+    /** Reads the next block from the pipe, blocks until there is a free block buffer. */
+    private ByteString readBlock() throws IOException {
+      try {
+        blockPermits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(
+            String.format("Interrupted while waiting to upload block of '%s'", resourceId), e);
+      }
+      try {
+        return ByteString.readFrom(ByteStreams.limit(pipeSource, blockSize), blockChunkSize());
+      } catch (IOException | RuntimeException e) {
+        blockPermits.release();
+        throw e;
+      }
+    }
+
+    private int blockChunkSize() {
+      return Math.min(blockSize, MAX_WRITE_CHUNK_BYTES.getNumber());
+    }
+
+    private UploadedBlock uploadBlock(StorageResourceId blockId, ByteString block)
+        throws IOException {
+      try {
+        for (int attempt = 1; ; attempt++) {
+          UploadOperation blockUpload =
+              new UploadOperation(block, blockId, ObjectWriteConditions.NONE);
+          try {
+            blockUpload.call();
+            return new UploadedBlock(
+                blockId,
+                block.size(),
+                blockUpload.objectChecksums == null
+                    ? null
+                    : blockUpload.objectChecksums.getCrc32c());
+          } catch (IOException e) {
+            if (attempt >= BLOCK_UPLOAD_MAX_ATTEMPTS) {
+              blockUploadFailure = e;
+              throw e;
+            }
+            logger.atWarning().withCause(e).log(
+                "Failed to upload block '%s' of '%s', retrying (attempt %d of %d)",
+                blockId, resourceId, attempt + 1, BLOCK_UPLOAD_MAX_ATTEMPTS);
+          }
+        }
+      } finally {
+        blockPermits.release();
+      }
+    }
+
+    /**
+     * Composes the blocks into the destination object via {@link RecursiveComposer}, that composes
+     * groups of blocks into intermediate temporary objects first if there are more than {@link
+     * GoogleCloudStorage#MAX_COMPOSE_OBJECTS} blocks.
+     */
+    private GoogleCloudStorageItemInfo composeBlocks(
+        List<UploadedBlock> blocks, List<StorageResourceId> tmpObjects) throws IOException {
+      List<StorageResourceId> sources = blocks.stream().map(block -> block.id).collect(toList());
+      StorageResourceId dstId =
+          writeConditions.hasContentGenerationMatch()
+              ? new StorageResourceId(
+                  resourceId.getBucketName(),
+                  resourceId.getObjectName(),
+                  writeConditions.getContentGenerationMatch())
+              : resourceId;
+      GoogleCloudStorageItemInfo composedItemInfo =
+          RecursiveComposer.compose(
+              gcs,
+              newDirectExecutorService(),
+              sources,
+              dstId,
+              createOptions,
+              () -> getNextTmpObjectId("compose"),
+              tmpObjects);
+      verifyCrc32c(blocks, composedItemInfo);
+      return composedItemInfo;
+    }
+
+    /** Verifies that CRC32C of the composed object matches CRC32C of the uploaded blocks. */
+    private void verifyCrc32c(List<UploadedBlock> blocks, GoogleCloudStorageItemInfo itemInfo)
+        throws IOException {
+      byte[] actualCrc32c =
+          itemInfo.getVerificationAttributes() == null
+              ? null
+              : itemInfo.getVerificationAttributes().getCrc32c();
+      if (!channelOptions.isGrpcChecksumsEnabled() || actualCrc32c == null) {
+        return;
+      }
+      int expectedCrc32c = 0;
+      for (UploadedBlock block : blocks) {
+        expectedCrc32c = UploadChecksums.combineCrc32c(expectedCrc32c, block.crc32c, block.size);
+      }
+      if (ByteBuffer.wrap(actualCrc32c).getInt() != expectedCrc32c) {
+        throw new IOException(
+            String.format(
+                "CRC32C of composed object '%s' doesn't match CRC32C of the uploaded data",
+                resourceId));
+      }
+    }
+
+    private void deleteTmpObjects(List<StorageResourceId> tmpObjects) {
+      if (tmpObjects.isEmpty()) {
+        return;
+      }
+      try {
+        gcs.deleteObjects(tmpObjects);
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log(
+            "Failed to delete %d temporary objects of '%s'", tmpObjects.size(), resourceId);
+      }
+    }
+
+    /** Returns ID of a new temporary object in the directory of the destination object. */
+    private StorageResourceId getNextTmpObjectId(String type) {
+      String objectName = resourceId.getObjectName();
+      int nameStart = objectName.lastIndexOf('/') + 1;
+      return new StorageResourceId(
+          resourceId.getBucketName(),
+          String.format(
+              "%s%s%s.%s.%d.%s",
+              objectName.substring(0, nameStart),
+              PARALLEL_UPLOAD_TMP_OBJECT_PREFIX,
+              objectName.substring(nameStart),
+              type,
+              tmpObjectIndex++,
+              tmpObjectSuffix));
+    }
+
+    private UploadedBlock getBlockUploadResult(Future<UploadedBlock> blockUpload)
+        throws IOException {
+      try {
+        return blockUpload.get();
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof IOException
+            ? (IOException) e.getCause()
+            : new IOException(
+                String.format("Failed to upload block of '%s'", resourceId), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(
+            String.format("Interrupted while waiting for block upload of '%s'", resourceId), e);
+      }
+    }
+  }
+
+  /** Temporary object with the uploaded block data. */
+  private static class UploadedBlock {
+
+    private final StorageResourceId id;
+    private final int size;
+    // CRC32C of the block data, null if checksums are disabled.
+    private final Integer crc32c;
+
+    UploadedBlock(StorageResourceId id, int size, Integer crc32c) {
+      this.id = id;
+      this.size = size;
+      this.crc32c = crc32c;
+    }
+  }
+
   /**
    * Returns non-null only if close() has been called and the underlying object has been
    * successfully committed.
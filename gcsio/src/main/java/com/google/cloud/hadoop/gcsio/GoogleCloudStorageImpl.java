@@ -22,10 +22,13 @@ import static com.google.cloud.hadoop.gcsio.GoogleCloudStorageItemInfo.createInf
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Strings.commonPrefix;
 import static com.google.common.base.Strings.emptyToNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 
@@ -56,6 +59,7 @@ import com.google.cloud.hadoop.gcsio.GoogleCloudStorageOptions.MetricsSink;
 import com.google.cloud.hadoop.util.AbstractGoogleAsyncWriteChannel;
 import com.google.cloud.hadoop.util.AccessBoundary;
 import com.google.cloud.hadoop.util.ApiErrorExtractor;
+import com.google.cloud.hadoop.util.AsyncWriteChannelOptions;
 import com.google.cloud.hadoop.util.ChainingHttpRequestInitializer;
 import com.google.cloud.hadoop.util.ClientRequestHelper;
 import com.google.cloud.hadoop.util.HttpTransportFactory;
@@ -64,6 +68,8 @@ import com.google.cloud.hadoop.util.RetryBoundedBackOff;
 import com.google.cloud.hadoop.util.RetryDeterminer;
 import com.google.cloud.hadoop.util.RetryHttpInitializer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
+import com.google.common.base.CharMatcher;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -82,24 +88,33 @@ import java.nio.file.FileAlreadyExistsException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 
 /**
@@ -224,6 +239,10 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
   // Utility for building and caching storage channels and stubs.
   private StorageStubProvider storageStubProvider;
 
+  // Character classes used to split object names into ranges for parallel listing.
+  private static final ImmutableList<String> LIST_RANGE_CHAR_CLASSES =
+      ImmutableList.of("0123456789", "ABCDEFGHIJKLMNOPQRSTUVWXYZ", "abcdefghijklmnopqrstuvwxyz");
+
   // Thread-pool used for background tasks.
   private ExecutorService backgroundTasksThreadPool =
       Executors.newCachedThreadPool(
@@ -509,7 +528,8 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
               watchdog,
               writeConditions,
               requesterPaysProjectId,
-              BackOffFactory.DEFAULT);
+              BackOffFactory.DEFAULT,
+              this);
     } else {
       channel =
           new GoogleCloudStorageWriteChannel(
@@ -610,6 +630,111 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
     }
   }
 
+  @Override
+  public GoogleCloudStorageItemInfo createObject(
+      StorageResourceId resourceId, byte[] content, CreateObjectOptions options)
+      throws IOException {
+    logger.atFiner().log("createObject(%s, %s bytes)", resourceId, content.length);
+    checkArgument(
+        resourceId.isStorageObject(), "Expected full StorageObject id, got %s", resourceId);
+
+    // Same as in create(), always perform the write with a generation precondition to protect
+    // against out-of-order writes. If object should not be overwritten, prepareInsert() sets
+    // generation 0 precondition, so only an overwrite requires a metadata request.
+    StorageResourceId writeResourceId =
+        resourceId.hasGenerationId() || !options.isOverwriteExisting()
+            ? resourceId
+            : new StorageResourceId(
+                resourceId.getBucketName(),
+                resourceId.getObjectName(),
+                getWriteGeneration(resourceId, /* overwrite= */ true));
+
+    Storage.Objects.Insert insertObject = prepareInsert(writeResourceId, content, options);
+    StorageObject createdObject;
+    try {
+      createdObject = insertObject.execute();
+    } catch (IOException e) {
+      if (errorExtractor.itemAlreadyExists(e)) {
+        throw (FileAlreadyExistsException)
+            new FileAlreadyExistsException(String.format("Object '%s' already exists.", resourceId))
+                .initCause(e);
+      }
+      throw e;
+    }
+    return createItemInfoForStorageObject(createdObject);
+  }
+
+  @Override
+  public List<GoogleCloudStorageItemInfo> createObjects(List<CreatableItemInfo> items)
+      throws IOException {
+    logger.atFiner().log("createObjects(%s items)", items.size());
+
+    if (items.isEmpty()) {
+      return ImmutableList.of();
+    }
+
+    // Don't go through thread pool for a single-item case to avoid its overhead.
+    if (items.size() == 1) {
+      return ImmutableList.of(createObjectWithRetries(Iterables.getOnlyElement(items)));
+    }
+
+    // Validate that all the elements represent StorageObjects.
+    for (CreatableItemInfo item : items) {
+      checkArgument(
+          item.getStorageResourceId().isStorageObject(),
+          "Expected full StorageObject names only, got: '%s'",
+          item.getStorageResourceId());
+    }
+
+    // Objects are uploaded by the manual batching thread pool, its size bounds the number of
+    // concurrent uploads.
+    List<Future<GoogleCloudStorageItemInfo>> createdItemFutures = new ArrayList<>(items.size());
+    for (CreatableItemInfo item : items) {
+      createdItemFutures.add(manualBatchingThreadPool.submit(() -> createObjectWithRetries(item)));
+    }
+
+    // Gather exceptions to wrap in a composite exception at the end.
+    List<IOException> innerExceptions = new ArrayList<>();
+    List<GoogleCloudStorageItemInfo> createdItems = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      StorageResourceId resourceId = items.get(i).getStorageResourceId();
+      try {
+        createdItems.add(createdItemFutures.get(i).get());
+        logger.atFiner().log("Successfully inserted %s", resourceId);
+      } catch (ExecutionException e) {
+        innerExceptions.add(
+            e.getCause() instanceof FileAlreadyExistsException
+                ? (FileAlreadyExistsException) e.getCause()
+                : new IOException("Error inserting " + resourceId, e.getCause()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        createdItemFutures.forEach(f -> f.cancel(/* mayInterruptIfRunning= */ true));
+        throw new IOException("Failed to create objects", e);
+      }
+    }
+
+    if (!innerExceptions.isEmpty()) {
+      throw GoogleCloudStorageExceptions.createCompositeException(innerExceptions);
+    }
+    return createdItems;
+  }
+
+  /** Creates object in a single request, retrying it if it was rate limited. */
+  private GoogleCloudStorageItemInfo createObjectWithRetries(CreatableItemInfo item)
+      throws IOException {
+    try {
+      return ResilientOperation.retry(
+          () -> createObject(item.getStorageResourceId(), item.getContent(), item.getOptions()),
+          backOffFactory.newBackOff(),
+          rateLimitedRetryDeterminer,
+          IOException.class,
+          sleeper);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Failed to create " + item.getStorageResourceId(), e);
+    }
+  }
+
   /**
    * See {@link GoogleCloudStorage#createEmptyObject(StorageResourceId)} for details about expected
    * behavior.
@@ -1403,6 +1528,13 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
    */
   private Storage.Objects.Insert prepareEmptyInsert(
       StorageResourceId resourceId, CreateObjectOptions createObjectOptions) throws IOException {
+    return prepareInsert(resourceId, new byte[0], createObjectOptions);
+  }
+
+  /** Prepares a direct (non-resumable) upload of the object with the given content. */
+  private Storage.Objects.Insert prepareInsert(
+      StorageResourceId resourceId, byte[] content, CreateObjectOptions createObjectOptions)
+      throws IOException {
     Map<String, String> rewrittenMetadata = encodeMetadata(createObjectOptions.getMetadata());
     StorageObject object =
         new StorageObject()
@@ -1410,13 +1542,27 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
             .setMetadata(rewrittenMetadata)
             .setContentEncoding(createObjectOptions.getContentEncoding());
 
-    // Ideally we'd use EmptyContent, but Storage requires an AbstractInputStreamContent and not
-    // just an HttpContent, so we'll just use the next easiest thing.
-    ByteArrayContent emptyContent =
-        new ByteArrayContent(createObjectOptions.getContentType(), new byte[0]);
+    // GCS verifies content of the upload against checksums set in the object metadata.
+    AsyncWriteChannelOptions writeOptions = storageOptions.getWriteChannelOptions();
+    if (content.length > 0
+        && (writeOptions.isChecksumVerificationEnabled() || writeOptions.isMd5ChecksumEnabled())) {
+      UploadChecksums checksums = new UploadChecksums(writeOptions.isMd5ChecksumEnabled());
+      checksums.update(content, 0, content.length);
+      if (writeOptions.isChecksumVerificationEnabled()) {
+        object.setCrc32c(BaseEncoding.base64().encode(checksums.getCrc32cBytes()));
+      }
+      if (writeOptions.isMd5ChecksumEnabled()) {
+        object.setMd5Hash(BaseEncoding.base64().encode(checksums.getMd5()));
+      }
+    }
+
+    // Storage requires an AbstractInputStreamContent and not just an HttpContent, so we use
+    // ByteArrayContent even for empty objects instead of EmptyContent.
+    ByteArrayContent byteArrayContent =
+        new ByteArrayContent(createObjectOptions.getContentType(), content);
     Storage.Objects.Insert insertObject =
         initializeRequest(
-            storage.objects().insert(resourceId.getBucketName(), object, emptyContent),
+            storage.objects().insert(resourceId.getBucketName(), object, byteArrayContent),
             resourceId.getBucketName());
     insertObject.setDisableGZipContent(true);
     clientRequestHelper.setDirectUploadEnabled(insertObject, true);
@@ -1591,6 +1737,250 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
     return items.getNextPageToken();
   }
 
+  /**
+   * Lists objects and prefixes like {@link #listStorageObjectsAndPrefixes}, but splits object names
+   * into lexicographic ranges that are listed concurrently using {@code startOffset} and {@code
+   * endOffset} list request parameters.
+   *
+   * <p>Listing starts with a single range. Each listed page is used as a sample of object names to
+   * split the rest of its range into new ranges, while fewer than {@link
+   * GoogleCloudStorageOptions#getListParallelism()} ranges are listed.
+   */
+  private class ParallelListing {
+
+    private final String bucketName;
+    @Nullable private final String objectNamePrefix;
+    private final ListObjectOptions listOptions;
+
+    private final AtomicInteger activeRanges = new AtomicInteger();
+    private final Queue<Future<Void>> rangeFutures = new ConcurrentLinkedQueue<>();
+    // Set when any range fails or listing is interrupted, to not start or continue other ranges.
+    private volatile boolean cancelled = false;
+
+    // Objects are keyed by name to merge ranges in order and to deduplicate the first object of
+    // the range that is listed again after the range split.
+    private final Map<String, StorageObject> objects = new ConcurrentSkipListMap<>();
+    private final Set<String> prefixes = new ConcurrentSkipListSet<>();
+
+    ParallelListing(
+        String bucketName, @Nullable String objectNamePrefix, ListObjectOptions listOptions) {
+      this.bucketName = bucketName;
+      this.objectNamePrefix = objectNamePrefix;
+      this.listOptions = listOptions;
+    }
+
+    void list(List<StorageObject> listedObjects, List<String> listedPrefixes) throws IOException {
+      logger.atFiner().log(
+          "ParallelListing.list(%s, %s, %s)", bucketName, objectNamePrefix, listOptions);
+
+      activeRanges.incrementAndGet();
+      submitRange(/* startOffset= */ null, /* endOffset= */ null);
+
+      // Each range submits ranges split from it before its own future completes,
+      // so all ranges are listed when the queue is empty.
+      Future<Void> rangeFuture;
+      while ((rangeFuture = rangeFutures.poll()) != null) {
+        try {
+          rangeFuture.get();
+        } catch (ExecutionException e) {
+          cancel();
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException(
+              "Error listing " + StringPaths.fromComponents(bucketName, objectNamePrefix),
+              e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          cancel();
+          throw new IOException(
+              "Interrupted listing " + StringPaths.fromComponents(bucketName, objectNamePrefix), e);
+        }
+      }
+
+      // Prefix could be listed in one range and its prefix object in another
+      prefixes.removeAll(objects.keySet());
+
+      listedObjects.addAll(objects.values());
+      listedPrefixes.addAll(prefixes);
+    }
+
+    private void cancel() {
+      cancelled = true;
+      rangeFutures.forEach(f -> f.cancel(/* mayInterruptIfRunning= */ true));
+    }
+
+    private void submitRange(@Nullable String startOffset, @Nullable String endOffset) {
+      if (cancelled) {
+        return;
+      }
+      Future<Void> rangeFuture =
+          backgroundTasksThreadPool.submit(
+              () -> {
+                listRange(startOffset, endOffset);
+                return null;
+              });
+      rangeFutures.add(rangeFuture);
+      // Listing could be cancelled after the check above, but before the future was queued
+      if (cancelled) {
+        rangeFuture.cancel(/* mayInterruptIfRunning= */ true);
+      }
+    }
+
+    private void listRange(@Nullable String startOffset, @Nullable String endOffset)
+        throws IOException {
+      try {
+        Storage.Objects.List listObject = createRangeListRequest(startOffset, endOffset);
+        while (!cancelled) {
+          List<StorageObject> pageObjects = new ArrayList<>();
+          List<String> pagePrefixes = new ArrayList<>();
+          String pageToken =
+              listStorageObjectsAndPrefixesPage(listObject, listOptions, pageObjects, pagePrefixes);
+          pageObjects.forEach(o -> objects.put(o.getName(), o));
+          prefixes.addAll(pagePrefixes);
+
+          if (pageToken == null) {
+            return;
+          }
+
+          List<String> boundaries = splitRange(pageObjects, pagePrefixes, endOffset);
+          if (boundaries.isEmpty()) {
+            listObject.setPageToken(pageToken);
+            continue;
+          }
+
+          logger.atFiner().log(
+              "ParallelListing.listRange(%s, %s): split range at %s",
+              startOffset, endOffset, boundaries);
+          for (int i = 0; i < boundaries.size(); i++) {
+            submitRange(
+                boundaries.get(i), i + 1 < boundaries.size() ? boundaries.get(i + 1) : endOffset);
+          }
+          // Continue listing of the first split range from the last listed name in a new request,
+          // because page token can not be used with a different end offset.
+          startOffset = getLastName(pageObjects, pagePrefixes);
+          endOffset = boundaries.get(0);
+          listObject = createRangeListRequest(startOffset, endOffset);
+        }
+      } catch (IOException | RuntimeException e) {
+        // Stop other ranges right away, without waiting for the failed range future to be polled
+        cancelled = true;
+        throw e;
+      } finally {
+        activeRanges.decrementAndGet();
+      }
+    }
+
+    private List<String> splitRange(
+        List<StorageObject> pageObjects, List<String> pagePrefixes, @Nullable String endOffset) {
+      int maxNewRanges;
+      int currentRanges;
+      do {
+        currentRanges = activeRanges.get();
+        maxNewRanges = storageOptions.getListParallelism() - currentRanges;
+        if (maxNewRanges <= 0 || (pageObjects.isEmpty() && pagePrefixes.isEmpty())) {
+          return ImmutableList.of();
+        }
+      } while (!activeRanges.compareAndSet(currentRanges, currentRanges + maxNewRanges));
+
+      List<String> boundaries =
+          getListRangeBoundaries(
+              objectNamePrefix,
+              getFirstName(pageObjects, pagePrefixes),
+              getLastName(pageObjects, pagePrefixes),
+              endOffset,
+              maxNewRanges);
+      activeRanges.addAndGet(boundaries.size() - maxNewRanges);
+      return boundaries;
+    }
+
+    private Storage.Objects.List createRangeListRequest(
+        @Nullable String startOffset, @Nullable String endOffset) throws IOException {
+      return createListRequest(
+              bucketName,
+              objectNamePrefix,
+              listOptions.getFields(),
+              listOptions.getDelimiter(),
+              MAX_RESULTS_UNLIMITED)
+          .setStartOffset(startOffset)
+          .setEndOffset(endOffset);
+    }
+  }
+
+  private static String getFirstName(List<StorageObject> objects, List<String> prefixes) {
+    return Stream.concat(objects.stream().map(StorageObject::getName), prefixes.stream())
+        .min(Comparator.naturalOrder())
+        .get();
+  }
+
+  private static String getLastName(List<StorageObject> objects, List<String> prefixes) {
+    return Stream.concat(objects.stream().map(StorageObject::getName), prefixes.stream())
+        .max(Comparator.naturalOrder())
+        .get();
+  }
+
+  /**
+   * Returns sorted boundaries that split object names range that follows listed page into at most
+   * {@code maxBoundaries + 1} ranges.
+   *
+   * <p>Names are split at the first character at which the first and the last names in the page
+   * differ: names that follow the last name's prefix up to this character form one range, and the
+   * rest of the names with this prefix are split at evenly spaced characters of the last name's
+   * character class (digits, uppercase or lowercase letters).
+   *
+   * @param objectNamePrefix listed object name prefix
+   * @param pageFirstName the first object name or prefix listed in the page
+   * @param pageLastName the last object name or prefix listed in the page
+   * @param endOffset exclusive end of the range, {@code null} if the range is not bounded
+   * @param maxBoundaries maximum number of boundaries to return
+   */
+  @VisibleForTesting
+  static List<String> getListRangeBoundaries(
+      @Nullable String objectNamePrefix,
+      String pageFirstName,
+      String pageLastName,
+      @Nullable String endOffset,
+      int maxBoundaries) {
+    int prefixLength = nullToEmpty(objectNamePrefix).length();
+    int splitIndex = max(prefixLength, commonPrefix(pageFirstName, pageLastName).length());
+    // Only split ASCII names, so that Java string order matches GCS order of UTF-8 names
+    if (splitIndex >= pageLastName.length() || !CharMatcher.ascii().matchesAllOf(pageLastName)) {
+      return ImmutableList.of();
+    }
+
+    String splitPrefix = pageLastName.substring(0, splitIndex);
+    List<String> boundaries = new ArrayList<>(maxBoundaries);
+
+    // Names that follow all names with the split prefix likely form the largest range
+    if (splitIndex > prefixLength && pageLastName.charAt(splitIndex - 1) < Ascii.MAX) {
+      String nextSplitPrefix =
+          splitPrefix.substring(0, splitIndex - 1)
+              + (char) (splitPrefix.charAt(splitIndex - 1) + 1);
+      if (endOffset == null || nextSplitPrefix.compareTo(endOffset) < 0) {
+        boundaries.add(nextSplitPrefix);
+      }
+    }
+
+    char splitChar = pageLastName.charAt(splitIndex);
+    for (String charClass : LIST_RANGE_CHAR_CLASSES) {
+      int splitCharIndex = charClass.indexOf(splitChar);
+      if (splitCharIndex < 0) {
+        continue;
+      }
+      String splitChars = charClass.substring(splitCharIndex + 1);
+      int count = min(maxBoundaries - boundaries.size(), splitChars.length());
+      for (int i = 0; i < count; i++) {
+        String boundary = splitPrefix + splitChars.charAt(i * splitChars.length() / count);
+        if (endOffset == null || boundary.compareTo(endOffset) < 0) {
+          boundaries.add(boundary);
+        }
+      }
+    }
+
+    Collections.sort(boundaries);
+    return boundaries;
+  }
+
   private Storage.Objects.List createListRequest(
       String bucketName,
       String objectNamePrefix,
@@ -1647,8 +2037,14 @@ public class GoogleCloudStorageImpl implements GoogleCloudStorage {
     // Helper will handle going through pages of list results and accumulating them.
     List<StorageObject> listedObjects = new ArrayList<>();
     List<String> listedPrefixes = new ArrayList<>();
-    listStorageObjectsAndPrefixes(
-        bucketName, objectNamePrefix, listOptions, listedObjects, listedPrefixes);
+    if (storageOptions.getListParallelism() > 1
+        && listOptions.getMaxResults() == MAX_RESULTS_UNLIMITED) {
+      new ParallelListing(bucketName, objectNamePrefix, listOptions)
+          .list(listedObjects, listedPrefixes);
+    } else {
+      listStorageObjectsAndPrefixes(
+          bucketName, objectNamePrefix, listOptions, listedObjects, listedPrefixes);
+    }
 
     return getGoogleCloudStorageItemInfos(
         bucketName, objectNamePrefix, listOptions, listedPrefixes, listedObjects);
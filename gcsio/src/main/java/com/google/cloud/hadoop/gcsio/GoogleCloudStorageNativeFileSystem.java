@@ -117,6 +117,12 @@ public class GoogleCloudStorageNativeFileSystem implements GoogleCloudStorageFil
     return legacyGcsFs.create(path, createOptions);
   }
 
+  @Override
+  public StorageResourceId prepareCreate(URI path, CreateFileOptions createOptions)
+      throws IOException {
+    return legacyGcsFs.prepareCreate(path, createOptions);
+  }
+
   @Override
   public SeekableByteChannel open(URI path, GoogleCloudStorageReadOptions readOptions)
       throws IOException {
@@ -171,6 +177,12 @@ public class GoogleCloudStorageNativeFileSystem implements GoogleCloudStorageFil
     return legacyGcsFs.listFileInfo(path, listOptions);
   }
 
+  @Override
+  public ListPage<FileInfo> listFileInfoPage(
+      URI path, ListFileOptions listOptions, String pageToken) throws IOException {
+    return legacyGcsFs.listFileInfoPage(path, listOptions, pageToken);
+  }
+
   @Override
   public FileInfo getFileInfo(URI path) throws IOException {
     return legacyGcsFs.getFileInfo(path);
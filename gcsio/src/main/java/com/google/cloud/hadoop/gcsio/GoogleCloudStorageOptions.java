@@ -68,6 +68,9 @@ public abstract class GoogleCloudStorageOptions {
   /** Default number of items to return per call to the list* GCS RPCs. */
   public static final long MAX_LIST_ITEMS_PER_CALL_DEFAULT = 5000;
 
+  /** Default number of concurrent requests to list objects, listing is sequential if set to 1. */
+  public static final int LIST_PARALLELISM_DEFAULT = 1;
+
   /** Default setting for maximum number of requests per GCS batch. */
   public static final long MAX_REQUESTS_PER_BATCH_DEFAULT = 15;
 
@@ -113,6 +116,7 @@ public abstract class GoogleCloudStorageOptions {
         .setAutoRepairImplicitDirectoriesEnabled(AUTO_REPAIR_IMPLICIT_DIRECTORIES_DEFAULT)
         .setMaxWaitMillisForEmptyObjectCreation(MAX_WAIT_MILLIS_FOR_EMPTY_OBJECT_CREATION)
         .setMaxListItemsPerCall(MAX_LIST_ITEMS_PER_CALL_DEFAULT)
+        .setListParallelism(LIST_PARALLELISM_DEFAULT)
         .setMaxRequestsPerBatch(MAX_REQUESTS_PER_BATCH_DEFAULT)
         .setBatchThreads(BATCH_THREADS_DEFAULT)
         .setMaxHttpRequestRetries(MAX_HTTP_REQUEST_RETRIES)
@@ -155,6 +159,12 @@ public abstract class GoogleCloudStorageOptions {
 
   public abstract long getMaxListItemsPerCall();
 
+  /**
+   * Maximum number of concurrent requests that list lexicographic ranges of object names when all
+   * objects with a prefix are listed. Listing is sequential if set to {@code 1}.
+   */
+  public abstract int getListParallelism();
+
   public abstract long getMaxRequestsPerBatch();
 
   public abstract int getBatchThreads();
@@ -241,6 +251,8 @@ public abstract class GoogleCloudStorageOptions {
 
     public abstract Builder setMaxListItemsPerCall(long maxListItemsPerCall);
 
+    public abstract Builder setListParallelism(int listParallelism);
+
     // According to https://developers.google.com/storage/docs/json_api/v1/how-tos/batch
     // there is a maximum of 1000 requests per batch.
     public abstract Builder setMaxRequestsPerBatch(long maxRequestsPerBatch);
@@ -293,6 +305,10 @@ public abstract class GoogleCloudStorageOptions {
               || instance.getMaxBytesRewrittenPerCall() % (1024 * 1024) == 0,
           "maxBytesRewrittenPerCall must be an integral multiple of 1 MiB (1048576), but was: %s",
           instance.getMaxBytesRewrittenPerCall());
+      checkArgument(
+          instance.getListParallelism() > 0,
+          "listParallelism must be positive, but was: %s",
+          instance.getListParallelism());
       checkArgument(
           instance.getProxyAddress() != null
               || (instance.getProxyUsername() == null && instance.getProxyPassword() == null),
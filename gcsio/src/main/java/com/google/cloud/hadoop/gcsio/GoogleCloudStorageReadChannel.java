@@ -33,6 +33,7 @@ import com.google.api.client.util.Sleeper;
 import com.google.api.services.storage.Storage;
 import com.google.api.services.storage.model.StorageObject;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.Fadvise;
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
 import com.google.cloud.hadoop.util.ApiErrorExtractor;
 import com.google.cloud.hadoop.util.ClientRequestHelper;
 import com.google.cloud.hadoop.util.ResilientOperation;
@@ -40,24 +41,28 @@ import com.google.cloud.hadoop.util.RetryDeterminer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
 import com.google.common.flogger.GoogleLogger;
+import com.google.common.io.ByteStreams;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /** Provides seekable read access to GCS. */
-public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
+public class GoogleCloudStorageReadChannel implements SeekableByteChannel, AdaptiveFadviseChannel {
 
   private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
 
@@ -66,6 +71,9 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
 
   private static final String GZIP_ENCODING = "gzip";
 
+  // Tracks latencies of data requests of all channels to compute hedging delay.
+  private static final HedgedReads HEDGED_READS = new HedgedReads();
+
   // GCS resource/object path
   private StorageResourceId resourceId;
 
@@ -124,6 +132,15 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
   // Fine-grained options.
   private final GoogleCloudStorageReadOptions readOptions;
 
+  // Process-wide block cache, null if block cache is disabled.
+  @Nullable private final ObjectBlockCache blockCache;
+
+  // Disk cache in the configured directory, null if disk cache is disabled.
+  @Nullable private final ObjectDiskCache diskCache;
+
+  // Tracks access pattern to decide when to use bounded range requests.
+  private final AdaptiveFadvise adaptiveFadvise;
+
   // Sleeper used for waiting between retries.
   private Sleeper sleeper = Sleeper.DEFAULT;
 
@@ -138,6 +155,9 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
   // Whether object content is gzip-encoded.
   private boolean gzipEncoded = false;
 
+  // Number of bytes read sequentially, used to decide when to start read-ahead.
+  private long sequentialBytesRead = 0;
+
   // Prefetched footer content.
   // TODO(b/110832992):
   // 1. Test showing footer prefetch avoids another request to GCS.
@@ -145,6 +165,9 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
   // 3. Test that footer prefetch always disabled for gzipped files.
   private byte[] footerContent;
 
+  // Footer that is prefetched concurrently with metadata on open, null if not requested.
+  @Nullable private Future<PrefetchedFooter> footerPrefetch;
+
   @VisibleForTesting protected boolean metadataInitialized = false;
 
   /**
@@ -169,11 +192,28 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     this.errorExtractor = errorExtractor;
     this.readOptions = readOptions;
     this.resourceId = resourceId;
+    this.blockCache =
+        readOptions.getBlockCacheSize() > 0 ? ObjectBlockCache.getInstance(readOptions) : null;
+    this.diskCache =
+        readOptions.getDiskCacheSize() > 0 ? ObjectDiskCache.getInstance(readOptions) : null;
+    this.adaptiveFadvise = new AdaptiveFadvise(readOptions);
 
     // Initialize metadata if available.
     GoogleCloudStorageItemInfo info = getInitialMetadata();
-    if (info != null || readOptions.isFastFailOnNotFoundEnabled()) {
-      initMetadata(info == null ? fetchInitialMetadata() : info);
+    if (info != null) {
+      initMetadata(info);
+      if (readOptions.getFooterPrefetchSize() > 0 && !gzipEncoded && size > 0) {
+        footerPrefetch = startFooterPrefetch();
+      }
+    } else if (readOptions.isFastFailOnNotFoundEnabled()) {
+      // Object size is unknown yet, prefetch footer using suffix range concurrently with metadata.
+      footerPrefetch = readOptions.getFooterPrefetchSize() > 0 ? startFooterPrefetch() : null;
+      try {
+        initMetadata(fetchInitialMetadata());
+      } catch (IOException | RuntimeException e) {
+        cancelFooterPrefetch();
+        throw e;
+      }
     }
   }
 
@@ -287,6 +327,8 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
       return -1;
     }
 
+    updateAccessPattern(buffer.remaining());
+
     int totalBytesRead = 0;
     int retriesAttempted = 0;
 
@@ -344,6 +386,7 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
           totalBytesRead += numBytesRead;
           currentPosition += numBytesRead;
           contentChannelPosition += numBytesRead;
+          sequentialBytesRead += numBytesRead;
           checkState(
               contentChannelPosition == currentPosition,
               "contentChannelPosition (%s) should be equal to currentPosition (%s)"
@@ -352,6 +395,11 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
               currentPosition);
         }
 
+        // Switch to block cache, striped or read-ahead channel as soon as it could be used.
+        if (contentChannel != null && currentPosition < size && shouldSwitchContentChannel()) {
+          closeContentChannel();
+        }
+
         if (retriesAttempted != 0) {
           logger.atInfo().log(
               "Success after %d retries on reading '%s'", retriesAttempted, resourceId);
@@ -420,6 +468,8 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
       }
     } while (buffer.remaining() > 0 && currentPosition < size);
 
+    adaptiveFadvise.recordReadEnd(currentPosition);
+
     // If this method was called when the stream was already at EOF
     // (indicated by totalBytesRead == 0) then return EOF else,
     // return the number of bytes read.
@@ -504,6 +554,7 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     }
     logger.atFiner().log("Closing channel for '%s'", resourceId);
     channelIsOpen = false;
+    cancelFooterPrefetch();
     closeContentChannel();
   }
 
@@ -546,33 +597,54 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     return this;
   }
 
-  private boolean isRandomAccessPattern(long oldPosition) {
-    if (!shouldDetectRandomAccess()) {
-      return false;
-    }
-    if (currentPosition < oldPosition) {
-      logger.atFine().log(
-          "Detected backward read from %s to %s position, switching to random IO for '%s'",
-          oldPosition, currentPosition, resourceId);
-      return true;
+  /**
+   * Records the read at the {@link #currentPosition} in the access pattern and switches between
+   * random and sequential access if necessary.
+   */
+  private void updateAccessPattern(long bytesToRead) {
+    adaptiveFadvise.recordReadStart(currentPosition, bytesToRead);
+    if (!gzipEncoded
+        && readOptions.getFadvise() == Fadvise.AUTO
+        && randomAccess != adaptiveFadvise.isRandomAccess()) {
+      randomAccess = adaptiveFadvise.isRandomAccess();
+      checkEncodingAndAccess();
     }
-    if (oldPosition >= 0 && oldPosition + readOptions.getInplaceSeekLimit() < currentPosition) {
-      logger.atFine().log(
-          "Detected forward read from %s to %s position over %s threshold,"
-              + " switching to random IO for '%s'",
-          oldPosition, currentPosition, readOptions.getInplaceSeekLimit(), resourceId);
-      return true;
+  }
+
+  @Override
+  public AdaptiveFadvise getAdaptiveFadvise() {
+    return adaptiveFadvise;
+  }
+
+  /** Returns whether the current content channel should be replaced with a more efficient one. */
+  private boolean shouldSwitchContentChannel() {
+    if (shouldUseBlockCache()) {
+      return !(contentChannel instanceof CachedBlockChannel);
     }
-    return false;
+    return !(contentChannel instanceof ReadAheadPrefetcher)
+        && (shouldReadStriped() || shouldReadAhead());
   }
 
-  private boolean shouldDetectRandomAccess() {
-    return !gzipEncoded && !randomAccess && readOptions.getFadvise() == Fadvise.AUTO;
+  private boolean shouldUseBlockCache() {
+    return (blockCache != null || diskCache != null) && metadataInitialized && !gzipEncoded;
   }
 
-  private void setRandomAccess() {
-    randomAccess = true;
-    checkEncodingAndAccess();
+  private boolean shouldReadStriped() {
+    return readOptions.getStripedReadCount() > 0
+        && metadataInitialized
+        && !gzipEncoded
+        && !randomAccess
+        && size - currentPosition > readOptions.getStripedReadSize();
+  }
+
+  private boolean shouldReadAhead() {
+    return readOptions.getReadAheadBlockCount() > 0
+        && metadataInitialized
+        && !gzipEncoded
+        && !randomAccess
+        && (readOptions.getFadvise() == Fadvise.SEQUENTIAL
+            // Do not read-ahead footer, because it will be cached on read.
+            || (sequentialBytesRead >= readOptions.getReadAheadBlockSize() && !isFooterRead()));
   }
 
   private void skipInPlace(long seekDistance) {
@@ -687,9 +759,6 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
         "Performing lazySeek from %s to %s position with %s bytesToRead for '%s'",
         contentChannelPosition, currentPosition, bytesToRead, resourceId);
 
-    // used to auto-detect random access
-    long oldPosition = contentChannelPosition;
-
     long seekDistance = currentPosition - contentChannelPosition;
     if (contentChannel != null
         && seekDistance > 0
@@ -705,9 +774,6 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     }
 
     if (contentChannel == null) {
-      if (isRandomAccessPattern(oldPosition)) {
-        setRandomAccess();
-      }
       openContentChannel(bytesToRead);
     }
   }
@@ -717,11 +783,23 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
         contentChannel == null,
         "contentChannel should be null, before opening new for '%s'",
         resourceId);
-    InputStream objectContentStream =
-        footerContent != null && currentPosition >= size - footerContent.length
-            ? openFooterStream()
-            : openStream(bytesToRead);
-    contentChannel = Channels.newChannel(objectContentStream);
+    if (footerPrefetch != null) {
+      completeFooterPrefetch();
+    }
+    if (shouldUseBlockCache()) {
+      contentChannel = openBlockCacheChannel();
+    } else if (footerContent != null && currentPosition >= size - footerContent.length) {
+      contentChannel = Channels.newChannel(openFooterStream());
+    } else if (shouldReadStriped()) {
+      contentChannel =
+          openReadAheadChannel(readOptions.getStripedReadSize(), readOptions.getStripedReadCount());
+    } else if (shouldReadAhead()) {
+      contentChannel =
+          openReadAheadChannel(
+              readOptions.getReadAheadBlockSize(), readOptions.getReadAheadBlockCount());
+    } else {
+      contentChannel = Channels.newChannel(openStream(bytesToRead));
+    }
     checkState(
         contentChannelPosition == currentPosition,
         "contentChannelPosition (%s) should be equal to currentPosition (%s) for '%s'",
@@ -831,6 +909,89 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     logger.atFiner().log("Prefetched %s bytes footer for '%s'", footerContent.length, resourceId);
   }
 
+  /**
+   * Asynchronously fetches the last {@link GoogleCloudStorageReadOptions#getFooterPrefetchSize()}
+   * bytes of the object. If object size is not known yet, uses a suffix range request, so it could
+   * be executed concurrently with the metadata request.
+   */
+  private Future<PrefetchedFooter> startFooterPrefetch() throws IOException {
+    int footerPrefetchSize = readOptions.getFooterPrefetchSize();
+    String rangeHeader =
+        metadataInitialized
+            ? "bytes=" + Math.max(0, size - footerPrefetchSize) + "-"
+            : "bytes=-" + footerPrefetchSize;
+    Storage.Objects.Get getFooter = createDataRequest(rangeHeader);
+    // Only hedge footer request that is pinned to the object generation by the initialized metadata
+    boolean hedged = readOptions.isHedgedReadEnabled() && metadataInitialized;
+    logger.atFiner().log("Prefetching footer with %s range for '%s'", rangeHeader, resourceId);
+    return ReadAheadPrefetcher.READ_AHEAD_THREAD_POOL.submit(
+        () -> {
+          HttpResponse response =
+              hedged ? executeDataRequest(getFooter, rangeHeader) : getFooter.executeMedia();
+          String generation = response.getHeaders().getFirstHeaderStringValue("x-goog-generation");
+          try (InputStream footerStream = response.getContent()) {
+            return new PrefetchedFooter(
+                generation == null
+                    ? StorageResourceId.UNKNOWN_GENERATION_ID
+                    : Long.parseLong(generation),
+                ByteStreams.toByteArray(footerStream));
+          }
+        });
+  }
+
+  /**
+   * Waits for the footer prefetched on open and uses it as {@link #footerContent} if it belongs to
+   * the object generation being read. Failed footer prefetch is not fatal, footer will be read with
+   * a regular request in this case.
+   */
+  private void completeFooterPrefetch() throws IOException {
+    Future<PrefetchedFooter> prefetch = footerPrefetch;
+    footerPrefetch = null;
+    PrefetchedFooter footer;
+    try {
+      footer = prefetch.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException)
+          new InterruptedIOException("Interrupted while waiting for footer prefetch").initCause(e);
+    } catch (ExecutionException e) {
+      logger.atFine().withCause(e.getCause()).log("Failed to prefetch footer for '%s'", resourceId);
+      return;
+    }
+    if (!metadataInitialized
+        || gzipEncoded
+        || footer.generation != resourceId.getGenerationId()
+        || footer.content.length != min(size, readOptions.getFooterPrefetchSize())) {
+      logger.atFine().log(
+          "Ignoring %d bytes footer of %d generation prefetched for '%s'",
+          footer.content.length, footer.generation, resourceId);
+      return;
+    }
+    if (footerContent == null || footerContent.length < footer.content.length) {
+      footerContent = footer.content;
+      logger.atFiner().log(
+          "Prefetched %s bytes footer on open for '%s'", footerContent.length, resourceId);
+    }
+  }
+
+  private void cancelFooterPrefetch() {
+    if (footerPrefetch != null) {
+      footerPrefetch.cancel(/* mayInterruptIfRunning= */ true);
+      footerPrefetch = null;
+    }
+  }
+
+  /** Footer content prefetched on open and generation of the object it was read from. */
+  private static class PrefetchedFooter {
+    private final long generation;
+    private final byte[] content;
+
+    PrefetchedFooter(long generation, byte[] content) {
+      this.generation = generation;
+      this.content = content;
+    }
+  }
+
   /**
    * Opens the underlying stream from {@link #footerContent}, sets its position to the {@link
    * #currentPosition}.
@@ -891,7 +1052,7 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
       // Set rangeSize to the size of the file reminder from currentPosition.
       long rangeSize = size - contentChannelPosition;
       if (randomAccess) {
-        long randomRangeSize = Math.max(bytesToRead, readOptions.getMinRangeRequestSize());
+        long randomRangeSize = Math.max(bytesToRead, adaptiveFadvise.getRangeRequestSize());
         // Limit rangeSize to the randomRangeSize.
         rangeSize = min(randomRangeSize, rangeSize);
       }
@@ -928,7 +1089,7 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     Storage.Objects.Get getObject = createDataRequest(rangeHeader);
     HttpResponse response;
     try {
-      response = getObject.executeMedia();
+      response = executeDataRequest(getObject, rangeHeader);
       // TODO(b/110832992): validate response range header against expected/request range
     } catch (IOException e) {
       if (!metadataInitialized && errorExtractor.rangeNotSatisfiable(e) && currentPosition == 0) {
@@ -1060,6 +1221,75 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     }
   }
 
+  /**
+   * Opens the channel that concurrently prefetches blocks of object generation from the {@link
+   * #currentPosition} till the end of the object or the start of the prefetched footer.
+   *
+   * @param blockSize size of a single block request
+   * @param blockCount maximum number of blocks in flight and in memory
+   */
+  private ReadableByteChannel openReadAheadChannel(int blockSize, int blockCount) {
+    contentChannelPosition = currentPosition;
+    contentChannelEnd = footerContent == null ? size : size - footerContent.length;
+    logger.atFiner().log(
+        "Opened read-ahead channel from %d to %d position with %d x %d bytes blocks for '%s'",
+        contentChannelPosition, contentChannelEnd, blockCount, blockSize, resourceId);
+    return new ReadAheadPrefetcher(
+        this::readRange, contentChannelPosition, contentChannelEnd, blockSize, blockCount);
+  }
+
+  /**
+   * Opens the channel that reads blocks of object generation through the process-wide block cache
+   * and/or the disk cache from the {@link #currentPosition} till the end of the object.
+   */
+  private ReadableByteChannel openBlockCacheChannel() {
+    contentChannelPosition = currentPosition;
+    contentChannelEnd = size;
+    logger.atFiner().log(
+        "Opened block cache channel from %d to %d position for '%s'",
+        contentChannelPosition, contentChannelEnd, resourceId);
+    if (blockCache == null) {
+      return new CachedBlockChannel(
+          diskCache, resourceId, size, this::readRange, contentChannelPosition, contentChannelEnd);
+    }
+    BlockFetcher fetcher = diskCache == null ? this::readRange : this::readRangeFromDiskCache;
+    return new CachedBlockChannel(
+        blockCache, resourceId, size, fetcher, contentChannelPosition, contentChannelEnd);
+  }
+
+  /** Reads object bytes starting at the {@code offset} position through the disk cache. */
+  private void readRangeFromDiskCache(long offset, ByteBuffer buffer) throws IOException {
+    try (ReadableByteChannel diskCacheChannel =
+        new CachedBlockChannel(
+            diskCache, resourceId, size, this::readRange, offset, offset + buffer.remaining())) {
+      while (buffer.hasRemaining() && diskCacheChannel.read(buffer) >= 0) {}
+    }
+  }
+
+  /** Reads object bytes starting at the {@code offset} position until the buffer is full. */
+  private void readRange(long offset, ByteBuffer buffer) throws IOException {
+    String rangeHeader = "bytes=" + offset + "-" + (offset + buffer.remaining() - 1);
+    HttpResponse response;
+    try {
+      response = executeDataRequest(createDataRequest(rangeHeader), rangeHeader);
+    } catch (IOException e) {
+      if (errorExtractor.itemNotFound(e)) {
+        throw createFileNotFoundException(resourceId, e);
+      }
+      throw new IOException(
+          String.format("Error reading '%s' at position %d", resourceId, offset), e);
+    }
+    try (ReadableByteChannel rangeChannel = Channels.newChannel(response.getContent())) {
+      while (buffer.hasRemaining() && rangeChannel.read(buffer) >= 0) {}
+    }
+    if (buffer.hasRemaining()) {
+      throw new IOException(
+          String.format(
+              "Received end of stream with %d bytes remaining for %s range of '%s'",
+              buffer.remaining(), rangeHeader, resourceId));
+    }
+  }
+
   private boolean isFooterRead() {
     return size - currentPosition <= readOptions.getMinRangeRequestSize();
   }
@@ -1098,6 +1328,31 @@ public class GoogleCloudStorageReadChannel implements SeekableByteChannel {
     throw new IOException(msg, e);
   }
 
+  /**
+   * Executes the data request, hedging it with a duplicate request for the same range if hedged
+   * reads are enabled. Hedging requires initialized metadata to pin both requests to the same
+   * object generation.
+   */
+  private HttpResponse executeDataRequest(Storage.Objects.Get getObject, String rangeHeader)
+      throws IOException {
+    if (!readOptions.isHedgedReadEnabled() || !metadataInitialized) {
+      return getObject.executeMedia();
+    }
+    Storage.Objects.Get hedgeObject = createDataRequest(rangeHeader);
+    return HEDGED_READS.execute(
+        readOptions,
+        getObject::executeMedia,
+        hedgeObject::executeMedia,
+        response -> {
+          try {
+            response.disconnect();
+          } catch (IOException e) {
+            logger.atFine().withCause(e).log(
+                "Failed to disconnect hedged read response for '%s'", resourceId);
+          }
+        });
+  }
+
   private Storage.Objects.Get createDataRequest(String rangeHeader) throws IOException {
     Storage.Objects.Get dataRequest = createDataRequest();
 
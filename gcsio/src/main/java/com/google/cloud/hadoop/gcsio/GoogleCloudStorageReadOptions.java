@@ -19,6 +19,7 @@ package com.google.cloud.hadoop.gcsio;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
 
 /**
  * Advanced options for reading GoogleCloudStorage objects. Immutable; callers must use the inner
@@ -48,6 +49,23 @@ public abstract class GoogleCloudStorageReadOptions {
   public static final long DEFAULT_GRPC_READ_TIMEOUT_MILLIS = 3600 * 1000;
   public static final boolean DEFAULT_GRPC_READ_ZEROCOPY_ENABLED = true;
   public static final long DEFAULT_GRPC_READ_MESSAGE_TIMEOUT_MILLIS = 3 * 1000;
+  public static final int DEFAULT_VECTORED_READ_MIN_SEEK_SIZE = 4 * 1024;
+  public static final int DEFAULT_VECTORED_READ_MAX_MERGED_SIZE = 1024 * 1024;
+  public static final int DEFAULT_READ_AHEAD_BLOCK_COUNT = 0;
+  public static final int DEFAULT_READ_AHEAD_BLOCK_SIZE = 8 * 1024 * 1024;
+  public static final int DEFAULT_STRIPED_READ_COUNT = 0;
+  public static final int DEFAULT_STRIPED_READ_SIZE = 16 * 1024 * 1024;
+  public static final long DEFAULT_BLOCK_CACHE_SIZE = 0;
+  public static final int DEFAULT_BLOCK_CACHE_BLOCK_SIZE = 1024 * 1024;
+  public static final boolean DEFAULT_BLOCK_CACHE_OFF_HEAP_ENABLED = false;
+  public static final long DEFAULT_DISK_CACHE_SIZE = 0;
+  public static final int DEFAULT_DISK_CACHE_BLOCK_SIZE = 8 * 1024 * 1024;
+  public static final int DEFAULT_FOOTER_PREFETCH_SIZE = 0;
+  public static final int DEFAULT_FADVISE_WINDOW_SIZE = 8;
+  public static final long DEFAULT_MAX_RANGE_REQUEST_SIZE = 16 * 1024 * 1024;
+  public static final boolean DEFAULT_HEDGED_READ_ENABLED = false;
+  public static final int DEFAULT_HEDGED_READ_PERCENTILE = 95;
+  public static final long DEFAULT_HEDGED_READ_MIN_DELAY_MILLIS = 50;
 
   // Default builder should be initialized after default values,
   // otherwise it will access not initialized default values.
@@ -68,7 +86,24 @@ public abstract class GoogleCloudStorageReadOptions {
         .setGrpcChecksumsEnabled(DEFAULT_GRPC_CHECKSUMS_ENABLED)
         .setGrpcReadTimeoutMillis(DEFAULT_GRPC_READ_TIMEOUT_MILLIS)
         .setGrpcReadZeroCopyEnabled(DEFAULT_GRPC_READ_ZEROCOPY_ENABLED)
-        .setGrpcReadMessageTimeoutMillis(DEFAULT_GRPC_READ_MESSAGE_TIMEOUT_MILLIS);
+        .setGrpcReadMessageTimeoutMillis(DEFAULT_GRPC_READ_MESSAGE_TIMEOUT_MILLIS)
+        .setVectoredReadMinSeekSize(DEFAULT_VECTORED_READ_MIN_SEEK_SIZE)
+        .setVectoredReadMaxMergedSize(DEFAULT_VECTORED_READ_MAX_MERGED_SIZE)
+        .setReadAheadBlockCount(DEFAULT_READ_AHEAD_BLOCK_COUNT)
+        .setReadAheadBlockSize(DEFAULT_READ_AHEAD_BLOCK_SIZE)
+        .setStripedReadCount(DEFAULT_STRIPED_READ_COUNT)
+        .setStripedReadSize(DEFAULT_STRIPED_READ_SIZE)
+        .setBlockCacheSize(DEFAULT_BLOCK_CACHE_SIZE)
+        .setBlockCacheBlockSize(DEFAULT_BLOCK_CACHE_BLOCK_SIZE)
+        .setBlockCacheOffHeapEnabled(DEFAULT_BLOCK_CACHE_OFF_HEAP_ENABLED)
+        .setDiskCacheSize(DEFAULT_DISK_CACHE_SIZE)
+        .setDiskCacheBlockSize(DEFAULT_DISK_CACHE_BLOCK_SIZE)
+        .setFooterPrefetchSize(DEFAULT_FOOTER_PREFETCH_SIZE)
+        .setFadviseWindowSize(DEFAULT_FADVISE_WINDOW_SIZE)
+        .setMaxRangeRequestSize(DEFAULT_MAX_RANGE_REQUEST_SIZE)
+        .setHedgedReadEnabled(DEFAULT_HEDGED_READ_ENABLED)
+        .setHedgedReadPercentile(DEFAULT_HEDGED_READ_PERCENTILE)
+        .setHedgedReadMinDelayMillis(DEFAULT_HEDGED_READ_MIN_DELAY_MILLIS);
   }
 
   public abstract Builder toBuilder();
@@ -115,6 +150,61 @@ public abstract class GoogleCloudStorageReadOptions {
   /** See {@link Builder#setGrpcReadTimeoutMillis(long)}. */
   public abstract long getGrpcReadMessageTimeoutMillis();
 
+  /** See {@link Builder#setVectoredReadMinSeekSize}. */
+  public abstract int getVectoredReadMinSeekSize();
+
+  /** See {@link Builder#setVectoredReadMaxMergedSize}. */
+  public abstract int getVectoredReadMaxMergedSize();
+
+  /** See {@link Builder#setReadAheadBlockCount}. */
+  public abstract int getReadAheadBlockCount();
+
+  /** See {@link Builder#setReadAheadBlockSize}. */
+  public abstract int getReadAheadBlockSize();
+
+  /** See {@link Builder#setStripedReadCount}. */
+  public abstract int getStripedReadCount();
+
+  /** See {@link Builder#setStripedReadSize}. */
+  public abstract int getStripedReadSize();
+
+  /** See {@link Builder#setBlockCacheSize}. */
+  public abstract long getBlockCacheSize();
+
+  /** See {@link Builder#setBlockCacheBlockSize}. */
+  public abstract int getBlockCacheBlockSize();
+
+  /** See {@link Builder#setBlockCacheOffHeapEnabled}. */
+  public abstract boolean isBlockCacheOffHeapEnabled();
+
+  /** See {@link Builder#setDiskCacheDirectory}. */
+  @Nullable
+  public abstract String getDiskCacheDirectory();
+
+  /** See {@link Builder#setDiskCacheSize}. */
+  public abstract long getDiskCacheSize();
+
+  /** See {@link Builder#setDiskCacheBlockSize}. */
+  public abstract int getDiskCacheBlockSize();
+
+  /** See {@link Builder#setFooterPrefetchSize}. */
+  public abstract int getFooterPrefetchSize();
+
+  /** See {@link Builder#setFadviseWindowSize}. */
+  public abstract int getFadviseWindowSize();
+
+  /** See {@link Builder#setMaxRangeRequestSize}. */
+  public abstract long getMaxRangeRequestSize();
+
+  /** See {@link Builder#setHedgedReadEnabled}. */
+  public abstract boolean isHedgedReadEnabled();
+
+  /** See {@link Builder#setHedgedReadPercentile}. */
+  public abstract int getHedgedReadPercentile();
+
+  /** See {@link Builder#setHedgedReadMinDelayMillis}. */
+  public abstract long getHedgedReadMinDelayMillis();
+
   /** Mutable builder for GoogleCloudStorageReadOptions. */
   @AutoValue.Builder
   public abstract static class Builder {
@@ -180,8 +270,11 @@ public abstract class GoogleCloudStorageReadOptions {
      * <p>Supported modes:
      *
      * <ul>
-     *   <li>{@code AUTO} - automatically switches to {@code RANDOM} mode if backward read or
-     *       forward read for more than {@link #setInplaceSeekLimit} bytes is detected.
+     *   <li>{@code AUTO} - automatically switches to {@code RANDOM} mode if backward reads or
+     *       forward reads for more than {@link #setInplaceSeekLimit} bytes prevail among recent
+     *       reads (see {@link #setFadviseWindowSize}), and switches back to {@code SEQUENTIAL} mode
+     *       after reading sequentially with range requests that grew to {@link
+     *       #setMaxRangeRequestSize} bytes.
      *   <li>{@code RANDOM} - sends HTTP requests with {@code Range} header set to greater of
      *       provided reade buffer by user.
      *   <li>{@code SEQUENTIAL} - sends HTTP requests with unbounded {@code Range} header.
@@ -213,6 +306,113 @@ public abstract class GoogleCloudStorageReadOptions {
     /** Sets the property for gRPC read message timeout in milliseconds. */
     public abstract Builder setGrpcReadMessageTimeoutMillis(long grpcMessageTimeout);
 
+    /**
+     * Sets the maximum gap in bytes between two ranges of a vectored read for them to be merged
+     * into a single request. Bytes in the gap are read and discarded.
+     */
+    public abstract Builder setVectoredReadMinSeekSize(int vectoredReadMinSeekSize);
+
+    /**
+     * Sets the maximum size in bytes of a single request issued for the merged ranges of a vectored
+     * read.
+     */
+    public abstract Builder setVectoredReadMaxMergedSize(int vectoredReadMaxMergedSize);
+
+    /**
+     * Sets the number of blocks that are asynchronously prefetched ahead of the current position
+     * once sequential access is detected. Read-ahead is disabled if set to {@code 0}.
+     */
+    public abstract Builder setReadAheadBlockCount(int readAheadBlockCount);
+
+    /**
+     * Sets the size in bytes of a single block that is prefetched by a separate request when
+     * read-ahead is enabled.
+     */
+    public abstract Builder setReadAheadBlockSize(int readAheadBlockSize);
+
+    /**
+     * Sets the number of concurrent byte-range requests (stripes) used to read objects larger than
+     * a single stripe. Stripes are reassembled in order, and at most this number of stripe buffers
+     * is held in memory by a channel at any time. Striped read is disabled if set to {@code 0}.
+     */
+    public abstract Builder setStripedReadCount(int stripedReadCount);
+
+    /** Sets the size in bytes of a single stripe request when striped read is enabled. */
+    public abstract Builder setStripedReadSize(int stripedReadSize);
+
+    /**
+     * Sets the maximum size in bytes of the process-wide cache of object blocks that is shared by
+     * all read channels in the JVM. Blocks are keyed by object generation, so stale data is never
+     * served. When enabled, all reads of non-gzip-encoded objects are served through the cache.
+     * Block cache is disabled if set to {@code 0}.
+     *
+     * <p>The cache is created with the settings of the first channel that enables it.
+     */
+    public abstract Builder setBlockCacheSize(long blockCacheSize);
+
+    /** Sets the size in bytes of a single block that is fetched and stored in the block cache. */
+    public abstract Builder setBlockCacheBlockSize(int blockCacheBlockSize);
+
+    /** Sets whether to store block cache content in off-heap (direct) buffers. */
+    public abstract Builder setBlockCacheOffHeapEnabled(boolean blockCacheOffHeapEnabled);
+
+    /**
+     * Sets the local directory (e.g. on a local SSD) where the disk cache stores object blocks.
+     * Cached blocks are reused by other processes on the same node and after a restart.
+     */
+    public abstract Builder setDiskCacheDirectory(String diskCacheDirectory);
+
+    /**
+     * Sets the maximum total size in bytes of the object blocks that are stored in the disk cache
+     * directory by this process. Blocks are keyed by object generation, so stale data is never
+     * served. When enabled, all reads of non-gzip-encoded objects are served through the disk
+     * cache, and the block cache if it is enabled too. Disk cache is disabled if set to {@code 0}.
+     */
+    public abstract Builder setDiskCacheSize(long diskCacheSize);
+
+    /** Sets the size in bytes of a single block that is stored in the disk cache. */
+    public abstract Builder setDiskCacheBlockSize(int diskCacheBlockSize);
+
+    /**
+     * Sets the number of bytes at the end of the object (footer of columnar formats like Parquet
+     * and ORC) that are prefetched on channel open, concurrently with the object metadata request.
+     * Footer prefetch on open is disabled if set to {@code 0}.
+     */
+    public abstract Builder setFooterPrefetchSize(int footerPrefetchSize);
+
+    /**
+     * Sets number of the most recent reads which seek distances are used to detect access pattern
+     * in {@link Fadvise#AUTO} mode. Channel switches to random access when at least half of these
+     * reads were not sequential.
+     */
+    public abstract Builder setFadviseWindowSize(int fadviseWindowSize);
+
+    /**
+     * Sets maximum size of range requests in {@link Fadvise#AUTO} mode. Range request size grows
+     * exponentially from {@link #setMinRangeRequestSize} while reading sequentially, and when it
+     * reaches this size channel switches back to sequential access.
+     */
+    public abstract Builder setMaxRangeRequestSize(long maxRangeRequestSize);
+
+    /**
+     * Sets whether to issue a duplicate request for the same range of the same object generation if
+     * response to the original request does not arrive within the hedging delay, and to use the
+     * response that arrives first.
+     */
+    public abstract Builder setHedgedReadEnabled(boolean hedgedReadEnabled);
+
+    /**
+     * Sets percentile of the recently observed read request latencies that is used as a hedging
+     * delay.
+     */
+    public abstract Builder setHedgedReadPercentile(int hedgedReadPercentile);
+
+    /**
+     * Sets minimum hedging delay, that is also used until enough read request latencies are
+     * observed.
+     */
+    public abstract Builder setHedgedReadMinDelayMillis(long hedgedReadMinDelayMillis);
+
     abstract GoogleCloudStorageReadOptions autoBuild();
 
     public GoogleCloudStorageReadOptions build() {
@@ -221,6 +421,70 @@ public abstract class GoogleCloudStorageReadOptions {
           options.getInplaceSeekLimit() >= 0,
           "inplaceSeekLimit must be non-negative! Got %s",
           options.getInplaceSeekLimit());
+      checkState(
+          options.getVectoredReadMinSeekSize() >= 0,
+          "vectoredReadMinSeekSize must be non-negative! Got %s",
+          options.getVectoredReadMinSeekSize());
+      checkState(
+          options.getVectoredReadMaxMergedSize() >= 0,
+          "vectoredReadMaxMergedSize must be non-negative! Got %s",
+          options.getVectoredReadMaxMergedSize());
+      checkState(
+          options.getReadAheadBlockCount() >= 0,
+          "readAheadBlockCount must be non-negative! Got %s",
+          options.getReadAheadBlockCount());
+      checkState(
+          options.getReadAheadBlockSize() > 0,
+          "readAheadBlockSize must be positive! Got %s",
+          options.getReadAheadBlockSize());
+      checkState(
+          options.getStripedReadCount() >= 0,
+          "stripedReadCount must be non-negative! Got %s",
+          options.getStripedReadCount());
+      checkState(
+          options.getStripedReadSize() > 0,
+          "stripedReadSize must be positive! Got %s",
+          options.getStripedReadSize());
+      checkState(
+          options.getBlockCacheSize() >= 0,
+          "blockCacheSize must be non-negative! Got %s",
+          options.getBlockCacheSize());
+      checkState(
+          options.getBlockCacheBlockSize() > 0,
+          "blockCacheBlockSize must be positive! Got %s",
+          options.getBlockCacheBlockSize());
+      checkState(
+          options.getDiskCacheSize() >= 0,
+          "diskCacheSize must be non-negative! Got %s",
+          options.getDiskCacheSize());
+      checkState(
+          options.getDiskCacheBlockSize() > 0,
+          "diskCacheBlockSize must be positive! Got %s",
+          options.getDiskCacheBlockSize());
+      checkState(
+          options.getDiskCacheSize() == 0 || options.getDiskCacheDirectory() != null,
+          "diskCacheDirectory must be set if diskCacheSize is positive! Got %s",
+          options.getDiskCacheSize());
+      checkState(
+          options.getFooterPrefetchSize() >= 0,
+          "footerPrefetchSize must be non-negative! Got %s",
+          options.getFooterPrefetchSize());
+      checkState(
+          options.getFadviseWindowSize() > 0,
+          "fadviseWindowSize must be positive! Got %s",
+          options.getFadviseWindowSize());
+      checkState(
+          options.getMaxRangeRequestSize() > 0,
+          "maxRangeRequestSize must be positive! Got %s",
+          options.getMaxRangeRequestSize());
+      checkState(
+          options.getHedgedReadPercentile() > 0 && options.getHedgedReadPercentile() < 100,
+          "hedgedReadPercentile must be within (0, 100) range! Got %s",
+          options.getHedgedReadPercentile());
+      checkState(
+          options.getHedgedReadMinDelayMillis() >= 0,
+          "hedgedReadMinDelayMillis must be non-negative! Got %s",
+          options.getHedgedReadMinDelayMillis());
       return options;
     }
   }
@@ -25,11 +25,14 @@ import com.google.cloud.hadoop.util.AbstractGoogleAsyncWriteChannel;
 import com.google.cloud.hadoop.util.AsyncWriteChannelOptions;
 import com.google.cloud.hadoop.util.ClientRequestHelper;
 import com.google.cloud.hadoop.util.LoggingMediaHttpUploaderProgressListener;
+import com.google.common.io.BaseEncoding;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 
 /** Implements WritableByteChannel to provide write access to GCS. */
 public class GoogleCloudStorageWriteChannel extends AbstractGoogleAsyncWriteChannel<StorageObject>
@@ -75,9 +78,18 @@ public class GoogleCloudStorageWriteChannel extends AbstractGoogleAsyncWriteChan
 
   @Override
   public void startUpload(InputStream pipeSource) throws IOException {
+    // Checksum data as it is read by uploader, so it is not read again for verification.
+    UploadChecksums uploadChecksums =
+        channelOptions.isChecksumVerificationEnabled()
+            ? new UploadChecksums(channelOptions.isMd5ChecksumEnabled())
+            : null;
     // Connect pipe-source to the stream used by uploader.
     InputStreamContent objectContentStream =
-        new InputStreamContent(getContentType(), pipeSource)
+        new InputStreamContent(
+                getContentType(),
+                uploadChecksums == null
+                    ? pipeSource
+                    : new ChecksummingInputStream(pipeSource, uploadChecksums))
             // Indicate that we do not know length of file in advance.
             .setLength(-1)
             .setCloseInputStream(false);
@@ -90,7 +102,7 @@ public class GoogleCloudStorageWriteChannel extends AbstractGoogleAsyncWriteChan
 
     // Given that the two ends of the pipe must operate asynchronous relative
     // to each other, we need to start the upload operation on a separate thread.
-    uploadOperation = threadPool.submit(new UploadOperation(request, pipeSource));
+    uploadOperation = threadPool.submit(new UploadOperation(request, pipeSource, uploadChecksums));
   }
 
   Storage.Objects.Insert createRequest(InputStreamContent inputStream) throws IOException {
@@ -139,6 +151,16 @@ public class GoogleCloudStorageWriteChannel extends AbstractGoogleAsyncWriteChan
         : completedItemInfo.getContentType();
   }
 
+  /**
+   * Never called, because JSON API resumable upload could persist only chunks aligned to 256 KiB
+   * before it's finalized, so {@link #isUploadFlushSupported} returns false.
+   */
+  @Override
+  protected void awaitPersistedSize(long size) {
+    throw new UnsupportedOperationException(
+        String.format("flush() is not supported for '%s'", getResourceString()));
+  }
+
   @Override
   protected String getResourceString() {
     return resourceId.toString();
@@ -160,28 +182,142 @@ public class GoogleCloudStorageWriteChannel extends AbstractGoogleAsyncWriteChan
     // Read end of the pipe. This object declared final for safe object publishing.
     private final InputStream pipeSource;
 
+    // Checksums of the uploaded data, null if checksum verification is disabled.
+    private final UploadChecksums uploadChecksums;
+
     /** Constructs an instance of UploadOperation. */
-    public UploadOperation(Storage.Objects.Insert uploadObject, InputStream pipeSource) {
+    public UploadOperation(
+        Storage.Objects.Insert uploadObject,
+        InputStream pipeSource,
+        @Nullable UploadChecksums uploadChecksums) {
       this.uploadObject = uploadObject;
       this.pipeSource = pipeSource;
+      this.uploadChecksums = uploadChecksums;
     }
 
     @Override
     public StorageObject call() throws Exception {
+      StorageObject response;
       // Try-with-resource will close this end of the pipe so that
       // the writer at the other end will not hang indefinitely.
       try (InputStream ignore = pipeSource) {
-        return uploadObject.execute();
+        response = uploadObject.execute();
       } catch (IOException e) {
-        StorageObject response = createResponseFromException(e);
-        if (response == null) {
+        StorageObject convertedResponse = createResponseFromException(e);
+        if (convertedResponse == null) {
           throw e;
         }
         logger.atWarning().withCause(e).log(
             "Received IOException during '%s' upload, but successfully converted to response: '%s'.",
-            resourceId, response);
-        return response;
+            resourceId, convertedResponse);
+        return convertedResponse;
       }
+      if (uploadChecksums != null) {
+        verifyChecksums(response);
+      }
+      return response;
+    }
+
+    /**
+     * Verifies that checksums of the created object match checksums of the uploaded data. Created
+     * object with mismatching checksums is deleted, so it's not read as a valid object.
+     */
+    private void verifyChecksums(StorageObject response) throws IOException {
+      String mismatch = getChecksumMismatch(response);
+      if (mismatch == null) {
+        return;
+      }
+      IOException mismatchException = new IOException(mismatch);
+      deleteCreatedObject(response, mismatchException);
+      throw mismatchException;
+    }
+
+    @Nullable
+    private String getChecksumMismatch(StorageObject response) {
+      if (response.getCrc32c() != null) {
+        String expectedCrc32c = BaseEncoding.base64().encode(uploadChecksums.getCrc32cBytes());
+        if (!expectedCrc32c.equals(response.getCrc32c())) {
+          return String.format(
+              "CRC32C mismatch for '%s' after upload of %d bytes: uploaded data has '%s',"
+                  + " but created object has '%s'",
+              resourceId, uploadChecksums.getLength(), expectedCrc32c, response.getCrc32c());
+        }
+      }
+      byte[] md5 = uploadChecksums.getMd5();
+      if (md5 != null && response.getMd5Hash() != null) {
+        String expectedMd5 = BaseEncoding.base64().encode(md5);
+        if (!expectedMd5.equals(response.getMd5Hash())) {
+          return String.format(
+              "MD5 mismatch for '%s' after upload of %d bytes: uploaded data has '%s',"
+                  + " but created object has '%s'",
+              resourceId, uploadChecksums.getLength(), expectedMd5, response.getMd5Hash());
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Deletes the created object with a generation precondition, so a newer generation written
+     * concurrently is not deleted. Deletion failure is suppressed by the checksum mismatch.
+     */
+    private void deleteCreatedObject(StorageObject response, IOException mismatchException) {
+      if (response.getGeneration() == null) {
+        logger.atWarning().log(
+            "Can not delete '%s' object with mismatching checksums, because its generation is"
+                + " unknown",
+            resourceId);
+        return;
+      }
+      try {
+        gcs.objects()
+            .delete(resourceId.getBucketName(), resourceId.getObjectName())
+            .setIfGenerationMatch(response.getGeneration())
+            .execute();
+        logger.atWarning().log(
+            "Deleted '%s' object generation %d with mismatching checksums",
+            resourceId, response.getGeneration());
+      } catch (IOException e) {
+        mismatchException.addSuppressed(e);
+      }
+    }
+  }
+
+  /** Updates upload checksums with the data read through it. */
+  private static class ChecksummingInputStream extends FilterInputStream {
+
+    private final UploadChecksums checksums;
+
+    ChecksummingInputStream(InputStream in, UploadChecksums checksums) {
+      super(in);
+      this.checksums = checksums;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        checksums.update(new byte[] {(byte) b}, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        checksums.update(b, off, read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      throw new UnsupportedOperationException("Skipped data could not be checksummed");
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
     }
   }
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.GoogleLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Executes read requests with hedging: if the first response to a request does not arrive within a
+ * delay derived from the recently observed latencies, a duplicate request is issued and the
+ * response that arrives first is used, while the other one is cancelled with interrupt. A response
+ * that arrives despite the cancellation is discarded.
+ *
+ * <p>Hedging delay is the configured percentile of the last {@link #LATENCY_WINDOW_SIZE} latencies
+ * of the requests that were executed by this instance, but not less than the configured minimum
+ * delay, which is also used until {@link #MIN_LATENCY_SAMPLES} latencies are observed.
+ */
+public final class HedgedReads {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  public static final String HEDGED_READS_ISSUED = "HEDGED_READS_ISSUED";
+  public static final String HEDGED_READS_WON = "HEDGED_READS_WON";
+
+  @VisibleForTesting static final int LATENCY_WINDOW_SIZE = 256;
+  @VisibleForTesting static final int MIN_LATENCY_SAMPLES = 32;
+
+  private static final AtomicLong HEDGES_ISSUED = new AtomicLong();
+  private static final AtomicLong HEDGES_WON = new AtomicLong();
+
+  // Cached thread pool, because requests block until the first response arrives and should not
+  // wait for each other.
+  private static final ExecutorService HEDGED_READ_THREAD_POOL =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("gcs-hedged-read-pool-%d")
+              .setDaemon(true)
+              .build());
+
+  // Recent request latencies in nanoseconds in a circular buffer, guarded by this.
+  private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+  private int recordedLatencies = 0;
+  private int nextLatencyIndex = 0;
+
+  /**
+   * Returns statistics of hedged reads in the process: number of issued hedged requests and number
+   * of hedged requests that returned response before the original request.
+   */
+  public static Map<String, Long> getStatistics() {
+    return ImmutableMap.of(
+        HEDGED_READS_ISSUED, HEDGES_ISSUED.get(), HEDGED_READS_WON, HEDGES_WON.get());
+  }
+
+  /**
+   * Executes the {@code request} and, if it does not complete within the hedging delay, the {@code
+   * hedge} request, returning result of the request that completed successfully first.
+   *
+   * @param readOptions read options with hedged read settings
+   * @param request original request
+   * @param hedge duplicate request that is executed only if the original request is slow
+   * @param discard releases result of the request that lost the race, but completed despite its
+   *     cancellation
+   * @return result of the request that completed successfully first
+   * @throws IOException if both requests failed, exception of the original request is rethrown
+   */
+  <T> T execute(
+      GoogleCloudStorageReadOptions readOptions,
+      Callable<T> request,
+      Callable<T> hedge,
+      Consumer<T> discard)
+      throws IOException {
+    long hedgeDelayNanos = getHedgeDelayNanos(readOptions);
+    BlockingQueue<RequestTask<T>> completed = new LinkedBlockingQueue<>();
+
+    long startNanos = System.nanoTime();
+    RequestTask<T> requestTask = submit(request, completed, discard);
+
+    RequestTask<T> hedgeTask = null;
+    try {
+      RequestTask<T> first = completed.poll(hedgeDelayNanos, NANOSECONDS);
+      if (first != null) {
+        if (first.isSuccessful()) {
+          recordLatency(System.nanoTime() - startNanos);
+        }
+        return getResult(first);
+      }
+
+      logger.atFiner().log(
+          "Request did not complete in %dms, issuing hedged request",
+          NANOSECONDS.toMillis(hedgeDelayNanos));
+      HEDGES_ISSUED.incrementAndGet();
+      hedgeTask = submit(hedge, completed, discard);
+
+      first = completed.take();
+      if (!first.isSuccessful()) {
+        // Wait for the other request if the first one to complete failed.
+        RequestTask<T> second = completed.take();
+        // Prefer failure of the original request
+        if (second.isSuccessful() || first == hedgeTask) {
+          first = second;
+        }
+      }
+      // Latency of the original request that is still in flight is at least the time until now.
+      if (!requestTask.isDone() || requestTask.isSuccessful()) {
+        recordLatency(System.nanoTime() - startNanos);
+      }
+      cancel(first == requestTask ? hedgeTask : requestTask);
+      if (first == hedgeTask) {
+        HEDGES_WON.incrementAndGet();
+      }
+      return getResult(first);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel(requestTask);
+      if (hedgeTask != null) {
+        cancel(hedgeTask);
+      }
+      throw (IOException)
+          new InterruptedIOException("Interrupted while waiting for hedged read").initCause(e);
+    }
+  }
+
+  private static <T> RequestTask<T> submit(
+      Callable<T> callable, BlockingQueue<RequestTask<T>> completed, Consumer<T> discard) {
+    RequestTask<T> task = new RequestTask<>(callable, completed, discard);
+    HEDGED_READ_THREAD_POOL.execute(task);
+    return task;
+  }
+
+  /**
+   * Cancels the request that lost the race, interrupting it if it's in flight, or discards its
+   * result if it already completed.
+   */
+  private static <T> void cancel(RequestTask<T> task) {
+    if (task.cancel(/* mayInterruptIfRunning= */ true) || !task.isSuccessful()) {
+      return;
+    }
+    try {
+      task.discard.accept(task.get());
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IllegalStateException("Failed to get result of completed request", e);
+    }
+  }
+
+  private static <T> T getResult(RequestTask<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException)
+          new InterruptedIOException("Interrupted while waiting for hedged read").initCause(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /** Returns delay after which hedged request is issued. */
+  @VisibleForTesting
+  synchronized long getHedgeDelayNanos(GoogleCloudStorageReadOptions readOptions) {
+    long minDelayNanos = MILLISECONDS.toNanos(readOptions.getHedgedReadMinDelayMillis());
+    if (recordedLatencies < MIN_LATENCY_SAMPLES) {
+      return minDelayNanos;
+    }
+    long[] sortedLatencies = Arrays.copyOf(latencies, recordedLatencies);
+    Arrays.sort(sortedLatencies);
+    int index = (int) Math.ceil(readOptions.getHedgedReadPercentile() / 100.0 * recordedLatencies);
+    return max(minDelayNanos, sortedLatencies[max(0, index - 1)]);
+  }
+
+  @VisibleForTesting
+  synchronized void recordLatency(long latencyNanos) {
+    checkArgument(
+        latencyNanos >= 0, "latencyNanos should be non-negative, but was %s", latencyNanos);
+    latencies[nextLatencyIndex] = latencyNanos;
+    nextLatencyIndex = (nextLatencyIndex + 1) % latencies.length;
+    recordedLatencies = Math.min(recordedLatencies + 1, latencies.length);
+  }
+
+  /**
+   * Request that reports its completion to the queue and discards its result if it completes after
+   * it was cancelled, so the result is either returned by the task or discarded exactly once.
+   */
+  private static final class RequestTask<T> extends FutureTask<T> {
+
+    private final BlockingQueue<RequestTask<T>> completed;
+    private final Consumer<T> discard;
+    private volatile boolean failed = false;
+
+    RequestTask(
+        Callable<T> callable, BlockingQueue<RequestTask<T>> completed, Consumer<T> discard) {
+      super(callable);
+      this.completed = completed;
+      this.discard = discard;
+    }
+
+    /** Returns true if the request completed with a result. */
+    boolean isSuccessful() {
+      return isDone() && !isCancelled() && !failed;
+    }
+
+    @Override
+    protected void set(T result) {
+      super.set(result);
+      // Result is ignored by the cancelled task, so nobody else will release it.
+      if (isCancelled()) {
+        discard.accept(result);
+      }
+    }
+
+    @Override
+    protected void setException(Throwable t) {
+      failed = true;
+      super.setException(t);
+    }
+
+    @Override
+    protected void done() {
+      completed.add(this);
+    }
+  }
+}
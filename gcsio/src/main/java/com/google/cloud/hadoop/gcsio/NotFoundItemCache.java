@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorage.PATH_DELIMITER;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A short-lived cache of negative lookup results: objects that were not found and directory
+ * prefixes under which no objects were listed. It allows to answer repeated probes of non-existent
+ * paths without GCS requests.
+ *
+ * <p>Lookups record their result only if no names were invalidated while the lookup was in
+ * progress, so a lookup that races with a local object creation can't cache a stale result.
+ */
+class NotFoundItemCache {
+
+  /** Objects that were not found. */
+  private final Cache<StorageResourceId, Boolean> notFoundItems;
+
+  /** Directory prefixes (or buckets) under which no objects were listed. */
+  private final Cache<StorageResourceId, Boolean> emptyPrefixes;
+
+  /** Number of invalidations, used to detect lookups that raced with an invalidation. */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Creates a new {@link NotFoundItemCache}.
+   *
+   * @param maxEntryAge time after which entries in cache expire.
+   * @param maxEntries maximum number of entries of each type in the cache.
+   */
+  NotFoundItemCache(Duration maxEntryAge, long maxEntries) {
+    this(Ticker.systemTicker(), maxEntryAge, maxEntries);
+  }
+
+  @VisibleForTesting
+  NotFoundItemCache(Ticker ticker, Duration maxEntryAge, long maxEntries) {
+    this.notFoundItems = createCache(ticker, maxEntryAge, maxEntries);
+    this.emptyPrefixes = createCache(ticker, maxEntryAge, maxEntries);
+  }
+
+  private static Cache<StorageResourceId, Boolean> createCache(
+      Ticker ticker, Duration maxEntryAge, long maxEntries) {
+    return CacheBuilder.newBuilder()
+        .ticker(ticker)
+        .expireAfterWrite(maxEntryAge)
+        .maximumSize(maxEntries)
+        .build();
+  }
+
+  /**
+   * Returns a token that should be obtained before a lookup and passed to {@link
+   * #putNotFound(StorageResourceId, long)} or {@link #putEmptyPrefix(String, String, long)} to
+   * record its result.
+   */
+  long startLookup() {
+    return invalidations.get();
+  }
+
+  /**
+   * Returns true if the bucket or object with the given name was not found recently, or if the
+   * object is a directory under which no objects were listed recently.
+   */
+  boolean isNotFound(StorageResourceId resourceId) {
+    String bucketName = resourceId.getBucketName();
+    String objectName = resourceId.getObjectName();
+    return notFoundItems.getIfPresent(toKey(bucketName, objectName)) != null
+        || (resourceId.isStorageObject() && isEmptyPrefix(bucketName, objectName));
+  }
+
+  /** Returns true if no objects were listed recently under the given prefix. */
+  boolean isEmptyPrefix(String bucketName, String objectNamePrefix) {
+    return emptyPrefixes.getIfPresent(toKey(bucketName, objectNamePrefix)) != null;
+  }
+
+  /** Records that the object was not found by the lookup started with the given token. */
+  void putNotFound(StorageResourceId resourceId, long lookupToken) {
+    put(notFoundItems, toKey(resourceId.getBucketName(), resourceId.getObjectName()), lookupToken);
+  }
+
+  /**
+   * Records that no objects were listed under the given prefix by the lookup started with the given
+   * token. Only directory prefixes are recorded, because only they are invalidated when objects are
+   * created.
+   */
+  void putEmptyPrefix(String bucketName, String objectNamePrefix, long lookupToken) {
+    if (objectNamePrefix == null
+        || objectNamePrefix.isEmpty()
+        || objectNamePrefix.endsWith(PATH_DELIMITER)) {
+      put(emptyPrefixes, toKey(bucketName, objectNamePrefix), lookupToken);
+    }
+  }
+
+  private void put(
+      Cache<StorageResourceId, Boolean> cache, StorageResourceId key, long lookupToken) {
+    cache.put(key, Boolean.TRUE);
+    // Invalidation increments counter before it removes entries, so either invalidation removes
+    // this entry or this check detects invalidation and removes it.
+    if (invalidations.get() != lookupToken) {
+      cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Invalidates entries that could be stale after the given object was created: the object itself,
+   * and all its parent directory prefixes and bucket, because they are not empty anymore.
+   */
+  void invalidate(StorageResourceId resourceId) {
+    invalidations.incrementAndGet();
+    String bucketName = resourceId.getBucketName();
+    String objectName = resourceId.getObjectName();
+    if (objectName == null) {
+      notFoundItems.invalidate(toKey(bucketName, null));
+      emptyPrefixes.invalidate(toKey(bucketName, null));
+      return;
+    }
+    notFoundItems.invalidate(toKey(bucketName, objectName));
+    int index = -1;
+    do {
+      emptyPrefixes.invalidate(toKey(bucketName, objectName.substring(0, index + 1)));
+      index = objectName.indexOf(PATH_DELIMITER, index + 1);
+    } while (index >= 0);
+  }
+
+  /** Invalidates all entries in the cache. */
+  void invalidateAll() {
+    invalidations.incrementAndGet();
+    notFoundItems.invalidateAll();
+    emptyPrefixes.invalidateAll();
+  }
+
+  private static StorageResourceId toKey(String bucketName, String objectName) {
+    return objectName == null || objectName.isEmpty()
+        ? new StorageResourceId(bucketName)
+        : new StorageResourceId(bucketName, objectName);
+  }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+import com.google.auto.value.AutoValue;
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.GoogleLogger;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide, size-bounded LRU cache of object content blocks that is shared by all read channels
+ * in the JVM.
+ *
+ * <p>Blocks are keyed by bucket, object name, object generation and block index, so a cached block
+ * is never served for a different generation of the object. Concurrent misses of the same block are
+ * coalesced into a single fetch.
+ */
+public final class ObjectBlockCache implements BlockCache {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  public static final String BLOCK_CACHE_HITS = "BLOCK_CACHE_HITS";
+  public static final String BLOCK_CACHE_MISSES = "BLOCK_CACHE_MISSES";
+  public static final String BLOCK_CACHE_COALESCED_MISSES = "BLOCK_CACHE_COALESCED_MISSES";
+  public static final String BLOCK_CACHE_EVICTIONS = "BLOCK_CACHE_EVICTIONS";
+
+  private static final Object INSTANCE_LOCK = new Object();
+
+  // Process-wide caches by their settings, guarded by INSTANCE_LOCK.
+  private static final Map<CacheSettings, ObjectBlockCache> instances = new HashMap<>();
+
+  private final long capacity;
+  private final int blockSize;
+  private final boolean offHeap;
+
+  // Cached blocks in access order, guarded by this.
+  private final LinkedHashMap<BlockKey, ByteBuffer> blocks =
+      new LinkedHashMap<>(
+          /* initialCapacity= */ 16, /* loadFactor= */ 0.75f, /* accessOrder= */ true);
+  // Total size of the cached blocks, guarded by this.
+  private long cachedBytes = 0;
+
+  // Fetches of blocks that are not cached yet, used to coalesce concurrent misses of a block.
+  private final ConcurrentHashMap<BlockKey, CompletableFuture<ByteBuffer>> fetches =
+      new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong coalescedMisses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Returns the process-wide cache with the cache settings of the provided read options, creating
+   * it on the first call with these settings. Read channels with different cache settings use
+   * separate caches, each bounded by its own capacity.
+   */
+  public static ObjectBlockCache getInstance(GoogleCloudStorageReadOptions readOptions) {
+    CacheSettings settings =
+        CacheSettings.create(
+            readOptions.getBlockCacheSize(),
+            readOptions.getBlockCacheBlockSize(),
+            readOptions.isBlockCacheOffHeapEnabled());
+    synchronized (INSTANCE_LOCK) {
+      ObjectBlockCache cache = instances.get(settings);
+      if (cache == null) {
+        cache =
+            new ObjectBlockCache(
+                settings.getCapacity(), settings.getBlockSize(), settings.isOffHeap());
+        if (instances.isEmpty()) {
+          logger.atFine().log("Created %s", cache);
+        } else {
+          logger.atWarning().log(
+              "Created %s in addition to block caches with different settings %s,"
+                  + " memory usage is bounded by the sum of their capacities",
+              cache, instances.values());
+        }
+        instances.put(settings, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Returns statistics of the process-wide caches: total number of block hits, misses, misses that
+   * waited for a concurrent fetch of the same block and evictions, or an empty map if no cache was
+   * created.
+   */
+  public static Map<String, Long> getStatistics() {
+    long hits = 0;
+    long misses = 0;
+    long coalescedMisses = 0;
+    long evictions = 0;
+    synchronized (INSTANCE_LOCK) {
+      if (instances.isEmpty()) {
+        return ImmutableMap.of();
+      }
+      for (ObjectBlockCache cache : instances.values()) {
+        hits += cache.hits.get();
+        misses += cache.misses.get();
+        coalescedMisses += cache.coalescedMisses.get();
+        evictions += cache.evictions.get();
+      }
+    }
+    return ImmutableMap.of(
+        BLOCK_CACHE_HITS,
+        hits,
+        BLOCK_CACHE_MISSES,
+        misses,
+        BLOCK_CACHE_COALESCED_MISSES,
+        coalescedMisses,
+        BLOCK_CACHE_EVICTIONS,
+        evictions);
+  }
+
+  /** Drops the process-wide caches, so the next {@link #getInstance} call creates a new one. */
+  @VisibleForTesting
+  static void resetInstance() {
+    synchronized (INSTANCE_LOCK) {
+      instances.clear();
+    }
+  }
+
+  @VisibleForTesting
+  ObjectBlockCache(long capacity, int blockSize, boolean offHeap) {
+    checkArgument(capacity > 0, "capacity should be greater than 0, but was %s", capacity);
+    checkArgument(blockSize > 0, "blockSize should be greater than 0, but was %s", blockSize);
+    this.capacity = capacity;
+    this.blockSize = blockSize;
+    this.offHeap = offHeap;
+  }
+
+  @Override
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  @Override
+  public ByteBuffer getBlock(
+      StorageResourceId resourceId, long objectSize, long offset, BlockFetcher fetcher)
+      throws IOException {
+    checkArgument(
+        resourceId.hasGenerationId(), "resourceId should have generation, but was %s", resourceId);
+    checkArgument(
+        offset >= 0 && offset < objectSize,
+        "offset should be within [0, %s) range, but was %s",
+        objectSize,
+        offset);
+    long blockIndex = offset / blockSize;
+    BlockKey key =
+        BlockKey.create(
+            resourceId.getBucketName(),
+            resourceId.getObjectName(),
+            resourceId.getGenerationId(),
+            blockIndex);
+
+    ByteBuffer block = get(key);
+    if (block != null) {
+      hits.incrementAndGet();
+      return block.asReadOnlyBuffer();
+    }
+
+    CompletableFuture<ByteBuffer> fetch = new CompletableFuture<>();
+    CompletableFuture<ByteBuffer> concurrentFetch = fetches.putIfAbsent(key, fetch);
+    if (concurrentFetch != null) {
+      // Block is being fetched by another reader, wait for it instead of fetching it again.
+      // This is not a hit, because the reader waits for the block to be fetched from GCS.
+      coalescedMisses.incrementAndGet();
+      return awaitFetch(concurrentFetch, key).asReadOnlyBuffer();
+    }
+
+    try {
+      // Block could have been cached by a fetch that completed after the cache lookup above.
+      block = get(key);
+      if (block == null) {
+        misses.incrementAndGet();
+        block = fetchBlock(resourceId, objectSize, blockIndex, fetcher);
+        put(key, block);
+      } else {
+        hits.incrementAndGet();
+      }
+      fetch.complete(block);
+    } catch (IOException | RuntimeException | Error e) {
+      fetch.completeExceptionally(e);
+      throw e;
+    } finally {
+      fetches.remove(key, fetch);
+    }
+    return block.asReadOnlyBuffer();
+  }
+
+  private ByteBuffer fetchBlock(
+      StorageResourceId resourceId, long objectSize, long blockIndex, BlockFetcher fetcher)
+      throws IOException {
+    long blockOffset = blockIndex * blockSize;
+    int length = toIntExact(min(blockSize, objectSize - blockOffset));
+    ByteBuffer block = offHeap ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+    logger.atFiner().log(
+        "Fetching %d bytes block at %d position for '%s'", length, blockOffset, resourceId);
+    fetcher.fetch(blockOffset, block);
+    if (block.hasRemaining()) {
+      throw new IOException(
+          String.format(
+              "Fetched %d bytes instead of %d at %d position of '%s'",
+              block.position(), length, blockOffset, resourceId));
+    }
+    block.flip();
+    return block;
+  }
+
+  private static ByteBuffer awaitFetch(CompletableFuture<ByteBuffer> fetch, BlockKey key)
+      throws IOException {
+    try {
+      return fetch.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException)
+          new InterruptedIOException("Interrupted while waiting for fetch of " + key).initCause(e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to fetch " + key, e.getCause());
+    }
+  }
+
+  @Nullable
+  private synchronized ByteBuffer get(BlockKey key) {
+    return blocks.get(key);
+  }
+
+  private synchronized void put(BlockKey key, ByteBuffer block) {
+    if (block.limit() > capacity) {
+      return;
+    }
+    ByteBuffer previous = blocks.put(key, block);
+    cachedBytes += block.limit() - (previous == null ? 0 : previous.limit());
+    Iterator<ByteBuffer> lruBlocks = blocks.values().iterator();
+    while (cachedBytes > capacity) {
+      cachedBytes -= lruBlocks.next().limit();
+      lruBlocks.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectBlockCache{capacity=%d, blockSize=%d, offHeap=%s}", capacity, blockSize, offHeap);
+  }
+
+  /** Settings that identify a process-wide cache. */
+  @AutoValue
+  abstract static class CacheSettings {
+
+    static CacheSettings create(long capacity, int blockSize, boolean offHeap) {
+      return new AutoValue_ObjectBlockCache_CacheSettings(capacity, blockSize, offHeap);
+    }
+
+    abstract long getCapacity();
+
+    abstract int getBlockSize();
+
+    abstract boolean isOffHeap();
+  }
+
+  /** Identifies a block of an object generation. */
+  @AutoValue
+  abstract static class BlockKey {
+
+    static BlockKey create(String bucketName, String objectName, long generation, long index) {
+      return new AutoValue_ObjectBlockCache_BlockKey(bucketName, objectName, generation, index);
+    }
+
+    abstract String getBucketName();
+
+    abstract String getObjectName();
+
+    abstract long getGeneration();
+
+    abstract long getIndex();
+  }
+}
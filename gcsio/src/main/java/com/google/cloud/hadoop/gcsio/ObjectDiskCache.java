@@ -0,0 +1,357 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.flogger.GoogleLogger;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent, size-bounded LRU cache of object content blocks stored as files in a local directory
+ * (e.g. on a local SSD) and read through memory mapping.
+ *
+ * <p>Each block is stored in a separate file whose path is derived from bucket, object name, block
+ * size, object generation and block index, so a cached block is never served for a different
+ * generation of the object or for a different byte range if the block size was changed. Blocks are
+ * written to temporary files and atomically moved in place, so a cache directory could be shared by
+ * multiple processes on the same node, and blocks written before a restart are reused in LRU order
+ * of their modification time.
+ *
+ * <p>Block files are stored in a dedicated {@value #BLOCKS_DIRECTORY} subdirectory of the
+ * configured directory, and only files that match the block file layout are indexed and evicted, so
+ * other files in the configured directory are never deleted.
+ *
+ * <p>Memory mappings of recently read blocks are retained, so small reads of a cached block don't
+ * open and map its file on each read.
+ */
+public final class ObjectDiskCache implements BlockCache {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  /** Subdirectory of the configured directory in which block files are stored. */
+  @VisibleForTesting static final String BLOCKS_DIRECTORY = "gcs-connector-blocks";
+
+  private static final String TEMP_FILE_PREFIX = "block-";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  // Temporary files that are older than this were left by interrupted writes and could be deleted,
+  // younger ones could be written by another process that shares the directory.
+  @VisibleForTesting static final Duration TEMP_FILE_MAX_AGE = Duration.ofHours(1);
+
+  // Maximum number of retained memory mappings of cached blocks.
+  private static final int MAX_MAPPED_BLOCKS = 256;
+
+  // Layout of the block file path relative to the blocks directory, see getBlockPath().
+  private static final Pattern OBJECT_HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+  private static final Pattern BLOCK_SIZE_PATTERN = Pattern.compile("[1-9][0-9]*");
+  private static final Pattern BLOCK_FILE_PATTERN = Pattern.compile("-?[0-9]+-[0-9]+");
+
+  private static final Map<Path, ObjectDiskCache> INSTANCES = new HashMap<>();
+
+  private final Path directory;
+  private final long capacity;
+  private final int blockSize;
+
+  // Sizes of cached block files in access order, guarded by this.
+  private final LinkedHashMap<Path, Long> blocks =
+      new LinkedHashMap<>(
+          /* initialCapacity= */ 16, /* loadFactor= */ 0.75f, /* accessOrder= */ true);
+  // Total size of the cached block files, guarded by this.
+  private long cachedBytes = 0;
+
+  // Memory mappings of recently read block files, invalidated when block is removed from cache.
+  private final Cache<Path, ByteBuffer> mappedBlocks =
+      CacheBuilder.newBuilder().maximumSize(MAX_MAPPED_BLOCKS).build();
+
+  /**
+   * Returns the process-wide cache for the directory from the provided read options, creating it
+   * with the disk cache settings of these read options on the first call for the directory.
+   */
+  public static ObjectDiskCache getInstance(GoogleCloudStorageReadOptions readOptions)
+      throws IOException {
+    Path directory = Paths.get(readOptions.getDiskCacheDirectory()).toAbsolutePath().normalize();
+    synchronized (INSTANCES) {
+      ObjectDiskCache instance = INSTANCES.get(directory);
+      if (instance == null) {
+        instance =
+            new ObjectDiskCache(
+                directory, readOptions.getDiskCacheSize(), readOptions.getDiskCacheBlockSize());
+        INSTANCES.put(directory, instance);
+      }
+      return instance;
+    }
+  }
+
+  /** Drops all process-wide caches, so the next {@link #getInstance} call creates a new one. */
+  @VisibleForTesting
+  static void resetInstances() {
+    synchronized (INSTANCES) {
+      INSTANCES.clear();
+    }
+  }
+
+  /**
+   * Creates a cache in the directory and indexes blocks that are already stored in it.
+   *
+   * @param directory directory in which {@value #BLOCKS_DIRECTORY} subdirectory with block files is
+   *     stored, created if it does not exist
+   * @param capacity maximum total size in bytes of the block files
+   * @param blockSize size in bytes of a cached block
+   */
+  @VisibleForTesting
+  ObjectDiskCache(Path directory, long capacity, int blockSize) throws IOException {
+    checkArgument(capacity > 0, "capacity should be greater than 0, but was %s", capacity);
+    checkArgument(blockSize > 0, "blockSize should be greater than 0, but was %s", blockSize);
+    this.directory = directory.resolve(BLOCKS_DIRECTORY);
+    this.capacity = capacity;
+    this.blockSize = blockSize;
+    Files.createDirectories(this.directory);
+    loadExistingBlocks();
+    logger.atFine().log("Created %s with %d cached bytes", this, cachedBytes);
+  }
+
+  @Override
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  @Override
+  public ByteBuffer getBlock(
+      StorageResourceId resourceId, long objectSize, long offset, BlockFetcher fetcher)
+      throws IOException {
+    checkArgument(
+        resourceId.hasGenerationId(), "resourceId should have generation, but was %s", resourceId);
+    checkArgument(
+        offset >= 0 && offset < objectSize,
+        "offset should be within [0, %s) range, but was %s",
+        objectSize,
+        offset);
+    long blockIndex = offset / blockSize;
+    long blockOffset = blockIndex * blockSize;
+    int length = toIntExact(min(blockSize, objectSize - blockOffset));
+    Path blockPath = getBlockPath(resourceId, blockIndex);
+
+    ByteBuffer block = mapCachedBlock(blockPath, length);
+    if (block != null) {
+      return block;
+    }
+
+    block = ByteBuffer.allocate(length);
+    logger.atFiner().log(
+        "Fetching %d bytes block at %d position of '%s' into '%s'",
+        length, blockOffset, resourceId, blockPath);
+    fetcher.fetch(blockOffset, block);
+    if (block.hasRemaining()) {
+      throw new IOException(
+          String.format(
+              "Fetched %d bytes instead of %d at %d position of '%s'",
+              block.position(), length, blockOffset, resourceId));
+    }
+    block.flip();
+    storeBlock(blockPath, block.duplicate());
+    return block.asReadOnlyBuffer();
+  }
+
+  /** Returns memory-mapped content of the cached block or {@code null} if it is not cached. */
+  private ByteBuffer mapCachedBlock(Path blockPath, int length) throws IOException {
+    synchronized (this) {
+      if (blocks.get(blockPath) == null) {
+        return null;
+      }
+    }
+    ByteBuffer mappedBlock = mappedBlocks.getIfPresent(blockPath);
+    if (mappedBlock != null) {
+      return mappedBlock.duplicate();
+    }
+    try (FileChannel channel = FileChannel.open(blockPath, StandardOpenOption.READ)) {
+      if (channel.size() == length) {
+        mappedBlock = channel.map(MapMode.READ_ONLY, 0, length);
+        mappedBlocks.put(blockPath, mappedBlock);
+        return mappedBlock.duplicate();
+      }
+      logger.atWarning().log(
+          "Ignoring cached block '%s' of %d bytes instead of %d",
+          blockPath, channel.size(), length);
+    } catch (NoSuchFileException e) {
+      logger.atFine().log("Cached block '%s' was deleted", blockPath);
+    }
+    remove(blockPath);
+    return null;
+  }
+
+  /** Stores block content in the cache, failure to store a block is not fatal for the read. */
+  private void storeBlock(Path blockPath, ByteBuffer block) {
+    long blockLength = block.remaining();
+    if (blockLength > capacity) {
+      return;
+    }
+    Path tempPath = null;
+    try {
+      Files.createDirectories(blockPath.getParent());
+      tempPath = Files.createTempFile(blockPath.getParent(), TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+      try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+        while (block.hasRemaining()) {
+          channel.write(block);
+        }
+      }
+      Files.move(
+          tempPath, blockPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Failed to store block '%s' in disk cache", blockPath);
+      deleteQuietly(tempPath);
+      return;
+    }
+    put(blockPath, blockLength);
+  }
+
+  private synchronized void put(Path blockPath, long blockLength) {
+    Long previous = blocks.put(blockPath, blockLength);
+    cachedBytes += blockLength - (previous == null ? 0 : previous);
+    Iterator<Map.Entry<Path, Long>> lruBlocks = blocks.entrySet().iterator();
+    while (cachedBytes > capacity) {
+      Map.Entry<Path, Long> evicted = lruBlocks.next();
+      cachedBytes -= evicted.getValue();
+      lruBlocks.remove();
+      mappedBlocks.invalidate(evicted.getKey());
+      deleteQuietly(evicted.getKey());
+    }
+  }
+
+  private synchronized void remove(Path blockPath) {
+    Long removed = blocks.remove(blockPath);
+    if (removed != null) {
+      cachedBytes -= removed;
+    }
+    mappedBlocks.invalidate(blockPath);
+    deleteQuietly(blockPath);
+  }
+
+  /**
+   * Indexes block files that are stored in the cache directory, from oldest to newest. Files that
+   * don't match the block file layout are ignored.
+   */
+  private void loadExistingBlocks() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(directory, /* maxDepth= */ 3)) {
+      files =
+          paths
+              .filter(p -> directory.relativize(p).getNameCount() == 3 && Files.isRegularFile(p))
+              .collect(Collectors.toList());
+    }
+    Instant tempFileExpiration = Instant.now().minus(TEMP_FILE_MAX_AGE);
+    Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+    for (Path file : files) {
+      Path relativePath = directory.relativize(file);
+      if (!OBJECT_HASH_PATTERN.matcher(relativePath.getName(0).toString()).matches()
+          || !BLOCK_SIZE_PATTERN.matcher(relativePath.getName(1).toString()).matches()) {
+        continue;
+      }
+      String fileName = file.getFileName().toString();
+      boolean tempFile =
+          fileName.startsWith(TEMP_FILE_PREFIX) && fileName.endsWith(TEMP_FILE_SUFFIX);
+      if (!tempFile && !BLOCK_FILE_PATTERN.matcher(fileName).matches()) {
+        continue;
+      }
+      BasicFileAttributes fileAttributes;
+      try {
+        fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+      } catch (NoSuchFileException e) {
+        logger.atFine().log("Cached block '%s' was deleted", file);
+        continue;
+      }
+      if (tempFile) {
+        // Only old temporary files were left by interrupted writes, others could be in progress.
+        if (fileAttributes.lastModifiedTime().toInstant().isBefore(tempFileExpiration)) {
+          deleteQuietly(file);
+        }
+        continue;
+      }
+      attributes.put(file, fileAttributes);
+    }
+    attributes.entrySet().stream()
+        .sorted(Comparator.comparing(e -> e.getValue().lastModifiedTime()))
+        .forEach(e -> put(e.getKey(), e.getValue().size()));
+  }
+
+  /**
+   * Returns path of the block file: {@code <directory>/gcs-connector-blocks/<object hash>/<block
+   * size>/<generation>-<index>}.
+   */
+  @VisibleForTesting
+  Path getBlockPath(StorageResourceId resourceId, long blockIndex) {
+    String objectHash =
+        Hashing.sha256()
+            .hashString(resourceId.getBucketName() + "/" + resourceId.getObjectName(), UTF_8)
+            .toString();
+    return directory
+        .resolve(objectHash)
+        .resolve(String.valueOf(blockSize))
+        .resolve(resourceId.getGenerationId() + "-" + blockIndex);
+  }
+
+  @VisibleForTesting
+  synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Failed to delete '%s' from disk cache", path);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectDiskCache{directory=%s, capacity=%d, blockSize=%d}", directory, capacity, blockSize);
+  }
+}
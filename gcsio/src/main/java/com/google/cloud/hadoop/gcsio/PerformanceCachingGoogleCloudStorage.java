@@ -13,14 +13,18 @@
  */
 package com.google.cloud.hadoop.gcsio;
 
+import com.google.cloud.hadoop.util.FlushableWriteChannel;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * This class adds a caching layer around a GoogleCloudStorage instance, caching calls that create,
@@ -29,12 +33,22 @@ import java.util.List;
  * GoogleCloudStorage#getItemInfo(StorageResourceId)}. This provides faster access to recently
  * queried data in the scope of this instance. Because the data is cached, modifications made
  * outside of this instance may not be immediately reflected.
+ *
+ * <p>If enabled, results of lookups of non-existent objects and directories are cached too, so
+ * repeated probes of missing paths are answered without GCS requests. These results are invalidated
+ * when objects are created, copied or composed through this instance, including when channels
+ * returned by {@link #create(StorageResourceId, CreateObjectOptions)} are closed, but objects that
+ * were created outside of this instance could be reported as not found until the cached results
+ * expire.
  */
 public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudStorage {
 
   /** Cache to hold item info and manage invalidation. */
   private final PrefixMappedItemCache cache;
 
+  /** Cache to hold negative lookup results, null if negative caching is disabled. */
+  @Nullable private final NotFoundItemCache notFoundCache;
+
   /**
    * Creates a wrapper around a GoogleCloudStorage instance, caching calls that create, update,
    * remove, and query for GoogleCloudStorageItemInfo. Those cached copies are returned when
@@ -48,18 +62,37 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
    */
   public PerformanceCachingGoogleCloudStorage(
       GoogleCloudStorage delegate, PerformanceCachingGoogleCloudStorageOptions options) {
-    this(delegate, createCache(options));
+    this(delegate, createCache(options), createNotFoundCache(options));
   }
 
   @VisibleForTesting
   PerformanceCachingGoogleCloudStorage(GoogleCloudStorage delegate, PrefixMappedItemCache cache) {
+    this(delegate, cache, /* notFoundCache= */ null);
+  }
+
+  @VisibleForTesting
+  PerformanceCachingGoogleCloudStorage(
+      GoogleCloudStorage delegate,
+      PrefixMappedItemCache cache,
+      @Nullable NotFoundItemCache notFoundCache) {
     super(delegate);
     this.cache = cache;
+    this.notFoundCache = notFoundCache;
   }
 
   private static PrefixMappedItemCache createCache(
       PerformanceCachingGoogleCloudStorageOptions options) {
-    return new PrefixMappedItemCache(Duration.ofMillis(options.getMaxEntryAgeMillis()));
+    return new PrefixMappedItemCache(
+        Duration.ofMillis(options.getMaxEntryAgeMillis()), options.getMaxEntries());
+  }
+
+  @Nullable
+  private static NotFoundItemCache createNotFoundCache(
+      PerformanceCachingGoogleCloudStorageOptions options) {
+    return options.getNotFoundMaxEntryAgeMillis() > 0
+        ? new NotFoundItemCache(
+            Duration.ofMillis(options.getNotFoundMaxEntryAgeMillis()), options.getMaxEntries())
+        : null;
   }
 
   @Override
@@ -71,7 +104,125 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
       cache.removeItem(resourceId);
     }
 
-    return super.create(resourceId, options);
+    WritableByteChannel channel;
+    try {
+      channel = super.create(resourceId, options);
+    } finally {
+      invalidateNotFound(resourceId);
+    }
+    // Object is created when the channel is closed, and lookups during the write could cache that
+    // it is not found again.
+    return notFoundCache == null ? channel : new NotFoundInvalidatingChannel(channel, resourceId);
+  }
+
+  @Override
+  public void createBucket(String bucketName, CreateBucketOptions options) throws IOException {
+    try {
+      super.createBucket(bucketName, options);
+    } finally {
+      invalidateNotFound(new StorageResourceId(bucketName));
+    }
+  }
+
+  @Override
+  public void createEmptyObject(StorageResourceId resourceId) throws IOException {
+    try {
+      super.createEmptyObject(resourceId);
+    } finally {
+      invalidateNotFound(resourceId);
+    }
+  }
+
+  @Override
+  public void createEmptyObject(StorageResourceId resourceId, CreateObjectOptions options)
+      throws IOException {
+    try {
+      super.createEmptyObject(resourceId, options);
+    } finally {
+      invalidateNotFound(resourceId);
+    }
+  }
+
+  @Override
+  public void createEmptyObjects(List<StorageResourceId> resourceIds) throws IOException {
+    try {
+      super.createEmptyObjects(resourceIds);
+    } finally {
+      invalidateNotFound(resourceIds);
+    }
+  }
+
+  @Override
+  public void createEmptyObjects(List<StorageResourceId> resourceIds, CreateObjectOptions options)
+      throws IOException {
+    try {
+      super.createEmptyObjects(resourceIds, options);
+    } finally {
+      invalidateNotFound(resourceIds);
+    }
+  }
+
+  @Override
+  public GoogleCloudStorageItemInfo createObject(
+      StorageResourceId resourceId, byte[] content, CreateObjectOptions options)
+      throws IOException {
+    GoogleCloudStorageItemInfo item;
+    try {
+      item = super.createObject(resourceId, content, options);
+    } finally {
+      invalidateNotFound(resourceId);
+    }
+
+    // Cache the created object.
+    cache.putItem(item);
+
+    return item;
+  }
+
+  @Override
+  public List<GoogleCloudStorageItemInfo> createObjects(List<CreatableItemInfo> items)
+      throws IOException {
+    List<GoogleCloudStorageItemInfo> createdItems;
+    try {
+      createdItems = super.createObjects(items);
+    } finally {
+      for (CreatableItemInfo item : items) {
+        invalidateNotFound(item.getStorageResourceId());
+      }
+    }
+
+    // Cache the created objects.
+    for (GoogleCloudStorageItemInfo item : createdItems) {
+      cache.putItem(item);
+    }
+
+    return createdItems;
+  }
+
+  @Override
+  public void copy(
+      String srcBucketName,
+      List<String> srcObjectNames,
+      String dstBucketName,
+      List<String> dstObjectNames)
+      throws IOException {
+    try {
+      super.copy(srcBucketName, srcObjectNames, dstBucketName, dstObjectNames);
+    } finally {
+      for (String dstObjectName : dstObjectNames) {
+        invalidateNotFound(new StorageResourceId(dstBucketName, dstObjectName));
+      }
+    }
+  }
+
+  @Override
+  public void copy(Map<StorageResourceId, StorageResourceId> sourceToDestinationObjectsMap)
+      throws IOException {
+    try {
+      super.copy(sourceToDestinationObjectsMap);
+    } finally {
+      invalidateNotFound(sourceToDestinationObjectsMap.values());
+    }
   }
 
   @Override
@@ -119,11 +270,18 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
         return ImmutableList.of(item);
       }
     }
+    if (notFoundCache != null && notFoundCache.isEmptyPrefix(bucketName, objectNamePrefix)) {
+      return ImmutableList.of();
+    }
+    long lookupToken = notFoundCache == null ? 0 : notFoundCache.startLookup();
     List<GoogleCloudStorageItemInfo> result =
         super.listObjectInfo(bucketName, objectNamePrefix, listOptions);
     for (GoogleCloudStorageItemInfo item : result) {
       cache.putItem(item);
     }
+    if (notFoundCache != null && listOptions.isIncludePrefix() && result.isEmpty()) {
+      notFoundCache.putEmptyPrefix(bucketName, objectNamePrefix, lookupToken);
+    }
 
     return result;
   }
@@ -133,11 +291,25 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
       String bucketName, String objectNamePrefix, ListObjectOptions listOptions, String pageToken)
       throws IOException {
     listOptions = getListObjectOptionsWithAllFields(listOptions);
+    boolean firstPage = pageToken == null;
+    if (notFoundCache != null
+        && firstPage
+        && notFoundCache.isEmptyPrefix(bucketName, objectNamePrefix)) {
+      return new ListPage<>(ImmutableList.of(), /* nextPageToken= */ null);
+    }
+    long lookupToken = notFoundCache == null ? 0 : notFoundCache.startLookup();
     ListPage<GoogleCloudStorageItemInfo> result =
         super.listObjectInfoPage(bucketName, objectNamePrefix, listOptions, pageToken);
     for (GoogleCloudStorageItemInfo item : result.getItems()) {
       cache.putItem(item);
     }
+    if (notFoundCache != null
+        && firstPage
+        && listOptions.isIncludePrefix()
+        && result.getItems().isEmpty()
+        && result.getNextPageToken() == null) {
+      notFoundCache.putEmptyPrefix(bucketName, objectNamePrefix, lookupToken);
+    }
     return result;
   }
 
@@ -162,10 +334,19 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
       return GoogleCloudStorageItemInfo.createNotFound(resourceId);
     }
 
+    // If it was recently not found, then it does not exist.
+    if (notFoundCache != null && notFoundCache.isNotFound(resourceId)) {
+      return GoogleCloudStorageItemInfo.createNotFound(resourceId);
+    }
+
     // If it wasn't in the cache and wasn't cached in directory list request
     // then request and cache it directly.
+    long lookupToken = notFoundCache == null ? 0 : notFoundCache.startLookup();
     item = super.getItemInfo(resourceId);
     cache.putItem(item);
+    if (notFoundCache != null && !item.exists() && !resourceId.isRoot()) {
+      notFoundCache.putNotFound(resourceId, lookupToken);
+    }
     return item;
   }
 
@@ -228,7 +409,12 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
   public GoogleCloudStorageItemInfo composeObjects(
       List<StorageResourceId> sources, StorageResourceId destination, CreateObjectOptions options)
       throws IOException {
-    GoogleCloudStorageItemInfo item = super.composeObjects(sources, destination, options);
+    GoogleCloudStorageItemInfo item;
+    try {
+      item = super.composeObjects(sources, destination, options);
+    } finally {
+      invalidateNotFound(destination);
+    }
 
     // Cache the composed object.
     cache.putItem(item);
@@ -236,17 +422,95 @@ public class PerformanceCachingGoogleCloudStorage extends ForwardingGoogleCloudS
     return item;
   }
 
+  @Override
+  public void compose(
+      String bucketName, List<String> sources, String destination, String contentType)
+      throws IOException {
+    try {
+      super.compose(bucketName, sources, destination, contentType);
+    } finally {
+      invalidateNotFound(new StorageResourceId(bucketName, destination));
+    }
+  }
+
   @Override
   public void close() {
     super.close();
 
     // Respect close and empty the cache.
-    cache.invalidateAll();
+    cache.close();
+    if (notFoundCache != null) {
+      notFoundCache.invalidateAll();
+    }
   }
 
   @VisibleForTesting
   public void invalidateCache() {
     cache.invalidateAll();
+    if (notFoundCache != null) {
+      notFoundCache.invalidateAll();
+    }
+  }
+
+  /** Invalidates negative lookup results that could be stale after the item was created. */
+  private void invalidateNotFound(StorageResourceId resourceId) {
+    if (notFoundCache != null) {
+      notFoundCache.invalidate(resourceId);
+    }
+  }
+
+  private void invalidateNotFound(Iterable<StorageResourceId> resourceIds) {
+    for (StorageResourceId resourceId : resourceIds) {
+      invalidateNotFound(resourceId);
+    }
+  }
+
+  /**
+   * Write channel that invalidates negative lookup results of the written object when it is closed.
+   */
+  private class NotFoundInvalidatingChannel implements FlushableWriteChannel {
+
+    private final WritableByteChannel delegate;
+    private final StorageResourceId resourceId;
+
+    NotFoundInvalidatingChannel(WritableByteChannel delegate, StorageResourceId resourceId) {
+      this.delegate = delegate;
+      this.resourceId = resourceId;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return delegate.write(src);
+    }
+
+    @Override
+    public boolean isFlushSupported() {
+      return delegate instanceof FlushableWriteChannel
+          && ((FlushableWriteChannel) delegate).isFlushSupported();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (!(delegate instanceof FlushableWriteChannel)) {
+        throw new UnsupportedOperationException(
+            String.format("flush() is not supported for '%s'", resourceId));
+      }
+      ((FlushableWriteChannel) delegate).flush();
+    }
+
+    @Override
+    public boolean isOpen() {
+      return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        delegate.close();
+      } finally {
+        invalidateNotFound(resourceId);
+      }
+    }
   }
 
   // Resets requested object fields in list request to return all support object fields because we
@@ -22,11 +22,19 @@ public abstract class PerformanceCachingGoogleCloudStorageOptions {
   /** Max age of an item in cache in milliseconds. */
   public static final long MAX_ENTRY_AGE_MILLIS_DEFAULT = 5_000;
 
+  /** Max number of items in cache. */
+  public static final long MAX_ENTRIES_DEFAULT = 100_000;
+
+  /** Max age of a negative lookup result in cache in milliseconds, 0 disables negative caching. */
+  public static final long NOT_FOUND_MAX_ENTRY_AGE_MILLIS_DEFAULT = 0;
+
   public static final PerformanceCachingGoogleCloudStorageOptions DEFAULT = builder().build();
 
   public static Builder builder() {
     return new AutoValue_PerformanceCachingGoogleCloudStorageOptions.Builder()
-        .setMaxEntryAgeMillis(MAX_ENTRY_AGE_MILLIS_DEFAULT);
+        .setMaxEntryAgeMillis(MAX_ENTRY_AGE_MILLIS_DEFAULT)
+        .setMaxEntries(MAX_ENTRIES_DEFAULT)
+        .setNotFoundMaxEntryAgeMillis(NOT_FOUND_MAX_ENTRY_AGE_MILLIS_DEFAULT);
   }
 
   public abstract Builder toBuilder();
@@ -34,6 +42,15 @@ public abstract class PerformanceCachingGoogleCloudStorageOptions {
   /** Gets the max age of an item in cache in milliseconds. */
   public abstract long getMaxEntryAgeMillis();
 
+  /** Gets the max number of items in cache, the oldest items are evicted when it's exceeded. */
+  public abstract long getMaxEntries();
+
+  /**
+   * Gets the max age in milliseconds of a cached result of a lookup that didn't find an object or a
+   * directory. Negative lookup results are not cached if it's 0.
+   */
+  public abstract long getNotFoundMaxEntryAgeMillis();
+
   /** Builder class for PerformanceCachingGoogleCloudStorageOptions. */
   @AutoValue.Builder
   public abstract static class Builder {
@@ -41,6 +58,12 @@ public abstract class PerformanceCachingGoogleCloudStorageOptions {
     /** Sets the max age of an item in cache in milliseconds. */
     public abstract Builder setMaxEntryAgeMillis(long maxEntryAgeMillis);
 
+    /** Sets the max number of items in cache. */
+    public abstract Builder setMaxEntries(long maxEntries);
+
+    /** Sets the max age of a negative lookup result in cache in milliseconds. */
+    public abstract Builder setNotFoundMaxEntryAgeMillis(long notFoundMaxEntryAgeMillis);
+
     public abstract PerformanceCachingGoogleCloudStorageOptions build();
   }
 }
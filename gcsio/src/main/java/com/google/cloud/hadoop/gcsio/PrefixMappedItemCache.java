@@ -19,13 +19,21 @@ import static java.util.Comparator.naturalOrder;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /**
@@ -33,32 +41,78 @@ import javax.annotation.Nullable;
  * the item's bucket and object name. In addition to caching {@link StorageResourceId} to item
  * mappings, it provides options for storing groups of items under similar bucket and object name
  * prefixes.
+ *
+ * <p>The cache is safe for concurrent use without locking: items are stored in a concurrent sorted
+ * map, and insertion order of items is tracked in a concurrent queue that is used to evict the
+ * oldest items when the cache is full and to remove expired items in the background.
  */
 public class PrefixMappedItemCache {
 
+  /** Executor that removes expired items from all caches in the background. */
+  private static final ScheduledExecutorService EXPIRATION_EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat("gcs-item-cache-expiration-%d")
+              .setDaemon(true)
+              .build());
+
+  /** Minimum interval between background removals of expired items. */
+  private static final Duration MIN_EXPIRATION_INTERVAL = Duration.ofMillis(100);
+
   /** Map to hold item info. */
-  private final TreeMap<PrefixKey, CacheValue<GoogleCloudStorageItemInfo>> itemMap;
+  private final ConcurrentSkipListMap<PrefixKey, CacheValue<GoogleCloudStorageItemInfo>> itemMap;
+
+  /** Cached items in insertion order, could contain items that were removed or replaced. */
+  private final Queue<CacheValue<GoogleCloudStorageItemInfo>> insertionQueue =
+      new ConcurrentLinkedQueue<>();
+
+  /** Number of items in the item map, tracked separately because map size is not constant-time. */
+  private final AtomicLong size = new AtomicLong();
 
   /** The time in nanoseconds before an entry expires. */
   private final long maxEntryAgeNanos;
 
+  /** The maximum number of items in the cache before the oldest items are evicted. */
+  private final long maxEntries;
+
   /** Ticker for tracking expiration. */
   private final Ticker ticker;
 
+  /** Background removal of expired items, null if it is disabled. */
+  @Nullable private final ScheduledFuture<?> expirationFuture;
+
   /**
-   * Creates a new {@link PrefixMappedItemCache}.
+   * Creates a new {@link PrefixMappedItemCache} that removes expired items in the background until
+   * it's closed.
    *
    * @param maxEntryAge time after which entries in cache expire.
+   * @param maxEntries maximum number of items in the cache before the oldest items are evicted.
    */
-  public PrefixMappedItemCache(Duration maxEntryAge) {
-    this(Ticker.systemTicker(), maxEntryAge);
+  public PrefixMappedItemCache(Duration maxEntryAge, long maxEntries) {
+    this(Ticker.systemTicker(), maxEntryAge, maxEntries, /* backgroundExpirationEnabled= */ true);
   }
 
   @VisibleForTesting
   PrefixMappedItemCache(Ticker ticker, Duration maxEntryAge) {
-    this.itemMap = new TreeMap<>(PrefixKey.COMPARATOR);
+    this(ticker, maxEntryAge, Long.MAX_VALUE, /* backgroundExpirationEnabled= */ false);
+  }
+
+  @VisibleForTesting
+  PrefixMappedItemCache(
+      Ticker ticker, Duration maxEntryAge, long maxEntries, boolean backgroundExpirationEnabled) {
+    checkArgument(maxEntries > 0, "maxEntries must be positive, but was: %s", maxEntries);
+    this.itemMap = new ConcurrentSkipListMap<>(PrefixKey.COMPARATOR);
     this.ticker = ticker;
     this.maxEntryAgeNanos = maxEntryAge.toNanos();
+    this.maxEntries = maxEntries;
+    if (backgroundExpirationEnabled) {
+      long intervalNanos = Math.max(maxEntryAgeNanos, MIN_EXPIRATION_INTERVAL.toNanos());
+      this.expirationFuture =
+          EXPIRATION_EXECUTOR.scheduleWithFixedDelay(
+              this::removeExpiredItems, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    } else {
+      this.expirationFuture = null;
+    }
   }
 
   /**
@@ -69,7 +123,7 @@ public class PrefixMappedItemCache {
    *     it has expired in the cache.
    */
   @Nullable
-  public synchronized GoogleCloudStorageItemInfo getItem(StorageResourceId id) {
+  public GoogleCloudStorageItemInfo getItem(StorageResourceId id) {
     PrefixKey key = new PrefixKey(id.getBucketName(), id.getObjectName());
     CacheValue<GoogleCloudStorageItemInfo> value = itemMap.get(key);
 
@@ -78,7 +132,7 @@ public class PrefixMappedItemCache {
     }
 
     if (isExpired(value)) {
-      itemMap.remove(key);
+      remove(value);
       return null;
     }
 
@@ -87,21 +141,28 @@ public class PrefixMappedItemCache {
 
   /**
    * Inserts an item into the cache. If an item with the same resource id is present, it is
-   * overwritten by the new item.
+   * overwritten by the new item. If the cache is full, the oldest items are evicted.
    *
    * @param item the item to insert. The item must have a valid resource id.
    * @return the overwritten item, null if no item was overwritten.
    */
   @Nullable
-  public synchronized GoogleCloudStorageItemInfo putItem(GoogleCloudStorageItemInfo item) {
+  public GoogleCloudStorageItemInfo putItem(GoogleCloudStorageItemInfo item) {
     if (!item.exists()) {
       return null;
     }
 
     StorageResourceId id = item.getResourceId();
     PrefixKey key = new PrefixKey(id.getBucketName(), id.getObjectName());
-    CacheValue<GoogleCloudStorageItemInfo> value = new CacheValue<>(item, ticker.read());
+    CacheValue<GoogleCloudStorageItemInfo> value = new CacheValue<>(key, item, ticker.read());
     CacheValue<GoogleCloudStorageItemInfo> oldValue = itemMap.put(key, value);
+    if (oldValue == null) {
+      size.incrementAndGet();
+    }
+    insertionQueue.add(value);
+
+    evictItems();
+
     return oldValue == null || isExpired(oldValue) ? null : oldValue.getValue();
   }
 
@@ -112,11 +173,14 @@ public class PrefixMappedItemCache {
    * @return the removed item, null if no item was removed.
    */
   @Nullable
-  public synchronized GoogleCloudStorageItemInfo removeItem(StorageResourceId id) {
+  public GoogleCloudStorageItemInfo removeItem(StorageResourceId id) {
     PrefixKey key = new PrefixKey(id.getBucketName(), id.getObjectName());
     CacheValue<GoogleCloudStorageItemInfo> value = itemMap.remove(key);
+    if (value != null) {
+      size.decrementAndGet();
+    }
     if (id.isDirectory()) {
-      getPrefixSubMap(itemMap, key).clear();
+      removeAll(getPrefixSubMap(itemMap, key));
     }
     return value == null || isExpired(value) ? null : value.getValue();
   }
@@ -126,15 +190,59 @@ public class PrefixMappedItemCache {
    *
    * @param bucket the bucket to invalidate. This must not be null.
    */
-  public synchronized void invalidateBucket(String bucket) {
+  public void invalidateBucket(String bucket) {
     PrefixKey key = new PrefixKey(bucket, "");
 
-    getPrefixSubMap(itemMap, key).clear();
+    removeAll(getPrefixSubMap(itemMap, key));
   }
 
   /** Invalidates all entries in the cache. */
-  public synchronized void invalidateAll() {
-    itemMap.clear();
+  public void invalidateAll() {
+    removeAll(itemMap);
+  }
+
+  /** Invalidates all entries in the cache and stops background removal of expired items. */
+  public void close() {
+    if (expirationFuture != null) {
+      expirationFuture.cancel(/* mayInterruptIfRunning= */ false);
+    }
+    invalidateAll();
+  }
+
+  /**
+   * Removes expired items in insertion order. Items that were removed or replaced are dropped from
+   * the insertion queue too, so it doesn't grow unbounded.
+   */
+  @VisibleForTesting
+  void removeExpiredItems() {
+    CacheValue<GoogleCloudStorageItemInfo> value;
+    while ((value = insertionQueue.peek()) != null && isExpired(value)) {
+      if (insertionQueue.remove(value)) {
+        remove(value);
+      }
+    }
+  }
+
+  /** Evicts the oldest items while the cache is full. */
+  private void evictItems() {
+    CacheValue<GoogleCloudStorageItemInfo> value;
+    while (size.get() > maxEntries && (value = insertionQueue.poll()) != null) {
+      remove(value);
+    }
+  }
+
+  /** Removes the given value if it's still mapped to its key. */
+  private void remove(CacheValue<GoogleCloudStorageItemInfo> value) {
+    if (itemMap.remove(value.getKey(), value)) {
+      size.decrementAndGet();
+    }
+  }
+
+  /** Removes all items in the given map view one by one, to keep the size in sync. */
+  private void removeAll(Map<PrefixKey, CacheValue<GoogleCloudStorageItemInfo>> items) {
+    for (CacheValue<GoogleCloudStorageItemInfo> value : items.values()) {
+      remove(value);
+    }
   }
 
   /**
@@ -165,12 +273,12 @@ public class PrefixMappedItemCache {
 
   /**
    * Helper function that handles creating the lower and upper bounds for calling {@link
-   * SortedMap#subMap(Object, Object)}.
+   * ConcurrentNavigableMap#subMap(Object, Object)}.
    *
-   * @see SortedMap#subMap(Object, Object)
+   * @see ConcurrentNavigableMap#subMap(Object, Object)
    */
-  private static <E> SortedMap<PrefixKey, E> getPrefixSubMap(
-      TreeMap<PrefixKey, E> map, PrefixKey lowerBound) {
+  private static <E> ConcurrentNavigableMap<PrefixKey, E> getPrefixSubMap(
+      ConcurrentNavigableMap<PrefixKey, E> map, PrefixKey lowerBound) {
     PrefixKey upperBound =
         new PrefixKey(lowerBound.getBucket(), lowerBound.getObjectName() + Character.MAX_VALUE);
     return map.subMap(lowerBound, upperBound);
@@ -182,12 +290,21 @@ public class PrefixMappedItemCache {
     return aggregateCacheValues(itemMap);
   }
 
+  /** Gets the number of items in the item map. Used for testing only. */
+  @VisibleForTesting
+  long size() {
+    return size.get();
+  }
+
   /**
    * Tuple of a value and a creation time in nanoseconds.
    *
    * @param <V> the type of the value being cached.
    */
   private static class CacheValue<V> {
+    /** The key of the value in the cache. */
+    private final PrefixKey key;
+
     /** The value being cached. */
     private final V value;
 
@@ -197,14 +314,21 @@ public class PrefixMappedItemCache {
     /**
      * Creates a new {@link CacheValue}.
      *
+     * @param key the key of the value in the cache.
      * @param value the value being cached.
      * @param creationTimeNanos the time the entry was created in nanoseconds.
      */
-    public CacheValue(V value, long creationTimeNanos) {
+    public CacheValue(PrefixKey key, V value, long creationTimeNanos) {
+      this.key = key;
       this.value = value;
       this.creationTimeNanos = creationTimeNanos;
     }
 
+    /** Gets the key of the value in the cache. */
+    public PrefixKey getKey() {
+      return key;
+    }
+
     /** Gets the value being cached. */
     public V getValue() {
       return value;
@@ -225,8 +349,8 @@ public class PrefixMappedItemCache {
   private static class PrefixKey implements Comparable<PrefixKey> {
 
     /**
-     * Instance of a comparator that compares {@link PrefixKey}'s. This is provided for the TreeMap
-     * to off-load to for performance reasons. This throws a NullPointerException if either of the
+     * Instance of a comparator that compares {@link PrefixKey}'s. This is provided for the map to
+     * off-load to for performance reasons. This throws a NullPointerException if either of the
      * entries being compared are null.
      */
     public static final Comparator<PrefixKey> COMPARATOR = naturalOrder();
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.GoogleLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Channel that reads a range of an object by asynchronously prefetching fixed-size blocks.
+ *
+ * <p>Up to {@code blockCount} blocks are kept in flight on an executor that is shared by all
+ * prefetchers in the process, so the total number of concurrent block requests is bounded. Fetched
+ * blocks are stored in a ring of direct buffers that are reused once their content was consumed.
+ *
+ * <p>When the prefetcher is closed, in-flight fetches are interrupted and block buffers are
+ * returned to a bounded process-wide cache as soon as no fetch writes into them, so prefetchers
+ * that are re-created on each seek reuse buffers instead of allocating new direct memory.
+ */
+class ReadAheadPrefetcher implements ReadableByteChannel {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  /** Fetches object bytes starting at the given offset until the buffer is full. */
+  @FunctionalInterface
+  interface BlockFetcher {
+    void fetch(long offset, ByteBuffer buffer) throws IOException;
+  }
+
+  private static final int THREAD_POOL_SIZE =
+      Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
+  // Executor that is also used for other prefetch requests of read channels.
+  static final ExecutorService READ_AHEAD_THREAD_POOL = createReadAheadThreadPool();
+
+  // Maximum number of idle block buffers that are cached for reuse by all prefetchers.
+  private static final int MAX_CACHED_BUFFERS = THREAD_POOL_SIZE;
+
+  // Idle block buffers by their capacity.
+  private static final ConcurrentHashMap<Integer, Queue<ByteBuffer>> CACHED_BUFFERS =
+      new ConcurrentHashMap<>();
+  private static final AtomicInteger cachedBufferCount = new AtomicInteger();
+
+  private final BlockFetcher fetcher;
+  private final long end;
+  private final int blockSize;
+  // Capacity of block buffers, smaller than block size only if the whole range fits in one block.
+  private final int bufferSize;
+
+  // Ring of reusable block buffers and futures of the blocks that are fetched into them.
+  private final Slot[] slots;
+  private final List<Future<ByteBuffer>> blocks;
+
+  // Offset of the next block to fetch.
+  private long nextFetchOffset;
+  // Index of the ring slot that holds the block being consumed.
+  private int head = 0;
+  // Block that is being consumed, null if it was not fetched yet.
+  private ByteBuffer current;
+
+  private volatile boolean open = true;
+
+  /**
+   * Creates a prefetcher and starts fetching the first blocks of the range.
+   *
+   * @param fetcher fetches block content
+   * @param start offset of the range start, inclusive
+   * @param end offset of the range end, exclusive
+   * @param blockSize size of a single block request
+   * @param blockCount maximum number of blocks to keep in flight
+   */
+  ReadAheadPrefetcher(BlockFetcher fetcher, long start, long end, int blockSize, int blockCount) {
+    checkArgument(start < end, "start (%s) should be less than end (%s)", start, end);
+    checkArgument(blockSize > 0, "blockSize should be greater than 0, but was %s", blockSize);
+    checkArgument(blockCount > 0, "blockCount should be greater than 0, but was %s", blockCount);
+    this.fetcher = fetcher;
+    this.end = end;
+    this.blockSize = blockSize;
+    this.bufferSize = toIntExact(min(blockSize, end - start));
+    this.nextFetchOffset = start;
+    this.slots = new Slot[blockCount];
+    this.blocks = new ArrayList<>(Collections.nCopies(blockCount, null));
+    for (int slot = 0; slot < blockCount; slot++) {
+      scheduleFetch(slot);
+    }
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    if (current != null && !current.hasRemaining()) {
+      // Block was consumed, reuse its buffer to fetch the next block.
+      current = null;
+      scheduleFetch(head);
+      head = (head + 1) % slots.length;
+    }
+    if (current == null) {
+      Future<ByteBuffer> block = blocks.get(head);
+      if (block == null) {
+        return -1;
+      }
+      current = awaitBlock(block);
+    }
+    int bytesToCopy = min(dst.remaining(), current.remaining());
+    ByteBuffer slice = current.duplicate();
+    slice.limit(slice.position() + bytesToCopy);
+    dst.put(slice);
+    current.position(current.position() + bytesToCopy);
+    return bytesToCopy;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    if (!open) {
+      return;
+    }
+    open = false;
+    current = null;
+    for (int slot = 0; slot < slots.length; slot++) {
+      Future<ByteBuffer> block = blocks.get(slot);
+      if (block != null) {
+        // Interrupt aborts the underlying range request of the in-flight fetch.
+        block.cancel(/* mayInterruptIfRunning= */ true);
+      }
+      // Buffer of an in-flight fetch is released by the fetch when it completes.
+      if (slots[slot] != null && !slots[slot].fetching.get()) {
+        slots[slot].release();
+      }
+    }
+  }
+
+  private void scheduleFetch(int slot) {
+    if (nextFetchOffset >= end) {
+      blocks.set(slot, null);
+      return;
+    }
+    long offset = nextFetchOffset;
+    int length = toIntExact(min(blockSize, end - offset));
+    nextFetchOffset += length;
+    if (slots[slot] == null) {
+      slots[slot] = new Slot(acquireBuffer(bufferSize));
+    }
+    Slot blockSlot = slots[slot];
+    blocks.set(slot, READ_AHEAD_THREAD_POOL.submit(() -> fetchBlock(blockSlot, offset, length)));
+  }
+
+  private ByteBuffer fetchBlock(Slot slot, long offset, int length) throws IOException {
+    // Mark buffer as in use before checking if prefetcher is open, so either close releases the
+    // buffer, or this fetch sees that prefetcher is closed and does not touch the buffer.
+    slot.fetching.set(true);
+    try {
+      if (!open) {
+        throw new ClosedChannelException();
+      }
+      logger.atFiner().log("Prefetching %d bytes at %d position", length, offset);
+      ByteBuffer buffer = slot.buffer;
+      buffer.clear();
+      buffer.limit(length);
+      fetcher.fetch(offset, buffer);
+      checkState(
+          !buffer.hasRemaining(),
+          "Fetched %s bytes instead of %s at %s position",
+          buffer.position(),
+          length,
+          offset);
+      buffer.flip();
+      return buffer;
+    } finally {
+      slot.fetching.set(false);
+      if (!open) {
+        slot.release();
+      }
+    }
+  }
+
+  /** Takes a cached buffer of the specified capacity or allocates a new one. */
+  private static ByteBuffer acquireBuffer(int capacity) {
+    Queue<ByteBuffer> buffers = CACHED_BUFFERS.get(capacity);
+    ByteBuffer buffer = buffers == null ? null : buffers.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(capacity);
+    }
+    cachedBufferCount.decrementAndGet();
+    return buffer;
+  }
+
+  /** Caches the buffer for reuse if the cache is not full, otherwise drops it. */
+  private static void releaseBuffer(ByteBuffer buffer) {
+    if (cachedBufferCount.incrementAndGet() > MAX_CACHED_BUFFERS) {
+      cachedBufferCount.decrementAndGet();
+      return;
+    }
+    CACHED_BUFFERS
+        .computeIfAbsent(buffer.capacity(), c -> new ConcurrentLinkedQueue<>())
+        .add(buffer);
+  }
+
+  /** Returns number of cached idle buffers with the specified capacity. */
+  @VisibleForTesting
+  static int getCachedBufferCount(int capacity) {
+    Queue<ByteBuffer> buffers = CACHED_BUFFERS.get(capacity);
+    return buffers == null ? 0 : buffers.size();
+  }
+
+  private static ByteBuffer awaitBlock(Future<ByteBuffer> block) throws IOException {
+    try {
+      return block.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException)
+          new InterruptedIOException("Interrupted while waiting for prefetched block").initCause(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to prefetch block", e.getCause());
+    }
+  }
+
+  /** Ring slot with a block buffer that is released exactly once after the prefetcher is closed. */
+  private static class Slot {
+    private final ByteBuffer buffer;
+    // Whether a fetch is writing into the buffer.
+    private final AtomicBoolean fetching = new AtomicBoolean();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    Slot(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        releaseBuffer(buffer);
+      }
+    }
+  }
+
+  private static ExecutorService createReadAheadThreadPool() {
+    ThreadPoolExecutor service =
+        new ThreadPoolExecutor(
+            /* corePoolSize= */ THREAD_POOL_SIZE,
+            /* maximumPoolSize= */ THREAD_POOL_SIZE,
+            /* keepAliveTime= */ 10L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                .setNameFormat("gcs-read-ahead-pool-%d")
+                .setDaemon(true)
+                .build());
+    service.allowCoreThreadTimeOut(true);
+    return service;
+  }
+}
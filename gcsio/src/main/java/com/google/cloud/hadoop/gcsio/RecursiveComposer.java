@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.cloud.hadoop.gcsio.GoogleCloudStorage.MAX_COMPOSE_OBJECTS;
+
+import com.google.common.collect.Lists;
+import com.google.common.flogger.GoogleLogger;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Composes any number of source objects into a destination object.
+ *
+ * <p>Because a single compose request accepts at most {@link
+ * GoogleCloudStorage#MAX_COMPOSE_OBJECTS} sources, larger number of sources is composed
+ * recursively: groups of sources are composed in parallel into intermediate temporary objects
+ * first.
+ *
+ * <p>If composition fails, all temporary objects, including the intermediate ones, are deleted.
+ */
+public final class RecursiveComposer {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  private RecursiveComposer() {}
+
+  /**
+   * Composes the sources into the destination object.
+   *
+   * @param gcs storage used to compose and delete objects
+   * @param executor executor of the parallel intermediate compose requests
+   * @param sources objects to compose, in order
+   * @param dstId destination object
+   * @param options options of the destination object
+   * @param intermediateIds supplier of unique IDs of the intermediate temporary objects
+   * @param tmpObjects temporary objects that should be deleted if composition fails, for example
+   *     temporary sources. Intermediate objects are added to it, so on success the caller could
+   *     delete them. On failure all objects in it are deleted, and it is cleared.
+   * @return composed destination object
+   */
+  public static GoogleCloudStorageItemInfo compose(
+      GoogleCloudStorage gcs,
+      ExecutorService executor,
+      List<StorageResourceId> sources,
+      StorageResourceId dstId,
+      CreateObjectOptions options,
+      Supplier<StorageResourceId> intermediateIds,
+      List<StorageResourceId> tmpObjects)
+      throws IOException {
+    try {
+      while (sources.size() > MAX_COMPOSE_OBJECTS) {
+        sources = composeIntermediate(gcs, executor, sources, intermediateIds, tmpObjects);
+      }
+      return gcs.composeObjects(sources, dstId, options);
+    } catch (IOException | RuntimeException e) {
+      try {
+        gcs.deleteObjects(tmpObjects);
+        tmpObjects.clear();
+      } catch (IOException | RuntimeException deleteException) {
+        logger.atWarning().withCause(deleteException).log(
+            "Failed to delete %d temporary objects of '%s'", tmpObjects.size(), dstId);
+        e.addSuppressed(deleteException);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Composes each group of {@link GoogleCloudStorage#MAX_COMPOSE_OBJECTS} sources into an
+   * intermediate object, and returns sources for the next level of composition.
+   */
+  private static List<StorageResourceId> composeIntermediate(
+      GoogleCloudStorage gcs,
+      ExecutorService executor,
+      List<StorageResourceId> sources,
+      Supplier<StorageResourceId> intermediateIds,
+      List<StorageResourceId> tmpObjects)
+      throws IOException {
+    List<Future<GoogleCloudStorageItemInfo>> intermediateComposes = new ArrayList<>();
+    List<StorageResourceId> intermediateSources = new ArrayList<>();
+    for (List<StorageResourceId> group : Lists.partition(sources, MAX_COMPOSE_OBJECTS)) {
+      if (group.size() == 1) {
+        intermediateSources.add(group.get(0));
+        continue;
+      }
+      StorageResourceId intermediateId = intermediateIds.get();
+      // Added before compose request, so a possibly created object is deleted on failure.
+      tmpObjects.add(intermediateId);
+      intermediateSources.add(intermediateId);
+      // Intermediate objects never exist before, so they are created with generation 0
+      // precondition that doesn't require a metadata request.
+      StorageResourceId noGenerationId =
+          new StorageResourceId(
+              intermediateId.getBucketName(),
+              intermediateId.getObjectName(),
+              /* generationId= */ 0L);
+      intermediateComposes.add(
+          executor.submit(
+              () ->
+                  gcs.composeObjects(
+                      group, noGenerationId, CreateObjectOptions.DEFAULT_NO_OVERWRITE)));
+    }
+    // Wait for all compose requests, so no intermediate object is created after a failure
+    // cleanup.
+    IOException failure = null;
+    for (Future<GoogleCloudStorageItemInfo> intermediateCompose : intermediateComposes) {
+      try {
+        getResult(intermediateCompose);
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else if (failure != e) {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    logger.atFiner().log(
+        "Composed %d sources into %d intermediate objects",
+        sources.size(), intermediateSources.size());
+    return intermediateSources;
+  }
+
+  private static <T> T getResult(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(/* mayInterruptIfRunning= */ true);
+      throw (IOException) new InterruptedIOException("Interrupted while composing").initCause(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+}
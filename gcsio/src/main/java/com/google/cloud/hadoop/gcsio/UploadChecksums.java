@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+import javax.annotation.Nullable;
+
+/**
+ * Incrementally computes checksums of the uploaded object data.
+ *
+ * <p>CRC32C is computed with {@link CRC32C}, that is intrinsified by the JVM on the supported
+ * platforms. When data is uploaded in chunks that need their own CRC32C, the object CRC32C is
+ * derived from the chunk CRC32Cs via {@link #combineCrc32c}, so the data is read only once.
+ * Streamed data is accumulated into a single running CRC32C instead.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class UploadChecksums {
+
+  // Reversed Castagnoli polynomial.
+  private static final int CRC32C_POLYNOMIAL = 0x82F63B78;
+
+  // CRC32C of the data that was not combined into objectCrc32c yet.
+  private final CRC32C pendingCrc32c = new CRC32C();
+  @Nullable private final MessageDigest md5;
+
+  private int objectCrc32c = 0;
+  private long pendingLength = 0;
+  private long length = 0;
+
+  UploadChecksums(boolean md5Enabled) {
+    this.md5 = md5Enabled ? newMd5Digest() : null;
+  }
+
+  /** Updates object checksums with the data chunk and returns CRC32C of this chunk. */
+  int update(ByteString chunk) {
+    combinePendingCrc32c();
+    for (ByteBuffer buffer : chunk.asReadOnlyByteBufferList()) {
+      if (md5 != null) {
+        md5.update(buffer.duplicate());
+      }
+      pendingCrc32c.update(buffer);
+    }
+    pendingLength = chunk.size();
+    int chunkCrc32c = (int) pendingCrc32c.getValue();
+    combinePendingCrc32c();
+    length += chunk.size();
+    return chunkCrc32c;
+  }
+
+  /** Updates object checksums with the data. */
+  void update(byte[] b, int off, int len) {
+    pendingCrc32c.update(b, off, len);
+    if (md5 != null) {
+      md5.update(b, off, len);
+    }
+    pendingLength += len;
+    length += len;
+  }
+
+  /** Returns number of bytes that were checksummed. */
+  long getLength() {
+    return length;
+  }
+
+  /** Returns CRC32C of all data that was checksummed. */
+  int getCrc32c() {
+    combinePendingCrc32c();
+    return objectCrc32c;
+  }
+
+  /** Returns big-endian encoded CRC32C of all data that was checksummed, as used by GCS. */
+  byte[] getCrc32cBytes() {
+    return ByteBuffer.allocate(Integer.BYTES).putInt(getCrc32c()).array();
+  }
+
+  /** Returns MD5 of all data that was checksummed, or {@code null} if MD5 is disabled. */
+  @Nullable
+  byte[] getMd5() {
+    if (md5 == null) {
+      return null;
+    }
+    try {
+      // Clone to not reset digest of the data that could be checksummed later.
+      return ((MessageDigest) md5.clone()).digest();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("Failed to clone MD5 digest", e);
+    }
+  }
+
+  private void combinePendingCrc32c() {
+    if (pendingLength > 0) {
+      objectCrc32c = combineCrc32c(objectCrc32c, (int) pendingCrc32c.getValue(), pendingLength);
+      pendingCrc32c.reset();
+      pendingLength = 0;
+    }
+  }
+
+  /**
+   * Returns CRC32C of the concatenation of two byte sequences, given CRC32C of each of them and the
+   * length of the second one, without reading the data itself.
+   *
+   * <p>Applies zeros operator for {@code length2} bytes to {@code crc1} by repeated squaring of the
+   * CRC shift matrix over GF(2), as in zlib's {@code crc32_combine}.
+   */
+  static int combineCrc32c(int crc1, int crc2, long length2) {
+    if (length2 <= 0) {
+      return crc1;
+    }
+    int[] even = new int[Integer.SIZE];
+    int[] odd = new int[Integer.SIZE];
+
+    // Operator for one zero bit.
+    odd[0] = CRC32C_POLYNOMIAL;
+    int row = 1;
+    for (int n = 1; n < Integer.SIZE; n++) {
+      odd[n] = row;
+      row <<= 1;
+    }
+    // Operator for two zero bits.
+    gf2MatrixSquare(even, odd);
+    // Operator for four zero bits.
+    gf2MatrixSquare(odd, even);
+
+    // Apply length2 zero bytes to crc1, first squaring gives operator for one zero byte.
+    do {
+      gf2MatrixSquare(even, odd);
+      if ((length2 & 1) != 0) {
+        crc1 = gf2MatrixTimes(even, crc1);
+      }
+      length2 >>= 1;
+      if (length2 == 0) {
+        break;
+      }
+      gf2MatrixSquare(odd, even);
+      if ((length2 & 1) != 0) {
+        crc1 = gf2MatrixTimes(odd, crc1);
+      }
+      length2 >>= 1;
+    } while (length2 != 0);
+
+    return crc1 ^ crc2;
+  }
+
+  private static int gf2MatrixTimes(int[] matrix, int vector) {
+    int sum = 0;
+    for (int i = 0; vector != 0; i++, vector >>>= 1) {
+      if ((vector & 1) != 0) {
+        sum ^= matrix[i];
+      }
+    }
+    return sum;
+  }
+
+  private static void gf2MatrixSquare(int[] square, int[] matrix) {
+    for (int n = 0; n < Integer.SIZE; n++) {
+      square[n] = gf2MatrixTimes(matrix, matrix[n]);
+    }
+  }
+
+  private static MessageDigest newMd5Digest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 digest is not available", e);
+    }
+  }
+}
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
 
 import com.google.api.client.util.Clock;
+import com.google.cloud.hadoop.gcsio.CreatableItemInfo;
 import com.google.cloud.hadoop.gcsio.CreateBucketOptions;
 import com.google.cloud.hadoop.gcsio.CreateObjectOptions;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorage;
@@ -193,6 +194,28 @@ public class InMemoryGoogleCloudStorage implements GoogleCloudStorage {
     }
   }
 
+  @Override
+  public synchronized GoogleCloudStorageItemInfo createObject(
+      StorageResourceId resourceId, byte[] content, CreateObjectOptions options)
+      throws IOException {
+    try (WritableByteChannel channel = create(resourceId, options)) {
+      channel.write(ByteBuffer.wrap(content));
+    }
+    return getItemInfo(
+        new StorageResourceId(resourceId.getBucketName(), resourceId.getObjectName()));
+  }
+
+  @Override
+  public synchronized List<GoogleCloudStorageItemInfo> createObjects(List<CreatableItemInfo> items)
+      throws IOException {
+    List<GoogleCloudStorageItemInfo> createdItems = new ArrayList<>(items.size());
+    for (CreatableItemInfo item : items) {
+      createdItems.add(
+          createObject(item.getStorageResourceId(), item.getContent(), item.getOptions()));
+    }
+    return createdItems;
+  }
+
   @Override
   public SeekableByteChannel open(
       StorageResourceId resourceId, GoogleCloudStorageReadOptions readOptions) throws IOException {
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.hadoop.gcsio.GoogleCloudStorageReadOptions.Fadvise;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link AdaptiveFadvise}. */
+@RunWith(JUnit4.class)
+public class AdaptiveFadviseTest {
+
+  private static final GoogleCloudStorageReadOptions READ_OPTIONS =
+      GoogleCloudStorageReadOptions.builder()
+          .setFadvise(Fadvise.AUTO)
+          .setInplaceSeekLimit(10)
+          .setMinRangeRequestSize(100)
+          .setMaxRangeRequestSize(400)
+          .setFadviseWindowSize(4)
+          .build();
+
+  @Test
+  public void recordReadStart_backwardRead_switchesToRandomAccess() {
+    AdaptiveFadvise fadvise = new AdaptiveFadvise(READ_OPTIONS);
+
+    read(fadvise, 1000, 10);
+    read(fadvise, 0, 10);
+
+    assertThat(fadvise.isRandomAccess()).isTrue();
+    assertThat(fadvise.getRangeRequestSize()).isEqualTo(100);
+    assertThat(fadvise.getSequentialToRandomTransitions()).isEqualTo(1);
+  }
+
+  @Test
+  public void recordReadStart_rareForwardReads_staysSequential() {
+    AdaptiveFadvise fadvise = new AdaptiveFadvise(READ_OPTIONS);
+
+    read(fadvise, 0, 10);
+    read(fadvise, 10, 10);
+    read(fadvise, 20, 10);
+    read(fadvise, 30, 10);
+    read(fadvise, 1000, 10);
+
+    assertThat(fadvise.isRandomAccess()).isFalse();
+    assertThat(fadvise.getSequentialToRandomTransitions()).isEqualTo(0);
+  }
+
+  @Test
+  public void recordReadStart_sequentialReadsAfterFooterRead_growRangeAndSwitchToSequential() {
+    AdaptiveFadvise fadvise = new AdaptiveFadvise(READ_OPTIONS);
+
+    // Footer read followed by a sequential scan from the beginning.
+    read(fadvise, 10_000, 50);
+    long position = 0;
+    read(fadvise, position, 50);
+    assertThat(fadvise.isRandomAccess()).isTrue();
+
+    while (fadvise.isRandomAccess()) {
+      position += 50;
+      read(fadvise, position, 50);
+      assertThat(fadvise.getRangeRequestSize()).isAtMost(400);
+    }
+
+    // 100 + 200 + 400 bytes were read with growing range requests
+    assertThat(position).isEqualTo(700);
+    assertThat(fadvise.getRangeRequestSize()).isEqualTo(100);
+    assertThat(fadvise.getSequentialToRandomTransitions()).isEqualTo(1);
+    assertThat(fadvise.getRandomToSequentialTransitions()).isEqualTo(1);
+  }
+
+  @Test
+  public void recordReadStart_randomReads_shrinkRange() {
+    AdaptiveFadvise fadvise = new AdaptiveFadvise(READ_OPTIONS);
+
+    read(fadvise, 1000, 50);
+    read(fadvise, 0, 50);
+    read(fadvise, 50, 50);
+    read(fadvise, 100, 50);
+    assertThat(fadvise.getRangeRequestSize()).isEqualTo(200);
+
+    read(fadvise, 5000, 50);
+    assertThat(fadvise.getRangeRequestSize()).isEqualTo(100);
+    read(fadvise, 2000, 50);
+    assertThat(fadvise.getRangeRequestSize()).isEqualTo(100);
+    assertThat(fadvise.isRandomAccess()).isTrue();
+  }
+
+  @Test
+  public void recordReadStart_fadviseSequential_neverSwitchesToRandomAccess() {
+    AdaptiveFadvise fadvise =
+        new AdaptiveFadvise(READ_OPTIONS.toBuilder().setFadvise(Fadvise.SEQUENTIAL).build());
+
+    read(fadvise, 1000, 10);
+    read(fadvise, 0, 10);
+
+    assertThat(fadvise.isRandomAccess()).isFalse();
+    assertThat(fadvise.getSequentialToRandomTransitions()).isEqualTo(0);
+  }
+
+  private static void read(AdaptiveFadvise fadvise, long position, int length) {
+    fadvise.recordReadStart(position, length);
+    fadvise.recordReadEnd(position + length);
+  }
+}
@@ -19,6 +19,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import java.io.IOException;
@@ -151,6 +152,28 @@ public class ForwardingGoogleCloudStorageTest {
         .createEmptyObjects(eq(TEST_STORAGE_RESOURCE_IDS), eq(TEST_OBJECT_OPTIONS));
   }
 
+  @Test
+  public void testCreateObject() throws IOException {
+    byte[] content = {0x01, 0x02};
+
+    gcs.createObject(TEST_STORAGE_RESOURCE_ID, content, TEST_OBJECT_OPTIONS);
+
+    verify(mockGcsDelegate)
+        .createObject(eq(TEST_STORAGE_RESOURCE_ID), eq(content), eq(TEST_OBJECT_OPTIONS));
+  }
+
+  @Test
+  public void testCreateObjects() throws IOException {
+    List<CreatableItemInfo> items =
+        ImmutableList.of(
+            new CreatableItemInfo(
+                TEST_STORAGE_RESOURCE_ID, new byte[] {0x01}, TEST_OBJECT_OPTIONS));
+
+    gcs.createObjects(items);
+
+    verify(mockGcsDelegate).createObjects(eq(items));
+  }
+
   @Test
   public void testOpen() throws IOException {
     gcs.open(TEST_STORAGE_RESOURCE_ID);
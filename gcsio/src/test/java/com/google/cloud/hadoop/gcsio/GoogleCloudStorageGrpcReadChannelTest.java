@@ -19,6 +19,7 @@ import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -166,6 +167,35 @@ public final class GoogleCloudStorageGrpcReadChannelTest {
     headerInterceptor.verifyAllRequestsHasGoogRequestParamsHeader(V1_BUCKET_NAME, 1);
   }
 
+  @Test
+  public void readWithHedgedReadsSucceeds() throws Exception {
+    objectSize = FakeService.CHUNK_SIZE * 2;
+    fakeService.setObject(DEFAULT_OBJECT.toBuilder().setSize(objectSize).build());
+    // Zero hedging delay to issue hedged request for each read request.
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setMinRangeRequestSize(4)
+            .setHedgedReadEnabled(true)
+            .setHedgedReadMinDelayMillis(0)
+            .build();
+    GoogleCloudStorageGrpcReadChannel readChannel = newReadChannel(options);
+
+    ByteBuffer buffer = ByteBuffer.allocate(toIntExact(objectSize));
+    readChannel.read(buffer);
+
+    verify(fakeService, atLeast(1))
+        .readObject(
+            eq(
+                ReadObjectRequest.newBuilder()
+                    .setBucket(BUCKET_NAME)
+                    .setObject(OBJECT_NAME)
+                    .setGeneration(OBJECT_GENERATION)
+                    .build()),
+            any());
+    assertThat(buffer.array())
+        .isEqualTo(fakeService.data.substring(0, toIntExact(objectSize)).toByteArray());
+  }
+
   @Test
   public void readAfterRepositioningAfterSkippingSucceeds() throws Exception {
     objectSize = GoogleCloudStorageReadOptions.DEFAULT_MIN_RANGE_REQUEST_SIZE * 10;
@@ -651,6 +681,41 @@ public final class GoogleCloudStorageGrpcReadChannelTest {
     verifyNoMoreInteractions(fakeService);
   }
 
+  @Test
+  public void readWithBlockCacheServesRepeatedReadsFromCache() throws Exception {
+    int blockSize = 1024 * 1024;
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setBlockCacheSize(4 * blockSize)
+            .setBlockCacheBlockSize(blockSize)
+            .build();
+
+    try {
+      for (int i = 0; i < 2; i++) {
+        GoogleCloudStorageGrpcReadChannel readChannel = newReadChannel(options);
+        readChannel.position(blockSize + 5);
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        readChannel.read(buffer);
+        readChannel.close();
+
+        assertThat(buffer.array())
+            .isEqualTo(fakeService.data.substring(blockSize + 5, blockSize + 105).toByteArray());
+      }
+    } finally {
+      ObjectBlockCache.resetInstance();
+    }
+
+    verify(fakeService, times(1))
+        .readObject(
+            eq(
+                GET_OBJECT_MEDIA_REQUEST.toBuilder()
+                    .setReadOffset(blockSize)
+                    .setReadLimit(blockSize)
+                    .build()),
+            any());
+    verifyNoMoreInteractions(fakeService);
+  }
+
   @Test
   public void testOpenThrowsIOExceptionOnGzipContent() {
     GoogleCloudStorageItemInfo itemInfo =
@@ -780,6 +845,40 @@ public final class GoogleCloudStorageGrpcReadChannelTest {
     headerInterceptor.verifyAllRequestsHasGoogRequestParamsHeader(V1_BUCKET_NAME, 1);
   }
 
+  @Test
+  public void blockCache_readsAfterSeeks_fetchEachBlockOnce() throws Exception {
+    objectSize = 100;
+    fakeService.setObject(DEFAULT_OBJECT.toBuilder().setSize(objectSize).build());
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setBlockCacheSize(objectSize)
+            .setBlockCacheBlockSize(40)
+            .build();
+    ObjectBlockCache.resetInstance();
+    try {
+      GoogleCloudStorageGrpcReadChannel readChannel = newReadChannel(options);
+
+      ByteBuffer buffer = ByteBuffer.allocate(20);
+      readChannel.read(buffer);
+      assertThat(buffer.array()).isEqualTo(fakeService.data.substring(0, 20).toByteArray());
+
+      readChannel.position(50);
+      buffer.clear();
+      readChannel.read(buffer);
+      assertThat(buffer.array()).isEqualTo(fakeService.data.substring(50, 70).toByteArray());
+
+      readChannel.position(10);
+      buffer.clear();
+      readChannel.read(buffer);
+      assertThat(buffer.array()).isEqualTo(fakeService.data.substring(10, 30).toByteArray());
+      assertThat(readChannel.position()).isEqualTo(30);
+
+      verify(fakeService, times(2)).readObject(any(), any());
+    } finally {
+      ObjectBlockCache.resetInstance();
+    }
+  }
+
   @Test
   public void consecutiveSeekBackToSamePosition() throws Exception {
     objectSize = 100;
@@ -15,25 +15,36 @@
 package com.google.cloud.hadoop.gcsio;
 
 import static com.google.cloud.hadoop.util.AsyncWriteChannelOptions.PIPE_BUFFER_SIZE_DEFAULT;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static com.google.storage.v2.ServiceConstants.Values.MAX_WRITE_CHUNK_BYTES;
+import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.api.client.util.BackOff;
 import com.google.auth.Credentials;
 import com.google.cloud.hadoop.gcsio.GoogleCloudStorageImpl.BackOffFactory;
 import com.google.cloud.hadoop.util.AsyncWriteChannelOptions;
+import com.google.cloud.hadoop.util.AsyncWriteChannelOptions.PipeType;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Timestamp;
 import com.google.storage.v2.ChecksummedData;
@@ -63,10 +74,14 @@ import java.time.Duration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.LongStream;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -102,6 +117,7 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
   private FakeService fakeService;
   private final ExecutorService executor = Executors.newCachedThreadPool();
   @Mock private Credentials mockCredentials;
+  @Mock private GoogleCloudStorage mockGcs;
   private TestServerHeaderInterceptor headerInterceptor;
 
   @Before
@@ -179,6 +195,35 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
     headerInterceptor.verifyAllRequestsHasGoogRequestParamsHeader(V1_BUCKET_NAME, 2);
   }
 
+  @Test
+  public void writeSendsMd5ObjectChecksum() throws Exception {
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setGrpcChecksumsEnabled(false)
+            .setMd5ChecksumEnabled(true)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+
+    ByteString data = ByteString.copyFromUtf8("test data");
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    WriteObjectRequest expectedInsertRequest =
+        WriteObjectRequest.newBuilder()
+            .setUploadId(UPLOAD_ID)
+            .setChecksummedData(ChecksummedData.newBuilder().setContent(data))
+            .setObjectChecksums(
+                ObjectChecksums.newBuilder()
+                    .setMd5Hash(
+                        ByteString.copyFrom(Hashing.md5().hashBytes(data.toByteArray()).asBytes())))
+            .setFinishWrite(true)
+            .build();
+
+    verify(fakeService.insertRequestObserver, times(1)).onNext(expectedInsertRequest);
+  }
+
   @Test
   public void writeSendsMultipleInsertObjectRequests() throws Exception {
     GoogleCloudStorageGrpcWriteChannel writeChannel = newWriteChannel();
@@ -237,6 +282,140 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
     headerInterceptor.verifyAllRequestsHasGoogRequestParamsHeader(V1_BUCKET_NAME, 2);
   }
 
+  @Test
+  public void writeWithBufferQueuePipeSendsData() throws Exception {
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setPipeType(PipeType.BUFFER_QUEUE_PIPE)
+            .setPipeBufferSize(64 * 1024)
+            .setGrpcChecksumsEnabled(true)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+
+    ByteString data = createTestData(MAX_WRITE_CHUNK_BYTES.getNumber() / 2);
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    WriteObjectRequest expectedInsertRequest =
+        WriteObjectRequest.newBuilder()
+            .setUploadId(UPLOAD_ID)
+            .setChecksummedData(
+                ChecksummedData.newBuilder()
+                    .setContent(data)
+                    .setCrc32C(Hashing.crc32c().hashBytes(data.toByteArray()).asInt()))
+            .setObjectChecksums(
+                ObjectChecksums.newBuilder()
+                    .setCrc32C(Hashing.crc32c().hashBytes(data.toByteArray()).asInt()))
+            .setFinishWrite(true)
+            .build();
+
+    verify(fakeService.insertRequestObserver, times(1)).onNext(expectedInsertRequest);
+    verify(fakeService.insertRequestObserver, atLeast(1)).onCompleted();
+  }
+
+  @Test
+  public void flushSendsWrittenDataWithoutFinalizingUpload() throws Exception {
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder().setPipeType(PipeType.BUFFER_QUEUE_PIPE).build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+    ByteString data1 = createTestData(100);
+    ByteString data2 = createTestData(50);
+
+    writeChannel.initialize();
+    assertThat(writeChannel.isFlushSupported()).isTrue();
+    writeChannel.write(data1.asReadOnlyByteBuffer());
+    writeChannel.flush();
+    writeChannel.write(data2.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    // Persisted size is reported by the write stream completed at the flush point, not polled
+    verify(fakeService, never()).queryWriteStatus(any(), any());
+    verify(fakeService, times(2)).writeObject(any());
+    ArgumentCaptor<WriteObjectRequest> requestCaptor =
+        ArgumentCaptor.forClass(WriteObjectRequest.class);
+    verify(fakeService.insertRequestObserver, times(2)).onNext(requestCaptor.capture());
+    List<WriteObjectRequest> requests = requestCaptor.getAllValues();
+    assertThat(requests.get(0).getWriteOffset()).isEqualTo(0);
+    assertThat(requests.get(0).getChecksummedData().getContent()).isEqualTo(data1);
+    assertThat(requests.get(0).getFinishWrite()).isFalse();
+    assertThat(requests.get(1).getWriteOffset()).isEqualTo(data1.size());
+    assertThat(requests.get(1).getChecksummedData().getContent()).isEqualTo(data2);
+    assertThat(requests.get(1).getFinishWrite()).isTrue();
+  }
+
+  @Test
+  public void flushFailsIfFlushedDataIsNotPersisted() throws Exception {
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder().setPipeType(PipeType.BUFFER_QUEUE_PIPE).build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+    ByteString data = createTestData(100);
+    fakeService.insertRequestObserver.maxPersistedSize = 40;
+
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    IOException e = assertThrows(IOException.class, writeChannel::flush);
+
+    assertThat(e).hasMessageThat().contains("Only 40 of 100 flushed bytes were persisted");
+    // Data that was not persisted is re-sent in each write stream completed at the flush point
+    ArgumentCaptor<WriteObjectRequest> requestCaptor =
+        ArgumentCaptor.forClass(WriteObjectRequest.class);
+    verify(fakeService.insertRequestObserver, atLeast(3)).onNext(requestCaptor.capture());
+    List<WriteObjectRequest> requests = requestCaptor.getAllValues();
+    assertThat(requests.get(0).getChecksummedData().getContent()).isEqualTo(data);
+    for (WriteObjectRequest request : requests.subList(1, 3)) {
+      assertThat(request.getWriteOffset()).isEqualTo(40);
+      assertThat(request.getChecksummedData().getContent()).isEqualTo(data.substring(40));
+    }
+  }
+
+  @Test
+  public void writeKeepsInFlightBytesWithinWindow() throws Exception {
+    int chunkSize = MAX_WRITE_CHUNK_BYTES.getNumber();
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setNumberOfBufferedRequests(100)
+            .setGrpcWriteMaxInFlightBytes(2L * chunkSize)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+    fakeService.setQueryWriteStatusResponses(
+        LongStream.iterate(chunkSize, persistedSize -> persistedSize + chunkSize)
+            .mapToObj(s -> QueryWriteStatusResponse.newBuilder().setPersistedSize(s).build())
+            .iterator());
+    ByteString data = createTestData(5 * chunkSize);
+
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    verify(fakeService, atLeast(1)).queryWriteStatus(eq(WRITE_STATUS_REQUEST), any());
+    ArgumentCaptor<WriteObjectRequest> requestCaptor =
+        ArgumentCaptor.forClass(WriteObjectRequest.class);
+    verify(fakeService.insertRequestObserver, atLeast(5)).onNext(requestCaptor.capture());
+    List<WriteObjectRequest> requests = requestCaptor.getAllValues();
+    ByteString sentData = ByteString.EMPTY;
+    for (WriteObjectRequest request : requests) {
+      assertThat(request.getWriteOffset()).isEqualTo(sentData.size());
+      sentData = sentData.concat(request.getChecksummedData().getContent());
+    }
+    assertThat(sentData).isEqualTo(data);
+    assertThat(Iterables.getLast(requests).getFinishWrite()).isTrue();
+  }
+
+  @Test
+  public void flushNotSupportedWithoutBufferQueuePipe() throws Exception {
+    GoogleCloudStorageGrpcWriteChannel writeChannel = newWriteChannel();
+
+    writeChannel.initialize();
+
+    assertThat(writeChannel.isFlushSupported()).isFalse();
+    assertThrows(UnsupportedOperationException.class, writeChannel::flush);
+  }
+
   @Test
   public void writeHandlesUncommittedData() throws Exception {
     GoogleCloudStorageGrpcWriteChannel writeChannel = newWriteChannel();
@@ -638,6 +817,97 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
     }
   }
 
+  @Test
+  public void parallelUpload_composesBlocksUploadedConcurrently() throws Exception {
+    ObjectStoreService objectStore = startObjectStoreService();
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setGrpcChecksumsEnabled(true)
+            .setGrpcWriteParallelStreams(3)
+            .setGrpcWriteParallelBlockSize(1_000)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+
+    // Number of blocks is greater than a number of sources allowed in a compose request
+    ByteString data = createTestData(40 * 1_000 + 17);
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    assertThat(objectStore.objects.keySet()).containsExactly(OBJECT_NAME);
+    assertThat(objectStore.objects.get(OBJECT_NAME)).isEqualTo(data);
+    assertThat(writeChannel.getItemInfo().getSize()).isEqualTo(data.size());
+    assertThat(objectStore.maxConcurrentUploads.get()).isGreaterThan(1);
+    assertThat(objectStore.maxConcurrentUploads.get()).isAtMost(3);
+    // 2 intermediate compose requests for 41 blocks and the final compose request
+    verify(mockGcs, times(3)).composeObjects(any(), any(), any());
+  }
+
+  @Test
+  public void parallelUpload_singleBlock_uploadedWithoutCompose() throws Exception {
+    ObjectStoreService objectStore = startObjectStoreService();
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setGrpcWriteParallelStreams(3)
+            .setGrpcWriteParallelBlockSize(1_000)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+
+    ByteString data = createTestData(999);
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    assertThat(objectStore.objects.keySet()).containsExactly(OBJECT_NAME);
+    assertThat(objectStore.objects.get(OBJECT_NAME)).isEqualTo(data);
+    verify(mockGcs, never()).composeObjects(any(), any(), any());
+  }
+
+  @Test
+  public void parallelUpload_failedBlockUpload_retried() throws Exception {
+    ObjectStoreService objectStore = startObjectStoreService();
+    objectStore.failingUploads.put(".block.2.", 1);
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setGrpcChecksumsEnabled(true)
+            .setGrpcWriteParallelStreams(2)
+            .setGrpcWriteParallelBlockSize(1_000)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+
+    ByteString data = createTestData(5_500);
+    writeChannel.initialize();
+    writeChannel.write(data.asReadOnlyByteBuffer());
+    writeChannel.close();
+
+    assertThat(objectStore.objects.keySet()).containsExactly(OBJECT_NAME);
+    assertThat(objectStore.objects.get(OBJECT_NAME)).isEqualTo(data);
+    assertThat(objectStore.failingUploads.get(".block.2.")).isEqualTo(0);
+  }
+
+  @Test
+  public void parallelUpload_blockUploadFailed_deletesTemporaryObjects() throws Exception {
+    ObjectStoreService objectStore = startObjectStoreService();
+    objectStore.failingUploads.put(".block.1.", Integer.MAX_VALUE);
+    AsyncWriteChannelOptions options =
+        AsyncWriteChannelOptions.builder()
+            .setGrpcWriteParallelStreams(2)
+            .setGrpcWriteParallelBlockSize(1_000)
+            .build();
+    GoogleCloudStorageGrpcWriteChannel writeChannel =
+        newWriteChannel(options, ObjectWriteConditions.NONE, /* requesterPaysProject= */ null);
+
+    writeChannel.initialize();
+    writeChannel.write(createTestData(5_500).asReadOnlyByteBuffer());
+
+    assertThrows(IOException.class, writeChannel::close);
+    assertThat(objectStore.objects).isEmpty();
+    verify(mockGcs, never()).composeObjects(any(), any(), any());
+  }
+
   private void writeDataAndVerify(boolean isTracingEnabled) throws IOException {
     AsyncWriteChannelOptions options =
         AsyncWriteChannelOptions.builder().setGrpcChecksumsEnabled(false).build();
@@ -662,6 +932,35 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
     headerInterceptor.verifyAllRequestsHasGoogRequestParamsHeader(V1_BUCKET_NAME, 2);
   }
 
+  /**
+   * Starts {@link ObjectStoreService} and configures write channel stub and {@code mockGcs} to use
+   * it.
+   */
+  private ObjectStoreService startObjectStoreService() throws IOException {
+    ObjectStoreService objectStore = new ObjectStoreService();
+    String serverName = InProcessServerBuilder.generateName();
+    InProcessServerBuilder.forName(serverName)
+        .directExecutor()
+        .addService(objectStore)
+        .build()
+        .start();
+    stub =
+        StorageGrpc.newStub(InProcessChannelBuilder.forName(serverName).directExecutor().build());
+    when(mockGcs.composeObjects(any(), any(), any()))
+        .thenAnswer(
+            invocation ->
+                objectStore.compose(invocation.getArgument(0), invocation.getArgument(1)));
+    doAnswer(
+            invocation -> {
+              List<StorageResourceId> objects = invocation.getArgument(0);
+              objects.forEach(id -> objectStore.objects.remove(id.getObjectName()));
+              return null;
+            })
+        .when(mockGcs)
+        .deleteObjects(any());
+    return objectStore;
+  }
+
   private GoogleCloudStorageGrpcWriteChannel newWriteChannel(
       AsyncWriteChannelOptions options,
       ObjectWriteConditions writeConditions,
@@ -688,7 +987,8 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
         watchdog,
         writeConditions,
         requesterPaysProject,
-        backOffFactory);
+        backOffFactory,
+        mockGcs);
   }
 
   private GoogleCloudStorageGrpcWriteChannel newWriteChannel() {
@@ -811,6 +1111,7 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
         }
       }
       insertRequestObserver.responseObserver = responseObserver;
+      insertRequestObserver.finishWriteReceived = false;
       return insertRequestObserver;
     }
 
@@ -850,15 +1151,25 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
           WriteObjectResponse.newBuilder().setResource(object).build();
       Throwable insertRequestException;
       boolean resumeFromInsertException = false;
+      // Maximum size that is reported as persisted when a stream is completed before finish write.
+      long maxPersistedSize = Long.MAX_VALUE;
+      private long receivedSize = 0;
+      private boolean finishWriteReceived = false;
 
       @Override
       public void onNext(WriteObjectRequest request) {
+        receivedSize =
+            Math.max(
+                receivedSize,
+                request.getWriteOffset() + request.getChecksummedData().getContent().size());
+        finishWriteReceived = request.getFinishWrite();
         if (insertRequestException != null) {
           responseObserver.onError(insertRequestException);
           if (resumeFromInsertException) {
             insertRequestException = null;
           }
-        } else {
+        } else if (request.getFinishWrite()) {
+          // WriteObject is a client streaming RPC with a single response after the last request.
           responseObserver.onNext(writeObjectResponse);
         }
       }
@@ -870,8 +1181,144 @@ public final class GoogleCloudStorageGrpcWriteChannelTest {
 
       @Override
       public void onCompleted() {
+        if (!finishWriteReceived) {
+          // Stream completed without finishing the write reports the persisted size.
+          responseObserver.onNext(
+              WriteObjectResponse.newBuilder()
+                  .setPersistedSize(Math.min(receivedSize, maxPersistedSize))
+                  .build());
+        }
         responseObserver.onCompleted();
       }
     }
   }
+
+  /** Fake service that stores uploaded objects in memory, to verify parallel uploads. */
+  private static class ObjectStoreService extends StorageImplBase {
+
+    final Map<String, ByteString> objects = new ConcurrentHashMap<>();
+    // Number of uploads that fail for objects which name contains the key.
+    final Map<String, Integer> failingUploads = new ConcurrentHashMap<>();
+    final AtomicInteger maxConcurrentUploads = new AtomicInteger();
+
+    private final Map<String, String> uploadObjectNames = new ConcurrentHashMap<>();
+    private final Map<String, ByteString> uploadData = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrentUploads = new AtomicInteger();
+
+    @Override
+    public void startResumableWrite(
+        StartResumableWriteRequest request,
+        StreamObserver<StartResumableWriteResponse> responseObserver) {
+      String uploadId = UUID.randomUUID().toString();
+      uploadObjectNames.put(uploadId, request.getWriteObjectSpec().getResource().getName());
+      uploadData.put(uploadId, ByteString.EMPTY);
+      responseObserver.onNext(
+          StartResumableWriteResponse.newBuilder().setUploadId(uploadId).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void queryWriteStatus(
+        QueryWriteStatusRequest request,
+        StreamObserver<QueryWriteStatusResponse> responseObserver) {
+      responseObserver.onNext(
+          QueryWriteStatusResponse.newBuilder()
+              .setPersistedSize(uploadData.get(request.getUploadId()).size())
+              .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public StreamObserver<WriteObjectRequest> writeObject(
+        StreamObserver<WriteObjectResponse> responseObserver) {
+      return new StreamObserver<WriteObjectRequest>() {
+        private boolean started = false;
+        private boolean failed = false;
+
+        @Override
+        public void onNext(WriteObjectRequest request) {
+          String objectName = uploadObjectNames.get(request.getUploadId());
+          if (failed) {
+            return;
+          }
+          if (!started) {
+            started = true;
+            maxConcurrentUploads.accumulateAndGet(concurrentUploads.incrementAndGet(), Math::max);
+            // Gives other streams a chance to start concurrently
+            sleepUninterruptibly(10, MILLISECONDS);
+            if (shouldFail(objectName)) {
+              failed = true;
+              concurrentUploads.decrementAndGet();
+              responseObserver.onError(new StatusException(Status.UNAVAILABLE));
+              return;
+            }
+          }
+          ByteString data =
+              uploadData
+                  .get(request.getUploadId())
+                  .substring(0, toIntExact(request.getWriteOffset()))
+                  .concat(request.getChecksummedData().getContent());
+          uploadData.put(request.getUploadId(), data);
+          if (request.getFinishWrite()) {
+            concurrentUploads.decrementAndGet();
+            objects.put(objectName, data);
+            responseObserver.onNext(
+                WriteObjectResponse.newBuilder()
+                    .setResource(
+                        Object.newBuilder()
+                            .setBucket(BUCKET_NAME)
+                            .setName(objectName)
+                            .setSize(data.size())
+                            .setGeneration(1)
+                            .setChecksums(
+                                ObjectChecksums.newBuilder().setCrc32C(crc32c(data)).build()))
+                    .build());
+          }
+        }
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void onCompleted() {
+          responseObserver.onCompleted();
+        }
+      };
+    }
+
+    GoogleCloudStorageItemInfo compose(
+        List<StorageResourceId> sources, StorageResourceId destination) {
+      ByteString data =
+          sources.stream()
+              .map(id -> checkNotNull(objects.get(id.getObjectName()), "%s not found", id))
+              .reduce(ByteString.EMPTY, ByteString::concat);
+      objects.put(destination.getObjectName(), data);
+      return GoogleCloudStorageItemInfo.createObject(
+          destination,
+          /* creationTime= */ 0,
+          /* modificationTime= */ 0,
+          data.size(),
+          CONTENT_TYPE,
+          /* contentEncoding= */ null,
+          ImmutableMap.of(),
+          /* contentGeneration= */ 1,
+          /* metaGeneration= */ 1,
+          new VerificationAttributes(
+              /* md5hash= */ null, ByteBuffer.allocate(4).putInt(crc32c(data)).array()));
+    }
+
+    private boolean shouldFail(String objectName) {
+      for (Map.Entry<String, Integer> entry : failingUploads.entrySet()) {
+        if (objectName.contains(entry.getKey()) && entry.getValue() > 0) {
+          entry.setValue(entry.getValue() - 1);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static int crc32c(ByteString data) {
+      return Hashing.crc32c().hashBytes(data.toByteArray()).asInt();
+    }
+  }
 }
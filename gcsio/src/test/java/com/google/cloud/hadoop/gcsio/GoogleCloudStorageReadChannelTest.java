@@ -30,13 +30,17 @@ import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.jsonD
 import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.jsonErrorResponse;
 import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.mockTransport;
 import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_RANGE;
 import static com.google.common.truth.Truth.assertThat;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertThrows;
 
 import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.storage.Storage;
 import com.google.api.services.storage.model.StorageObject;
@@ -45,17 +49,24 @@ import com.google.cloud.hadoop.util.RetryHttpInitializer;
 import com.google.cloud.hadoop.util.RetryHttpInitializerOptions;
 import com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.ErrorResponses;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -65,6 +76,8 @@ public class GoogleCloudStorageReadChannelTest {
 
   private static final String PROJECT_ID = "google.com:foo-project";
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void metadataInitialization_eager() throws IOException {
     StorageObject object = newStorageObject(BUCKET_NAME, OBJECT_NAME);
@@ -190,6 +203,55 @@ public class GoogleCloudStorageReadChannelTest {
     assertThat(rangeHeaders).containsExactly("bytes=5-", "bytes=0-0").inOrder();
   }
 
+  @Test
+  public void fadviseAuto_onSequentialReadAfterFooterRead_switchesBackToSequential()
+      throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+
+    List<HttpRequest> requests = new ArrayList<>();
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, /* generation= */ 1),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setFadvise(Fadvise.AUTO)
+            .setInplaceSeekLimit(10)
+            .setMinRangeRequestSize(100)
+            .setMaxRangeRequestSize(400)
+            .build();
+
+    GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+
+    ByteBuffer readBuffer = ByteBuffer.allocate(50);
+    readChannel.position(950);
+    readChannel.read(readBuffer);
+
+    readChannel.position(0);
+    for (int position = 0; position < testData.length; position += readBuffer.capacity()) {
+      readBuffer.clear();
+      assertThat(readChannel.read(readBuffer)).isEqualTo(readBuffer.capacity());
+      assertThat(readBuffer.array())
+          .isEqualTo(Arrays.copyOfRange(testData, position, position + readBuffer.capacity()));
+    }
+
+    assertThat(readChannel.randomAccess).isFalse();
+    assertThat(readChannel.getAdaptiveFadvise().getSequentialToRandomTransitions()).isEqualTo(1);
+    assertThat(readChannel.getAdaptiveFadvise().getRandomToSequentialTransitions()).isEqualTo(1);
+
+    List<String> rangeHeaders =
+        requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    // Footer that was cached on the first read is not requested again
+    assertThat(rangeHeaders)
+        .containsExactly(
+            null, "bytes=900-", "bytes=0-99", "bytes=100-299", "bytes=300-699", "bytes=700-899")
+        .inOrder();
+  }
+
   @Test
   public void footerPrefetch_reused() throws IOException {
     int footerSize = 2;
@@ -744,6 +806,361 @@ public class GoogleCloudStorageReadChannelTest {
         .inOrder();
   }
 
+  @Test
+  public void read_withReadAhead_prefetchesBlocks() throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 5;
+
+    List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, generation),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setFadvise(Fadvise.SEQUENTIAL)
+            .setReadAheadBlockCount(3)
+            .setReadAheadBlockSize(100)
+            .build();
+
+    GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+
+    byte[] readBytes = new byte[testData.length];
+    int totalBytesRead = 0;
+    int bytesRead;
+    while ((bytesRead = readChannel.read(ByteBuffer.wrap(readBytes, totalBytesRead, 64))) > 0) {
+      totalBytesRead += bytesRead;
+      if (totalBytesRead + 64 > readBytes.length) {
+        readBytes = Arrays.copyOf(readBytes, readBytes.length + 64);
+      }
+    }
+
+    assertThat(totalBytesRead).isEqualTo(testData.length);
+    assertThat(Arrays.copyOf(readBytes, totalBytesRead)).isEqualTo(testData);
+
+    List<String> rangeHeaders;
+    synchronized (requests) {
+      rangeHeaders = requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    }
+    assertThat(rangeHeaders)
+        .containsExactly(
+            null,
+            "bytes=0-99",
+            "bytes=100-199",
+            "bytes=200-299",
+            "bytes=300-399",
+            "bytes=400-499",
+            "bytes=500-599",
+            "bytes=600-699",
+            "bytes=700-799",
+            "bytes=800-899",
+            "bytes=900-999");
+  }
+
+  @Test
+  public void read_withReadAheadAndFadviseAuto_prefetchesBlocksAfterSequentialRead()
+      throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 5;
+
+    List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, generation),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setFadvise(Fadvise.AUTO)
+            .setMinRangeRequestSize(10)
+            .setReadAheadBlockCount(2)
+            .setReadAheadBlockSize(300)
+            .build();
+
+    GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+
+    byte[] readBytes = new byte[testData.length];
+    assertThat(readChannel.read(ByteBuffer.wrap(readBytes, 0, 200))).isEqualTo(200);
+    assertThat(readChannel.read(ByteBuffer.wrap(readBytes, 200, 200))).isEqualTo(200);
+    assertThat(readChannel.read(ByteBuffer.wrap(readBytes, 400, 600))).isEqualTo(600);
+    assertThat(readBytes).isEqualTo(testData);
+
+    List<String> rangeHeaders;
+    synchronized (requests) {
+      rangeHeaders = requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    }
+    assertThat(rangeHeaders).containsExactly(null, "bytes=0-", "bytes=400-699", "bytes=700-999");
+  }
+
+  @Test
+  public void read_withStripedRead_readsStripesOfPinnedGeneration() throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 7;
+
+    List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, generation),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setFadvise(Fadvise.AUTO)
+            .setStripedReadCount(4)
+            .setStripedReadSize(250)
+            .build();
+
+    GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+
+    ByteBuffer readBuffer = ByteBuffer.allocate(testData.length);
+    while (readBuffer.hasRemaining() && readChannel.read(readBuffer) > 0) {}
+
+    assertThat(readBuffer.array()).isEqualTo(testData);
+
+    List<String> rangeHeaders;
+    List<String> requestStrings;
+    synchronized (requests) {
+      rangeHeaders = requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+      requestStrings =
+          requests.stream()
+              .skip(1)
+              .map(r -> r.getRequestMethod() + ":" + r.getUrl())
+              .collect(toList());
+    }
+    assertThat(rangeHeaders)
+        .containsExactly(null, "bytes=0-249", "bytes=250-499", "bytes=500-749", "bytes=750-999");
+    assertThat(requestStrings)
+        .containsExactlyElementsIn(
+            Collections.nCopies(4, getMediaRequestString(BUCKET_NAME, OBJECT_NAME, generation)));
+  }
+
+  @Test
+  public void read_withBlockCache_servesRepeatedReadsFromCache() throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 5;
+
+    List<HttpRequest> requests = new ArrayList<>();
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, generation),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setBlockCacheSize(2000)
+            .setBlockCacheBlockSize(300)
+            .build();
+
+    try {
+      for (int i = 0; i < 2; i++) {
+        GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+        readChannel.position(800);
+        ByteBuffer readBuffer = ByteBuffer.allocate(150);
+        while (readBuffer.hasRemaining() && readChannel.read(readBuffer) > 0) {}
+        readChannel.close();
+
+        assertThat(readBuffer.array()).isEqualTo(Arrays.copyOfRange(testData, 800, 950));
+      }
+    } finally {
+      ObjectBlockCache.resetInstance();
+    }
+
+    List<String> rangeHeaders =
+        requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    assertThat(rangeHeaders).containsExactly(null, "bytes=600-899", "bytes=900-999", null);
+  }
+
+  @Test
+  public void read_withBlockCacheAndHedgedRead_hedgesSlowBlockFetch() throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 5;
+
+    MockHttpTransport rangeTransport = rangeServingTransport(testData, generation);
+    AtomicBoolean slowedRequest = new AtomicBoolean();
+    MockHttpTransport transport =
+        new MockHttpTransport() {
+          @Override
+          public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+            LowLevelHttpRequest request = rangeTransport.buildRequest(method, url);
+            return new MockLowLevelHttpRequest() {
+              @Override
+              public void addHeader(String name, String value) throws IOException {
+                request.addHeader(name, value);
+              }
+
+              @Override
+              public LowLevelHttpResponse execute() throws IOException {
+                // Delay the first block fetch, so it's hedged with a duplicate request
+                if (url.contains("alt=media") && slowedRequest.compareAndSet(false, true)) {
+                  Uninterruptibles.sleepUninterruptibly(Duration.ofSeconds(1));
+                }
+                return request.execute();
+              }
+            };
+          }
+        };
+
+    List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+    Storage storage = new Storage(transport, GsonFactory.getDefaultInstance(), requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setBlockCacheSize(2000)
+            .setBlockCacheBlockSize(300)
+            .setHedgedReadEnabled(true)
+            .setHedgedReadMinDelayMillis(10)
+            .build();
+
+    try {
+      GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+      readChannel.position(800);
+      ByteBuffer readBuffer = ByteBuffer.allocate(150);
+      while (readBuffer.hasRemaining() && readChannel.read(readBuffer) > 0) {}
+      readChannel.close();
+
+      assertThat(readBuffer.array()).isEqualTo(Arrays.copyOfRange(testData, 800, 950));
+    } finally {
+      ObjectBlockCache.resetInstance();
+    }
+
+    List<String> rangeHeaders =
+        requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    assertThat(rangeHeaders).containsAtLeast("bytes=600-899", "bytes=600-899", "bytes=900-999");
+  }
+
+  @Test
+  public void read_withDiskCache_servesReadsAfterRestartFromDisk() throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 5;
+
+    List<HttpRequest> requests = new ArrayList<>();
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, generation),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setDiskCacheDirectory(temporaryFolder.getRoot().getPath())
+            .setDiskCacheSize(2000)
+            .setDiskCacheBlockSize(300)
+            .build();
+
+    try {
+      for (int i = 0; i < 2; i++) {
+        GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+        readChannel.position(800);
+        ByteBuffer readBuffer = ByteBuffer.allocate(150);
+        while (readBuffer.hasRemaining() && readChannel.read(readBuffer) > 0) {}
+        readChannel.close();
+
+        assertThat(readBuffer.array()).isEqualTo(Arrays.copyOfRange(testData, 800, 950));
+
+        // Simulate process restart
+        ObjectDiskCache.resetInstances();
+      }
+    } finally {
+      ObjectDiskCache.resetInstances();
+    }
+
+    List<String> rangeHeaders =
+        requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    assertThat(rangeHeaders).containsExactly(null, "bytes=600-899", "bytes=900-999", null);
+  }
+
+  @Test
+  public void read_withFooterPrefetch_prefetchesFooterConcurrentlyWithMetadata()
+      throws IOException {
+    byte[] testData = new byte[1000];
+    new Random().nextBytes(testData);
+    long generation = 5;
+
+    List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+    Storage storage =
+        new Storage(
+            rangeServingTransport(testData, generation),
+            GsonFactory.getDefaultInstance(),
+            requests::add);
+
+    GoogleCloudStorageReadOptions options =
+        GoogleCloudStorageReadOptions.builder()
+            .setFadvise(Fadvise.SEQUENTIAL)
+            .setFooterPrefetchSize(100)
+            .build();
+
+    GoogleCloudStorageReadChannel readChannel = createReadChannel(storage, options);
+    readChannel.position(920);
+    ByteBuffer readBuffer = ByteBuffer.allocate(80);
+    while (readBuffer.hasRemaining() && readChannel.read(readBuffer) > 0) {}
+    readChannel.close();
+
+    assertThat(readBuffer.array()).isEqualTo(Arrays.copyOfRange(testData, 920, 1000));
+
+    List<String> rangeHeaders =
+        requests.stream().map(r -> r.getHeaders().getRange()).collect(toList());
+    assertThat(rangeHeaders).containsExactly(null, "bytes=-100");
+  }
+
+  /** Returns transport that serves object metadata and ranges of the object data. */
+  private static MockHttpTransport rangeServingTransport(byte[] data, long generation) {
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest() {
+          @Override
+          public LowLevelHttpResponse execute() throws IOException {
+            if (!url.contains("alt=media")) {
+              return jsonDataResponse(
+                  newStorageObject(BUCKET_NAME, OBJECT_NAME)
+                      .setSize(BigInteger.valueOf(data.length))
+                      .setGeneration(generation));
+            }
+            String range = getFirstHeaderValue("Range").substring("bytes=".length());
+            String startString = range.substring(0, range.indexOf('-'));
+            String endString = range.substring(range.indexOf('-') + 1);
+            // Suffix range has a form of "-N", that requests last N bytes of the object
+            int start =
+                startString.isEmpty()
+                    ? Math.max(0, data.length - Integer.parseInt(endString))
+                    : Integer.parseInt(startString);
+            int end =
+                endString.isEmpty() || startString.isEmpty()
+                    ? data.length
+                    : Integer.parseInt(endString) + 1;
+            byte[] content = Arrays.copyOfRange(data, start, end);
+            return dataResponse(
+                ImmutableMap.of(
+                    CONTENT_LENGTH,
+                    content.length,
+                    CONTENT_RANGE,
+                    start + "-" + (end - 1) + "/" + data.length,
+                    "x-goog-generation",
+                    generation),
+                content);
+          }
+        };
+      }
+    };
+  }
+
   private static GoogleCloudStorageReadOptions.Builder newLazyReadOptionsBuilder() {
     return GoogleCloudStorageReadOptions.builder().setFastFailOnNotFoundEnabled(false);
   }
@@ -36,4 +36,14 @@ public class GoogleCloudStorageReadOptionsTest {
         .hasMessageThat()
         .isEqualTo("inplaceSeekLimit must be non-negative! Got " + inplaceSeekLimit);
   }
+
+  @Test
+  public void build_throwsException_whenStripedReadSizeNotPositive() {
+    GoogleCloudStorageReadOptions.Builder builder =
+        GoogleCloudStorageReadOptions.builder().setStripedReadSize(0);
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, builder::build);
+
+    assertThat(e).hasMessageThat().isEqualTo("stripedReadSize must be positive! Got 0");
+  }
 }
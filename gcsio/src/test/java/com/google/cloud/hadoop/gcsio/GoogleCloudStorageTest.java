@@ -41,18 +41,26 @@ import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.jsonD
 import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.jsonErrorResponse;
 import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.mockBatchTransport;
 import static com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.mockTransport;
+import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toCollection;
 import static org.junit.Assert.assertThrows;
 
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.googleapis.media.MediaHttpUploader;
+import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
 import com.google.api.client.util.BackOff;
 import com.google.api.client.util.DateTime;
 import com.google.api.client.util.ExponentialBackOff;
@@ -74,8 +82,14 @@ import com.google.cloud.hadoop.util.testing.MockHttpTransportHelper.ErrorRespons
 import com.google.cloud.hadoop.util.testing.ThrowingInputStream;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
 import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
+import com.google.common.truth.Correspondence;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
@@ -90,6 +104,7 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -98,8 +113,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.zip.GZIPOutputStream;
@@ -269,6 +286,80 @@ public class GoogleCloudStorageTest {
     }
   }
 
+  @Test
+  public void create_checksumVerification_succeedsIfChecksumsMatch() throws Exception {
+    byte[] testData = {0x01, 0x02, 0x03, 0x05, 0x08, 0x09};
+
+    MockHttpTransport transport =
+        mockTransport(
+            resumableUploadResponse(BUCKET_NAME, OBJECT_NAME),
+            jsonDataResponse(
+                newStorageObject(BUCKET_NAME, OBJECT_NAME)
+                    .setSize(BigInteger.valueOf(testData.length))
+                    .setCrc32c(
+                        BaseEncoding.base64()
+                            .encode(Ints.toByteArray(Hashing.crc32c().hashBytes(testData).asInt())))
+                    .setMd5Hash(
+                        BaseEncoding.base64()
+                            .encode(Hashing.md5().hashBytes(testData).asBytes()))));
+
+    AsyncWriteChannelOptions writeOptions =
+        AsyncWriteChannelOptions.builder()
+            .setChecksumVerificationEnabled(true)
+            .setMd5ChecksumEnabled(true)
+            .build();
+    GoogleCloudStorage gcs =
+        mockedGcs(GCS_OPTIONS.toBuilder().setWriteChannelOptions(writeOptions).build(), transport);
+
+    try (WritableByteChannel writeChannel =
+        gcs.create(new StorageResourceId(BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0))) {
+      writeChannel.write(ByteBuffer.wrap(testData));
+    }
+
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactly(
+            resumableUploadRequestString(
+                BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0, /* replaceGenerationId= */ false),
+            resumableUploadChunkRequestString(BUCKET_NAME, OBJECT_NAME, /* uploadId= */ 1))
+        .inOrder();
+  }
+
+  @Test
+  public void create_checksumVerification_failsIfCrc32cDoesNotMatch() throws Exception {
+    byte[] testData = {0x01, 0x02, 0x03, 0x05, 0x08, 0x09};
+
+    MockHttpTransport transport =
+        mockTransport(
+            resumableUploadResponse(BUCKET_NAME, OBJECT_NAME),
+            jsonDataResponse(
+                newStorageObject(BUCKET_NAME, OBJECT_NAME)
+                    .setSize(BigInteger.valueOf(testData.length))
+                    .setGeneration(7L)
+                    .setCrc32c(BaseEncoding.base64().encode(Ints.toByteArray(42)))),
+            emptyResponse(HttpStatusCodes.STATUS_CODE_NO_CONTENT));
+
+    AsyncWriteChannelOptions writeOptions =
+        AsyncWriteChannelOptions.builder().setChecksumVerificationEnabled(true).build();
+    GoogleCloudStorage gcs =
+        mockedGcs(GCS_OPTIONS.toBuilder().setWriteChannelOptions(writeOptions).build(), transport);
+
+    WritableByteChannel writeChannel =
+        gcs.create(new StorageResourceId(BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0));
+    writeChannel.write(ByteBuffer.wrap(testData));
+
+    IOException thrown = assertThrows(IOException.class, writeChannel::close);
+    assertThat(thrown).hasCauseThat().hasMessageThat().contains("CRC32C mismatch");
+    // Created object with mismatching checksum should be deleted
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactly(
+            resumableUploadRequestString(
+                BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0, /* replaceGenerationId= */ false),
+            resumableUploadChunkRequestString(BUCKET_NAME, OBJECT_NAME, /* uploadId= */ 1),
+            deleteRequestString(
+                BUCKET_NAME, OBJECT_NAME, /* generationId= */ 7, /* replaceGenerationId= */ false))
+        .inOrder();
+  }
+
   /**
    * Test handling of various types of exceptions thrown during JSON API call for
    * GoogleCloudStorage.create(2).
@@ -700,6 +791,191 @@ public class GoogleCloudStorageTest {
     assertThat(writeException).hasCauseThat().hasMessageThat().startsWith("410");
   }
 
+  @Test
+  public void createObject_uploadsContentInSingleRequest() throws Exception {
+    byte[] testData = {0x01, 0x02, 0x03, 0x05, 0x08, 0x09};
+    StorageObject storageObject =
+        newStorageObject(BUCKET_NAME, OBJECT_NAME).setSize(BigInteger.valueOf(testData.length));
+
+    MockHttpTransport transport = mockTransport(jsonDataResponse(storageObject));
+
+    GoogleCloudStorage gcs = mockedGcs(transport);
+
+    GoogleCloudStorageItemInfo itemInfo =
+        gcs.createObject(
+            new StorageResourceId(BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0),
+            testData,
+            CreateObjectOptions.DEFAULT_NO_OVERWRITE);
+
+    assertThat(itemInfo.getSize()).isEqualTo(testData.length);
+    assertThat(itemInfo.getContentGeneration()).isEqualTo(storageObject.getGeneration());
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactly(
+            uploadRequestString(
+                BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0, /* replaceGenerationId= */ false));
+
+    HttpRequest uploadRequest = trackingRequestInitializerWithRetries.getAllRequests().get(0);
+    try (ByteArrayOutputStream writtenData = new ByteArrayOutputStream()) {
+      uploadRequest.getContent().writeTo(writtenData);
+      assertThat(writtenData.toString(UTF_8.name())).contains(new String(testData, UTF_8));
+    }
+  }
+
+  @Test
+  public void createObject_withoutGenerationId_usesWriteGeneration() throws Exception {
+    byte[] testData = {0x01, 0x02, 0x03};
+
+    MockHttpTransport transport =
+        mockTransport(
+            jsonErrorResponse(ErrorResponses.NOT_FOUND),
+            jsonDataResponse(
+                newStorageObject(BUCKET_NAME, OBJECT_NAME)
+                    .setSize(BigInteger.valueOf(testData.length))));
+
+    GoogleCloudStorage gcs = mockedGcs(transport);
+
+    gcs.createObject(RESOURCE_ID, testData, CreateObjectOptions.DEFAULT_OVERWRITE);
+
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactly(
+            getRequestString(BUCKET_NAME, OBJECT_NAME),
+            uploadRequestString(
+                BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0, /* replaceGenerationId= */ false))
+        .inOrder();
+  }
+
+  @Test
+  public void createObject_withoutGenerationIdAndNoOverwrite_doesNotGetMetadata() throws Exception {
+    byte[] testData = {0x01, 0x02, 0x03};
+
+    MockHttpTransport transport =
+        mockTransport(
+            jsonDataResponse(
+                newStorageObject(BUCKET_NAME, OBJECT_NAME)
+                    .setSize(BigInteger.valueOf(testData.length))));
+
+    GoogleCloudStorage gcs = mockedGcs(transport);
+
+    gcs.createObject(RESOURCE_ID, testData, CreateObjectOptions.DEFAULT_NO_OVERWRITE);
+
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactly(
+            uploadRequestString(
+                BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0, /* replaceGenerationId= */ false));
+  }
+
+  @Test
+  public void createObjects_withoutGenerationIds_doNotGetMetadata() throws Exception {
+    List<CreatableItemInfo> items = new ArrayList<>();
+    List<String> expectedRequests = new ArrayList<>();
+    Object[] responses = new Object[3];
+    for (int i = 0; i < 3; i++) {
+      String objectName = OBJECT_NAME + i;
+      items.add(
+          new CreatableItemInfo(
+              new StorageResourceId(BUCKET_NAME, objectName),
+              new byte[] {(byte) i},
+              CreateObjectOptions.DEFAULT_NO_OVERWRITE));
+      expectedRequests.add(
+          uploadRequestString(
+              BUCKET_NAME, objectName, /* generationId= */ 0, /* replaceGenerationId= */ false));
+      responses[i] =
+          jsonDataResponse(
+              newStorageObject(BUCKET_NAME, OBJECT_NAME).setSize(BigInteger.valueOf(1)));
+    }
+
+    GoogleCloudStorage gcs = mockedGcs(mockTransport(responses));
+
+    gcs.createObjects(items);
+
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactlyElementsIn(expectedRequests);
+  }
+
+  @Test
+  public void createObjects_createsAllObjectsConcurrently() throws Exception {
+    List<CreatableItemInfo> items = new ArrayList<>();
+    List<String> expectedRequests = new ArrayList<>();
+    Object[] responses = new Object[3];
+    for (int i = 0; i < 3; i++) {
+      String objectName = OBJECT_NAME + i;
+      items.add(
+          new CreatableItemInfo(
+              new StorageResourceId(BUCKET_NAME, objectName, /* generationId= */ 0),
+              new byte[] {(byte) i},
+              CreateObjectOptions.DEFAULT_NO_OVERWRITE));
+      expectedRequests.add(
+          uploadRequestString(
+              BUCKET_NAME, objectName, /* generationId= */ 0, /* replaceGenerationId= */ false));
+      responses[i] =
+          jsonDataResponse(
+              newStorageObject(BUCKET_NAME, OBJECT_NAME).setSize(BigInteger.valueOf(1)));
+    }
+
+    GoogleCloudStorage gcs = mockedGcs(mockTransport(responses));
+
+    List<GoogleCloudStorageItemInfo> createdItems = gcs.createObjects(items);
+
+    assertThat(createdItems).hasSize(3);
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactlyElementsIn(expectedRequests);
+  }
+
+  @Test
+  public void createObjects_retriesRateLimitedRequests() throws Exception {
+    StorageResourceId resourceId =
+        new StorageResourceId(BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0);
+    StorageObject storageObject =
+        newStorageObject(BUCKET_NAME, OBJECT_NAME).setSize(BigInteger.valueOf(2));
+
+    MockHttpTransport transport =
+        mockTransport(
+            jsonErrorResponse(ErrorResponses.RATE_LIMITED), jsonDataResponse(storageObject));
+
+    GoogleCloudStorage gcs = mockedGcs(transport);
+
+    List<GoogleCloudStorageItemInfo> createdItems =
+        gcs.createObjects(
+            ImmutableList.of(
+                new CreatableItemInfo(
+                    resourceId,
+                    new byte[] {0x01, 0x02},
+                    CreateObjectOptions.DEFAULT_NO_OVERWRITE)));
+
+    assertThat(createdItems).hasSize(1);
+    assertThat(createdItems.get(0).getContentGeneration()).isEqualTo(storageObject.getGeneration());
+    String uploadRequest =
+        uploadRequestString(
+            BUCKET_NAME, OBJECT_NAME, /* generationId= */ 0, /* replaceGenerationId= */ false);
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .containsExactly(uploadRequest, uploadRequest);
+  }
+
+  @Test
+  public void createObjects_failsIfAnyObjectFailed() throws Exception {
+    List<CreatableItemInfo> items =
+        ImmutableList.of(
+            new CreatableItemInfo(
+                new StorageResourceId(BUCKET_NAME, OBJECT_NAME + 1, /* generationId= */ 0),
+                new byte[] {0x01},
+                CreateObjectOptions.DEFAULT_NO_OVERWRITE),
+            new CreatableItemInfo(
+                new StorageResourceId(BUCKET_NAME, OBJECT_NAME + 2, /* generationId= */ 0),
+                new byte[] {0x02},
+                CreateObjectOptions.DEFAULT_NO_OVERWRITE));
+
+    MockHttpTransport transport =
+        mockTransport(
+            jsonDataResponse(newStorageObject(BUCKET_NAME, OBJECT_NAME)),
+            jsonErrorResponse(ErrorResponses.NOT_FOUND));
+
+    GoogleCloudStorage gcs = mockedGcs(transport);
+
+    IOException thrown = assertThrows(IOException.class, () -> gcs.createObjects(items));
+    assertThat(thrown).hasMessageThat().startsWith("Error inserting gs://" + BUCKET_NAME);
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings()).hasSize(2);
+  }
+
   /** Test successful operation of GoogleCloudStorage.createEmptyObject(1). */
   @Test
   public void testCreateEmptyObject() throws IOException {
@@ -2929,6 +3205,140 @@ public class GoogleCloudStorageTest {
         .inOrder();
   }
 
+  @Test
+  public void listObjectInfo_parallel_flat_listsAllObjectsInOrder() throws IOException {
+    String prefix = "dir/";
+    List<StorageObject> objects = new ArrayList<>();
+    objects.add(newStorageObject(BUCKET_NAME, prefix));
+    for (int i = 0; i < 300; i++) {
+      objects.add(newStorageObject(BUCKET_NAME, String.format("%spart-%05d", prefix, i)));
+    }
+
+    GoogleCloudStorage gcs =
+        mockedGcs(
+            GCS_OPTIONS.toBuilder().setMaxListItemsPerCall(20).setListParallelism(4).build(),
+            fakeListTransport(objects));
+
+    List<GoogleCloudStorageItemInfo> objectInfos =
+        gcs.listObjectInfo(
+            BUCKET_NAME, prefix, ListObjectOptions.DEFAULT.toBuilder().setDelimiter(null).build());
+
+    assertThat(objectInfos)
+        .containsExactlyElementsIn(
+            objects.subList(1, objects.size()).stream()
+                .map(GoogleCloudStorageImpl::createItemInfoForStorageObject)
+                .collect(toImmutableList()))
+        .inOrder();
+    assertThat(trackingRequestInitializerWithRetries.getAllRequestStrings())
+        .comparingElementsUsing(Correspondence.<String, String>from(String::contains, "contains"))
+        .contains("startOffset=");
+  }
+
+  @Test
+  public void listObjectInfo_parallel_withDelimiter_mergesPrefixes() throws IOException {
+    String prefix = "dir/";
+    List<StorageObject> objects = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      objects.add(newStorageObject(BUCKET_NAME, String.format("%sfile-%03d", prefix, i)));
+    }
+    StorageObject subdirObject = newStorageObject(BUCKET_NAME, prefix + "subdir/");
+    objects.add(subdirObject);
+    for (int i = 0; i < 100; i++) {
+      objects.add(newStorageObject(BUCKET_NAME, String.format("%ssubdir/%03d", prefix, i)));
+    }
+    objects.add(newStorageObject(BUCKET_NAME, prefix + "subdir2/file"));
+
+    GoogleCloudStorage gcs =
+        mockedGcs(
+            GCS_OPTIONS.toBuilder().setMaxListItemsPerCall(10).setListParallelism(8).build(),
+            fakeListTransport(objects));
+
+    List<GoogleCloudStorageItemInfo> objectInfos = gcs.listObjectInfo(BUCKET_NAME, prefix);
+
+    List<GoogleCloudStorageItemInfo> expectedInfos =
+        objects.subList(0, 100).stream()
+            .map(GoogleCloudStorageImpl::createItemInfoForStorageObject)
+            .collect(toCollection(ArrayList::new));
+    expectedInfos.add(createItemInfoForStorageObject(subdirObject));
+    expectedInfos.add(
+        createInferredDirectory(new StorageResourceId(BUCKET_NAME, prefix + "subdir2/")));
+    assertThat(objectInfos).containsExactlyElementsIn(expectedInfos).inOrder();
+  }
+
+  @Test
+  public void listObjectInfo_parallel_rangeFailure_stopsOtherRanges() throws Exception {
+    String prefix = "dir/";
+    List<StorageObject> objects = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      objects.add(newStorageObject(BUCKET_NAME, String.format("%spart-%05d", prefix, i)));
+    }
+    MockHttpTransport listTransport = fakeListTransport(objects);
+    AtomicInteger listRequests = new AtomicInteger();
+    AtomicBoolean failedRequest = new AtomicBoolean();
+    MockHttpTransport transport =
+        new MockHttpTransport() {
+          @Override
+          public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+            // Fail one of the split ranges, while the last range is slowly listed and split
+            if (listRequests.incrementAndGet() > 5
+                && new GenericUrl(url).getFirst("endOffset") != null
+                && failedRequest.compareAndSet(false, true)) {
+              return new MockLowLevelHttpRequest()
+                  .setResponse(jsonErrorResponse(ErrorResponses.RANGE_NOT_SATISFIABLE));
+            }
+            Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(10));
+            return listTransport.buildRequest(method, url);
+          }
+        };
+
+    GoogleCloudStorage gcs =
+        mockedGcs(
+            GCS_OPTIONS.toBuilder().setMaxListItemsPerCall(10).setListParallelism(4).build(),
+            transport);
+
+    assertThrows(IOException.class, () -> gcs.listObjectInfo(BUCKET_NAME, prefix));
+    int requestsOnFailure = listRequests.get();
+    Thread.sleep(500);
+
+    // Other ranges should stop after their in-flight requests, without listing remaining pages
+    assertThat(requestsOnFailure).isLessThan(50);
+    assertThat(listRequests.get()).isAtMost(requestsOnFailure + 4);
+  }
+
+  @Test
+  public void getListRangeBoundaries_splitsAtFirstDifferentCharacter() {
+    assertThat(
+            GoogleCloudStorageImpl.getListRangeBoundaries(
+                "dir/", "dir/part-00000", "dir/part-04999", /* endOffset= */ null, 7))
+        .containsExactly(
+            "dir/part-05", "dir/part-06", "dir/part-07", "dir/part-08", "dir/part-09", "dir/part-1")
+        .inOrder();
+    assertThat(
+            GoogleCloudStorageImpl.getListRangeBoundaries(
+                "dir/", "dir/part-00000", "dir/part-04999", /* endOffset= */ null, 1))
+        .containsExactly("dir/part-1");
+    assertThat(
+            GoogleCloudStorageImpl.getListRangeBoundaries(
+                "dir/", "dir/part-00000", "dir/part-04999", "dir/part-07", 7))
+        .containsExactly("dir/part-05", "dir/part-06")
+        .inOrder();
+    assertThat(GoogleCloudStorageImpl.getListRangeBoundaries("", "a", "c", null, 2))
+        .containsExactly("d", "o")
+        .inOrder();
+  }
+
+  @Test
+  public void getListRangeBoundaries_nonAsciiOrSameNames_notSplit() {
+    assertThat(
+            GoogleCloudStorageImpl.getListRangeBoundaries(
+                "dir/", "dir/a", "dir/\u00e9t\u00e9", /* endOffset= */ null, 4))
+        .isEmpty();
+    assertThat(
+            GoogleCloudStorageImpl.getListRangeBoundaries(
+                "dir/", "dir/a", "dir/a", /* endOffset= */ null, 4))
+        .isEmpty();
+  }
+
   /** Test GoogleCloudStorage.getItemInfo(StorageResourceId) when arguments represent ROOT. */
   @Test
   public void testGetItemInfoRoot() throws IOException {
@@ -3591,6 +4001,75 @@ public class GoogleCloudStorageTest {
         .setUpdated(new DateTime(new Date()));
   }
 
+  /**
+   * Returns transport that serves list requests from the given objects, honoring prefix, delimiter,
+   * start and end offsets, and paginating by max results.
+   */
+  private static MockHttpTransport fakeListTransport(List<StorageObject> objects) {
+    TreeMap<String, StorageObject> objectsByName = new TreeMap<>();
+    objects.forEach(o -> objectsByName.put(o.getName(), o));
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest() {
+          @Override
+          public LowLevelHttpResponse execute() throws IOException {
+            GenericUrl requestUrl = new GenericUrl(url);
+            String prefix = nullToEmpty((String) requestUrl.getFirst("prefix"));
+            String delimiter = (String) requestUrl.getFirst("delimiter");
+            String startOffset = (String) requestUrl.getFirst("startOffset");
+            String endOffset = (String) requestUrl.getFirst("endOffset");
+            String pageToken = (String) requestUrl.getFirst("pageToken");
+            int maxResults = Integer.parseInt((String) requestUrl.getFirst("maxResults"));
+
+            Map<String, StorageObject> items = new HashMap<>();
+            TreeSet<String> prefixes = new TreeSet<>();
+            TreeSet<String> entries = new TreeSet<>();
+            for (StorageObject object : objectsByName.tailMap(prefix).values()) {
+              String name = object.getName();
+              if (!name.startsWith(prefix)) {
+                break;
+              }
+              if ((startOffset != null && name.compareTo(startOffset) < 0)
+                  || (endOffset != null && name.compareTo(endOffset) >= 0)) {
+                continue;
+              }
+              int delimiterIndex =
+                  delimiter == null ? -1 : name.indexOf(delimiter, prefix.length());
+              if (delimiterIndex >= 0) {
+                String namePrefix = name.substring(0, delimiterIndex + delimiter.length());
+                prefixes.add(namePrefix);
+                entries.add(namePrefix);
+                if (!namePrefix.equals(name)) {
+                  continue;
+                }
+              }
+              items.put(name, object);
+              entries.add(name);
+            }
+
+            List<String> page =
+                (pageToken == null ? entries : entries.tailSet(pageToken, /* inclusive= */ false))
+                    .stream().limit(maxResults).collect(toImmutableList());
+            boolean hasNextPage =
+                !page.isEmpty()
+                    && !entries.tailSet(Iterables.getLast(page), /* inclusive= */ false).isEmpty();
+            return jsonDataResponse(
+                new Objects()
+                    .setItems(
+                        page.stream()
+                            .filter(items::containsKey)
+                            .map(items::get)
+                            .collect(toImmutableList()))
+                    .setPrefixes(
+                        page.stream().filter(prefixes::contains).collect(toImmutableList()))
+                    .setNextPageToken(hasNextPage ? Iterables.getLast(page) : null));
+          }
+        };
+      }
+    };
+  }
+
   static StorageObject newStorageObject(String bucketName, String objectName) {
     Random r = new Random();
     return new StorageObject()
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.cloud.hadoop.gcsio.HedgedReads.HEDGED_READS_ISSUED;
+import static com.google.cloud.hadoop.gcsio.HedgedReads.HEDGED_READS_WON;
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link HedgedReads}. */
+@RunWith(JUnit4.class)
+public class HedgedReadsTest {
+
+  private static final GoogleCloudStorageReadOptions READ_OPTIONS =
+      GoogleCloudStorageReadOptions.builder()
+          .setHedgedReadEnabled(true)
+          .setHedgedReadPercentile(90)
+          .setHedgedReadMinDelayMillis(10)
+          .build();
+
+  @Test
+  public void getHedgeDelayNanos_notEnoughSamples_returnsMinDelay() {
+    HedgedReads hedgedReads = new HedgedReads();
+
+    for (int i = 0; i < HedgedReads.MIN_LATENCY_SAMPLES - 1; i++) {
+      hedgedReads.recordLatency(MILLISECONDS.toNanos(1000));
+    }
+
+    assertThat(hedgedReads.getHedgeDelayNanos(READ_OPTIONS)).isEqualTo(MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  public void getHedgeDelayNanos_returnsPercentileOfRecentLatencies() {
+    HedgedReads hedgedReads = new HedgedReads();
+
+    for (int i = 1; i <= 100; i++) {
+      hedgedReads.recordLatency(MILLISECONDS.toNanos(i));
+    }
+
+    assertThat(hedgedReads.getHedgeDelayNanos(READ_OPTIONS)).isEqualTo(MILLISECONDS.toNanos(90));
+    assertThat(
+            hedgedReads.getHedgeDelayNanos(
+                READ_OPTIONS.toBuilder().setHedgedReadMinDelayMillis(95).build()))
+        .isEqualTo(MILLISECONDS.toNanos(95));
+  }
+
+  @Test
+  public void getHedgeDelayNanos_evictsOldLatencies() {
+    HedgedReads hedgedReads = new HedgedReads();
+
+    for (int i = 0; i < HedgedReads.LATENCY_WINDOW_SIZE; i++) {
+      hedgedReads.recordLatency(MILLISECONDS.toNanos(1000));
+    }
+    for (int i = 0; i < HedgedReads.LATENCY_WINDOW_SIZE; i++) {
+      hedgedReads.recordLatency(MILLISECONDS.toNanos(20));
+    }
+
+    assertThat(hedgedReads.getHedgeDelayNanos(READ_OPTIONS)).isEqualTo(MILLISECONDS.toNanos(20));
+  }
+
+  @Test
+  public void execute_fastRequest_doesNotIssueHedge() throws Exception {
+    HedgedReads hedgedReads = new HedgedReads();
+    Map<String, Long> statsBefore = HedgedReads.getStatistics();
+    AtomicBoolean hedgeCalled = new AtomicBoolean();
+
+    String result =
+        hedgedReads.execute(
+            READ_OPTIONS,
+            () -> "request",
+            () -> {
+              hedgeCalled.set(true);
+              return "hedge";
+            },
+            r -> {});
+
+    assertThat(result).isEqualTo("request");
+    assertThat(hedgeCalled.get()).isFalse();
+    assertThat(HedgedReads.getStatistics().get(HEDGED_READS_ISSUED))
+        .isEqualTo(statsBefore.get(HEDGED_READS_ISSUED));
+  }
+
+  @Test
+  public void execute_slowRequest_hedgeWinsAndRequestIsInterrupted() throws Exception {
+    HedgedReads hedgedReads = new HedgedReads();
+    CountDownLatch requestInterrupted = new CountDownLatch(1);
+    List<String> discardedResults = new CopyOnWriteArrayList<>();
+
+    String result =
+        hedgedReads.execute(
+            READ_OPTIONS,
+            () -> {
+              try {
+                new CountDownLatch(1).await();
+              } catch (InterruptedException e) {
+                requestInterrupted.countDown();
+                throw e;
+              }
+              return "request";
+            },
+            () -> "hedge",
+            discardedResults::add);
+
+    assertThat(result).isEqualTo("hedge");
+    assertThat(requestInterrupted.await(10, SECONDS)).isTrue();
+    assertThat(discardedResults).isEmpty();
+  }
+
+  @Test
+  public void execute_slowRequestCompletesDespiteCancellation_requestIsDiscarded()
+      throws Exception {
+    HedgedReads hedgedReads = new HedgedReads();
+    Map<String, Long> statsBefore = HedgedReads.getStatistics();
+    CountDownLatch hedgeCompleted = new CountDownLatch(1);
+    CountDownLatch discarded = new CountDownLatch(1);
+    List<String> discardedResults = new CopyOnWriteArrayList<>();
+
+    String result =
+        hedgedReads.execute(
+            READ_OPTIONS,
+            () -> {
+              // Ignore interrupt, so the request completes after it was cancelled.
+              Uninterruptibles.awaitUninterruptibly(hedgeCompleted);
+              return "request";
+            },
+            () -> {
+              hedgeCompleted.countDown();
+              return "hedge";
+            },
+            r -> {
+              discardedResults.add(r);
+              discarded.countDown();
+            });
+
+    assertThat(result).isEqualTo("hedge");
+    discarded.await();
+    assertThat(discardedResults).containsExactly("request");
+    Map<String, Long> statsAfter = HedgedReads.getStatistics();
+    assertThat(statsAfter.get(HEDGED_READS_ISSUED))
+        .isAtLeast(statsBefore.get(HEDGED_READS_ISSUED) + 1);
+    assertThat(statsAfter.get(HEDGED_READS_WON)).isAtLeast(statsBefore.get(HEDGED_READS_WON) + 1);
+  }
+
+  @Test
+  public void execute_slowRequestFails_returnsHedgeResult() throws Exception {
+    HedgedReads hedgedReads = new HedgedReads();
+    CountDownLatch hedgeIssued = new CountDownLatch(1);
+
+    String result =
+        hedgedReads.execute(
+            READ_OPTIONS,
+            () -> {
+              hedgeIssued.await();
+              throw new IOException("request failed");
+            },
+            () -> {
+              hedgeIssued.countDown();
+              return "hedge";
+            },
+            r -> {});
+
+    assertThat(result).isEqualTo("hedge");
+  }
+
+  @Test
+  public void execute_bothRequestsFail_throwsRequestFailure() {
+    HedgedReads hedgedReads = new HedgedReads();
+    CountDownLatch hedgeFailed = new CountDownLatch(1);
+
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                hedgedReads.execute(
+                    READ_OPTIONS,
+                    () -> {
+                      hedgeFailed.await();
+                      throw new IOException("request failed");
+                    },
+                    () -> {
+                      try {
+                        throw new IOException("hedge failed");
+                      } finally {
+                        hedgeFailed.countDown();
+                      }
+                    },
+                    r -> {}));
+
+    assertThat(e).hasMessageThat().isEqualTo("request failed");
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.cloud.hadoop.gcsio.ObjectBlockCache.BLOCK_CACHE_COALESCED_MISSES;
+import static com.google.cloud.hadoop.gcsio.ObjectBlockCache.BLOCK_CACHE_EVICTIONS;
+import static com.google.cloud.hadoop.gcsio.ObjectBlockCache.BLOCK_CACHE_HITS;
+import static com.google.cloud.hadoop.gcsio.ObjectBlockCache.BLOCK_CACHE_MISSES;
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ObjectBlockCache}. */
+@RunWith(JUnit4.class)
+public class ObjectBlockCacheTest {
+
+  private static final int BLOCK_SIZE = 10;
+
+  private final List<Long> fetchedOffsets = new ArrayList<>();
+
+  private final BlockFetcher fetcher =
+      (offset, buffer) -> {
+        fetchedOffsets.add(offset);
+        while (buffer.hasRemaining()) {
+          buffer.put((byte) (offset + buffer.position()));
+        }
+      };
+
+  @After
+  public void tearDown() {
+    ObjectBlockCache.resetInstance();
+  }
+
+  @Test
+  public void getBlock_cachesBlocksOfObjectGeneration() throws IOException {
+    ObjectBlockCache cache = new ObjectBlockCache(100, BLOCK_SIZE, /* offHeap= */ false);
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+
+    ByteBuffer block = cache.getBlock(resourceId, /* objectSize= */ 25, 21, fetcher);
+    cache.getBlock(resourceId, /* objectSize= */ 25, 24, fetcher);
+
+    assertThat(block.remaining()).isEqualTo(5);
+    assertThat(block.get(0)).isEqualTo((byte) 20);
+    assertThat(block.isReadOnly()).isTrue();
+    assertThat(fetchedOffsets).containsExactly(20L);
+  }
+
+  @Test
+  public void getBlock_differentGeneration_fetchesBlock() throws IOException {
+    ObjectBlockCache cache = new ObjectBlockCache(100, BLOCK_SIZE, /* offHeap= */ true);
+
+    cache.getBlock(new StorageResourceId("bucket", "object", 1), 100, 5, fetcher);
+    cache.getBlock(new StorageResourceId("bucket", "object", 2), 100, 5, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(0L, 0L);
+  }
+
+  @Test
+  public void getBlock_overCapacity_evictsLeastRecentlyUsedBlocks() throws IOException {
+    ObjectBlockCache cache = new ObjectBlockCache(2 * BLOCK_SIZE, BLOCK_SIZE, /* offHeap= */ false);
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 10, fetcher);
+    // Access the first block, so the second block is the least recently used.
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 20, fetcher);
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 10, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(0L, 10L, 20L, 10L).inOrder();
+    assertThat(cache.getCachedBytes()).isEqualTo(2 * BLOCK_SIZE);
+  }
+
+  @Test
+  public void getBlock_concurrentMisses_fetchBlockOnce() throws Exception {
+    ObjectBlockCache cache =
+        ObjectBlockCache.getInstance(
+            GoogleCloudStorageReadOptions.builder()
+                .setBlockCacheSize(100)
+                .setBlockCacheBlockSize(BLOCK_SIZE)
+                .build());
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+    AtomicInteger fetchCount = new AtomicInteger();
+    CountDownLatch fetchStarted = new CountDownLatch(1);
+    CountDownLatch fetchReleased = new CountDownLatch(1);
+    BlockFetcher slowFetcher =
+        (offset, buffer) -> {
+          fetchCount.incrementAndGet();
+          fetchStarted.countDown();
+          try {
+            fetchReleased.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+          }
+          fetcher.fetch(offset, buffer);
+        };
+
+    int readers = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(readers);
+    try {
+      List<Future<ByteBuffer>> blocks = new ArrayList<>();
+      for (int i = 0; i < readers; i++) {
+        blocks.add(executor.submit(() -> cache.getBlock(resourceId, 100, 5, slowFetcher)));
+      }
+      assertThat(fetchStarted.await(10, SECONDS)).isTrue();
+      // Let other readers miss the block while it's being fetched.
+      Thread.sleep(100);
+      fetchReleased.countDown();
+
+      for (Future<ByteBuffer> block : blocks) {
+        assertThat(block.get().get(0)).isEqualTo((byte) 0);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(fetchCount.get()).isEqualTo(1);
+
+    // Readers that waited for the fetch are not counted as hits
+    Map<String, Long> statistics = ObjectBlockCache.getStatistics();
+    assertThat(statistics).containsEntry(BLOCK_CACHE_MISSES, 1L);
+    assertThat(statistics.get(BLOCK_CACHE_COALESCED_MISSES)).isAtLeast(1L);
+    assertThat(statistics.get(BLOCK_CACHE_HITS) + statistics.get(BLOCK_CACHE_COALESCED_MISSES))
+        .isEqualTo(readers - 1);
+  }
+
+  @Test
+  public void getInstance_differentSettings_returnsSeparateCaches() {
+    GoogleCloudStorageReadOptions readOptions =
+        GoogleCloudStorageReadOptions.builder()
+            .setBlockCacheSize(10 * BLOCK_SIZE)
+            .setBlockCacheBlockSize(BLOCK_SIZE)
+            .build();
+    GoogleCloudStorageReadOptions otherReadOptions =
+        readOptions.toBuilder().setBlockCacheBlockSize(2 * BLOCK_SIZE).build();
+
+    ObjectBlockCache cache = ObjectBlockCache.getInstance(readOptions);
+    ObjectBlockCache otherCache = ObjectBlockCache.getInstance(otherReadOptions);
+
+    assertThat(otherCache).isNotSameInstanceAs(cache);
+    assertThat(cache.getBlockSize()).isEqualTo(BLOCK_SIZE);
+    assertThat(otherCache.getBlockSize()).isEqualTo(2 * BLOCK_SIZE);
+    assertThat(ObjectBlockCache.getInstance(otherReadOptions)).isSameInstanceAs(otherCache);
+  }
+
+  @Test
+  public void getStatistics_returnsCountersOfProcessWideCache() throws IOException {
+    assertThat(ObjectBlockCache.getStatistics()).isEmpty();
+
+    GoogleCloudStorageReadOptions readOptions =
+        GoogleCloudStorageReadOptions.builder()
+            .setBlockCacheSize(BLOCK_SIZE)
+            .setBlockCacheBlockSize(BLOCK_SIZE)
+            .build();
+    ObjectBlockCache cache = ObjectBlockCache.getInstance(readOptions);
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 10, fetcher);
+
+    assertThat(ObjectBlockCache.getInstance(readOptions)).isSameInstanceAs(cache);
+    assertThat(ObjectBlockCache.getStatistics())
+        .containsExactly(
+            BLOCK_CACHE_HITS,
+            1L,
+            BLOCK_CACHE_MISSES,
+            2L,
+            BLOCK_CACHE_COALESCED_MISSES,
+            0L,
+            BLOCK_CACHE_EVICTIONS,
+            1L);
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.hadoop.gcsio.ReadAheadPrefetcher.BlockFetcher;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ObjectDiskCache}. */
+@RunWith(JUnit4.class)
+public class ObjectDiskCacheTest {
+
+  private static final int BLOCK_SIZE = 10;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<Long> fetchedOffsets = new ArrayList<>();
+
+  private final BlockFetcher fetcher =
+      (offset, buffer) -> {
+        fetchedOffsets.add(offset);
+        while (buffer.hasRemaining()) {
+          buffer.put((byte) (offset + buffer.position()));
+        }
+      };
+
+  @After
+  public void tearDown() {
+    ObjectDiskCache.resetInstances();
+  }
+
+  @Test
+  public void getBlock_afterRestart_servesBlocksFromDisk() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    StorageResourceId resourceId = new StorageResourceId("bucket", "dir/object", 3);
+
+    ObjectDiskCache cache = new ObjectDiskCache(directory, 100, BLOCK_SIZE);
+    cache.getBlock(resourceId, /* objectSize= */ 25, 21, fetcher);
+
+    ObjectDiskCache restartedCache = new ObjectDiskCache(directory, 100, BLOCK_SIZE);
+    ByteBuffer block = restartedCache.getBlock(resourceId, /* objectSize= */ 25, 24, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(20L);
+    assertThat(block.remaining()).isEqualTo(5);
+    assertThat(block.get(0)).isEqualTo((byte) 20);
+    assertThat(restartedCache.getCachedBytes()).isEqualTo(5);
+  }
+
+  @Test
+  public void getBlock_afterRestartWithDifferentBlockSize_fetchesBlock() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+
+    ObjectDiskCache cache = new ObjectDiskCache(directory, 100, BLOCK_SIZE);
+    // Caches second block that covers [10, 20) range.
+    cache.getBlock(resourceId, /* objectSize= */ 30, 15, fetcher);
+
+    ObjectDiskCache restartedCache = new ObjectDiskCache(directory, 100, 2 * BLOCK_SIZE);
+    // Second block covers [20, 30) range and has the same length as the cached block.
+    ByteBuffer block = restartedCache.getBlock(resourceId, /* objectSize= */ 30, 25, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(10L, 20L).inOrder();
+    assertThat(block.remaining()).isEqualTo(10);
+    assertThat(block.get(0)).isEqualTo((byte) 20);
+  }
+
+  @Test
+  public void getBlock_differentGeneration_fetchesBlock() throws IOException {
+    ObjectDiskCache cache =
+        new ObjectDiskCache(temporaryFolder.getRoot().toPath(), 100, BLOCK_SIZE);
+
+    cache.getBlock(new StorageResourceId("bucket", "object", 1), 100, 5, fetcher);
+    cache.getBlock(new StorageResourceId("bucket", "object", 2), 100, 5, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(0L, 0L);
+  }
+
+  @Test
+  public void getBlock_overCapacity_deletesLeastRecentlyUsedBlocks() throws IOException {
+    ObjectDiskCache cache =
+        new ObjectDiskCache(temporaryFolder.getRoot().toPath(), 2 * BLOCK_SIZE, BLOCK_SIZE);
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 10, fetcher);
+    // Access the first block, so the second block is the least recently used.
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    cache.getBlock(resourceId, 100, 20, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(0L, 10L, 20L).inOrder();
+    assertThat(cache.getCachedBytes()).isEqualTo(2 * BLOCK_SIZE);
+    assertThat(Files.exists(cache.getBlockPath(resourceId, 0))).isTrue();
+    assertThat(Files.exists(cache.getBlockPath(resourceId, 1))).isFalse();
+    assertThat(Files.exists(cache.getBlockPath(resourceId, 2))).isTrue();
+  }
+
+  @Test
+  public void getBlock_overCapacity_doesNotDeleteUnrelatedFiles() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+    ObjectDiskCache cache = new ObjectDiskCache(directory, 2 * BLOCK_SIZE, BLOCK_SIZE);
+    cache.getBlock(resourceId, 100, 0, fetcher);
+
+    Path blockDirectory = cache.getBlockPath(resourceId, 0).getParent();
+    List<Path> unrelatedFiles =
+        ImmutableList.of(
+            directory.resolve("user-file"),
+            directory.resolve(ObjectDiskCache.BLOCKS_DIRECTORY).resolve("user-file"),
+            blockDirectory.resolve("user-file"));
+    for (Path file : unrelatedFiles) {
+      Files.write(file, new byte[3 * BLOCK_SIZE]);
+    }
+
+    ObjectDiskCache restartedCache = new ObjectDiskCache(directory, 2 * BLOCK_SIZE, BLOCK_SIZE);
+    for (int offset = 0; offset < 50; offset += BLOCK_SIZE) {
+      restartedCache.getBlock(resourceId, 100, offset, fetcher);
+    }
+
+    assertThat(restartedCache.getCachedBytes()).isEqualTo(2 * BLOCK_SIZE);
+    for (Path file : unrelatedFiles) {
+      assertThat(Files.exists(file)).isTrue();
+    }
+  }
+
+  @Test
+  public void restart_deletesOnlyExpiredTemporaryFiles() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+    ObjectDiskCache cache = new ObjectDiskCache(directory, 100, BLOCK_SIZE);
+    cache.getBlock(resourceId, 100, 0, fetcher);
+
+    Path blockDirectory = cache.getBlockPath(resourceId, 0).getParent();
+    Path expiredTempFile = Files.createFile(blockDirectory.resolve("block-1.tmp"));
+    Files.setLastModifiedTime(
+        expiredTempFile,
+        FileTime.from(
+            Instant.now().minus(ObjectDiskCache.TEMP_FILE_MAX_AGE).minus(Duration.ofMinutes(1))));
+    // Could be written by another process that shares the directory
+    Path inProgressTempFile = Files.createFile(blockDirectory.resolve("block-2.tmp"));
+
+    new ObjectDiskCache(directory, 100, BLOCK_SIZE);
+
+    assertThat(Files.exists(expiredTempFile)).isFalse();
+    assertThat(Files.exists(inProgressTempFile)).isTrue();
+  }
+
+  @Test
+  public void getBlock_cachedBlock_reusesMemoryMapping() throws IOException {
+    ObjectDiskCache cache =
+        new ObjectDiskCache(temporaryFolder.getRoot().toPath(), 100, BLOCK_SIZE);
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+    cache.getBlock(resourceId, 100, 0, fetcher);
+
+    ByteBuffer mappedBlock = cache.getBlock(resourceId, 100, 0, fetcher);
+    // Block file is not opened again if its mapping is retained
+    Files.delete(cache.getBlockPath(resourceId, 0));
+    ByteBuffer block = cache.getBlock(resourceId, 100, 5, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(0L);
+    assertThat(mappedBlock.isDirect()).isTrue();
+    assertThat(block.isDirect()).isTrue();
+    assertThat(block.get(5)).isEqualTo((byte) 5);
+  }
+
+  @Test
+  public void getBlock_deletedBlockFile_fetchesBlock() throws IOException {
+    ObjectDiskCache cache =
+        new ObjectDiskCache(temporaryFolder.getRoot().toPath(), 100, BLOCK_SIZE);
+    StorageResourceId resourceId = new StorageResourceId("bucket", "object", 1);
+
+    cache.getBlock(resourceId, 100, 0, fetcher);
+    Files.delete(cache.getBlockPath(resourceId, 0));
+    cache.getBlock(resourceId, 100, 0, fetcher);
+
+    assertThat(fetchedOffsets).containsExactly(0L, 0L);
+    assertThat(cache.getCachedBytes()).isEqualTo(BLOCK_SIZE);
+  }
+}
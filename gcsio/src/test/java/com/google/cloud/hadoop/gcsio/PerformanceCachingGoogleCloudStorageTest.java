@@ -14,7 +14,9 @@
 package com.google.cloud.hadoop.gcsio;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -29,7 +31,10 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
+import com.google.common.testing.FakeTicker;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.time.Duration;
 import java.util.List;
 import org.junit.Before;
@@ -406,6 +411,118 @@ public class PerformanceCachingGoogleCloudStorageTest {
     assertThat(cache.getAllItemsRaw()).isEmpty();
   }
 
+  @Test
+  public void testGetItemInfo_notFound_cachesNegativeResult() throws IOException {
+    FakeTicker ticker = new FakeTicker();
+    gcs = createNotFoundCachingGcs(ticker);
+    StorageResourceId missingId = new StorageResourceId(BUCKET_A, "missing");
+
+    assertThat(gcs.getItemInfo(missingId).exists()).isFalse();
+    assertThat(gcs.getItemInfo(missingId).exists()).isFalse();
+
+    // Verify that the negative result was returned from the cache.
+    verify(gcsDelegate).getItemInfo(eq(missingId));
+
+    ticker.advance(Duration.ofMillis(11));
+
+    assertThat(gcs.getItemInfo(missingId).exists()).isFalse();
+
+    // Verify that the expired negative result was not used.
+    verify(gcsDelegate, times(2)).getItemInfo(eq(missingId));
+  }
+
+  @Test
+  public void testGetItemInfo_notFound_invalidatedByCreate() throws IOException {
+    gcs = createNotFoundCachingGcs(new FakeTicker());
+    StorageResourceId missingId = new StorageResourceId(BUCKET_A, "missing");
+
+    assertThat(gcs.getItemInfo(missingId).exists()).isFalse();
+
+    gcs.createEmptyObject(missingId, CREATE_OBJECT_OPTIONS);
+
+    assertThat(gcs.getItemInfo(missingId).exists()).isTrue();
+  }
+
+  @Test
+  public void testGetItemInfo_notFoundDuringWrite_invalidatedByChannelClose() throws IOException {
+    gcs = createNotFoundCachingGcs(new FakeTicker());
+    StorageResourceId createdId = new StorageResourceId(BUCKET_A, "created");
+
+    WritableByteChannel channel = gcs.create(createdId, CREATE_OBJECT_OPTIONS);
+    channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    // Object is not visible until the channel is closed, so a probe caches negative result.
+    assertThat(gcs.getItemInfo(createdId).exists()).isFalse();
+    assertThat(gcs.getItemInfo(createdId).exists()).isFalse();
+    verify(gcsDelegate).getItemInfo(eq(createdId));
+
+    channel.close();
+
+    assertThat(gcs.getItemInfo(createdId).exists()).isTrue();
+  }
+
+  @Test
+  public void testListObjectInfo_emptyPrefix_cachesNegativeResult() throws IOException {
+    gcs = createNotFoundCachingGcs(new FakeTicker());
+    ListObjectOptions listOptions =
+        ListObjectOptions.DEFAULT.toBuilder().setIncludePrefix(true).setMaxResults(1).build();
+    String dirName = "missing/dir/";
+
+    assertThat(gcs.listObjectInfo(BUCKET_A, dirName, listOptions)).isEmpty();
+    assertThat(gcs.listObjectInfo(BUCKET_A, dirName, listOptions)).isEmpty();
+
+    // Verify that the negative result was returned from the cache.
+    verify(gcsDelegate).listObjectInfo(eq(BUCKET_A), eq(dirName), any());
+    // Directory object does not exist in an empty directory.
+    assertThat(gcs.getItemInfo(new StorageResourceId(BUCKET_A, dirName)).exists()).isFalse();
+    verify(gcsDelegate, never()).getItemInfo(eq(new StorageResourceId(BUCKET_A, dirName)));
+  }
+
+  @Test
+  public void testListObjectInfo_emptyPrefix_invalidatedByCopyToSubdirectory() throws IOException {
+    gcs = createNotFoundCachingGcs(new FakeTicker());
+    ListObjectOptions listOptions =
+        ListObjectOptions.DEFAULT.toBuilder().setIncludePrefix(true).setMaxResults(1).build();
+    StorageResourceId dstId = new StorageResourceId(BUCKET_A, "missing/dir/sub/file");
+
+    assertThat(gcs.listObjectInfo(BUCKET_A, "missing/", listOptions)).isEmpty();
+
+    gcs.copy(ImmutableMap.of(ITEM_A_A.getResourceId(), dstId));
+
+    assertThat(gcs.listObjectInfo(BUCKET_A, "missing/", listOptions)).isNotEmpty();
+  }
+
+  @Test
+  public void testListObjectInfo_emptyPrefix_invalidatedByCreateEmptyObjects() throws IOException {
+    gcs = createNotFoundCachingGcs(new FakeTicker());
+    ListObjectOptions listOptions =
+        ListObjectOptions.DEFAULT.toBuilder().setIncludePrefix(true).setMaxResults(1).build();
+    StorageResourceId dirId = new StorageResourceId(BUCKET_A, "missing/dir/");
+
+    assertThat(gcs.listObjectInfo(BUCKET_A, "missing/dir/", listOptions)).isEmpty();
+    assertThat(gcs.getItemInfo(dirId).exists()).isFalse();
+
+    gcs.createEmptyObjects(ImmutableList.of(dirId));
+
+    assertThat(gcs.listObjectInfo(BUCKET_A, "missing/dir/", listOptions)).isNotEmpty();
+    assertThat(gcs.getItemInfo(dirId).exists()).isTrue();
+  }
+
+  @Test
+  public void testNotFoundCache_lookupRacedWithInvalidation_notCached() {
+    NotFoundItemCache notFoundCache =
+        new NotFoundItemCache(new FakeTicker(), Duration.ofMillis(10), /* maxEntries= */ 10);
+    StorageResourceId resourceId = new StorageResourceId(BUCKET_A, "dir/file");
+
+    long lookupToken = notFoundCache.startLookup();
+    notFoundCache.invalidate(new StorageResourceId(BUCKET_A, "other"));
+    notFoundCache.putNotFound(resourceId, lookupToken);
+    notFoundCache.putEmptyPrefix(BUCKET_A, "dir/", lookupToken);
+
+    assertThat(notFoundCache.isNotFound(resourceId)).isFalse();
+    assertThat(notFoundCache.isEmptyPrefix(BUCKET_A, "dir/")).isFalse();
+  }
+
   @Test
   public void testComposeObjects() throws IOException {
     List<StorageResourceId> ids =
@@ -422,6 +539,13 @@ public class PerformanceCachingGoogleCloudStorageTest {
     assertThat(cache.getAllItemsRaw()).containsExactly(ITEM_A_AA);
   }
 
+  private PerformanceCachingGoogleCloudStorage createNotFoundCachingGcs(Ticker ticker) {
+    return new PerformanceCachingGoogleCloudStorage(
+        gcsDelegate,
+        cache,
+        new NotFoundItemCache(ticker, Duration.ofMillis(10), /* maxEntries= */ 100));
+  }
+
   /**
    * Helper to generate GoogleCloudStorageItemInfo for a bucket entry.
    *
@@ -18,6 +18,11 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Ticker;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
@@ -116,6 +121,93 @@ public class PrefixMappedItemCacheTest {
     assertThat(cache.getAllItemsRaw()).isEmpty();
   }
 
+  /** Test the oldest items are evicted when the cache is full. */
+  @Test
+  public void testPutItemEvictsOldestItems() {
+    cache =
+        new PrefixMappedItemCache(
+            ticker,
+            Duration.ofMillis(10),
+            /* maxEntries= */ 2,
+            /* backgroundExpirationEnabled= */ false);
+    GoogleCloudStorageItemInfo itemAB = createObjectItemInfo(BUCKET_A, "bar/banana");
+
+    cache.putItem(ITEM_A_A);
+    cache.putItem(ITEM_A_AA);
+    cache.putItem(ITEM_A_A);
+    cache.putItem(itemAB);
+
+    assertThat(cache.getAllItemsRaw()).containsExactly(ITEM_A_A, itemAB);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  /** Test expired items are removed without access to them. */
+  @Test
+  public void testRemoveExpiredItems() {
+    cache.putItem(ITEM_A_A);
+    ticker.setTimeMillis(5);
+    cache.putItem(ITEM_A_AA);
+    ticker.setTimeMillis(11);
+
+    cache.removeExpiredItems();
+
+    assertThat(cache.getAllItemsRaw()).containsExactly(ITEM_A_AA);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  /** Test removal of a directory invalidates items with its prefix. */
+  @Test
+  public void testRemoveDirectoryItemInvalidatesPrefix() {
+    GoogleCloudStorageItemInfo dirItem = createObjectItemInfo(BUCKET_A, "bar/");
+    cache.putItem(ITEM_A_A);
+    cache.putItem(dirItem);
+    cache.putItem(ITEM_A_AA);
+
+    cache.removeItem(dirItem.getResourceId());
+
+    assertThat(cache.getAllItemsRaw()).containsExactly(ITEM_A_A);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  /** Test items can be concurrently inserted and retrieved while the cache is bounded. */
+  @Test
+  public void testConcurrentPutAndGetItems() throws Exception {
+    cache =
+        new PrefixMappedItemCache(
+            ticker,
+            Duration.ofMillis(10),
+            /* maxEntries= */ 100,
+            /* backgroundExpirationEnabled= */ false);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 1_000; i++) {
+                    GoogleCloudStorageItemInfo item =
+                        createObjectItemInfo(BUCKET_A, "bar/" + thread + "/" + i);
+                    cache.putItem(item);
+                    GoogleCloudStorageItemInfo cachedItem = cache.getItem(item.getResourceId());
+                    if (cachedItem != null) {
+                      assertThat(cachedItem).isEqualTo(item);
+                    }
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(cache.size()).isAtMost(100);
+    assertThat(cache.getAllItemsRaw()).hasSize((int) cache.size());
+  }
+
   /** Ticker with a manual time value used for testing the cache. */
   private static class TestTicker extends Ticker {
 
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ReadAheadPrefetcher}. */
+@RunWith(JUnit4.class)
+public class ReadAheadPrefetcherTest {
+
+  @Test
+  public void read_returnsRangeContent() throws IOException {
+    ReadAheadPrefetcher prefetcher =
+        new ReadAheadPrefetcher(
+            ReadAheadPrefetcherTest::fillWithOffsets,
+            /* start= */ 3,
+            /* end= */ 20,
+            /* blockSize= */ 4,
+            /* blockCount= */ 2);
+
+    ByteBuffer dst = ByteBuffer.allocate(32);
+    while (prefetcher.read(dst) >= 0) {}
+    prefetcher.close();
+
+    dst.flip();
+    assertThat(dst.remaining()).isEqualTo(17);
+    for (int i = 3; i < 20; i++) {
+      assertThat(dst.get()).isEqualTo((byte) i);
+    }
+  }
+
+  @Test
+  public void close_reusesBufferInNextPrefetcher() throws IOException {
+    // Unique block size, so buffers cached by other tests are not used.
+    int blockSize = 4099;
+    AtomicReference<ByteBuffer> firstBuffer = new AtomicReference<>();
+    ReadAheadPrefetcher prefetcher =
+        new ReadAheadPrefetcher(
+            (offset, buffer) -> {
+              firstBuffer.set(buffer);
+              fillWithOffsets(offset, buffer);
+            },
+            /* start= */ 0,
+            blockSize,
+            blockSize,
+            /* blockCount= */ 1);
+    assertThat(prefetcher.read(ByteBuffer.allocate(blockSize))).isEqualTo(blockSize);
+    prefetcher.close();
+
+    AtomicReference<ByteBuffer> secondBuffer = new AtomicReference<>();
+    ReadAheadPrefetcher nextPrefetcher =
+        new ReadAheadPrefetcher(
+            (offset, buffer) -> {
+              secondBuffer.set(buffer);
+              fillWithOffsets(offset, buffer);
+            },
+            /* start= */ 0,
+            blockSize,
+            blockSize,
+            /* blockCount= */ 1);
+    assertThat(nextPrefetcher.read(ByteBuffer.allocate(blockSize))).isEqualTo(blockSize);
+    nextPrefetcher.close();
+
+    assertThat(secondBuffer.get()).isSameInstanceAs(firstBuffer.get());
+  }
+
+  @Test
+  public void close_interruptsInFlightFetchAndReleasesItsBuffer() throws Exception {
+    // Unique block size, so buffers cached by other tests are not used.
+    int blockSize = 4101;
+    CountDownLatch fetchStarted = new CountDownLatch(1);
+    CountDownLatch fetchInterrupted = new CountDownLatch(1);
+    AtomicReference<ByteBuffer> firstBuffer = new AtomicReference<>();
+    ReadAheadPrefetcher prefetcher =
+        new ReadAheadPrefetcher(
+            (offset, buffer) -> {
+              firstBuffer.set(buffer);
+              fetchStarted.countDown();
+              try {
+                new CountDownLatch(1).await();
+              } catch (InterruptedException e) {
+                fetchInterrupted.countDown();
+                throw new InterruptedIOException("interrupted");
+              }
+            },
+            /* start= */ 0,
+            blockSize,
+            blockSize,
+            /* blockCount= */ 1);
+    assertThat(fetchStarted.await(10, SECONDS)).isTrue();
+
+    prefetcher.close();
+
+    assertThat(fetchInterrupted.await(10, SECONDS)).isTrue();
+    // Buffer is released by the interrupted fetch after close returned, wait for it.
+    while (ReadAheadPrefetcher.getCachedBufferCount(blockSize) == 0) {
+      Thread.sleep(10);
+    }
+
+    AtomicReference<ByteBuffer> secondBuffer = new AtomicReference<>();
+    ReadAheadPrefetcher nextPrefetcher =
+        new ReadAheadPrefetcher(
+            (offset, buffer) -> {
+              secondBuffer.set(buffer);
+              fillWithOffsets(offset, buffer);
+            },
+            /* start= */ 0,
+            blockSize,
+            blockSize,
+            /* blockCount= */ 1);
+    assertThat(nextPrefetcher.read(ByteBuffer.allocate(blockSize))).isEqualTo(blockSize);
+    nextPrefetcher.close();
+
+    assertThat(secondBuffer.get()).isSameInstanceAs(firstBuffer.get());
+  }
+
+  private static void fillWithOffsets(long offset, ByteBuffer buffer) {
+    while (buffer.hasRemaining()) {
+      buffer.put((byte) offset++);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.junit.Assert.assertThrows;
+
+import com.google.cloud.hadoop.gcsio.testing.InMemoryGoogleCloudStorage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link RecursiveComposer}. */
+@RunWith(JUnit4.class)
+public class RecursiveComposerTest {
+
+  private static final String BUCKET_NAME = "test-bucket";
+
+  private final AtomicInteger intermediateIndex = new AtomicInteger();
+  private final Supplier<StorageResourceId> intermediateIds =
+      () -> new StorageResourceId(BUCKET_NAME, "compose." + intermediateIndex.getAndIncrement());
+
+  private GoogleCloudStorage gcs;
+
+  @Before
+  public void setUp() throws IOException {
+    gcs = new InMemoryGoogleCloudStorage();
+    gcs.createBucket(BUCKET_NAME);
+  }
+
+  @Test
+  public void compose_largeNumberOfSources_composesViaIntermediateObjects() throws Exception {
+    List<StorageResourceId> sources = createSources(70);
+    StorageResourceId dstId = new StorageResourceId(BUCKET_NAME, "dst");
+    List<StorageResourceId> tmpObjects = new ArrayList<>();
+
+    RecursiveComposer.compose(
+        gcs,
+        newDirectExecutorService(),
+        sources,
+        dstId,
+        CreateObjectOptions.DEFAULT_OVERWRITE,
+        intermediateIds,
+        tmpObjects);
+
+    assertThat(read(dstId)).isEqualTo(expectedContent(70));
+    // 70 sources are composed into 3 intermediate objects first
+    assertThat(tmpObjects).hasSize(3);
+  }
+
+  @Test
+  public void compose_failedCompose_deletesTemporaryAndIntermediateObjects() throws Exception {
+    List<StorageResourceId> sources = createSources(40);
+    StorageResourceId dstId = new StorageResourceId(BUCKET_NAME, "dst");
+    List<StorageResourceId> tmpObjects = new ArrayList<>(sources);
+    GoogleCloudStorage failingGcs =
+        new ForwardingGoogleCloudStorage(gcs) {
+          @Override
+          public GoogleCloudStorageItemInfo composeObjects(
+              List<StorageResourceId> sources,
+              StorageResourceId destination,
+              CreateObjectOptions options)
+              throws IOException {
+            if (destination.getObjectName().equals(dstId.getObjectName())) {
+              throw new IOException("Simulated compose failure: " + destination);
+            }
+            return super.composeObjects(sources, destination, options);
+          }
+        };
+
+    assertThrows(
+        IOException.class,
+        () ->
+            RecursiveComposer.compose(
+                failingGcs,
+                newDirectExecutorService(),
+                sources,
+                dstId,
+                CreateObjectOptions.DEFAULT_OVERWRITE,
+                intermediateIds,
+                tmpObjects));
+
+    assertThat(intermediateIndex.get()).isEqualTo(2);
+    assertThat(tmpObjects).isEmpty();
+    assertThat(gcs.listObjectInfo(BUCKET_NAME, /* objectNamePrefix= */ null)).isEmpty();
+  }
+
+  private List<StorageResourceId> createSources(int count) throws IOException {
+    List<StorageResourceId> sources = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StorageResourceId sourceId = new StorageResourceId(BUCKET_NAME, "source." + i);
+      gcs.createObject(sourceId, new byte[] {(byte) i}, CreateObjectOptions.DEFAULT_OVERWRITE);
+      sources.add(sourceId);
+    }
+    return sources;
+  }
+
+  private static byte[] expectedContent(int count) {
+    byte[] content = new byte[count];
+    for (int i = 0; i < count; i++) {
+      content[i] = (byte) i;
+    }
+    return content;
+  }
+
+  private byte[] read(StorageResourceId resourceId) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Channels.newInputStream(gcs.open(resourceId)).transferTo(out);
+    return out.toByteArray();
+  }
+}
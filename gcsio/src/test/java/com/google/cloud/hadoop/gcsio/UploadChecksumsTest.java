@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.gcsio;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.hash.Hashing;
+import com.google.protobuf.ByteString;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link UploadChecksums}. */
+@RunWith(JUnit4.class)
+public class UploadChecksumsTest {
+
+  private static final Random RANDOM = new Random(42);
+
+  @Test
+  public void combineCrc32c_matchesCrc32cOfConcatenatedData() {
+    byte[] data = randomBytes(10_000);
+
+    for (int split : new int[] {0, 1, 7, 4096, 9_999, 10_000}) {
+      int crc1 = Hashing.crc32c().hashBytes(data, 0, split).asInt();
+      int crc2 = Hashing.crc32c().hashBytes(data, split, data.length - split).asInt();
+
+      assertThat(UploadChecksums.combineCrc32c(crc1, crc2, data.length - split))
+          .isEqualTo(Hashing.crc32c().hashBytes(data).asInt());
+    }
+  }
+
+  @Test
+  public void update_chunks_returnsChunkCrc32cAndComputesObjectChecksums() {
+    byte[] data = randomBytes(5_000);
+    UploadChecksums checksums = new UploadChecksums(/* md5Enabled= */ true);
+
+    for (int offset = 0; offset < data.length; offset += 1_024) {
+      ByteString chunk =
+          ByteString.copyFrom(data, offset, Math.min(1_024, data.length - offset))
+              .concat(ByteString.EMPTY);
+      assertThat(checksums.update(chunk))
+          .isEqualTo(Hashing.crc32c().hashBytes(chunk.toByteArray()).asInt());
+    }
+
+    assertThat(checksums.getLength()).isEqualTo(data.length);
+    assertThat(checksums.getCrc32c()).isEqualTo(Hashing.crc32c().hashBytes(data).asInt());
+    assertThat(checksums.getMd5()).isEqualTo(Hashing.md5().hashBytes(data).asBytes());
+  }
+
+  @Test
+  public void update_stream_computesObjectChecksums() {
+    byte[] data = randomBytes(3_000);
+    UploadChecksums checksums = new UploadChecksums(/* md5Enabled= */ false);
+
+    checksums.update(data, 0, 1);
+    checksums.update(data, 1, 1_499);
+    assertThat(checksums.getCrc32c()).isEqualTo(Hashing.crc32c().hashBytes(data, 0, 1_500).asInt());
+    checksums.update(data, 1_500, 1_500);
+
+    assertThat(checksums.getLength()).isEqualTo(data.length);
+    assertThat(checksums.getCrc32c()).isEqualTo(Hashing.crc32c().hashBytes(data).asInt());
+    assertThat(checksums.getMd5()).isNull();
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    RANDOM.nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -20,6 +20,7 @@ import com.google.common.flogger.GoogleLogger;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.nio.ByteBuffer;
@@ -31,6 +32,7 @@ import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 
 /**
  * Skeletal implementation of a WritableByteChannel that executes an asynchronous upload operation
@@ -38,7 +40,7 @@ import java.util.concurrent.Future;
  *
  * @param <T> The type of the result of the completed upload operation.
  */
-public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByteChannel {
+public abstract class AbstractGoogleAsyncWriteChannel<T> implements FlushableWriteChannel {
 
   protected static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
 
@@ -56,16 +58,33 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
 
   private WritableByteChannel pipeSink;
 
+  // Number of bytes written to the pipe since the channel was initialized.
+  private long bytesWritten = 0;
+
   private ByteBuffer uploadCache = null;
 
+  // Whether written data should be cached for a reupload, false after the cache overflowed or was
+  // released.
+  private boolean uploadCacheEnabled;
+
+  // Shared pool to borrow buffers from, null if each channel allocates its own buffers.
+  @Nullable private final BufferPool bufferPool;
+
+  // Whether upload cache was borrowed from the buffer pool and should be returned to it.
+  private boolean uploadCachePooled = false;
+
   /** Construct a new channel using the given ExecutorService to run background uploads. */
   public AbstractGoogleAsyncWriteChannel(
       ExecutorService threadPool, AsyncWriteChannelOptions channelOptions) {
     this.threadPool = threadPool;
     this.channelOptions = channelOptions;
-    if (channelOptions.getUploadCacheSize() > 0) {
-      this.uploadCache = ByteBuffer.allocate(channelOptions.getUploadCacheSize());
-    }
+    this.bufferPool =
+        channelOptions.getBufferPoolSize() > 0
+            ? BufferPool.getShared(channelOptions.getBufferPoolSize())
+            : null;
+    // Upload cache is allocated lazily on the first write, so open but idle channels do not hold
+    // pooled buffers.
+    this.uploadCacheEnabled = channelOptions.getUploadCacheSize() > 0;
   }
 
   /**
@@ -108,16 +127,23 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
       waitForCompletionAndThrowIfUploadFailed();
     }
 
-    if (uploadCache != null && uploadCache.remaining() >= buffer.remaining()) {
-      int position = buffer.position();
-      uploadCache.put(buffer);
-      buffer.position(position);
-    } else {
-      uploadCache = null;
+    if (uploadCacheEnabled) {
+      if (uploadCache == null) {
+        uploadCache = allocateUploadCache(channelOptions.getUploadCacheSize());
+      }
+      if (uploadCache.remaining() >= buffer.remaining()) {
+        int position = buffer.position();
+        uploadCache.put(buffer);
+        buffer.position(position);
+      } else {
+        disableUploadCache();
+      }
     }
 
     try {
-      return pipeSink.write(buffer);
+      int written = pipeSink.write(buffer);
+      bytesWritten += written;
+      return written;
     } catch (IOException e) {
       throw new IOException(
           String.format(
@@ -126,6 +152,64 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
     }
   }
 
+  /**
+   * Returns true if {@link #flush} is supported, that requires {@link
+   * AsyncWriteChannelOptions.PipeType#BUFFER_QUEUE_PIPE} pipe type and an upload that could be
+   * flushed without finalizing it.
+   */
+  @Override
+  public boolean isFlushSupported() {
+    return pipeSink instanceof ByteBufferPipe.Sink && isUploadFlushSupported();
+  }
+
+  /** Returns true if the upload supports {@link #awaitPersistedSize}. */
+  protected boolean isUploadFlushSupported() {
+    return false;
+  }
+
+  /**
+   * Uploads all data written to this channel so far without finalizing the upload, and waits until
+   * it is persisted by the upload session. Flushed data is not visible to readers until the channel
+   * is closed.
+   *
+   * @throws UnsupportedOperationException if flush is not supported, see {@link #isFlushSupported}
+   * @throws IOException on IO error
+   */
+  @Override
+  public synchronized void flush() throws IOException {
+    checkState(initialized, "initialize() must be invoked before use.");
+    if (!isOpen()) {
+      throw new ClosedChannelException();
+    }
+    if (!isFlushSupported()) {
+      throw new UnsupportedOperationException(
+          String.format("flush() is not supported for '%s'", getResourceString()));
+    }
+
+    // No point in flushing if upload failed on another thread.
+    if (uploadOperation.isDone()) {
+      waitForCompletionAndThrowIfUploadFailed();
+    }
+
+    try {
+      ((ByteBufferPipe.Sink) pipeSink).flush();
+    } catch (IOException e) {
+      throw new IOException(
+          String.format("Failed to flush %d bytes in '%s'", bytesWritten, getResourceString()), e);
+    }
+    awaitPersistedSize(bytesWritten);
+    // Flushed data is persisted by the upload session, release upload cache so a channel that is
+    // kept open after flush does not hold it.
+    disableUploadCache();
+  }
+
+  /**
+   * Waits until the upload persists at least {@code size} bytes, called by {@link #flush} after all
+   * written data was made available to the upload. Called only if {@link #isUploadFlushSupported}
+   * returns true.
+   */
+  protected abstract void awaitPersistedSize(long size) throws IOException;
+
   /**
    * Tells whether this channel is open.
    *
@@ -161,6 +245,8 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
       reuploadFromCache();
     } finally {
       closeInternal();
+      releaseUploadCache(uploadCache);
+      uploadCache = null;
     }
   }
 
@@ -173,13 +259,50 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
     // Set cache to null so it will not be re-cached during retry.
     ByteBuffer reuploadData = uploadCache;
     uploadCache = null;
+    uploadCacheEnabled = false;
 
     reuploadData.flip();
 
     try {
       write(reuploadData);
     } finally {
-      close();
+      try {
+        close();
+      } finally {
+        releaseUploadCache(reuploadData);
+      }
+    }
+  }
+
+  /**
+   * Borrows upload cache from the buffer pool, or allocates it if it doesn't fit into the pool or
+   * the pool doesn't have free capacity in {@link BufferPool#DEFAULT_ACQUIRE_TIMEOUT}. Waiting is
+   * bounded, because the pool could be exhausted by other channels of the same writer thread.
+   */
+  private ByteBuffer allocateUploadCache(int size) throws InterruptedIOException {
+    if (bufferPool != null && size <= bufferPool.getCapacity()) {
+      ByteBuffer cache = bufferPool.tryAcquire(size, BufferPool.DEFAULT_ACQUIRE_TIMEOUT);
+      if (cache != null) {
+        uploadCachePooled = true;
+        return cache;
+      }
+      logger.atFine().log(
+          "Buffer pool is exhausted, allocating %d bytes upload cache for '%s'",
+          size, getResourceString());
+    }
+    return ByteBuffer.allocate(size);
+  }
+
+  private void disableUploadCache() {
+    uploadCacheEnabled = false;
+    releaseUploadCache(uploadCache);
+    uploadCache = null;
+  }
+
+  private void releaseUploadCache(@Nullable ByteBuffer cache) {
+    if (cache != null && uploadCachePooled) {
+      uploadCachePooled = false;
+      bufferPool.release(cache);
     }
   }
 
@@ -194,6 +317,7 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
   /** Initialize this channel object for writing. */
   public void initialize() throws IOException {
     InputStream pipeSource = initializeUploadPipe();
+    bytesWritten = 0;
     startUpload(pipeSource);
     initialized = true;
   }
@@ -215,6 +339,19 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
         PipedOutputStream internalPipeSink = new PipedOutputStream(internalPipeSource);
         pipeSink = Channels.newChannel(internalPipeSink);
         return internalPipeSource;
+      case BUFFER_QUEUE_PIPE:
+        int bufferSize =
+            Math.max(
+                1,
+                channelOptions.getPipeBufferSize()
+                    / AsyncWriteChannelOptions.BUFFER_QUEUE_PIPE_BUFFERS);
+        ByteBufferPipe bufferPipe =
+            new ByteBufferPipe(
+                bufferSize,
+                AsyncWriteChannelOptions.BUFFER_QUEUE_PIPE_BUFFERS,
+                bufferPool != null && bufferSize <= bufferPool.getCapacity() ? bufferPool : null);
+        pipeSink = bufferPipe.sink();
+        return bufferPipe.source();
     }
     throw new IllegalStateException("Unknown PipeType: " + channelOptions.getPipeType());
   }
@@ -229,7 +366,7 @@ public abstract class AbstractGoogleAsyncWriteChannel<T> implements WritableByte
    *
    * @throws IOException on IO error
    */
-  private T waitForCompletionAndThrowIfUploadFailed() throws IOException {
+  protected T waitForCompletionAndThrowIfUploadFailed() throws IOException {
     try {
       return uploadOperation.get();
     } catch (InterruptedException e) {
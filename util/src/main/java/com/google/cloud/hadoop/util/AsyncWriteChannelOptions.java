@@ -30,8 +30,15 @@ public abstract class AsyncWriteChannelOptions {
   public enum PipeType {
     NIO_CHANNEL_PIPE,
     IO_STREAM_PIPE,
+    /**
+     * Bounded queue of pooled buffers that split the pipe buffer size, see {@link ByteBufferPipe}.
+     */
+    BUFFER_QUEUE_PIPE,
   }
 
+  /** Number of pooled buffers in the {@link PipeType#BUFFER_QUEUE_PIPE} pipe. */
+  public static final int BUFFER_QUEUE_PIPE_BUFFERS = 4;
+
   /** Default upload buffer size. */
   public static final int BUFFER_SIZE_DEFAULT = 8 * 1024 * 1024;
 
@@ -47,6 +54,9 @@ public abstract class AsyncWriteChannelOptions {
           ? UPLOAD_CHUNK_SIZE_GRANULARITY
           : 8 * UPLOAD_CHUNK_SIZE_GRANULARITY;
 
+  /** Default capacity of the shared buffer pool, 0 means that buffer pool is disabled. */
+  public static final long BUFFER_POOL_SIZE_DEFAULT = 0;
+
   /** Default upload cache size. */
   public static final int UPLOAD_CACHE_SIZE_DEFAULT = 0;
 
@@ -56,6 +66,12 @@ public abstract class AsyncWriteChannelOptions {
   /** Default of whether to enabled checksums for gRPC. */
   public static final boolean GRPC_CHECKSUMS_ENABLED_DEFAULT = false;
 
+  /** Default of whether to verify checksums of the uploaded data. */
+  public static final boolean CHECKSUM_VERIFICATION_ENABLED_DEFAULT = false;
+
+  /** Default of whether to compute MD5 of the uploaded data. */
+  public static final boolean MD5_CHECKSUM_ENABLED_DEFAULT = false;
+
   /** Default timeout for grpc write stream. */
   public static final long DEFAULT_GRPC_WRITE_TIMEOUT = 10 * 60 * 1000;
 
@@ -64,6 +80,21 @@ public abstract class AsyncWriteChannelOptions {
 
   public static final long DEFAULT_GRPC_WRITE_MESSAGE_TIMEOUT_MILLIS = 3 * 1000;
 
+  /**
+   * Default maximum number of bytes sent but not yet persisted by a gRPC upload, 0 means that it is
+   * bounded only by the number of buffered requests.
+   */
+  public static final long DEFAULT_GRPC_WRITE_MAX_IN_FLIGHT_BYTES = 0;
+
+  /**
+   * Default number of streams used by a single gRPC upload, 1 means that parallel upload is
+   * disabled.
+   */
+  public static final int DEFAULT_GRPC_WRITE_PARALLEL_STREAMS = 1;
+
+  /** Default size of the blocks that are uploaded concurrently by a parallel gRPC upload. */
+  public static final int DEFAULT_GRPC_WRITE_PARALLEL_BLOCK_SIZE = 64 * 1024 * 1024;
+
   public static final PipeType PIPE_TYPE_DEFAULT = PipeType.IO_STREAM_PIPE;
 
   public static final AsyncWriteChannelOptions DEFAULT = builder().build();
@@ -75,11 +106,17 @@ public abstract class AsyncWriteChannelOptions {
         .setPipeType(PIPE_TYPE_DEFAULT)
         .setUploadChunkSize(UPLOAD_CHUNK_SIZE_DEFAULT)
         .setUploadCacheSize(UPLOAD_CACHE_SIZE_DEFAULT)
+        .setBufferPoolSize(BUFFER_POOL_SIZE_DEFAULT)
         .setDirectUploadEnabled(DIRECT_UPLOAD_ENABLED_DEFAULT)
         .setGrpcChecksumsEnabled(GRPC_CHECKSUMS_ENABLED_DEFAULT)
+        .setChecksumVerificationEnabled(CHECKSUM_VERIFICATION_ENABLED_DEFAULT)
+        .setMd5ChecksumEnabled(MD5_CHECKSUM_ENABLED_DEFAULT)
         .setGrpcWriteTimeout(DEFAULT_GRPC_WRITE_TIMEOUT)
         .setNumberOfBufferedRequests(DEFAULT_NUM_REQUESTS_BUFFERED_GRPC)
-        .setGrpcWriteMessageTimeoutMillis(DEFAULT_GRPC_WRITE_MESSAGE_TIMEOUT_MILLIS);
+        .setGrpcWriteMessageTimeoutMillis(DEFAULT_GRPC_WRITE_MESSAGE_TIMEOUT_MILLIS)
+        .setGrpcWriteMaxInFlightBytes(DEFAULT_GRPC_WRITE_MAX_IN_FLIGHT_BYTES)
+        .setGrpcWriteParallelStreams(DEFAULT_GRPC_WRITE_PARALLEL_STREAMS)
+        .setGrpcWriteParallelBlockSize(DEFAULT_GRPC_WRITE_PARALLEL_BLOCK_SIZE);
   }
 
   public abstract Builder toBuilder();
@@ -94,16 +131,55 @@ public abstract class AsyncWriteChannelOptions {
 
   public abstract int getUploadCacheSize();
 
+  /**
+   * Capacity in bytes of the JVM-wide {@link BufferPool} that is shared by all write channels to
+   * borrow {@link PipeType#BUFFER_QUEUE_PIPE} buffers and upload caches. If {@code 0}, each channel
+   * allocates its own buffers.
+   */
+  public abstract long getBufferPoolSize();
+
   public abstract boolean isDirectUploadEnabled();
 
   public abstract boolean isGrpcChecksumsEnabled();
 
+  /**
+   * Whether the JSON API write channel verifies CRC32C (and MD5, if {@link #isMd5ChecksumEnabled})
+   * of the uploaded data against checksums of the created object.
+   */
+  public abstract boolean isChecksumVerificationEnabled();
+
+  /**
+   * Whether to compute MD5 of the uploaded data in addition to CRC32C. The gRPC write channel sends
+   * it to GCS for validation, and the JSON API write channel verifies it after upload.
+   */
+  public abstract boolean isMd5ChecksumEnabled();
+
   public abstract long getGrpcWriteTimeout();
 
   public abstract long getNumberOfBufferedRequests();
 
   public abstract long getGrpcWriteMessageTimeoutMillis();
 
+  /**
+   * Maximum number of bytes that a gRPC upload sends ahead of the persisted size acknowledged by
+   * the server. Requests in this window are retained to resume the upload after transient errors.
+   * If {@code 0}, the window is bounded only by {@link #getNumberOfBufferedRequests}.
+   */
+  public abstract long getGrpcWriteMaxInFlightBytes();
+
+  /**
+   * Number of streams that a single gRPC upload uses to upload blocks of data concurrently to
+   * temporary objects, that are composed into the destination object when upload is finished. If
+   * {@code 1}, data is uploaded in a single stream.
+   */
+  public abstract int getGrpcWriteParallelStreams();
+
+  /**
+   * Size of the blocks that are uploaded concurrently when {@link #getGrpcWriteParallelStreams} is
+   * greater than {@code 1}. Each stream buffers at most one block in memory.
+   */
+  public abstract int getGrpcWriteParallelBlockSize();
+
   /** Mutable builder for the GoogleCloudStorageWriteChannelOptions class. */
   @AutoValue.Builder
   public abstract static class Builder {
@@ -118,6 +194,8 @@ public abstract class AsyncWriteChannelOptions {
 
     public abstract Builder setUploadCacheSize(int uploadCacheSize);
 
+    public abstract Builder setBufferPoolSize(long bufferPoolSize);
+
     public abstract Builder setDirectUploadEnabled(boolean directUploadEnabled);
 
     public abstract Builder setGrpcWriteTimeout(long grpcWriteTimeout);
@@ -130,13 +208,39 @@ public abstract class AsyncWriteChannelOptions {
      */
     public abstract Builder setGrpcChecksumsEnabled(boolean grpcChecksumsEnabled);
 
+    public abstract Builder setChecksumVerificationEnabled(boolean checksumVerificationEnabled);
+
+    public abstract Builder setMd5ChecksumEnabled(boolean md5ChecksumEnabled);
+
     public abstract Builder setGrpcWriteMessageTimeoutMillis(long grpcWriteMessageTimeoutMillis);
 
+    public abstract Builder setGrpcWriteMaxInFlightBytes(long grpcWriteMaxInFlightBytes);
+
+    public abstract Builder setGrpcWriteParallelStreams(int grpcWriteParallelStreams);
+
+    public abstract Builder setGrpcWriteParallelBlockSize(int grpcWriteParallelBlockSize);
+
     abstract AsyncWriteChannelOptions autoBuild();
 
     public AsyncWriteChannelOptions build() {
       AsyncWriteChannelOptions options = autoBuild();
       checkUploadChunkSize(options.getUploadChunkSize());
+      checkArgument(
+          options.getBufferPoolSize() >= 0,
+          "Buffer pool size must not be negative, but was %s",
+          options.getBufferPoolSize());
+      checkArgument(
+          options.getGrpcWriteMaxInFlightBytes() >= 0,
+          "gRPC write max in-flight bytes must not be negative, but was %s",
+          options.getGrpcWriteMaxInFlightBytes());
+      checkArgument(
+          options.getGrpcWriteParallelStreams() > 0,
+          "gRPC write parallel streams must be positive, but was %s",
+          options.getGrpcWriteParallelStreams());
+      checkArgument(
+          options.getGrpcWriteParallelBlockSize() > 0,
+          "gRPC write parallel block size must be positive, but was %s",
+          options.getGrpcWriteParallelBlockSize());
       return options;
     }
 
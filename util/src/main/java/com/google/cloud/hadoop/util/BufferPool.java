@@ -0,0 +1,195 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.flogger.GoogleLogger;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A size-capped pool of direct {@link ByteBuffer}s.
+ *
+ * <p>Total capacity of the buffers borrowed from the pool never exceeds the pool capacity: {@link
+ * #acquire} blocks until enough buffers are returned to the pool via {@link #release}, which
+ * applies backpressure on the writers when the pool is exhausted. Returned buffers are cached for
+ * reuse, cached buffers of other sizes are dropped when their memory is needed for a new buffer.
+ *
+ * <p>A thread that borrows buffers for multiple streams could wait for a buffer that is held by
+ * another of its own streams, so such callers should use {@link #tryAcquire} with a bounded wait
+ * and allocate a buffer themselves if it times out, and return partially filled buffers to the pool
+ * when {@link #hasFreeCapacity} reports that the pool is exhausted.
+ *
+ * <p>A single JVM-wide pool is shared by all write channels, see {@link #getShared}.
+ */
+public final class BufferPool {
+
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  /** Time to wait for a free buffer in {@link #tryAcquire} before falling back to allocation. */
+  public static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(1);
+
+  private static BufferPool sharedPool;
+
+  /**
+   * Returns JVM-wide buffer pool. The pool is created with the specified capacity on the first
+   * call, subsequent calls return the same pool and log a warning if a different capacity is
+   * requested.
+   */
+  public static synchronized BufferPool getShared(long capacity) {
+    if (sharedPool == null) {
+      sharedPool = new BufferPool(capacity);
+    } else if (sharedPool.capacity != capacity) {
+      logger.atWarning().log(
+          "Using shared buffer pool with %d bytes capacity instead of requested %d bytes,"
+              + " buffer pool size could be configured only once per JVM",
+          sharedPool.capacity, capacity);
+    }
+    return sharedPool;
+  }
+
+  private final long capacity;
+
+  // Total capacity of the buffers borrowed from the pool. Modified under this, volatile so it
+  // could be checked without a lock.
+  private volatile long usedBytes = 0;
+  // Total capacity of the cached buffers. Guarded by this.
+  private long cachedBytes = 0;
+  // Cached buffers by their capacity. Guarded by this.
+  private final Map<Integer, Deque<ByteBuffer>> cachedBuffers = new HashMap<>();
+
+  public BufferPool(long capacity) {
+    checkArgument(capacity > 0, "capacity must be positive, but was %s", capacity);
+    this.capacity = capacity;
+  }
+
+  /** Returns capacity of this pool in bytes. */
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /** Returns total capacity of the buffers that are borrowed from this pool. */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * Returns true if a buffer of the specified capacity could be borrowed from the pool without
+   * waiting. The result is only a hint, because other threads could borrow or return buffers
+   * concurrently.
+   */
+  public boolean hasFreeCapacity(int size) {
+    return usedBytes + size <= capacity;
+  }
+
+  /**
+   * Borrows a cleared buffer of the specified capacity from the pool, blocking until the pool has
+   * enough free capacity.
+   *
+   * @throws InterruptedIOException if interrupted while waiting for free capacity
+   */
+  public ByteBuffer acquire(int size) throws InterruptedIOException {
+    return acquire(size, /* timeoutNanos= */ Long.MAX_VALUE);
+  }
+
+  /**
+   * Borrows a cleared buffer of the specified capacity from the pool, waiting at most the specified
+   * time for the pool to have enough free capacity.
+   *
+   * @return borrowed buffer, or {@code null} if the pool didn't have enough free capacity in time
+   * @throws InterruptedIOException if interrupted while waiting for free capacity
+   */
+  @Nullable
+  public ByteBuffer tryAcquire(int size, Duration timeout) throws InterruptedIOException {
+    return acquire(size, timeout.toNanos());
+  }
+
+  @Nullable
+  private ByteBuffer acquire(int size, long timeoutNanos) throws InterruptedIOException {
+    checkArgument(
+        size > 0 && size <= capacity,
+        "size must be positive and not exceed %s pool capacity, but was %s",
+        capacity,
+        size);
+    synchronized (this) {
+      long deadlineNanos = System.nanoTime() + timeoutNanos;
+      while (usedBytes + size > capacity) {
+        try {
+          if (timeoutNanos == Long.MAX_VALUE) {
+            wait();
+          } else {
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+              return null;
+            }
+            NANOSECONDS.timedWait(this, remainingNanos);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw (InterruptedIOException)
+              new InterruptedIOException("Interrupted while waiting for buffer").initCause(e);
+        }
+      }
+      usedBytes += size;
+
+      Deque<ByteBuffer> buffers = cachedBuffers.get(size);
+      ByteBuffer buffer = buffers == null ? null : buffers.poll();
+      if (buffer != null) {
+        cachedBytes -= size;
+        buffer.clear();
+        return buffer;
+      }
+      evictCachedBuffers();
+    }
+    return ByteBuffer.allocateDirect(size);
+  }
+
+  /** Returns a buffer acquired from this pool back to the pool. */
+  public void release(ByteBuffer buffer) {
+    int size = buffer.capacity();
+    synchronized (this) {
+      checkArgument(size <= usedBytes, "buffer is not borrowed from this pool: %s", buffer);
+      usedBytes -= size;
+      cachedBytes += size;
+      cachedBuffers.computeIfAbsent(size, s -> new ArrayDeque<>()).add(buffer);
+      notifyAll();
+    }
+  }
+
+  /** Drops cached buffers until borrowed and cached buffers fit into the pool capacity. */
+  private void evictCachedBuffers() {
+    Iterator<Deque<ByteBuffer>> it = cachedBuffers.values().iterator();
+    while (usedBytes + cachedBytes > capacity && it.hasNext()) {
+      Deque<ByteBuffer> buffers = it.next();
+      while (usedBytes + cachedBytes > capacity && !buffers.isEmpty()) {
+        cachedBytes -= buffers.poll().capacity();
+      }
+      if (buffers.isEmpty()) {
+        it.remove();
+      }
+    }
+  }
+}
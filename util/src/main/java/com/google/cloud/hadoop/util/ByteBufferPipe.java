@@ -0,0 +1,441 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+
+/**
+ * A pipe that hands off data from a writer thread to a reader thread through a bounded queue of
+ * pooled {@link ByteBuffer}s.
+ *
+ * <p>Writer copies data into a pooled buffer and, once the buffer is full or the sink is closed,
+ * enqueues it for the reader. Reader can consume enqueued buffers directly via {@link
+ * Source#readBuffer}, or through the regular {@link InputStream} API. Consumed buffers are returned
+ * to the pool, and the writer blocks when all pooled buffers are in use, so the pipe holds at most
+ * {@code bufferCount * bufferSize} bytes. Buffers could be borrowed from a shared {@link
+ * BufferPool} instead of being allocated by the pipe, in this case they are returned to the pool as
+ * soon as they are consumed. When the shared pool is exhausted, the writer hands off its partially
+ * filled buffer to the reader after each write, so idle pipes don't hold pooled buffers, and it
+ * allocates a buffer itself if the pool doesn't return one in {@link
+ * BufferPool#DEFAULT_ACQUIRE_TIMEOUT}.
+ *
+ * <p>In contrast to {@link java.io.PipedInputStream}, waiting threads are signaled as soon as data
+ * or space becomes available instead of polling.
+ */
+public final class ByteBufferPipe {
+
+  // Marks position in the filled buffers queue up to which data was flushed by the writer.
+  private static final ByteBuffer FLUSH_MARKER = ByteBuffer.allocate(0);
+
+  private final int bufferSize;
+  private final int bufferCount;
+  @Nullable private final BufferPool bufferPool;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition bufferFilled = lock.newCondition();
+  private final Condition bufferFreed = lock.newCondition();
+
+  // Buffers with data, in the order in which they were written. Guarded by lock.
+  private final Queue<ByteBuffer> filledBuffers = new ArrayDeque<>();
+  // Buffers that could be reused by the writer. Guarded by lock.
+  private final Queue<ByteBuffer> freeBuffers = new ArrayDeque<>();
+  // Number of buffers allocated by this pipe, or borrowed from the pool. Guarded by lock.
+  private int allocatedBuffers = 0;
+  private boolean sinkClosed = false;
+  private boolean sourceClosed = false;
+
+  private final Sink sink = new Sink();
+  private final Source source = new Source();
+
+  /**
+   * Creates a new pipe.
+   *
+   * @param bufferSize size of each pooled buffer in bytes
+   * @param bufferCount maximum number of pooled buffers
+   */
+  public ByteBufferPipe(int bufferSize, int bufferCount) {
+    this(bufferSize, bufferCount, /* bufferPool= */ null);
+  }
+
+  /**
+   * Creates a new pipe that borrows its buffers from the specified pool.
+   *
+   * @param bufferSize size of each pooled buffer in bytes
+   * @param bufferCount maximum number of buffers borrowed by this pipe
+   * @param bufferPool pool to borrow buffers from, or {@code null} to allocate buffers by the pipe
+   */
+  public ByteBufferPipe(int bufferSize, int bufferCount, @Nullable BufferPool bufferPool) {
+    checkArgument(bufferSize > 0, "bufferSize must be positive, but was %s", bufferSize);
+    checkArgument(bufferCount > 0, "bufferCount must be positive, but was %s", bufferCount);
+    this.bufferSize = bufferSize;
+    this.bufferCount = bufferCount;
+    this.bufferPool = bufferPool;
+  }
+
+  /** Returns write end of this pipe. */
+  public Sink sink() {
+    return sink;
+  }
+
+  /** Returns read end of this pipe. */
+  public Source source() {
+    return source;
+  }
+
+  private ByteBuffer takeFreeBuffer() throws IOException {
+    lockInterruptibly();
+    try {
+      while (freeBuffers.isEmpty() && allocatedBuffers >= bufferCount && !sourceClosed) {
+        await(bufferFreed);
+      }
+      if (sourceClosed) {
+        throw new IOException("Pipe closed by reader");
+      }
+      ByteBuffer buffer = freeBuffers.poll();
+      if (buffer != null) {
+        return buffer;
+      }
+      allocatedBuffers++;
+      if (bufferPool == null) {
+        return ByteBuffer.allocate(bufferSize);
+      }
+    } finally {
+      lock.unlock();
+    }
+    // Do not hold the lock while waiting for the pool, so the reader could return buffers
+    boolean acquired = false;
+    try {
+      ByteBuffer buffer = bufferPool.tryAcquire(bufferSize, BufferPool.DEFAULT_ACQUIRE_TIMEOUT);
+      acquired = true;
+      // Pool could be exhausted by buffers that are held by other pipes of the same writer thread,
+      // allocate a heap buffer instead of waiting for them indefinitely.
+      return buffer == null ? ByteBuffer.allocate(bufferSize) : buffer;
+    } finally {
+      if (!acquired) {
+        lock.lock();
+        try {
+          allocatedBuffers--;
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  /** Returns consumed or not used buffer for reuse. Must be called under the lock. */
+  private void recycleBuffer(ByteBuffer buffer) {
+    if (buffer == FLUSH_MARKER) {
+      return;
+    }
+    if (!isPooled(buffer)) {
+      buffer.clear();
+      freeBuffers.add(buffer);
+    } else {
+      allocatedBuffers--;
+      bufferPool.release(buffer);
+    }
+    bufferFreed.signal();
+  }
+
+  /** Returns true if the buffer is borrowed from the pool, pooled buffers are direct. */
+  private boolean isPooled(ByteBuffer buffer) {
+    return bufferPool != null && buffer.isDirect();
+  }
+
+  private void recycleBufferWithLock(ByteBuffer buffer) {
+    lock.lock();
+    try {
+      recycleBuffer(buffer);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void putFilledBuffer(ByteBuffer buffer) throws IOException {
+    lock.lock();
+    try {
+      if (sourceClosed) {
+        recycleBuffer(buffer);
+        throw new IOException("Pipe closed by reader");
+      }
+      buffer.flip();
+      filledBuffers.add(buffer);
+      bufferFilled.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void lockInterruptibly() throws InterruptedIOException {
+    try {
+      lock.lockInterruptibly();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (InterruptedIOException)
+          new InterruptedIOException("Interrupted while accessing pipe").initCause(e);
+    }
+  }
+
+  private static void await(Condition condition) throws InterruptedIOException {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (InterruptedIOException)
+          new InterruptedIOException("Interrupted while waiting on pipe").initCause(e);
+    }
+  }
+
+  /** Write end of the pipe. */
+  public final class Sink implements WritableByteChannel {
+
+    // Buffer that is being filled by the writer, it is not visible to the reader.
+    private ByteBuffer currentBuffer;
+
+    private Sink() {}
+
+    /**
+     * Makes all data written so far available to the reader, even if the current buffer is not
+     * full, and marks a flush point at which {@link Source#readBuffer} returns an empty buffer.
+     */
+    public void flush() throws IOException {
+      if (!isOpen()) {
+        throw new ClosedChannelException();
+      }
+      if (currentBuffer != null && currentBuffer.position() > 0) {
+        ByteBuffer filledBuffer = currentBuffer;
+        currentBuffer = null;
+        putFilledBuffer(filledBuffer);
+      }
+      lock.lock();
+      try {
+        if (sourceClosed) {
+          throw new IOException("Pipe closed by reader");
+        }
+        filledBuffers.add(FLUSH_MARKER);
+        bufferFilled.signal();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (!isOpen()) {
+        throw new ClosedChannelException();
+      }
+      int bytesWritten = src.remaining();
+      while (src.hasRemaining()) {
+        if (currentBuffer == null) {
+          currentBuffer = takeFreeBuffer();
+        }
+        if (src.remaining() <= currentBuffer.remaining()) {
+          currentBuffer.put(src);
+        } else {
+          ByteBuffer slice = src.slice();
+          slice.limit(currentBuffer.remaining());
+          currentBuffer.put(slice);
+          src.position(src.position() + slice.position());
+        }
+        if (!currentBuffer.hasRemaining()) {
+          ByteBuffer filledBuffer = currentBuffer;
+          currentBuffer = null;
+          putFilledBuffer(filledBuffer);
+        }
+      }
+      // The pipe could be idle until the next write, so do not hold partially filled pooled
+      // buffer if other pipes need pool capacity.
+      if (currentBuffer != null
+          && isPooled(currentBuffer)
+          && !bufferPool.hasFreeCapacity(bufferSize)) {
+        ByteBuffer filledBuffer = currentBuffer;
+        currentBuffer = null;
+        putFilledBuffer(filledBuffer);
+      }
+      return bytesWritten;
+    }
+
+    @Override
+    public boolean isOpen() {
+      lock.lock();
+      try {
+        return !sinkClosed;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!isOpen()) {
+        return;
+      }
+      try {
+        if (currentBuffer != null) {
+          if (currentBuffer.position() > 0) {
+            putFilledBuffer(currentBuffer);
+          } else {
+            recycleBufferWithLock(currentBuffer);
+          }
+        }
+      } finally {
+        currentBuffer = null;
+        lock.lock();
+        try {
+          sinkClosed = true;
+          bufferFilled.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  /** Read end of the pipe. */
+  public final class Source extends InputStream {
+
+    // Buffer that is being consumed by the reader.
+    private ByteBuffer currentBuffer;
+
+    // Whether the last call to nextBuffer stopped at a flush point.
+    private boolean flushPointReached = false;
+
+    private Source() {}
+
+    /**
+     * Returns next up to {@code maxBytes} of data from the pipe without copying it, blocking until
+     * data is available.
+     *
+     * <p>Returned buffer is read-only and valid only until the next read from this source, because
+     * after that it could be reused by the writer.
+     *
+     * @return buffer with the data, empty buffer if all data written before {@link Sink#flush} was
+     *     read, or {@code null} if the end of the stream is reached
+     */
+    @Nullable
+    public ByteBuffer readBuffer(int maxBytes) throws IOException {
+      checkArgument(maxBytes > 0, "maxBytes must be positive, but was %s", maxBytes);
+      if (!nextBuffer(/* stopAtFlushPoint= */ true)) {
+        if (flushPointReached) {
+          flushPointReached = false;
+          return FLUSH_MARKER.asReadOnlyBuffer();
+        }
+        return null;
+      }
+      ByteBuffer data = currentBuffer.asReadOnlyBuffer();
+      data.limit(data.position() + Math.min(maxBytes, data.remaining()));
+      currentBuffer.position(data.limit());
+      return data;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return nextBuffer(/* stopAtFlushPoint= */ false) ? currentBuffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!nextBuffer(/* stopAtFlushPoint= */ false)) {
+        return -1;
+      }
+      int bytesToRead = Math.min(len, currentBuffer.remaining());
+      currentBuffer.get(b, off, bytesToRead);
+      return bytesToRead;
+    }
+
+    @Override
+    public int available() {
+      return currentBuffer == null ? 0 : currentBuffer.remaining();
+    }
+
+    @Override
+    public void close() {
+      lock.lock();
+      try {
+        if (sourceClosed) {
+          return;
+        }
+        sourceClosed = true;
+        if (currentBuffer != null) {
+          recycleBuffer(currentBuffer);
+          currentBuffer = null;
+        }
+        while (!filledBuffers.isEmpty()) {
+          recycleBuffer(filledBuffers.poll());
+        }
+        freeBuffers.clear();
+        bufferFreed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Makes sure that {@link #currentBuffer} has remaining data, returns consumed buffer to the
+     * pool and waits for the next one if necessary.
+     *
+     * @param stopAtFlushPoint whether to stop at the flush point instead of skipping it
+     * @return {@code false} if the end of the stream or a flush point is reached
+     */
+    private boolean nextBuffer(boolean stopAtFlushPoint) throws IOException {
+      if (currentBuffer != null && currentBuffer.hasRemaining()) {
+        return true;
+      }
+      lockInterruptibly();
+      try {
+        if (sourceClosed) {
+          throw new IOException("Pipe closed");
+        }
+        if (currentBuffer != null) {
+          recycleBuffer(currentBuffer);
+          currentBuffer = null;
+        }
+        while (true) {
+          while (filledBuffers.isEmpty() && !sinkClosed) {
+            await(bufferFilled);
+          }
+          ByteBuffer buffer = filledBuffers.poll();
+          if (buffer != FLUSH_MARKER) {
+            currentBuffer = buffer;
+            return currentBuffer != null;
+          }
+          if (stopAtFlushPoint) {
+            flushPointReached = true;
+            return false;
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
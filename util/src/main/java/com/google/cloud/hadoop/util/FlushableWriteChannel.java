@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.util;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/** A write channel that could persist written data without finalizing the upload. */
+public interface FlushableWriteChannel extends WritableByteChannel {
+
+  /** Returns true if {@link #flush} is supported by this channel. */
+  boolean isFlushSupported();
+
+  /**
+   * Uploads all data written to this channel so far without finalizing the upload, and waits until
+   * it is persisted. Flushed data is not visible to readers until the channel is closed.
+   *
+   * @throws UnsupportedOperationException if flush is not supported, see {@link #isFlushSupported}
+   * @throws IOException on IO error
+   */
+  void flush() throws IOException;
+}
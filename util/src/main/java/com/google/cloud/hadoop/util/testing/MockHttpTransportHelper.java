@@ -42,6 +42,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 /** Utility methods for testing with {@link MockHttpTransport} */
@@ -106,7 +107,8 @@ public final class MockHttpTransportHelper {
 
   public static MockHttpTransport mockTransport(Object... responsesIn) {
     return new MockHttpTransport() {
-      int responsesIndex = 0;
+      // Requests could be executed concurrently, so responses index should be thread-safe.
+      final AtomicInteger responsesIndex = new AtomicInteger();
       final Object[] responses = responsesIn;
 
       @Override
@@ -114,7 +116,7 @@ public final class MockHttpTransportHelper {
         return new MockLowLevelHttpRequest() {
           @Override
           public LowLevelHttpResponse execute() throws IOException {
-            Object response = responses[responsesIndex++];
+            Object response = responses[responsesIndex.getAndIncrement()];
             if (response instanceof IOException) {
               throw (IOException) response;
             }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.io.ByteStreams;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BufferPool}. */
+@RunWith(JUnit4.class)
+public class BufferPoolTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void acquire_returnsDirectBufferAndReusesReleasedBuffer() throws Exception {
+    BufferPool pool = new BufferPool(/* capacity= */ 100);
+
+    ByteBuffer buffer = pool.acquire(10);
+    assertThat(buffer.isDirect()).isTrue();
+    assertThat(buffer.capacity()).isEqualTo(10);
+    assertThat(pool.getUsedBytes()).isEqualTo(10);
+
+    buffer.put((byte) 1);
+    pool.release(buffer);
+    assertThat(pool.getUsedBytes()).isEqualTo(0);
+
+    ByteBuffer reusedBuffer = pool.acquire(10);
+    assertThat(reusedBuffer).isSameInstanceAs(buffer);
+    assertThat(reusedBuffer.position()).isEqualTo(0);
+    assertThat(reusedBuffer.remaining()).isEqualTo(10);
+  }
+
+  @Test
+  public void acquire_blocksUntilCapacityIsReleased() throws Exception {
+    BufferPool pool = new BufferPool(/* capacity= */ 100);
+    ByteBuffer buffer = pool.acquire(60);
+
+    Future<ByteBuffer> blockedAcquire = executor.submit(() -> pool.acquire(60));
+
+    assertThrows(TimeoutException.class, () -> blockedAcquire.get(100, TimeUnit.MILLISECONDS));
+
+    pool.release(buffer);
+    assertThat(blockedAcquire.get(10, TimeUnit.SECONDS).capacity()).isEqualTo(60);
+    assertThat(pool.getUsedBytes()).isEqualTo(60);
+  }
+
+  @Test
+  public void tryAcquire_poolExhausted_returnsNullAfterTimeout() throws Exception {
+    BufferPool pool = new BufferPool(/* capacity= */ 100);
+    ByteBuffer buffer = pool.acquire(60);
+
+    assertThat(pool.hasFreeCapacity(60)).isFalse();
+    assertThat(pool.tryAcquire(60, Duration.ofMillis(10))).isNull();
+    assertThat(pool.getUsedBytes()).isEqualTo(60);
+
+    pool.release(buffer);
+    assertThat(pool.hasFreeCapacity(60)).isTrue();
+    assertThat(pool.tryAcquire(60, Duration.ofMillis(10))).isSameInstanceAs(buffer);
+  }
+
+  @Test
+  public void acquire_evictsCachedBuffersOfOtherSize() throws Exception {
+    BufferPool pool = new BufferPool(/* capacity= */ 100);
+    ByteBuffer buffer = pool.acquire(60);
+    pool.release(buffer);
+
+    ByteBuffer otherBuffer = pool.acquire(80);
+
+    assertThat(otherBuffer).isNotSameInstanceAs(buffer);
+    assertThat(otherBuffer.capacity()).isEqualTo(80);
+    assertThat(pool.getUsedBytes()).isEqualTo(80);
+  }
+
+  @Test
+  public void acquire_sizeLargerThanCapacity_throwsException() {
+    BufferPool pool = new BufferPool(/* capacity= */ 100);
+
+    assertThrows(IllegalArgumentException.class, () -> pool.acquire(101));
+  }
+
+  @Test
+  public void byteBufferPipe_returnsConsumedBuffersToPool() throws Exception {
+    BufferPool pool = new BufferPool(/* capacity= */ 8);
+    ByteBufferPipe pipe =
+        new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 4, /* bufferPool= */ pool);
+
+    Future<?> write = executor.submit(() -> pipe.sink().write(ByteBuffer.wrap(new byte[16])));
+
+    // Pool capacity is enough only for 2 buffers
+    assertThrows(TimeoutException.class, () -> write.get(100, TimeUnit.MILLISECONDS));
+    assertThat(pool.getUsedBytes()).isEqualTo(8);
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(pipe.source().readBuffer(4).remaining()).isEqualTo(4);
+    }
+    write.get(10, TimeUnit.SECONDS);
+    pipe.sink().close();
+    assertThat(pipe.source().read()).isEqualTo(-1);
+    assertThat(pool.getUsedBytes()).isEqualTo(0);
+  }
+
+  @Test
+  public void byteBufferPipe_singleWriterToMorePipesThanPoolCapacity_doesNotBlock()
+      throws Exception {
+    // Pool capacity is enough only for 2 buffers
+    BufferPool pool = new BufferPool(/* capacity= */ 8);
+    int pipeCount = 5;
+    List<ByteBufferPipe> pipes = new ArrayList<>();
+    List<Future<byte[]>> reads = new ArrayList<>();
+    for (int i = 0; i < pipeCount; i++) {
+      ByteBufferPipe pipe =
+          new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 2, /* bufferPool= */ pool);
+      pipes.add(pipe);
+      reads.add(executor.submit(() -> ByteStreams.toByteArray(pipe.source())));
+    }
+
+    // Single thread writes round-robin to all pipes, leaving partially filled buffers
+    Future<?> write =
+        executor.submit(
+            () -> {
+              for (int round = 0; round < 3; round++) {
+                for (ByteBufferPipe pipe : pipes) {
+                  pipe.sink().write(ByteBuffer.wrap(new byte[] {(byte) round}));
+                }
+              }
+              for (ByteBufferPipe pipe : pipes) {
+                pipe.sink().close();
+              }
+              return null;
+            });
+
+    // Timeout is shorter than pool acquire timeout, so writer did not wait for the pool
+    write.get(BufferPool.DEFAULT_ACQUIRE_TIMEOUT.toMillis() / 2, TimeUnit.MILLISECONDS);
+    for (Future<byte[]> read : reads) {
+      assertThat(read.get(10, TimeUnit.SECONDS)).isEqualTo(new byte[] {0, 1, 2});
+    }
+    assertThat(pool.getUsedBytes()).isEqualTo(0);
+  }
+}
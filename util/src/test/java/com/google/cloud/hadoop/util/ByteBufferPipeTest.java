@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 Google LLC. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.hadoop.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ByteBufferPipe}. */
+@RunWith(JUnit4.class)
+public class ByteBufferPipeTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void readAll_returnsWrittenData() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 100, /* bufferCount= */ 2);
+    byte[] data = new byte[10_000];
+    new Random().nextBytes(data);
+
+    Future<byte[]> readData = executor.submit(() -> ByteStreams.toByteArray(pipe.source()));
+    for (int i = 0; i < data.length; i += 333) {
+      pipe.sink().write(ByteBuffer.wrap(data, i, Math.min(333, data.length - i)));
+    }
+    pipe.sink().close();
+
+    assertThat(readData.get(10, TimeUnit.SECONDS)).isEqualTo(data);
+  }
+
+  @Test
+  public void readBuffer_returnsBufferedDataWithoutCopying() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 2);
+
+    pipe.sink().write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6}));
+    pipe.sink().close();
+
+    ByteBuffer buffer = pipe.source().readBuffer(3);
+    assertThat(buffer.isReadOnly()).isTrue();
+    assertThat(toArray(buffer)).isEqualTo(new byte[] {1, 2, 3});
+    assertThat(toArray(pipe.source().readBuffer(3))).isEqualTo(new byte[] {4});
+    assertThat(toArray(pipe.source().readBuffer(3))).isEqualTo(new byte[] {5, 6});
+    assertThat(pipe.source().readBuffer(3)).isNull();
+  }
+
+  @Test
+  public void flush_makesPartialBufferAvailableAndMarksFlushPoint() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 3);
+
+    pipe.sink().write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+    pipe.sink().flush();
+    pipe.sink().write(ByteBuffer.wrap(new byte[] {6}));
+    pipe.sink().close();
+
+    assertThat(toArray(pipe.source().readBuffer(8))).isEqualTo(new byte[] {1, 2, 3, 4});
+    assertThat(toArray(pipe.source().readBuffer(8))).isEqualTo(new byte[] {5});
+    assertThat(pipe.source().readBuffer(8).hasRemaining()).isFalse();
+    assertThat(toArray(pipe.source().readBuffer(8))).isEqualTo(new byte[] {6});
+    assertThat(pipe.source().readBuffer(8)).isNull();
+  }
+
+  @Test
+  public void read_skipsFlushPoints() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 2);
+
+    pipe.sink().write(ByteBuffer.wrap(new byte[] {1, 2}));
+    pipe.sink().flush();
+    pipe.sink().flush();
+    pipe.sink().write(ByteBuffer.wrap(new byte[] {3}));
+    pipe.sink().close();
+
+    assertThat(ByteStreams.toByteArray(pipe.source())).isEqualTo(new byte[] {1, 2, 3});
+  }
+
+  @Test
+  public void write_blocksUntilBuffersAreConsumed() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 2);
+
+    Future<?> write = executor.submit(() -> pipe.sink().write(ByteBuffer.wrap(new byte[12])));
+
+    assertThrows(TimeoutException.class, () -> write.get(100, TimeUnit.MILLISECONDS));
+
+    assertThat(pipe.source().readBuffer(4).remaining()).isEqualTo(4);
+    assertThat(pipe.source().readBuffer(4).remaining()).isEqualTo(4);
+    write.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void write_failsAfterSourceIsClosed() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 1);
+
+    Future<?> write = executor.submit(() -> pipe.sink().write(ByteBuffer.wrap(new byte[12])));
+    pipe.source().close();
+
+    Exception e = assertThrows(Exception.class, () -> write.get(10, TimeUnit.SECONDS));
+    assertThat(e).hasCauseThat().isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void write_failsAfterSinkIsClosed() throws Exception {
+    ByteBufferPipe pipe = new ByteBufferPipe(/* bufferSize= */ 4, /* bufferCount= */ 1);
+
+    pipe.sink().close();
+
+    assertThat(pipe.sink().isOpen()).isFalse();
+    assertThrows(
+        ClosedChannelException.class, () -> pipe.sink().write(ByteBuffer.wrap(new byte[1])));
+    assertThat(pipe.source().read()).isEqualTo(-1);
+  }
+
+  private static byte[] toArray(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+}